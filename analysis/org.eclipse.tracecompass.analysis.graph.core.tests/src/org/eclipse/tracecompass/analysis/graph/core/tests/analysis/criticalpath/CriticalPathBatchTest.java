@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.analysis.graph.core.tests.analysis.criticalpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.tracecompass.analysis.graph.core.base.IGraphWorker;
+import org.eclipse.tracecompass.analysis.graph.core.base.TmfEdge.EdgeType;
+import org.eclipse.tracecompass.analysis.graph.core.base.TmfGraph;
+import org.eclipse.tracecompass.analysis.graph.core.base.TmfVertex;
+import org.eclipse.tracecompass.analysis.graph.core.criticalpath.CriticalPathAlgorithmException;
+import org.eclipse.tracecompass.analysis.graph.core.criticalpath.CriticalPathBatch;
+import org.eclipse.tracecompass.analysis.graph.core.criticalpath.CriticalPathBatch.Blame;
+import org.eclipse.tracecompass.analysis.graph.core.criticalpath.CriticalPathBatch.Request;
+import org.eclipse.tracecompass.analysis.graph.core.tests.stubs.GraphBuilder;
+import org.eclipse.tracecompass.analysis.graph.core.tests.stubs.GraphFactory;
+import org.eclipse.tracecompass.analysis.graph.core.tests.stubs.GraphOps;
+import org.eclipse.tracecompass.internal.analysis.graph.core.base.TmfGraphStatistics;
+import org.eclipse.tracecompass.internal.analysis.graph.core.criticalpath.CriticalPathAlgorithmBounded;
+import org.junit.Test;
+
+/**
+ * Test the {@link CriticalPathBatch}, the critical paths computed in batch
+ * must be the same as the ones computed one at a time
+ */
+public class CriticalPathBatchTest {
+
+    private static final GraphBuilder[] GRAPHS = {
+            GraphFactory.GRAPH_BASIC,
+            GraphFactory.GRAPH_WAKEUP_SELF,
+            GraphFactory.GRAPH_WAKEUP_MISSING,
+            GraphFactory.GRAPH_WAKEUP_UNKNOWN,
+            GraphFactory.GRAPH_WAKEUP_NEW,
+            GraphFactory.GRAPH_OPENED_DELAY,
+            GraphFactory.GRAPH_OPENED,
+            GraphFactory.GRAPH_WAKEUP_MUTUAL,
+            GraphFactory.GRAPH_WAKEUP_EMBEDDED,
+            GraphFactory.GRAPH_WAKEUP_INTERLEAVE,
+            GraphFactory.GRAPH_NESTED,
+            GraphFactory.GRAPH_NET1
+    };
+
+    /**
+     * Compute the critical paths of all the workers of the test graphs in
+     * batch and compare them with the paths computed sequentially
+     *
+     * @throws CriticalPathAlgorithmException
+     *             if a sequential computation fails
+     */
+    @Test
+    public void testBatch() throws CriticalPathAlgorithmException {
+        for (GraphBuilder builder : GRAPHS) {
+            TmfGraph graph = builder.build();
+            List<Request> requests = new ArrayList<>();
+            for (IGraphWorker worker : graph.getWorkers()) {
+                requests.add(new Request(worker, Long.MIN_VALUE, Long.MAX_VALUE));
+            }
+
+            CriticalPathBatch.Result result = new CriticalPathBatch(graph, 4).compute(requests, new NullProgressMonitor());
+            assertEquals(builder.getName(), requests.size(), result.getCriticalPaths().size());
+
+            long total = 0;
+            for (Request request : requests) {
+                TmfVertex head = graph.getHead(request.getWorker());
+                assertNotNull(head);
+                TmfGraph expected = new CriticalPathAlgorithmBounded(graph).compute(head, null);
+                TmfGraph actual = result.getCriticalPaths().get(request);
+                assertNotNull(actual);
+                GraphOps.checkEquality(expected, actual);
+
+                /* The blame is the time of the path on each worker */
+                Blame blame = result.getBlames().get(request);
+                assertNotNull(blame);
+                TmfGraphStatistics stats = new TmfGraphStatistics();
+                stats.computeGraphStatistics(actual, request.getWorker());
+                for (IGraphWorker worker : actual.getWorkers()) {
+                    assertEquals(stats.getSum(worker), blame.getWorkerDurations().getOrDefault(worker, 0L));
+                }
+                long typeTotal = blame.getTypeDurations().values().stream().mapToLong(Long::longValue).sum();
+                assertEquals(stats.getSum().longValue(), typeTotal);
+                total += typeTotal;
+            }
+            long aggregated = result.getTotalBlame().getTypeDurations().values().stream().mapToLong(Long::longValue).sum();
+            assertEquals(total, aggregated);
+        }
+    }
+
+    /**
+     * Test critical paths limited to a time range
+     */
+    @Test
+    public void testTimeRange() {
+        TmfGraph graph = GraphFactory.GRAPH_WAKEUP_SELF.build();
+        IGraphWorker worker = GraphFactory.Actor0;
+        TmfVertex head = graph.getHead(worker);
+        TmfVertex tail = graph.getTail(worker);
+        assertNotNull(head);
+        assertNotNull(tail);
+
+        Request full = new Request(worker, head.getTs(), tail.getTs() + 1);
+        Request partial = new Request(worker, head.getTs(), head.getTs() + 1);
+        Request empty = new Request(worker, tail.getTs() + 1, tail.getTs() + 10);
+        List<Request> requests = new ArrayList<>();
+        requests.add(full);
+        requests.add(partial);
+        requests.add(empty);
+        CriticalPathBatch.Result result = new CriticalPathBatch(graph).compute(requests, new NullProgressMonitor());
+
+        Map<Request, TmfGraph> paths = result.getCriticalPaths();
+        assertEquals(3, paths.size());
+        TmfGraph fullPath = paths.get(full);
+        TmfGraph partialPath = paths.get(partial);
+        assertNotNull(fullPath);
+        assertNotNull(partialPath);
+        assertTrue(partialPath.size() < fullPath.size());
+        assertEquals(0, paths.get(empty).size());
+        Map<EdgeType, Long> types = result.getBlames().get(empty).getTypeDurations();
+        assertTrue(types.isEmpty());
+        assertFalse(result.getTotalBlame().getWorkerDurations().isEmpty());
+    }
+}
@@ -10,14 +10,22 @@
 package org.eclipse.tracecompass.analysis.graph.core.tests.analysis.criticalpath;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.TreeSet;
+
+import org.eclipse.tracecompass.analysis.graph.core.base.IGraphWorker;
 import org.eclipse.tracecompass.analysis.graph.core.base.TmfGraph;
 import org.eclipse.tracecompass.analysis.graph.core.base.TmfVertex;
 import org.eclipse.tracecompass.analysis.graph.core.criticalpath.CriticalPathAlgorithmException;
 import org.eclipse.tracecompass.analysis.graph.core.criticalpath.ICriticalPathAlgorithm;
 import org.eclipse.tracecompass.analysis.graph.core.tests.stubs.GraphBuilder;
+import org.eclipse.tracecompass.analysis.graph.core.tests.stubs.GraphFactory;
+import org.eclipse.tracecompass.analysis.graph.core.tests.stubs.GraphOps;
 import org.eclipse.tracecompass.internal.analysis.graph.core.criticalpath.CriticalPathAlgorithmBounded;
+import org.eclipse.tracecompass.internal.analysis.graph.core.criticalpath.CriticalPathAlgorithmBounded.PartialPath;
+import org.junit.Test;
 
 /**
  * Test the {@link CriticalPathAlgorithmBounded} critical path algorithm
@@ -44,4 +52,40 @@ public class TmfCriticalPathAlgoBoundedTest extends TmfCriticalPathAlgorithmTest
         return builder.criticalPathBounded();
     }
 
+    /**
+     * Test that a critical path extended to each time of the graph in turn is
+     * the same as the one computed at once
+     *
+     * @throws CriticalPathAlgorithmException
+     *             If the path cannot be computed. Fails the test.
+     */
+    @Test
+    public void testPartialPath() throws CriticalPathAlgorithmException {
+        testPartialPath(GraphFactory.GRAPH_BASIC, null);
+        testPartialPath(GraphFactory.GRAPH_WAKEUP_MUTUAL, null);
+        testPartialPath(GraphFactory.GRAPH_NESTED, GraphFactory.Actor0);
+        testPartialPath(GraphFactory.GRAPH_WAKEUP_EMBEDDED, GraphFactory.Actor0);
+        testPartialPath(GraphFactory.GRAPH_NET1, GraphFactory.Actor0);
+    }
+
+    private static void testPartialPath(GraphBuilder builder, IGraphWorker obj) throws CriticalPathAlgorithmException {
+        TmfGraph main = builder.build();
+        assertNotNull(main);
+        TmfVertex head = (obj == null) ? main.getHead() : main.getHead(obj);
+        assertNotNull(head);
+
+        TreeSet<Long> times = new TreeSet<>();
+        for (IGraphWorker worker : main.getWorkers()) {
+            main.getNodesOf(worker).forEach(vertex -> times.add(vertex.getTs()));
+        }
+        PartialPath path = new CriticalPathAlgorithmBounded(main).startPath(head);
+        int size = path.getPath().size();
+        for (long time : times) {
+            path.extend(time);
+            assertTrue(path.getPath().size() >= size);
+            size = path.getPath().size();
+        }
+        path.extend(Long.MAX_VALUE);
+        GraphOps.checkEquality(builder.criticalPathBounded(), path.getPath());
+    }
 }
@@ -14,17 +14,27 @@
 package org.eclipse.tracecompass.analysis.graph.core.tests.graph;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
-
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.tracecompass.analysis.graph.core.base.CycleDetectedException;
 import org.eclipse.tracecompass.analysis.graph.core.base.IGraphWorker;
+import org.eclipse.tracecompass.analysis.graph.core.base.IGraphWorkerSerializer;
 import org.eclipse.tracecompass.analysis.graph.core.base.ITmfGraphVisitor;
 import org.eclipse.tracecompass.analysis.graph.core.base.TmfEdge;
 import org.eclipse.tracecompass.analysis.graph.core.base.TmfEdge.EdgeType;
@@ -220,6 +230,222 @@ public class TmfGraphTest {
         }
     }
 
+    /**
+     * Test that the vertices and edges obtained from the graph are equal to
+     * the ones used to build it, and that changes to the edges are kept in
+     * the graph
+     */
+    @Test
+    public void testVerticesFromGraph() {
+        fGraph.append(WORKER1, fV0);
+        TmfVertex v2 = new TmfVertex(2);
+        TmfVertex v3 = new TmfVertex(3);
+        fGraph.append(WORKER2, v2);
+        TmfEdge edge = fGraph.append(WORKER1, fV1, EdgeType.RUNNING, "run");
+        assertNotNull(edge);
+        TmfEdge vertical = fGraph.link(fV1, v3, EdgeType.NETWORK, "packet");
+        assertEquals(WORKER1, fGraph.getParentOf(v3));
+        assertEquals(4, fGraph.size());
+
+        /* Vertices from the graph are equal to the original ones */
+        TmfVertex head = fGraph.getHead(WORKER1);
+        assertNotNull(head);
+        assertEquals(fV0, head);
+        assertEquals(fV0.hashCode(), head.hashCode());
+        assertEquals(WORKER1, fGraph.getParentOf(head));
+        TmfEdge outgoing = head.getEdge(EdgeDirection.OUTGOING_HORIZONTAL_EDGE);
+        assertNotNull(outgoing);
+        assertEquals(edge, outgoing);
+        assertEquals(EdgeType.RUNNING, outgoing.getType());
+        assertEquals("run", outgoing.getLinkQualifier());
+        assertEquals(fV1, outgoing.getVertexTo());
+
+        /* Changes to an edge are seen from all its objects */
+        outgoing.setType(EdgeType.BLOCKED);
+        assertEquals(EdgeType.BLOCKED, edge.getType());
+        assertEquals("run", edge.getLinkQualifier());
+
+        /* The link to v3 in the same worker replaced the tail link */
+        assertEquals(vertical, fV1.getEdge(EdgeDirection.OUTGOING_HORIZONTAL_EDGE));
+        assertEquals("packet", vertical.getLinkQualifier());
+        fV1.removeEdge(EdgeDirection.OUTGOING_HORIZONTAL_EDGE);
+        assertNull(fV1.getEdge(EdgeDirection.OUTGOING_HORIZONTAL_EDGE));
+        assertEquals(vertical, v3.getEdge(EdgeDirection.INCOMING_HORIZONTAL_EDGE));
+    }
+
+    /**
+     * Test the edges between a vertex of the graph and a vertex added to the
+     * graph later
+     */
+    @Test
+    public void testEdgesOutsideGraph() {
+        fGraph.append(WORKER1, fV0);
+        TmfVertex outside = new TmfVertex(5);
+        TmfEdge edge = fV0.linkVertical(outside, EdgeType.NETWORK, "packet");
+        assertNull(fGraph.getParentOf(outside));
+
+        TmfVertex head = fGraph.getHead(WORKER1);
+        assertNotNull(head);
+        assertEquals(edge, head.getEdge(EdgeDirection.OUTGOING_VERTICAL_EDGE));
+        assertEquals(edge, outside.getEdge(EdgeDirection.INCOMING_VERTICAL_EDGE));
+
+        fGraph.add(WORKER2, outside);
+        assertEquals(WORKER2, fGraph.getParentOf(outside));
+        TmfEdge fromGraph = fGraph.getNodesOf(WORKER1).get(0).getEdge(EdgeDirection.OUTGOING_VERTICAL_EDGE);
+        assertNotNull(fromGraph);
+        assertEquals(outside, fromGraph.getVertexTo());
+        assertEquals(EdgeType.NETWORK, fromGraph.getType());
+        assertEquals("packet", fromGraph.getLinkQualifier());
+        assertEquals(fromGraph, outside.getEdge(EdgeDirection.INCOMING_VERTICAL_EDGE));
+    }
+
+    /**
+     * Test querying a graph up to its safe time while another thread builds it
+     *
+     * @throws InterruptedException
+     *             if the test is interrupted
+     */
+    @Test
+    public void testQueryWhileBuilding() throws InterruptedException {
+        final int nbVertices = 100000;
+        TmfGraph graph = new TmfGraph();
+        assertEquals(Long.MIN_VALUE, graph.getSafeTime());
+        Thread builder = new Thread(() -> {
+            for (int i = 0; i < nbVertices; i++) {
+                graph.append(WORKER1, new TmfVertex(i));
+                graph.append(WORKER2, new TmfVertex(i));
+                graph.setSafeTime(i);
+            }
+            graph.closeGraph();
+        });
+        builder.start();
+
+        while (!graph.waitForDoneBuilding(1, TimeUnit.MILLISECONDS)) {
+            long safeTime = graph.getSafeTime();
+            if (safeTime < 0) {
+                continue;
+            }
+            /* The graph is complete up to the safe time */
+            TmfVertex vertex = graph.getVertexAt(TmfTimestamp.fromNanos(safeTime), WORKER2);
+            assertNotNull(vertex);
+            assertEquals(safeTime, vertex.getTs());
+            if (safeTime > 0) {
+                TmfEdge edge = vertex.getEdge(EdgeDirection.INCOMING_HORIZONTAL_EDGE);
+                assertNotNull(edge);
+                assertEquals(safeTime - 1, edge.getVertexFrom().getTs());
+            }
+            assertTrue(graph.getNodesOf(WORKER1).size() > safeTime);
+        }
+        builder.join();
+
+        assertTrue(graph.isDoneBuilding());
+        assertEquals(Long.MAX_VALUE, graph.getSafeTime());
+        assertEquals(2 * nbVertices, graph.size());
+    }
+
+    /**
+     * Test saving a graph with several segments of vertices and edges to a
+     * file and reading it back
+     *
+     * @throws IOException
+     *             if the temporary file cannot be written
+     */
+    @Test
+    public void testSaveLoad() throws IOException {
+        IGraphWorkerSerializer serializer = new IGraphWorkerSerializer() {
+            @Override
+            public void serialize(IGraphWorker worker, DataOutput output) throws IOException {
+                output.writeInt(((TestGraphWorker) worker).getValue());
+            }
+
+            @Override
+            public IGraphWorker deserialize(DataInput input) throws IOException {
+                return new TestGraphWorker(input.readInt());
+            }
+        };
+        int nb = 10000;
+        for (int i = 0; i < nb; i++) {
+            fGraph.append(WORKER1, new TmfVertex(i * 10), (i % 2 == 0) ? EdgeType.RUNNING : EdgeType.BLOCKED, (i % 3 == 0) ? "q" + (i % 4) : null);
+            if (i % 100 == 0) {
+                TmfVertex tail = fGraph.getTail(WORKER1);
+                assertNotNull(tail);
+                TmfVertex other = new TmfVertex(i * 10 + 5);
+                fGraph.append(WORKER2, other);
+                fGraph.link(tail, other, EdgeType.NETWORK, "packet");
+            }
+        }
+        fGraph.add(WORKER3, new TmfVertex(3));
+
+        File file = File.createTempFile("graph", ".graph");
+        try {
+            fGraph.save(file, serializer, 1);
+            TmfGraph loaded = TmfGraph.load(file, serializer, 1);
+            assertNotNull(loaded);
+            assertEquals(fGraph.size(), loaded.size());
+            assertEquals(fGraph.getWorkers(), loaded.getWorkers());
+            assertEquals(nb, loaded.getNodesOf(WORKER1).size());
+            assertTrue(loaded.isDoneBuilding());
+
+            /* The vertices read from the file get new IDs */
+            TmfVertex head = loaded.getHead();
+            assertNotNull(head);
+            assertEquals(0, head.getTs());
+            assertNotEquals(fGraph.getHead(), head);
+
+            /* Compare the vertices and edges around some times */
+            for (long ts : new long[] { 0, 12345, 40960, 40965, 81920, 99990, 99991 }) {
+                TmfVertex expected = fGraph.getVertexAt(TmfTimestamp.fromNanos(ts), WORKER1);
+                TmfVertex actual = loaded.getVertexAt(TmfTimestamp.fromNanos(ts), WORKER1);
+                if (expected == null) {
+                    assertNull(actual);
+                    continue;
+                }
+                assertNotNull(actual);
+                assertEquals(expected.getTs(), actual.getTs());
+                for (EdgeDirection dir : EdgeDirection.values()) {
+                    TmfEdge expectedEdge = expected.getEdge(dir);
+                    TmfEdge actualEdge = actual.getEdge(dir);
+                    if (expectedEdge == null) {
+                        assertNull(actualEdge);
+                        continue;
+                    }
+                    assertNotNull(actualEdge);
+                    assertEquals(expectedEdge.getType(), actualEdge.getType());
+                    assertEquals(expectedEdge.getLinkQualifier(), actualEdge.getLinkQualifier());
+                    assertEquals(expectedEdge.getVertexFrom().getTs(), actualEdge.getVertexFrom().getTs());
+                    assertEquals(expectedEdge.getVertexTo().getTs(), actualEdge.getVertexTo().getTs());
+                    assertEquals(fGraph.getParentOf(expectedEdge.getVertexTo()), loaded.getParentOf(actualEdge.getVertexTo()));
+                }
+            }
+
+            /* The loaded graph can still be modified */
+            TmfVertex tail = loaded.getTail(WORKER2);
+            assertNotNull(tail);
+            TmfEdge edge = loaded.append(WORKER2, new TmfVertex(nb * 10));
+            assertNotNull(edge);
+            assertEquals(tail, edge.getVertexFrom());
+            assertEquals(fGraph.size() + 1, loaded.size());
+            loaded.dispose();
+
+            /* The file is closed when the graph is disposed */
+            TmfGraph disposed = TmfGraph.load(file, serializer, 1);
+            assertNotNull(disposed);
+            disposed.dispose();
+            try {
+                disposed.getHead(WORKER1);
+                fail("The vertices cannot be read once the graph is disposed");
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+
+            /* A graph saved by another version of the provider is not read */
+            assertNull(TmfGraph.load(file, serializer, 2));
+        } finally {
+            file.delete();
+        }
+        assertNull(TmfGraph.load(file, serializer, 1));
+    }
+
     /**
      * Test the {@link TmfGraph#getTail(IGraphWorker)} and
      * {@link TmfGraph#removeTail(IGraphWorker)} methods
@@ -466,6 +692,81 @@ public class TmfGraphTest {
         n0.linkVertical(n0);
     }
 
+    /**
+     * Test that exception is thrown if a vertex of a graph is linked to
+     * another object representing the same vertex
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSelfLinkFromGraph() {
+        fGraph.add(WORKER1, fV0);
+        TmfVertex head = fGraph.getHead(WORKER1);
+        assertNotNull(head);
+        head.linkHorizontal(fV0);
+    }
+
+    /**
+     * Test that exception is thrown if a vertex of another graph is added
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddVertexOfOtherGraph() {
+        TmfGraph other = new TmfGraph();
+        other.add(WORKER1, fV0);
+        fGraph.add(WORKER2, fV0);
+    }
+
+    /**
+     * Test that exception is thrown if a vertex is added twice to a graph
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddVertexTwice() {
+        fGraph.add(WORKER1, fV0);
+        fGraph.add(WORKER2, fV0);
+    }
+
+    /**
+     * Test that a vertex removed from a graph can be added to another graph
+     */
+    @Test
+    public void testAddRemovedVertex() {
+        fGraph.append(WORKER1, fV0);
+        fGraph.append(WORKER1, fV1);
+        assertEquals(fV1, fGraph.removeTail(WORKER1));
+        TmfGraph other = new TmfGraph();
+        other.add(WORKER2, fV1);
+        assertEquals(WORKER2, other.getParentOf(fV1));
+        assertNull(fGraph.getParentOf(fV1));
+    }
+
+    /**
+     * Test that the vertices of a worker that is not in the graph is an empty
+     * list, and that getting it does not add the worker
+     */
+    @Test
+    public void testNodesOfUnknownWorker() {
+        fGraph.append(WORKER1, fV0);
+        assertTrue(fGraph.getNodesOf(WORKER2).isEmpty());
+        assertEquals(1, fGraph.getNodesOf(WORKER1).size());
+        assertNull(fGraph.getHead(WORKER2));
+        assertEquals(1, fGraph.getWorkers().size());
+    }
+
+    /**
+     * Test that the edge objects of the graph are reused, and share the vertex
+     * object they are reached from
+     */
+    @Test
+    public void testEdgeObjects() {
+        fGraph.append(WORKER1, fV0);
+        fGraph.append(WORKER1, fV1);
+        TmfVertex first = fGraph.getNodesOf(WORKER1).get(0);
+        TmfEdge edge = first.getEdge(EdgeDirection.OUTGOING_HORIZONTAL_EDGE);
+        assertNotNull(edge);
+        assertSame(first, edge.getVertexFrom());
+        assertEquals(fV1, edge.getVertexTo());
+        assertSame(edge, first.getEdge(EdgeDirection.OUTGOING_HORIZONTAL_EDGE));
+        assertSame(edge, edge.getVertexTo().getEdge(EdgeDirection.INCOMING_HORIZONTAL_EDGE));
+    }
+
     /**
      * Test that the visitor detect a cycle in horizontal links. A cycle may
      * exists only between vertices with equal timetstamps.
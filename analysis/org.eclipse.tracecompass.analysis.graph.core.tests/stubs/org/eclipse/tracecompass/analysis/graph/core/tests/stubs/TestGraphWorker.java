@@ -33,6 +33,15 @@ public class TestGraphWorker implements IGraphWorker {
         fValue = i;
     }
 
+    /**
+     * Get the integer representing this worker
+     *
+     * @return The integer value
+     */
+    public Integer getValue() {
+        return fValue;
+    }
+
     @Override
     public String getHostId() {
         return "test";
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.analysis.graph.core.base;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads the workers of a graph, so that the graph can be saved to a
+ * file with {@link TmfGraph#save} and read back with {@link TmfGraph#load}.
+ *
+ * @since 2.2
+ */
+public interface IGraphWorkerSerializer {
+
+    /**
+     * Write a worker
+     *
+     * @param worker
+     *            The worker to write
+     * @param output
+     *            The output to write to
+     * @throws IOException
+     *             If the worker cannot be written, for instance if it is not
+     *             of a type supported by this serializer
+     */
+    void serialize(IGraphWorker worker, DataOutput output) throws IOException;
+
+    /**
+     * Read a worker written by {@link #serialize(IGraphWorker, DataOutput)}
+     *
+     * @param input
+     *            The input to read from
+     * @return The worker
+     * @throws IOException
+     *             If the worker cannot be read
+     */
+    IGraphWorker deserialize(DataInput input) throws IOException;
+}
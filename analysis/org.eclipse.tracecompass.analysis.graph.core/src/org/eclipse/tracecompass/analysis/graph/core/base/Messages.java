@@ -25,6 +25,8 @@ public class Messages extends NLS {
 
     public static @Nullable String TmfGraph_FromNotInGraph;
 
+    public static @Nullable String TmfGraph_VertexInGraph;
+
     public static @Nullable String TmfVertex_ArgumentTimestampLower;
 
     public static @Nullable String TmfVertex_CannotLinkToSelf;
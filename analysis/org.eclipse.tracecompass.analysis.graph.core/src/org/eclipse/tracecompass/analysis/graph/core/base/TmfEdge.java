@@ -91,6 +91,10 @@ public class TmfEdge {
     private EdgeType fType;
     private @Nullable String fQualifier = null;
 
+    /* The graph storing the type of this edge, if any, and its index there */
+    private final @Nullable TmfGraph fGraph;
+    private final int fIndex;
+
     /**
      * Constructor
      *
@@ -103,12 +107,43 @@ public class TmfEdge {
         fVertexFrom = from;
         fVertexTo = to;
         fType = EdgeType.DEFAULT;
+        fGraph = null;
+        fIndex = -1;
+    }
+
+    /**
+     * Constructor of an edge stored in a graph
+     *
+     * @param graph
+     *            The graph storing the edge
+     * @param index
+     *            The index of the edge in the graph
+     * @param from
+     *            The vertex this edge leaves from
+     * @param to
+     *            The vertex the edge leads to
+     */
+    TmfEdge(TmfGraph graph, int index, TmfVertex from, TmfVertex to) {
+        fVertexFrom = from;
+        fVertexTo = to;
+        fType = EdgeType.DEFAULT;
+        fGraph = graph;
+        fIndex = index;
     }
 
     /*
      * Getters
      */
 
+    /**
+     * Get the index of this edge in the graph storing it
+     *
+     * @return The edge index, or -1 if the edge is not stored in a graph
+     */
+    int getIndex() {
+        return fIndex;
+    }
+
     /**
      * Get the origin vertex of this edge
      *
@@ -133,6 +168,10 @@ public class TmfEdge {
      * @return The type of the edge
      */
     public EdgeType getType() {
+        TmfGraph graph = fGraph;
+        if (graph != null) {
+            return graph.getEdgeType(fIndex);
+        }
         return fType;
     }
 
@@ -143,6 +182,11 @@ public class TmfEdge {
      *            The edge type
      */
     public void setType(final EdgeType type) {
+        TmfGraph graph = fGraph;
+        if (graph != null) {
+            graph.setEdgeType(fIndex, type, graph.getEdgeQualifier(fIndex));
+            return;
+        }
         fType = type;
     }
 
@@ -156,6 +200,11 @@ public class TmfEdge {
      * @since 2.1
      */
     public void setType(EdgeType type, @Nullable String linkQualifier) {
+        TmfGraph graph = fGraph;
+        if (graph != null) {
+            graph.setEdgeType(fIndex, type, linkQualifier);
+            return;
+        }
         fType = type;
         fQualifier = linkQualifier;
     }
@@ -168,6 +217,10 @@ public class TmfEdge {
      * @since 2.1
      */
     public @Nullable String getLinkQualifier() {
+        TmfGraph graph = fGraph;
+        if (graph != null) {
+            return graph.getEdgeQualifier(fIndex);
+        }
         return fQualifier;
     }
 
@@ -183,7 +236,31 @@ public class TmfEdge {
     @SuppressWarnings("nls")
     @Override
     public String toString() {
-        return "[" + fVertexFrom + "--" + fType + "->" + fVertexTo + "]";
+        return "[" + fVertexFrom + "--" + getType() + "->" + fVertexTo + "]";
+    }
+
+    /**
+     * Edges stored in a graph are created on demand, so two edge objects are
+     * equal if they are the same edge of the same graph
+     */
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (fGraph == null || !(obj instanceof TmfEdge)) {
+            return false;
+        }
+        TmfEdge other = (TmfEdge) obj;
+        return fGraph == other.fGraph && fIndex == other.fIndex;
+    }
+
+    @Override
+    public int hashCode() {
+        if (fGraph == null) {
+            return super.hashCode();
+        }
+        return fIndex;
     }
 
 }
@@ -13,15 +13,25 @@
 
 package org.eclipse.tracecompass.analysis.graph.core.base;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.analysis.graph.core.base.TmfEdge.EdgeType;
@@ -29,50 +39,369 @@ import org.eclipse.tracecompass.analysis.graph.core.base.TmfVertex.EdgeDirection
 import org.eclipse.tracecompass.common.core.NonNullUtils;
 import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
 
-import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.ListMultimap;
 
 /**
  * Undirected, unweighed, timed graph data type for dependencies between
  * elements of a system.
  *
  * Vertices are timed: each vertex has a timestamp associated, so the vertex
- * belongs to an object (the key of the multimap) at a given time. This is why
- * we use a ListMultimap to represent the graph, instead of a simple list.
+ * belongs to an object (the worker) at a given time. This is why the vertices
+ * are stored in a list per worker, instead of a simple list.
+ *
+ * The graph is stored in primitive arrays to keep execution graphs of long
+ * traces in memory: the timestamps and IDs of the vertices of each worker,
+ * the indexes of their four edges, and a table of edges with their end points
+ * and their packed type and qualifier. The {@link TmfVertex} and
+ * {@link TmfEdge} objects of the graph are created on demand, the vertices
+ * added to the graph do not need to be kept. Edges with a vertex that is not
+ * in the graph yet are kept as objects until that vertex is added.
+ *
+ * The arrays are split in segments of a fixed number of vertices or edges. A
+ * graph can be saved to a file and read back with {@link #load}, in which case
+ * only the segments that are accessed are read from the file.
+ *
+ * The graph can be queried while it is being built: until it is closed with
+ * {@link #closeGraph()}, its methods are guarded by a read-write lock, and the
+ * builder publishes a safe time with {@link #setSafeTime(long)}, before which
+ * vertices are not added anymore. The edges before the safe time may still
+ * change, so what is computed from a graph being built is provisional. Once
+ * the graph is done building, it is read without locking.
  *
  * @author Francis Giraldeau
  * @author Geneviève Bastien
  */
 public class TmfGraph {
 
-    private final ListMultimap<IGraphWorker, TmfVertex> fNodeMap;
-    private final Map<TmfVertex, IGraphWorker> fReverse;
+    static final int NB_DIRECTIONS = EdgeDirection.values().length;
+    private static final EdgeType[] EDGE_TYPES = EdgeType.values();
+    private static final int TYPE_BITS = 8;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EDGE_CACHE_SIZE = 1 << 12;
+
+    /** The vertices and edges are stored in segments of this size */
+    static final int SEGMENT_SHIFT = 12;
+    static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /** Worker id table */
+    private final List<IGraphWorker> fWorkers = new ArrayList<>();
+    private final Map<IGraphWorker, Integer> fWorkerIds = new HashMap<>();
+    private final List<WorkerVertices> fVertices = new ArrayList<>();
+    private int fSize = 0;
+
+    /**
+     * Edge table: the end points are (worker id, vertex index) pairs packed in
+     * a long, the type ordinal and the qualifier id are packed in an int
+     */
+    private @Nullable EdgeSegment[] fEdgeSegments;
+    private int fNbEdges = 0;
+
+    /**
+     * The last edge objects created, at their index modulo the cache size, so
+     * that the traversals going through the same edges again do not create
+     * new objects. The end points of an edge of the table never change, and
+     * the fields of an edge are final, so the cache is not locked.
+     */
+    private final @Nullable TmfEdge[] fEdgeCache = new TmfEdge[EDGE_CACHE_SIZE];
+
+    /** Link qualifiers, the qualifier id 0 is for no qualifier */
+    private final List<@Nullable String> fQualifiers = new ArrayList<>();
+    private final Map<String, Integer> fQualifierIds = new HashMap<>();
+
+    /**
+     * Vertices of the graph having edges with vertices outside the graph,
+     * those edges are kept in the vertex objects
+     */
+    private final Map<Long, TmfVertex> fObjectEdgeVertices = new HashMap<>();
+
+    /** The file this graph was read from, its segments are read on demand */
+    private final @Nullable TmfGraphFile fFile;
 
     /* Latch tracking if the graph is done building or not */
     private final CountDownLatch fFinishedLatch = new CountDownLatch(1);
 
+    /** Lock guarding the graph while it is being built */
+    private final ReadWriteLock fLock = new ReentrantReadWriteLock();
+    private volatile long fSafeTime = Long.MIN_VALUE;
+
+    /**
+     * A segment of the vertices of a worker: their timestamps, IDs and the
+     * index + 1 of their edges in each direction, 0 if none
+     */
+    static final class VertexSegment {
+        final long[] fTs;
+        final long[] fIds;
+        final int[] fEdges;
+
+        VertexSegment(long[] ts, long[] ids, int[] edges) {
+            fTs = ts;
+            fIds = ids;
+            fEdges = edges;
+        }
+
+        private VertexSegment grow(int capacity) {
+            return new VertexSegment(Arrays.copyOf(fTs, capacity), Arrays.copyOf(fIds, capacity), Arrays.copyOf(fEdges, capacity * NB_DIRECTIONS));
+        }
+    }
+
+    /**
+     * A segment of the edge table
+     */
+    static final class EdgeSegment {
+        final long[] fFrom;
+        final long[] fTo;
+        final int[] fInfo;
+
+        EdgeSegment(long[] from, long[] to, int[] info) {
+            fFrom = from;
+            fTo = to;
+            fInfo = info;
+        }
+
+        private EdgeSegment grow(int capacity) {
+            return new EdgeSegment(Arrays.copyOf(fFrom, capacity), Arrays.copyOf(fTo, capacity), Arrays.copyOf(fInfo, capacity));
+        }
+    }
+
+    /**
+     * The vertices of a worker, in segments. The segments of a graph read from
+     * a file are read the first time they are accessed.
+     */
+    private final class WorkerVertices {
+        private final int fWorkerId;
+        private @Nullable VertexSegment[] fSegments;
+        /** Time index: the timestamp of the first vertex of each segment */
+        private long[] fSegmentStarts;
+        private int fSize;
+        /** Whether the timestamps are in increasing order */
+        private boolean fSorted;
+
+        public WorkerVertices(int workerId, long[] segmentStarts, int size, boolean sorted) {
+            fWorkerId = workerId;
+            int nbSegments = Math.max(1, segmentStarts.length);
+            fSegments = new VertexSegment[nbSegments];
+            fSegmentStarts = Arrays.copyOf(segmentStarts, nbSegments);
+            fSize = size;
+            fSorted = sorted;
+        }
+
+        private VertexSegment getSegment(int index) {
+            int segmentIndex = index >>> SEGMENT_SHIFT;
+            VertexSegment segment = fSegments[segmentIndex];
+            if (segment == null) {
+                segment = loadSegment(segmentIndex);
+            }
+            return segment;
+        }
+
+        private synchronized VertexSegment loadSegment(int segmentIndex) {
+            VertexSegment segment = fSegments[segmentIndex];
+            if (segment == null) {
+                segment = getFile().readVertexSegment(fWorkerId, segmentIndex);
+                fSegments[segmentIndex] = segment;
+            }
+            return segment;
+        }
+
+        public long getTs(int index) {
+            return getSegment(index).fTs[index & SEGMENT_MASK];
+        }
+
+        public long getId(int index) {
+            return getSegment(index).fIds[index & SEGMENT_MASK];
+        }
+
+        public int getEdge(int index, EdgeDirection dir) {
+            return getSegment(index).fEdges[(index & SEGMENT_MASK) * NB_DIRECTIONS + dir.ordinal()];
+        }
+
+        public void setEdge(int index, EdgeDirection dir, int value) {
+            getSegment(index).fEdges[(index & SEGMENT_MASK) * NB_DIRECTIONS + dir.ordinal()] = value;
+        }
+
+        public int add(long ts, long id) {
+            int index = fSize;
+            int segmentIndex = index >>> SEGMENT_SHIFT;
+            int offset = index & SEGMENT_MASK;
+            if (segmentIndex == fSegments.length) {
+                fSegments = Arrays.copyOf(fSegments, segmentIndex * 2);
+                fSegmentStarts = Arrays.copyOf(fSegmentStarts, segmentIndex * 2);
+            }
+            VertexSegment segment = fSegments[segmentIndex];
+            if (segment == null) {
+                segment = (offset == 0) ? new VertexSegment(new long[INITIAL_CAPACITY], new long[INITIAL_CAPACITY], new int[INITIAL_CAPACITY * NB_DIRECTIONS]) : loadSegment(segmentIndex);
+            }
+            if (offset == segment.fTs.length) {
+                segment = segment.grow(Math.min(SEGMENT_SIZE, offset * 2));
+            }
+            fSegments[segmentIndex] = segment;
+            if (index > 0 && ts < getTs(index - 1)) {
+                fSorted = false;
+            }
+            if (offset == 0) {
+                fSegmentStarts[segmentIndex] = ts;
+            }
+            segment.fTs[offset] = ts;
+            segment.fIds[offset] = id;
+            fSize++;
+            return index;
+        }
+    }
+
     /**
      * Constructor
      */
     public TmfGraph() {
-        fNodeMap = NonNullUtils.checkNotNull(ArrayListMultimap.create());
-        fReverse = new HashMap<>();
+        fFile = null;
+        fEdgeSegments = new EdgeSegment[1];
+        fQualifiers.add(null);
     }
 
     /**
-     * Add node to the provided object without linking
+     * Constructor of a graph read from a file
+     */
+    private TmfGraph(TmfGraphFile file) {
+        fFile = file;
+        fQualifiers.addAll(file.getQualifiers());
+        for (int i = 1; i < fQualifiers.size(); i++) {
+            fQualifierIds.put(NonNullUtils.checkNotNull(fQualifiers.get(i)), i);
+        }
+        for (int i = 0; i < file.getNbWorkers(); i++) {
+            IGraphWorker worker = file.getWorker(i);
+            fWorkers.add(worker);
+            fWorkerIds.put(worker, i);
+            fVertices.add(new WorkerVertices(i, file.getTimeIndex(i), file.getNbVertices(i), file.isSorted(i)));
+            fSize += file.getNbVertices(i);
+        }
+        fNbEdges = file.getNbEdges();
+        fEdgeSegments = new EdgeSegment[Math.max(1, getNbSegments(fNbEdges))];
+    }
+
+    /**
+     * Read a graph saved with {@link #save(File, IGraphWorkerSerializer, int)}. Only
+     * the workers and the time index of their vertices are read right away,
+     * the segments of vertices and edges are read from the file when they are
+     * first accessed, so the file stays open until the graph is disposed.
+     *
+     * @param file
+     *            The file to read
+     * @param serializer
+     *            The serializer of the workers of the graph
+     * @param version
+     *            The version of the provider that reads the graph
+     * @return The graph, done building, or <code>null</code> if the file does
+     *         not exist, is not a valid graph file or was saved by a provider
+     *         of another version
+     * @since 2.2
+     */
+    public static @Nullable TmfGraph load(File file, IGraphWorkerSerializer serializer, int version) {
+        TmfGraphFile graphFile = TmfGraphFile.open(file, serializer, version);
+        if (graphFile == null) {
+            return null;
+        }
+        TmfGraph graph = new TmfGraph(graphFile);
+        graph.closeGraph();
+        return graph;
+    }
+
+    /**
+     * Dispose the graph. The file of a graph read with
+     * {@link #load(File, IGraphWorkerSerializer, int)} is closed, the parts of the
+     * graph that were not read yet can no longer be read.
+     *
+     * @since 2.2
+     */
+    public void dispose() {
+        TmfGraphFile file = fFile;
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    /**
+     * Write this graph to a file, in segments of vertices for each worker and
+     * segments of edges, with the time index of the vertices of each worker.
+     * The file is written under a temporary name first, so a partial file is
+     * never read back. Edges with vertices outside the graph are not saved.
+     *
+     * @param file
+     *            The file to write
+     * @param serializer
+     *            The serializer of the workers of the graph
+     * @param version
+     *            The version of the provider that built the graph
+     * @throws IOException
+     *             If the file cannot be written or a worker cannot be
+     *             serialized
+     * @since 2.2
+     */
+    public void save(File file, IGraphWorkerSerializer serializer, int version) throws IOException {
+        Lock lock = readLock();
+        try {
+            TmfGraphFile.write(this, file, serializer, version);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Add node to the provided object without linking. The edges of the
+     * vertices of a graph are stored in the graph, so a vertex can only be in
+     * one graph at a time: a vertex that is already in this graph or in
+     * another one cannot be added, unless it was removed with
+     * {@link #removeTail(IGraphWorker)}.
      *
      * @param worker
      *            The key of the object the vertex belongs to
      * @param vertex
      *            The new vertex
+     * @throws IllegalArgumentException
+     *             If the vertex is already in this graph or in another graph
      */
     public void add(IGraphWorker worker, TmfVertex vertex) {
-        List<TmfVertex> list = fNodeMap.get(worker);
-        list.add(vertex);
-        fReverse.put(vertex, worker);
+        Lock lock = writeLock();
+        try {
+            TmfGraph graph = vertex.fGraph;
+            if (graph != null && graph.contains(vertex)) {
+                /* The edges of the vertex are stored in its graph */
+                throw new IllegalArgumentException(Messages.TmfGraph_VertexInGraph);
+            }
+            int workerId = getWorkerId(worker);
+            int index = fVertices.get(workerId).add(vertex.getTs(), vertex.getID());
+            fSize++;
+            vertex.fGraph = this;
+            vertex.fWorker = workerId;
+            vertex.fIndex = index;
+
+            /*
+             * Move the edges of the vertex with vertices of this graph to the
+             * edge table
+             */
+            for (EdgeDirection dir : EdgeDirection.values()) {
+                TmfEdge edge = vertex.getObjectEdge(dir);
+                if (edge == null) {
+                    continue;
+                }
+                vertex.setObjectEdge(dir, null);
+                TmfVertex other = isOutgoing(dir) ? edge.getVertexTo() : edge.getVertexFrom();
+                if (!contains(other)) {
+                    setObjectEdge(vertex, dir, edge);
+                    continue;
+                }
+                int edgeIndex = newEdge(edge.getVertexFrom(), edge.getVertexTo(), edge.getType(), edge.getLinkQualifier());
+                setEdgeIndex(vertex, dir, edgeIndex);
+                /* The other vertex may have been linked to another vertex since */
+                EdgeDirection opposite = getOpposite(dir);
+                TmfVertex holder = fObjectEdgeVertices.get(getKey(other));
+                if (holder != null && holder.getObjectEdge(opposite) == edge) {
+                    setEdgeIndex(other, opposite, edgeIndex);
+                }
+            }
+        } finally {
+            unlock(lock);
+        }
     }
 
     /**
@@ -100,16 +429,7 @@ public class TmfGraph {
      * @return The edge constructed
      */
     public @Nullable TmfEdge append(IGraphWorker worker, TmfVertex vertex, EdgeType type) {
-        List<TmfVertex> list = fNodeMap.get(worker);
-        TmfVertex tail = getTail(worker);
-        TmfEdge link = null;
-        if (tail != null) {
-            link = tail.linkHorizontal(vertex);
-            link.setType(type);
-        }
-        list.add(vertex);
-        fReverse.put(vertex, worker);
-        return link;
+        return append(worker, vertex, type, null);
     }
 
     /**
@@ -127,15 +447,21 @@ public class TmfGraph {
      * @since 2.1
      */
     public @Nullable TmfEdge append(IGraphWorker worker, TmfVertex vertex, EdgeType type, @Nullable String linkQualifier) {
-        List<TmfVertex> list = fNodeMap.get(worker);
-        TmfVertex tail = getTail(worker);
-        TmfEdge link = null;
-        if (tail != null) {
-            link = tail.linkHorizontal(vertex, type, linkQualifier);
+        Lock lock = writeLock();
+        try {
+            TmfVertex tail = getTail(worker);
+            if (tail != null) {
+                /* Validate the link before adding the vertex */
+                tail.checkLink(vertex);
+            }
+            add(worker, vertex);
+            if (tail == null) {
+                return null;
+            }
+            return tail.linkHorizontal(vertex, type, linkQualifier);
+        } finally {
+            unlock(lock);
         }
-        list.add(vertex);
-        fReverse.put(vertex, worker);
-        return link;
     }
 
     /**
@@ -175,26 +501,7 @@ public class TmfGraph {
      * @return The newly created edge
      */
     public TmfEdge link(TmfVertex from, TmfVertex to, EdgeType type) {
-        IGraphWorker ofrom = fReverse.get(from);
-        IGraphWorker oto = fReverse.get(to);
-        if (ofrom == null) {
-            throw new IllegalArgumentException(Messages.TmfGraph_FromNotInGraph);
-        }
-
-        /* to vertex not in the graph, add it to ofrom */
-        if (oto == null) {
-            this.add(ofrom, to);
-            oto = ofrom;
-        }
-
-        TmfEdge link;
-        if (oto.equals(ofrom)) {
-            link = from.linkHorizontal(to);
-        } else {
-            link = from.linkVertical(to);
-        }
-        link.setType(type);
-        return link;
+        return link(from, to, type, null);
     }
 
     /**
@@ -217,26 +524,31 @@ public class TmfGraph {
      * @return The newly created edge
      * @since 2.1
      */
-    public TmfEdge link(TmfVertex from, TmfVertex to, EdgeType type, String linkQualifier) {
-        IGraphWorker ofrom = fReverse.get(from);
-        IGraphWorker oto = fReverse.get(to);
-        if (ofrom == null) {
-            throw new IllegalArgumentException(Messages.TmfGraph_FromNotInGraph);
-        }
+    public TmfEdge link(TmfVertex from, TmfVertex to, EdgeType type, @Nullable String linkQualifier) {
+        Lock lock = writeLock();
+        try {
+            IGraphWorker ofrom = getParentOf(from);
+            IGraphWorker oto = getParentOf(to);
+            if (ofrom == null) {
+                throw new IllegalArgumentException(Messages.TmfGraph_FromNotInGraph);
+            }
 
-        /* to vertex not in the graph, add it to ofrom */
-        if (oto == null) {
-            this.add(ofrom, to);
-            oto = ofrom;
-        }
+            /* to vertex not in the graph, add it to ofrom */
+            if (oto == null) {
+                this.add(ofrom, to);
+                oto = ofrom;
+            }
 
-        TmfEdge link;
-        if (oto.equals(ofrom)) {
-            link = from.linkHorizontal(to, type, linkQualifier);
-        } else {
-            link = from.linkVertical(to, type, linkQualifier);
+            TmfEdge link;
+            if (oto.equals(ofrom)) {
+                link = from.linkHorizontal(to, type, linkQualifier);
+            } else {
+                link = from.linkVertical(to, type, linkQualifier);
+            }
+            return link;
+        } finally {
+            unlock(lock);
         }
-        return link;
     }
 
     /**
@@ -247,28 +559,76 @@ public class TmfGraph {
      * @return The last vertex of obj
      */
     public @Nullable TmfVertex getTail(IGraphWorker worker) {
-        List<TmfVertex> list = fNodeMap.get(worker);
-        if (!list.isEmpty()) {
-            return list.get(list.size() - 1);
+        Lock lock = readLock();
+        try {
+            Integer workerId = fWorkerIds.get(worker);
+            if (workerId == null) {
+                return null;
+            }
+            int size = fVertices.get(workerId).fSize;
+            if (size == 0) {
+                return null;
+            }
+            return getVertex(workerId, size - 1);
+        } finally {
+            unlock(lock);
         }
-        return null;
     }
 
     /**
-     * Removes the last vertex of the provided object
+     * Removes the last vertex of the provided object. The removed vertex keeps
+     * its edges.
      *
      * @param worker
      *            The key of the object the vertex belongs to
      * @return The removed vertex
      */
     public @Nullable TmfVertex removeTail(IGraphWorker worker) {
-        List<TmfVertex> list = fNodeMap.get(worker);
-        if (!list.isEmpty()) {
-            TmfVertex last = list.remove(list.size() - 1);
-            fReverse.remove(last);
+        Lock lock = writeLock();
+        try {
+            TmfVertex last = getTail(worker);
+            if (last == null) {
+                return null;
+            }
+            /* Copy the edges of the vertex to objects, for both of their ends */
+            TmfEdge[] edges = new TmfEdge[NB_DIRECTIONS];
+            for (EdgeDirection dir : EdgeDirection.values()) {
+                TmfEdge edge = getEdge(last, dir);
+                if (edge == null) {
+                    continue;
+                }
+                int edgeIndex = getEdgeIndex(last, dir);
+                if (edgeIndex < 0) {
+                    edges[dir.ordinal()] = edge;
+                    continue;
+                }
+                TmfVertex other = isOutgoing(dir) ? edge.getVertexTo() : edge.getVertexFrom();
+                TmfEdge copy = isOutgoing(dir) ? new TmfEdge(last, other) : new TmfEdge(other, last);
+                copy.setType(edge.getType(), edge.getLinkQualifier());
+                edges[dir.ordinal()] = copy;
+                EdgeDirection opposite = getOpposite(dir);
+                if (contains(other) && !other.equals(last) && getEdgeIndex(other, opposite) == edgeIndex) {
+                    setObjectEdge(other, opposite, copy);
+                }
+            }
+            WorkerVertices vertices = fVertices.get(last.fWorker);
+            for (EdgeDirection dir : EdgeDirection.values()) {
+                vertices.setEdge(last.fIndex, dir, 0);
+            }
+            fObjectEdgeVertices.remove(getKey(last));
+            vertices.fSize--;
+            fSize--;
+
+            last.fGraph = null;
+            last.fWorker = -1;
+            last.fIndex = -1;
+            for (EdgeDirection dir : EdgeDirection.values()) {
+                last.setObjectEdge(dir, edges[dir.ordinal()]);
+            }
             return last;
+        } finally {
+            unlock(lock);
         }
-        return null;
     }
 
     /**
@@ -280,12 +640,16 @@ public class TmfGraph {
      * @return The head vertex
      */
     public @Nullable TmfVertex getHead(IGraphWorker worker) {
-        IGraphWorker ref = worker;
-        List<TmfVertex> list = fNodeMap.get(ref);
-        if (!list.isEmpty()) {
-            return list.get(0);
+        Lock lock = readLock();
+        try {
+            Integer workerId = fWorkerIds.get(worker);
+            if (workerId == null || fVertices.get(workerId).fSize == 0) {
+                return null;
+            }
+            return getVertex(workerId, 0);
+        } finally {
+            unlock(lock);
         }
-        return null;
     }
 
     /**
@@ -295,15 +659,21 @@ public class TmfGraph {
      * @return The head vertex
      */
     public @Nullable TmfVertex getHead() {
-        if (fNodeMap.isEmpty()) {
-            return null;
+        Lock lock = readLock();
+        try {
+            int minWorker = -1;
+            long minTs = Long.MAX_VALUE;
+            for (int i = 0; i < fVertices.size(); i++) {
+                WorkerVertices vertices = fVertices.get(i);
+                if (vertices.fSize > 0 && (minWorker < 0 || vertices.fSegmentStarts[0] < minTs)) {
+                    minWorker = i;
+                    minTs = vertices.fSegmentStarts[0];
+                }
+            }
+            return (minWorker < 0) ? null : getVertex(minWorker, 0);
+        } finally {
+            unlock(lock);
         }
-        Optional<TmfVertex> min = fNodeMap.asMap().values().stream()
-                .filter(c -> !c.isEmpty())
-                .map(c -> Iterables.get(c, 0))
-                .min((k1, k2) -> k1.compareTo(k2));
-        // issue with annotations, cannot return min.orElse(null);
-        return min.isPresent() ? min.get() : null;
     }
 
     /**
@@ -320,7 +690,7 @@ public class TmfGraph {
         TmfEdge edge = headNode.getEdge(EdgeDirection.INCOMING_HORIZONTAL_EDGE);
         while (edge != null) {
             headNode = edge.getVertexFrom();
-            if (headNode == vertex) {
+            if (headNode.equals(vertex)) {
                 throw new CycleDetectedException();
             }
             edge = headNode.getEdge(EdgeDirection.INCOMING_HORIZONTAL_EDGE);
@@ -329,14 +699,25 @@ public class TmfGraph {
     }
 
     /**
-     * Returns all nodes of the provided object.
+     * Returns all nodes of the provided object. The list is a view of the
+     * vertices of the object, that shows the vertices appended later. The list
+     * of an object that has no vertex in the graph yet is empty.
      *
      * @param obj
      *            The key of the object the vertex belongs to
      * @return The list of vertices for the object
      */
     public List<TmfVertex> getNodesOf(IGraphWorker obj) {
-        return fNodeMap.get(obj);
+        Lock lock = readLock();
+        try {
+            Integer workerId = fWorkerIds.get(obj);
+            if (workerId == null) {
+                return Collections.emptyList();
+            }
+            return new VertexList(workerId);
+        } finally {
+            unlock(lock);
+        }
     }
 
     /**
@@ -347,7 +728,15 @@ public class TmfGraph {
      * @return The object the vertex belongs to
      */
     public @Nullable IGraphWorker getParentOf(TmfVertex node) {
-        return fReverse.get(node);
+        Lock lock = readLock();
+        try {
+            if (!contains(node)) {
+                return null;
+            }
+            return fWorkers.get(node.fWorker);
+        } finally {
+            unlock(lock);
+        }
     }
 
     /**
@@ -356,7 +745,18 @@ public class TmfGraph {
      * @return The vertex map
      */
     public Set<IGraphWorker> getWorkers() {
-        return ImmutableSet.copyOf(fNodeMap.keySet());
+        Lock lock = readLock();
+        try {
+            ImmutableSet.Builder<IGraphWorker> builder = ImmutableSet.builder();
+            for (int i = 0; i < fWorkers.size(); i++) {
+                if (fVertices.get(i).fSize > 0) {
+                    builder.add(fWorkers.get(i));
+                }
+            }
+            return builder.build();
+        } finally {
+            unlock(lock);
+        }
     }
 
     /**
@@ -365,13 +765,18 @@ public class TmfGraph {
      * @return number of vertices
      */
     public int size() {
-        return fReverse.size();
+        Lock lock = readLock();
+        try {
+            return fSize;
+        } finally {
+            unlock(lock);
+        }
     }
 
     @Override
     public String toString() {
         return NonNullUtils.nullToEmptyString(String.format("Graph { actors=%d, nodes=%d }", //$NON-NLS-1$
-                fNodeMap.keySet().size(), fNodeMap.values().size()));
+                getWorkers().size(), size()));
     }
 
     /**
@@ -381,9 +786,9 @@ public class TmfGraph {
      */
     public String dump() {
         StringBuilder str = new StringBuilder();
-        for (IGraphWorker obj : fNodeMap.keySet()) {
+        for (IGraphWorker obj : getWorkers()) {
             str.append(String.format("%10s ", obj)); //$NON-NLS-1$
-            str.append(fNodeMap.get(obj));
+            str.append(getNodesOf(obj));
             str.append("\n"); //$NON-NLS-1$
         }
         return NonNullUtils.nullToEmptyString(str.toString());
@@ -475,16 +880,53 @@ public class TmfGraph {
      * @return Vertex at timestamp or null if no vertex at or after timestamp
      */
     public @Nullable TmfVertex getVertexAt(ITmfTimestamp startTime, IGraphWorker worker) {
-        List<TmfVertex> list = fNodeMap.get(worker);
-
-        long ts = startTime.getValue();
-        // Scan the list until vertex is later than time
-        for (TmfVertex vertex : list) {
-            if (vertex.getTs() >= ts) {
-                return vertex;
+        Lock lock = readLock();
+        try {
+            Integer workerId = fWorkerIds.get(worker);
+            if (workerId == null) {
+                return null;
+            }
+            WorkerVertices vertices = fVertices.get(workerId);
+            long ts = startTime.getValue();
+            int index;
+            if (vertices.fSorted) {
+                /*
+                 * Find the first segment starting at or after the time with the
+                 * time index, the vertex is either in the previous segment or the
+                 * first of that segment
+                 */
+                int low = 0;
+                int high = getNbSegments(vertices.fSize);
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (vertices.fSegmentStarts[mid] < ts) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                high = Math.min(vertices.fSize, low << SEGMENT_SHIFT);
+                low = (low == 0) ? 0 : (low - 1) << SEGMENT_SHIFT;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (vertices.getTs(mid) < ts) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                index = low;
+            } else {
+                // Scan the list until vertex is later than time
+                index = 0;
+                while (index < vertices.fSize && vertices.getTs(index) < ts) {
+                    index++;
+                }
             }
+            return (index < vertices.fSize) ? getVertex(workerId, index) : null;
+        } finally {
+            unlock(lock);
         }
-        return null;
     }
 
     /**
@@ -503,4 +945,496 @@ public class TmfGraph {
         fFinishedLatch.countDown();
     }
 
+    /**
+     * Wait for the graph to be done building
+     *
+     * @param timeout
+     *            The maximum time to wait
+     * @param unit
+     *            The unit of the timeout
+     * @return Whether the graph is done building
+     * @throws InterruptedException
+     *             If the thread is interrupted while waiting
+     * @since 2.2
+     */
+    public boolean waitForDoneBuilding(long timeout, TimeUnit unit) throws InterruptedException {
+        return fFinishedLatch.await(timeout, unit);
+    }
+
+    /**
+     * Get the time up to which the vertices of the graph are known while it
+     * is being built: vertices are not added before that time anymore, so the
+     * critical paths ending before it can be computed already. The graph
+     * provider may still add, remove or change edges before that time, for
+     * instance when it matches network packets or when it finishes the graph,
+     * so these critical paths are provisional until the graph is done
+     * building.
+     *
+     * @return The safe time, {@link Long#MAX_VALUE} if the graph is done
+     *         building, {@link Long#MIN_VALUE} if nothing was published yet
+     * @since 2.2
+     */
+    public long getSafeTime() {
+        return isDoneBuilding() ? Long.MAX_VALUE : fSafeTime;
+    }
+
+    /**
+     * Publish the time up to which the vertices of the graph are known, for
+     * the builder of the graph. The safe time never goes back.
+     *
+     * @param safeTime
+     *            The time before which vertices will not be added anymore
+     * @since 2.2
+     */
+    public void setSafeTime(long safeTime) {
+        if (safeTime > fSafeTime) {
+            fSafeTime = safeTime;
+        }
+    }
+
+    // ----------------------------------------------
+    // Locking
+    // ----------------------------------------------
+
+    /**
+     * Lock the graph for reading, if it is still being built
+     *
+     * @return The lock to release, or <code>null</code> if the graph is done
+     *         building and does not need to be locked
+     */
+    private @Nullable Lock readLock() {
+        if (isDoneBuilding()) {
+            return null;
+        }
+        Lock lock = fLock.readLock();
+        lock.lock();
+        return lock;
+    }
+
+    private Lock writeLock() {
+        Lock lock = fLock.writeLock();
+        lock.lock();
+        return lock;
+    }
+
+    private static void unlock(@Nullable Lock lock) {
+        if (lock != null) {
+            lock.unlock();
+        }
+    }
+
+    // ----------------------------------------------
+    // Storage
+    // ----------------------------------------------
+
+    private int getWorkerId(IGraphWorker worker) {
+        Integer workerId = fWorkerIds.get(worker);
+        if (workerId == null) {
+            workerId = fWorkers.size();
+            fWorkers.add(worker);
+            fVertices.add(new WorkerVertices(workerId, new long[0], 0, true));
+            fWorkerIds.put(worker, workerId);
+        }
+        return workerId;
+    }
+
+    private static long getKey(int workerId, int index) {
+        return ((long) workerId << 32) | index;
+    }
+
+    private static long getKey(TmfVertex vertex) {
+        return getKey(vertex.fWorker, vertex.fIndex);
+    }
+
+    private static boolean isOutgoing(EdgeDirection dir) {
+        return dir == EdgeDirection.OUTGOING_HORIZONTAL_EDGE || dir == EdgeDirection.OUTGOING_VERTICAL_EDGE;
+    }
+
+    private static EdgeDirection getOpposite(EdgeDirection dir) {
+        switch (dir) {
+        case OUTGOING_VERTICAL_EDGE:
+            return EdgeDirection.INCOMING_VERTICAL_EDGE;
+        case INCOMING_VERTICAL_EDGE:
+            return EdgeDirection.OUTGOING_VERTICAL_EDGE;
+        case OUTGOING_HORIZONTAL_EDGE:
+            return EdgeDirection.INCOMING_HORIZONTAL_EDGE;
+        case INCOMING_HORIZONTAL_EDGE:
+        default:
+            return EdgeDirection.OUTGOING_HORIZONTAL_EDGE;
+        }
+    }
+
+    /**
+     * Check if a vertex is stored in this graph, and not removed since
+     */
+    private boolean contains(TmfVertex vertex) {
+        if (vertex.fGraph != this) {
+            return false;
+        }
+        WorkerVertices vertices = fVertices.get(vertex.fWorker);
+        return vertex.fIndex < vertices.fSize && vertices.getId(vertex.fIndex) == vertex.getID();
+    }
+
+    /**
+     * Get the vertex object of a vertex of the graph, the one holding edges to
+     * vertices outside the graph if any, or a new one
+     */
+    private TmfVertex getVertex(int workerId, int index) {
+        TmfVertex vertex = fObjectEdgeVertices.get(getKey(workerId, index));
+        if (vertex != null) {
+            return vertex;
+        }
+        WorkerVertices vertices = fVertices.get(workerId);
+        return new TmfVertex(this, workerId, index, vertices.getTs(index), vertices.getId(index));
+    }
+
+    private TmfVertex getVertex(long key) {
+        return getVertex((int) (key >>> 32), (int) key);
+    }
+
+    /**
+     * Get the index of the edge of a vertex in the edge table
+     *
+     * @return The edge index, or -1 if the vertex has no edge in the table for
+     *         that direction
+     */
+    private int getEdgeIndex(TmfVertex vertex, EdgeDirection dir) {
+        return fVertices.get(vertex.fWorker).getEdge(vertex.fIndex, dir) - 1;
+    }
+
+    /**
+     * Set the edge of a vertex to an edge of the edge table
+     */
+    private void setEdgeIndex(TmfVertex vertex, EdgeDirection dir, int edgeIndex) {
+        fVertices.get(vertex.fWorker).setEdge(vertex.fIndex, dir, edgeIndex + 1);
+        clearObjectEdge(vertex, dir);
+    }
+
+    private void clearObjectEdge(TmfVertex vertex, EdgeDirection dir) {
+        long key = getKey(vertex);
+        TmfVertex holder = fObjectEdgeVertices.get(key);
+        if (holder == null) {
+            return;
+        }
+        holder.setObjectEdge(dir, null);
+        for (EdgeDirection d : EdgeDirection.values()) {
+            if (holder.getObjectEdge(d) != null) {
+                return;
+            }
+        }
+        fObjectEdgeVertices.remove(key);
+    }
+
+    private static int getNbSegments(int size) {
+        return (size + SEGMENT_MASK) >>> SEGMENT_SHIFT;
+    }
+
+    private TmfGraphFile getFile() {
+        TmfGraphFile file = fFile;
+        if (file == null) {
+            /* The segments of a graph built in memory are never missing */
+            throw new IllegalStateException("Missing segment in a graph that was not read from a file"); //$NON-NLS-1$
+        }
+        return file;
+    }
+
+    private EdgeSegment getEdgeSegmentOf(int index) {
+        int segmentIndex = index >>> SEGMENT_SHIFT;
+        EdgeSegment segment = fEdgeSegments[segmentIndex];
+        if (segment == null) {
+            segment = loadEdgeSegment(segmentIndex);
+        }
+        return segment;
+    }
+
+    private synchronized EdgeSegment loadEdgeSegment(int segmentIndex) {
+        EdgeSegment segment = fEdgeSegments[segmentIndex];
+        if (segment == null) {
+            segment = getFile().readEdgeSegment(segmentIndex);
+            fEdgeSegments[segmentIndex] = segment;
+        }
+        return segment;
+    }
+
+    private int newEdge(TmfVertex from, TmfVertex to, EdgeType type, @Nullable String qualifier) {
+        int index = fNbEdges;
+        int segmentIndex = index >>> SEGMENT_SHIFT;
+        int offset = index & SEGMENT_MASK;
+        if (segmentIndex == fEdgeSegments.length) {
+            fEdgeSegments = Arrays.copyOf(fEdgeSegments, segmentIndex * 2);
+        }
+        EdgeSegment segment = fEdgeSegments[segmentIndex];
+        if (segment == null) {
+            segment = (offset == 0) ? new EdgeSegment(new long[INITIAL_CAPACITY], new long[INITIAL_CAPACITY], new int[INITIAL_CAPACITY]) : loadEdgeSegment(segmentIndex);
+        }
+        if (offset == segment.fInfo.length) {
+            segment = segment.grow(Math.min(SEGMENT_SIZE, offset * 2));
+        }
+        fEdgeSegments[segmentIndex] = segment;
+        segment.fFrom[offset] = getKey(from);
+        segment.fTo[offset] = getKey(to);
+        fNbEdges++;
+        setEdgeType(index, type, qualifier);
+        return index;
+    }
+
+    /**
+     * Get the object of an edge of the edge table, from the cache or a new one
+     * sharing the vertex object it is reached from
+     */
+    private TmfEdge createEdge(int index, TmfVertex vertex) {
+        int slot = index & (EDGE_CACHE_SIZE - 1);
+        TmfEdge edge = fEdgeCache[slot];
+        if (edge != null && edge.getIndex() == index) {
+            return edge;
+        }
+        EdgeSegment segment = getEdgeSegmentOf(index);
+        int offset = index & SEGMENT_MASK;
+        long key = getKey(vertex);
+        long from = segment.fFrom[offset];
+        long to = segment.fTo[offset];
+        edge = new TmfEdge(this, index, (from == key) ? vertex : getVertex(from), (to == key) ? vertex : getVertex(to));
+        fEdgeCache[slot] = edge;
+        return edge;
+    }
+
+    /**
+     * Get an edge of a vertex of this graph
+     *
+     * @param vertex
+     *            The vertex
+     * @param dir
+     *            The direction of the edge
+     * @return The edge
+     */
+    @Nullable TmfEdge getEdge(TmfVertex vertex, EdgeDirection dir) {
+        Lock lock = readLock();
+        try {
+            if (!contains(vertex)) {
+                return vertex.getObjectEdge(dir);
+            }
+            int edgeIndex = getEdgeIndex(vertex, dir);
+            if (edgeIndex >= 0) {
+                return createEdge(edgeIndex, vertex);
+            }
+            TmfVertex holder = fObjectEdgeVertices.get(getKey(vertex));
+            return (holder == null) ? null : holder.getObjectEdge(dir);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Remove an edge of a vertex of this graph
+     *
+     * @param vertex
+     *            The vertex
+     * @param dir
+     *            The direction of the edge
+     */
+    void removeEdge(TmfVertex vertex, EdgeDirection dir) {
+        Lock lock = writeLock();
+        try {
+            if (!contains(vertex)) {
+                vertex.setObjectEdge(dir, null);
+                return;
+            }
+            fVertices.get(vertex.fWorker).setEdge(vertex.fIndex, dir, 0);
+            clearObjectEdge(vertex, dir);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Set an edge between a vertex of this graph and a vertex outside of it.
+     * The edge is kept in a vertex object held by the graph.
+     *
+     * @param vertex
+     *            The vertex
+     * @param dir
+     *            The direction of the edge
+     * @param edge
+     *            The edge
+     */
+    void setObjectEdge(TmfVertex vertex, EdgeDirection dir, TmfEdge edge) {
+        Lock lock = writeLock();
+        try {
+            if (!contains(vertex)) {
+                vertex.setObjectEdge(dir, edge);
+                return;
+            }
+            fVertices.get(vertex.fWorker).setEdge(vertex.fIndex, dir, 0);
+            TmfVertex holder = fObjectEdgeVertices.computeIfAbsent(getKey(vertex), key -> vertex);
+            holder.setObjectEdge(dir, edge);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Add an edge between two vertices of this graph, replacing their edges in
+     * the directions of the link
+     *
+     * @param from
+     *            The source vertex
+     * @param to
+     *            The destination vertex
+     * @param outgoing
+     *            The direction of the edge for the source vertex
+     * @param incoming
+     *            The direction of the edge for the destination vertex
+     * @return The new edge
+     */
+    TmfEdge addEdge(TmfVertex from, TmfVertex to, EdgeDirection outgoing, EdgeDirection incoming) {
+        Lock lock = writeLock();
+        try {
+            if (!contains(from) || !contains(to)) {
+                throw new IllegalArgumentException(Messages.TmfGraph_FromNotInGraph);
+            }
+            int index = newEdge(from, to, EdgeType.DEFAULT, null);
+            setEdgeIndex(from, outgoing, index);
+            setEdgeIndex(to, incoming, index);
+            return new TmfEdge(this, index, from, to);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Get the type of an edge of the edge table
+     *
+     * @param index
+     *            The edge index
+     * @return The edge type
+     */
+    EdgeType getEdgeType(int index) {
+        Lock lock = readLock();
+        try {
+            return EDGE_TYPES[getEdgeSegmentOf(index).fInfo[index & SEGMENT_MASK] & TYPE_MASK];
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Get the qualifier of an edge of the edge table
+     *
+     * @param index
+     *            The edge index
+     * @return The link qualifier
+     */
+    @Nullable String getEdgeQualifier(int index) {
+        Lock lock = readLock();
+        try {
+            return fQualifiers.get(getEdgeSegmentOf(index).fInfo[index & SEGMENT_MASK] >>> TYPE_BITS);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Set the type and qualifier of an edge of the edge table
+     *
+     * @param index
+     *            The edge index
+     * @param type
+     *            The edge type
+     * @param qualifier
+     *            The link qualifier
+     */
+    void setEdgeType(int index, EdgeType type, @Nullable String qualifier) {
+        Lock lock = writeLock();
+        try {
+            int qualifierId = 0;
+            if (qualifier != null) {
+                Integer id = fQualifierIds.get(qualifier);
+                if (id == null) {
+                    id = fQualifiers.size();
+                    fQualifiers.add(qualifier);
+                    fQualifierIds.put(qualifier, id);
+                }
+                qualifierId = id;
+            }
+            getEdgeSegmentOf(index).fInfo[index & SEGMENT_MASK] = type.ordinal() | (qualifierId << TYPE_BITS);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    // ----------------------------------------------
+    // File storage, see TmfGraphFile
+    // ----------------------------------------------
+
+    int getNbWorkers() {
+        return fWorkers.size();
+    }
+
+    IGraphWorker getWorker(int workerId) {
+        return fWorkers.get(workerId);
+    }
+
+    int getNbVertices(int workerId) {
+        return fVertices.get(workerId).fSize;
+    }
+
+    boolean isSorted(int workerId) {
+        return fVertices.get(workerId).fSorted;
+    }
+
+    long[] getTimeIndex(int workerId) {
+        WorkerVertices vertices = fVertices.get(workerId);
+        return Arrays.copyOf(vertices.fSegmentStarts, getNbSegments(vertices.fSize));
+    }
+
+    VertexSegment getVertexSegment(int workerId, int segmentIndex) {
+        return fVertices.get(workerId).getSegment(segmentIndex << SEGMENT_SHIFT);
+    }
+
+    int getNbEdges() {
+        return fNbEdges;
+    }
+
+    EdgeSegment getEdgeSegment(int segmentIndex) {
+        return getEdgeSegmentOf(segmentIndex << SEGMENT_SHIFT);
+    }
+
+    List<@Nullable String> getQualifiers() {
+        return fQualifiers;
+    }
+
+    /**
+     * Live view of the vertices of a worker
+     */
+    private final class VertexList extends AbstractList<TmfVertex> implements RandomAccess {
+        private final int fWorkerId;
+
+        public VertexList(int workerId) {
+            fWorkerId = workerId;
+        }
+
+        @Override
+        public TmfVertex get(int index) {
+            Lock lock = readLock();
+            try {
+                if (index < 0 || index >= size()) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size()); //$NON-NLS-1$ //$NON-NLS-2$
+                }
+                return getVertex(fWorkerId, index);
+            } finally {
+                unlock(lock);
+            }
+        }
+
+        @Override
+        public int size() {
+            Lock lock = readLock();
+            try {
+                return fVertices.get(fWorkerId).fSize;
+            } finally {
+                unlock(lock);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,380 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.analysis.graph.core.base;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.analysis.graph.core.base.TmfGraph.EdgeSegment;
+import org.eclipse.tracecompass.analysis.graph.core.base.TmfGraph.VertexSegment;
+import org.eclipse.tracecompass.common.core.NonNullUtils;
+import org.eclipse.tracecompass.internal.analysis.graph.core.Activator;
+
+/**
+ * File storage of a {@link TmfGraph}.
+ * <p>
+ * The file starts with the version of the provider that built the graph, so
+ * that a graph built by another version is not read back. The header holds the
+ * link qualifiers, the workers with the number of their
+ * vertices and the timestamp of the first vertex of each of their segments,
+ * and the number of edges. It is followed by the segments of vertices of each
+ * worker, with the timestamps then the edge indexes of the vertices, and by
+ * the segments of the edge table, with the end points then the packed type and
+ * qualifier of the edges. All the segments have a fixed size except the last
+ * of each worker and of the edge table, so the position of a segment in the
+ * file is computed from the header and only the segments that are accessed
+ * need to be read.
+ * <p>
+ * The IDs of the vertices are not saved, the vertices read from a file get new
+ * unique IDs.
+ * <p>
+ * The file stays open to read the segments until {@link #close()} is called.
+ */
+final class TmfGraphFile {
+
+    private static final int MAGIC = 0x7C06A9F1;
+    private static final int FILE_VERSION = 2;
+
+    private static final int VERTEX_BYTES = Long.BYTES + TmfGraph.NB_DIRECTIONS * Integer.BYTES;
+    private static final int EDGE_BYTES = 2 * Long.BYTES + Integer.BYTES;
+
+    private final File fFile;
+    private final FileChannel fChannel;
+    private final List<@Nullable String> fQualifiers;
+    private final List<IGraphWorker> fWorkers;
+    private final int[] fNbVertices;
+    private final boolean[] fSorted;
+    private final long[][] fTimeIndex;
+    /** Position in the file of the first segment of each worker */
+    private final long[] fVerticesOffsets;
+    /** ID of the first vertex of each worker */
+    private final long[] fIdBases;
+    private final int fNbEdges;
+    private final long fEdgesOffset;
+
+    private TmfGraphFile(File file, FileChannel channel, List<@Nullable String> qualifiers, List<IGraphWorker> workers, int[] nbVertices, boolean[] sorted, long[][] timeIndex, int nbEdges, long dataOffset) {
+        fFile = file;
+        fChannel = channel;
+        fQualifiers = qualifiers;
+        fWorkers = workers;
+        fNbVertices = nbVertices;
+        fSorted = sorted;
+        fTimeIndex = timeIndex;
+        fNbEdges = nbEdges;
+        fVerticesOffsets = new long[workers.size()];
+        fIdBases = new long[workers.size()];
+
+        long total = 0;
+        long offset = dataOffset;
+        for (int i = 0; i < workers.size(); i++) {
+            fVerticesOffsets[i] = offset;
+            fIdBases[i] = total;
+            offset += (long) nbVertices[i] * VERTEX_BYTES;
+            total += nbVertices[i];
+        }
+        fEdgesOffset = offset;
+        long idBase = TmfVertex.reserveIds(total);
+        for (int i = 0; i < workers.size(); i++) {
+            fIdBases[i] += idBase;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Writing
+    // ------------------------------------------------------------------------
+
+    /**
+     * Write a graph to a file
+     *
+     * @param graph
+     *            The graph to write
+     * @param file
+     *            The file to write
+     * @param serializer
+     *            The serializer of the workers of the graph
+     * @param version
+     *            The version of the provider that built the graph
+     * @throws IOException
+     *             If the file cannot be written
+     */
+    public static void write(TmfGraph graph, File file, IGraphWorkerSerializer serializer, int version) throws IOException {
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        try (DataOutputStream header = new DataOutputStream(headerBytes)) {
+            List<@Nullable String> qualifiers = graph.getQualifiers();
+            header.writeInt(qualifiers.size() - 1);
+            for (int i = 1; i < qualifiers.size(); i++) {
+                header.writeUTF(NonNullUtils.checkNotNull(qualifiers.get(i)));
+            }
+
+            header.writeInt(graph.getNbWorkers());
+            ByteArrayOutputStream workerBytes = new ByteArrayOutputStream();
+            DataOutputStream workerOut = new DataOutputStream(workerBytes);
+            for (int i = 0; i < graph.getNbWorkers(); i++) {
+                workerBytes.reset();
+                serializer.serialize(graph.getWorker(i), workerOut);
+                workerOut.flush();
+                header.writeInt(workerBytes.size());
+                workerBytes.writeTo(header);
+                header.writeInt(graph.getNbVertices(i));
+                header.writeBoolean(graph.isSorted(i));
+                for (long start : graph.getTimeIndex(i)) {
+                    header.writeLong(start);
+                }
+            }
+            header.writeInt(graph.getNbEdges());
+        }
+
+        File tmpFile = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(version);
+            out.writeInt(headerBytes.size());
+            headerBytes.writeTo(out);
+
+            for (int i = 0; i < graph.getNbWorkers(); i++) {
+                int nbVertices = graph.getNbVertices(i);
+                for (int s = 0; s < getNbSegments(nbVertices); s++) {
+                    VertexSegment segment = graph.getVertexSegment(i, s);
+                    int count = getSegmentSize(nbVertices, s);
+                    for (int j = 0; j < count; j++) {
+                        out.writeLong(segment.fTs[j]);
+                    }
+                    for (int j = 0; j < count * TmfGraph.NB_DIRECTIONS; j++) {
+                        out.writeInt(segment.fEdges[j]);
+                    }
+                }
+            }
+
+            int nbEdges = graph.getNbEdges();
+            for (int s = 0; s < getNbSegments(nbEdges); s++) {
+                EdgeSegment segment = graph.getEdgeSegment(s);
+                int count = getSegmentSize(nbEdges, s);
+                for (int j = 0; j < count; j++) {
+                    out.writeLong(segment.fFrom[j]);
+                }
+                for (int j = 0; j < count; j++) {
+                    out.writeLong(segment.fTo[j]);
+                }
+                for (int j = 0; j < count; j++) {
+                    out.writeInt(segment.fInfo[j]);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmpFile.toPath());
+            throw e;
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // ------------------------------------------------------------------------
+    // Reading
+    // ------------------------------------------------------------------------
+
+    /**
+     * Read the header of a graph file
+     *
+     * @param file
+     *            The file to read
+     * @param serializer
+     *            The serializer of the workers of the graph
+     * @param version
+     *            The version of the provider that reads the graph
+     * @return The graph file, or <code>null</code> if the file does not exist,
+     *         is not a valid graph file or was written by a provider of
+     *         another version
+     */
+    public static @Nullable TmfGraphFile open(File file, IGraphWorkerSerializer serializer, int version) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FILE_VERSION || in.readInt() != version) {
+                return null;
+            }
+            int headerLength = in.readInt();
+
+            int nbQualifiers = in.readInt();
+            List<@Nullable String> qualifiers = new ArrayList<>();
+            qualifiers.add(null);
+            for (int i = 0; i < nbQualifiers; i++) {
+                qualifiers.add(in.readUTF());
+            }
+
+            int nbWorkers = in.readInt();
+            if (nbWorkers < 0) {
+                return null;
+            }
+            List<IGraphWorker> workers = new ArrayList<>();
+            int[] nbVertices = new int[nbWorkers];
+            boolean[] sorted = new boolean[nbWorkers];
+            long[][] timeIndex = new long[nbWorkers][];
+            for (int i = 0; i < nbWorkers; i++) {
+                byte[] workerBytes = new byte[in.readInt()];
+                in.readFully(workerBytes);
+                workers.add(serializer.deserialize(new DataInputStream(new ByteArrayInputStream(workerBytes))));
+                nbVertices[i] = in.readInt();
+                sorted[i] = in.readBoolean();
+                timeIndex[i] = new long[getNbSegments(nbVertices[i])];
+                for (int s = 0; s < timeIndex[i].length; s++) {
+                    timeIndex[i][s] = in.readLong();
+                }
+            }
+            int nbEdges = in.readInt();
+
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            TmfGraphFile graphFile = new TmfGraphFile(file, channel, qualifiers, workers, nbVertices, sorted, timeIndex, nbEdges, 4L * Integer.BYTES + headerLength);
+            boolean complete = false;
+            try {
+                complete = (graphFile.fEdgesOffset + (long) nbEdges * EDGE_BYTES == channel.size());
+            } finally {
+                if (!complete) {
+                    /* Truncated file */
+                    graphFile.close();
+                }
+            }
+            return complete ? graphFile : null;
+        } catch (IOException e) {
+            Activator.getInstance().logWarning("Error reading the graph file " + file, e); //$NON-NLS-1$
+            return null;
+        }
+    }
+
+    /**
+     * Close the file, the segments can no longer be read
+     */
+    public void close() {
+        try {
+            fChannel.close();
+        } catch (IOException e) {
+            Activator.getInstance().logWarning("Error closing the graph file " + fFile, e); //$NON-NLS-1$
+        }
+    }
+
+    public List<@Nullable String> getQualifiers() {
+        return fQualifiers;
+    }
+
+    public int getNbWorkers() {
+        return fWorkers.size();
+    }
+
+    public IGraphWorker getWorker(int workerId) {
+        return fWorkers.get(workerId);
+    }
+
+    public int getNbVertices(int workerId) {
+        return fNbVertices[workerId];
+    }
+
+    public boolean isSorted(int workerId) {
+        return fSorted[workerId];
+    }
+
+    public long[] getTimeIndex(int workerId) {
+        return fTimeIndex[workerId];
+    }
+
+    public int getNbEdges() {
+        return fNbEdges;
+    }
+
+    /**
+     * Read a segment of the vertices of a worker
+     *
+     * @param workerId
+     *            The worker id
+     * @param segmentIndex
+     *            The index of the segment
+     * @return The segment
+     */
+    public VertexSegment readVertexSegment(int workerId, int segmentIndex) {
+        int count = getSegmentSize(fNbVertices[workerId], segmentIndex);
+        long first = (long) segmentIndex << TmfGraph.SEGMENT_SHIFT;
+        ByteBuffer buffer = read(fVerticesOffsets[workerId] + first * VERTEX_BYTES, count * VERTEX_BYTES);
+        long[] ts = new long[count];
+        buffer.asLongBuffer().get(ts);
+        buffer.position(count * Long.BYTES);
+        int[] edges = new int[count * TmfGraph.NB_DIRECTIONS];
+        buffer.asIntBuffer().get(edges);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = fIdBases[workerId] + first + i;
+        }
+        return new VertexSegment(ts, ids, edges);
+    }
+
+    /**
+     * Read a segment of the edge table
+     *
+     * @param segmentIndex
+     *            The index of the segment
+     * @return The segment
+     */
+    public EdgeSegment readEdgeSegment(int segmentIndex) {
+        int count = getSegmentSize(fNbEdges, segmentIndex);
+        long first = (long) segmentIndex << TmfGraph.SEGMENT_SHIFT;
+        ByteBuffer buffer = read(fEdgesOffset + first * EDGE_BYTES, count * EDGE_BYTES);
+        long[] from = new long[count];
+        long[] to = new long[count];
+        int[] info = new int[count];
+        buffer.asLongBuffer().get(from);
+        buffer.position(count * Long.BYTES);
+        buffer.asLongBuffer().get(to);
+        buffer.position(2 * count * Long.BYTES);
+        buffer.asIntBuffer().get(info);
+        return new EdgeSegment(from, to, info);
+    }
+
+    private ByteBuffer read(long position, int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try {
+            /* Positional reads do not change the channel, they can be concurrent */
+            while (buffer.hasRemaining()) {
+                if (fChannel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading the graph file " + fFile, e); //$NON-NLS-1$
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // ------------------------------------------------------------------------
+    // Helpers
+    // ------------------------------------------------------------------------
+
+    private static int getNbSegments(int size) {
+        return (size + TmfGraph.SEGMENT_SIZE - 1) >>> TmfGraph.SEGMENT_SHIFT;
+    }
+
+    private static int getSegmentSize(int size, int segmentIndex) {
+        return Math.min(TmfGraph.SEGMENT_SIZE, size - (segmentIndex << TmfGraph.SEGMENT_SHIFT));
+    }
+}
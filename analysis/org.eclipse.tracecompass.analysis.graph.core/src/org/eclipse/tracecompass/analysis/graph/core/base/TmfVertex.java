@@ -91,6 +91,15 @@ public class TmfVertex implements Comparable<TmfVertex> {
     private final long fTimestamp;
     private final long fId;
 
+    /*
+     * The graph storing this vertex, with the id of its worker and its index
+     * in the worker's vertices. The edges of a vertex stored in a graph are
+     * kept in the graph, the edge fields above are not used.
+     */
+    @Nullable TmfGraph fGraph = null;
+    int fWorker = -1;
+    int fIndex = -1;
+
     /**
      * Default Constructor
      */
@@ -134,10 +143,48 @@ public class TmfVertex implements Comparable<TmfVertex> {
         synchronized (TmfVertex.class) {
             fId = count++;
         }
-        fOutgoingVertical = node.fOutgoingVertical;
-        fIncomingVertical = node.fIncomingVertical;
-        fOutgoingHorizontal = node.fOutgoingHorizontal;
-        fIncomingHorizontal = node.fIncomingHorizontal;
+        fOutgoingVertical = node.getEdge(EdgeDirection.OUTGOING_VERTICAL_EDGE);
+        fIncomingVertical = node.getEdge(EdgeDirection.INCOMING_VERTICAL_EDGE);
+        fOutgoingHorizontal = node.getEdge(EdgeDirection.OUTGOING_HORIZONTAL_EDGE);
+        fIncomingHorizontal = node.getEdge(EdgeDirection.INCOMING_HORIZONTAL_EDGE);
+    }
+
+    /**
+     * Constructor of a vertex stored in a graph
+     *
+     * @param graph
+     *            The graph storing the vertex
+     * @param worker
+     *            The id of the worker of the vertex in the graph
+     * @param index
+     *            The index of the vertex in the vertices of the worker
+     * @param ts
+     *            The vertex's timestamp
+     * @param id
+     *            The vertex's unique ID
+     */
+    TmfVertex(TmfGraph graph, int worker, int index, long ts, long id) {
+        fTimestamp = ts;
+        fId = id;
+        fGraph = graph;
+        fWorker = worker;
+        fIndex = index;
+    }
+
+    /**
+     * Reserve a range of unique IDs, for the vertices of a graph read from a
+     * file
+     *
+     * @param nb
+     *            The number of IDs to reserve
+     * @return The first reserved ID
+     */
+    static long reserveIds(long nb) {
+        synchronized (TmfVertex.class) {
+            long first = count;
+            count += nb;
+            return first;
+        }
     }
 
     /*
@@ -198,10 +245,7 @@ public class TmfVertex implements Comparable<TmfVertex> {
     }
 
     private TmfEdge linkHorizontalRaw(TmfVertex node) {
-        TmfEdge link = new TmfEdge(this, node);
-        fOutgoingHorizontal = link;
-        node.fIncomingHorizontal = link;
-        return link;
+        return linkRaw(node, EdgeDirection.OUTGOING_HORIZONTAL_EDGE, EdgeDirection.INCOMING_HORIZONTAL_EDGE);
     }
 
     /**
@@ -238,34 +282,40 @@ public class TmfVertex implements Comparable<TmfVertex> {
     }
 
     private TmfEdge linkVerticalRaw(TmfVertex to) {
-        TmfEdge link = new TmfEdge(this, to);
-        fOutgoingVertical = link;
-        to.fIncomingVertical = link;
-        return link;
+        return linkRaw(to, EdgeDirection.OUTGOING_VERTICAL_EDGE, EdgeDirection.INCOMING_VERTICAL_EDGE);
     }
 
-    private void checkTimestamps(TmfVertex to) {
-        if (this.fTimestamp > to.fTimestamp) {
-            throw new IllegalArgumentException(Messages.TmfVertex_ArgumentTimestampLower +
-                    String.format(": (curr=%d,next=%d,elapsed=%d)", fTimestamp, to.fTimestamp, to.fTimestamp - fTimestamp)); //$NON-NLS-1$
+    private TmfEdge linkRaw(TmfVertex to, EdgeDirection outgoing, EdgeDirection incoming) {
+        TmfGraph graph = fGraph;
+        if (graph != null && graph == to.fGraph) {
+            return graph.addEdge(this, to, outgoing, incoming);
         }
+        TmfEdge link = new TmfEdge(this, to);
+        setEdge(outgoing, link);
+        to.setEdge(incoming, link);
+        return link;
     }
 
-    private void checkNotSelf(TmfVertex to) {
-        if (this == to) {
-            throw new IllegalArgumentException(Messages.TmfVertex_CannotLinkToSelf);
+    /**
+     * Set the edge of a direction, for an edge that is not stored in a graph
+     */
+    private void setEdge(EdgeDirection dir, TmfEdge edge) {
+        TmfGraph graph = fGraph;
+        if (graph != null) {
+            graph.setObjectEdge(this, dir, edge);
+            return;
         }
+        setObjectEdge(dir, edge);
     }
 
-
     /**
-     * Get an edge to or from this vertex in the appropriate direction
+     * Get the edge of a direction from the fields of this object
      *
      * @param dir
-     *            The direction of the requested edge
-     * @return The edge from this vertex to the requested direction
+     *            The direction of the edge
+     * @return The edge
      */
-    public @Nullable TmfEdge getEdge(EdgeDirection dir) {
+    @Nullable TmfEdge getObjectEdge(EdgeDirection dir) {
         switch (dir) {
         case OUTGOING_VERTICAL_EDGE:
             return fOutgoingVertical;
@@ -281,31 +331,89 @@ public class TmfVertex implements Comparable<TmfVertex> {
     }
 
     /**
-     * Removes a directed edge from this vertex. The edge in that direction will
-     * be null.
+     * Set the edge of a direction in the fields of this object
      *
      * @param dir
-     *            The direction to remove the edge from
+     *            The direction of the edge
+     * @param edge
+     *            The edge, or <code>null</code> to remove it
      */
-    public void removeEdge(EdgeDirection dir) {
+    void setObjectEdge(EdgeDirection dir, @Nullable TmfEdge edge) {
         switch (dir) {
         case OUTGOING_VERTICAL_EDGE:
-            fOutgoingVertical = null;
+            fOutgoingVertical = edge;
             break;
         case INCOMING_VERTICAL_EDGE:
-            fIncomingVertical = null;
+            fIncomingVertical = edge;
             break;
         case OUTGOING_HORIZONTAL_EDGE:
-            fOutgoingHorizontal = null;
+            fOutgoingHorizontal = edge;
             break;
         case INCOMING_HORIZONTAL_EDGE:
-            fIncomingHorizontal = null;
+            fIncomingHorizontal = edge;
             break;
         default:
             throw new IllegalStateException(UNKNOWN_EDGE_DIRECTION_TYPE + dir);
         }
     }
 
+    /**
+     * Check that a link from this vertex to another one would be valid
+     *
+     * @param to
+     *            The vertex to link to
+     */
+    void checkLink(TmfVertex to) {
+        checkTimestamps(to);
+        checkNotSelf(to);
+    }
+
+    private void checkTimestamps(TmfVertex to) {
+        if (this.fTimestamp > to.fTimestamp) {
+            throw new IllegalArgumentException(Messages.TmfVertex_ArgumentTimestampLower +
+                    String.format(": (curr=%d,next=%d,elapsed=%d)", fTimestamp, to.fTimestamp, to.fTimestamp - fTimestamp)); //$NON-NLS-1$
+        }
+    }
+
+    private void checkNotSelf(TmfVertex to) {
+        /* Several objects may represent a vertex stored in a graph */
+        if (this.equals(to)) {
+            throw new IllegalArgumentException(Messages.TmfVertex_CannotLinkToSelf);
+        }
+    }
+
+
+    /**
+     * Get an edge to or from this vertex in the appropriate direction
+     *
+     * @param dir
+     *            The direction of the requested edge
+     * @return The edge from this vertex to the requested direction
+     */
+    public @Nullable TmfEdge getEdge(EdgeDirection dir) {
+        TmfGraph graph = fGraph;
+        if (graph != null) {
+            return graph.getEdge(this, dir);
+        }
+        return getObjectEdge(dir);
+    }
+
+    /**
+     * Removes a directed edge from this vertex. The edge in that direction will
+     * be null.
+     *
+     * @param dir
+     *            The direction to remove the edge from
+     */
+    public void removeEdge(EdgeDirection dir) {
+        TmfGraph graph = fGraph;
+        if (graph != null) {
+            graph.removeEdge(this, dir);
+            return;
+        }
+        setObjectEdge(dir, null);
+    }
+
     /**
      * Get the neighbor of a vertex from a directed edge. Incoming edges will
      * return the vertex from the edge and outgoing edges will return the vertex
@@ -343,6 +451,26 @@ public class TmfVertex implements Comparable<TmfVertex> {
         return Long.compare(fTimestamp, other.fTimestamp);
     }
 
+    /**
+     * The vertices stored in a graph are created on demand, so two vertex
+     * objects are equal if they have the same ID
+     */
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        return fId == ((TmfVertex) obj).fId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(fId);
+    }
+
     @Override
     public String toString() {
         return "[" + fId + "," + fTimestamp + "]"; //$NON-NLS-1$ //$NON-NLS-2$//$NON-NLS-3$
@@ -10,6 +10,7 @@
 package org.eclipse.tracecompass.analysis.graph.core.building;
 
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.analysis.graph.core.base.IGraphWorkerSerializer;
 import org.eclipse.tracecompass.analysis.graph.core.base.TmfGraph;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
@@ -89,4 +90,31 @@ public interface ITmfGraphProvider {
      */
     void done();
 
+    /**
+     * Get the serializer of the workers of the graph, used to save the graph
+     * to a supplementary file of the trace once built, so it can be read back
+     * instead of reading the trace again
+     *
+     * @return The worker serializer, or <code>null</code> if the graphs of
+     *         this provider are not saved
+     * @since 2.2
+     */
+    default @Nullable IGraphWorkerSerializer getWorkerSerializer() {
+        return null;
+    }
+
+    /**
+     * Get the version of the graph building logic of this provider. It is
+     * saved with the graph, and a saved graph is only read back by a provider
+     * of the same version, otherwise the graph is built again from the trace.
+     * Providers that save their graph should increment their version whenever
+     * the graph they build changes.
+     *
+     * @return The version of this provider
+     * @since 2.2
+     */
+    default int getProviderVersion() {
+        return 0;
+    }
+
 }
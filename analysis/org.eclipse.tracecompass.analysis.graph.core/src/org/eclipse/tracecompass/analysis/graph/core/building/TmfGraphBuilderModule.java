@@ -9,9 +9,15 @@
 
 package org.eclipse.tracecompass.analysis.graph.core.building;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.analysis.graph.core.base.IGraphWorkerSerializer;
 import org.eclipse.tracecompass.analysis.graph.core.base.TmfGraph;
 import org.eclipse.tracecompass.analysis.graph.core.criticalpath.CriticalPathModule;
 import org.eclipse.tracecompass.analysis.graph.core.criticalpath.ICriticalPathProvider;
@@ -24,6 +30,7 @@ import org.eclipse.tracecompass.tmf.core.request.ITmfEventRequest;
 import org.eclipse.tracecompass.tmf.core.request.TmfEventRequest;
 import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 
 /**
  * Base class for all modules building graphs
@@ -33,10 +40,15 @@ import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
  */
 public abstract class TmfGraphBuilderModule extends TmfAbstractAnalysisModule implements ICriticalPathProvider {
 
+    private static final String GRAPH_FILE_EXTENSION = ".graph"; //$NON-NLS-1$
+
     private @Nullable TmfGraph fGraph;
     private @Nullable ITmfEventRequest fRequest;
     private final CriticalPathModule fCriticalPathModule;
 
+    /* Latch released when the graph is created or the analysis ends */
+    private final CountDownLatch fGraphLatch = new CountDownLatch(1);
+
     /**
      * Constructor
      */
@@ -60,27 +72,93 @@ public abstract class TmfGraphBuilderModule extends TmfAbstractAnalysisModule im
         return fGraph;
     }
 
+    /**
+     * Wait for the graph to be created by the analysis. The graph can be
+     * queried up to its safe time while it is being built, see
+     * {@link TmfGraph#getSafeTime()}. The results of these queries are
+     * provisional until the graph is done building.
+     *
+     * @param monitor
+     *            The progress monitor, to stop waiting when it is cancelled
+     * @return The graph, possibly still being built, or <code>null</code> if
+     *         the analysis ended without a graph or the monitor was cancelled
+     * @since 2.2
+     */
+    public @Nullable TmfGraph waitForGraph(IProgressMonitor monitor) {
+        try {
+            while (!fGraphLatch.await(500, TimeUnit.MILLISECONDS)) {
+                if (monitor.isCanceled()) {
+                    return null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        return fGraph;
+    }
+
     // ------------------------------------------------------------------------
     // TmfAbstractAnalysisModule
     // ------------------------------------------------------------------------
 
     @Override
     protected boolean executeAnalysis(final IProgressMonitor monitor) {
+        try {
+            return buildGraph(monitor);
+        } finally {
+            fGraphLatch.countDown();
+        }
+    }
+
+    private boolean buildGraph(final IProgressMonitor monitor) {
         if (fGraph == null) {
             final ITmfGraphProvider provider = getGraphProvider();
 
             /*
-             * TODO: This will eventually support multiple backends so we can
-             * save the graph on disk, like the state system, but for now, it is
-             * just in memory
+             * Read the graph saved by a previous run if there is one, its
+             * segments are read from the file on demand
              */
+            IGraphWorkerSerializer serializer = provider.getWorkerSerializer();
+            File file = getGraphFile();
+            if (serializer != null && file != null) {
+                TmfGraph graph = TmfGraph.load(file, serializer, provider.getProviderVersion());
+                if (graph != null) {
+                    fGraph = graph;
+                    fGraphLatch.countDown();
+                    return !monitor.isCanceled();
+                }
+            }
 
             createGraph(provider);
 
+            TmfGraph graph = fGraph;
+            ITmfEventRequest request = fRequest;
+            if (serializer != null && file != null && graph != null && !monitor.isCanceled()
+                    && request != null && !request.isCancelled()) {
+                try {
+                    graph.save(file, serializer, provider.getProviderVersion());
+                } catch (IOException e) {
+                    Activator.getInstance().logWarning("Error saving the graph file " + file, e); //$NON-NLS-1$
+                }
+            }
         }
         return !monitor.isCanceled();
     }
 
+    /**
+     * Get the supplementary file where the graph is saved
+     *
+     * @return The graph file, or <code>null</code> if there is no trace
+     */
+    private @Nullable File getGraphFile() {
+        ITmfTrace trace = getTrace();
+        if (trace == null) {
+            return null;
+        }
+        return new File(TmfTraceManager.getSupplementaryFileDir(trace) + getId() + GRAPH_FILE_EXTENSION);
+    }
+
     @Override
     public boolean setTrace(@NonNull ITmfTrace trace) throws TmfAnalysisException {
         boolean ret = super.setTrace(trace);
@@ -97,11 +175,16 @@ public abstract class TmfGraphBuilderModule extends TmfAbstractAnalysisModule im
         if ((req != null) && (!req.isCompleted())) {
             req.cancel();
         }
+        fGraphLatch.countDown();
     }
 
     @Override
     public void dispose() {
         fCriticalPathModule.dispose();
+        TmfGraph graph = fGraph;
+        if (graph != null) {
+            graph.dispose();
+        }
         super.dispose();
     }
 
@@ -111,14 +194,21 @@ public abstract class TmfGraphBuilderModule extends TmfAbstractAnalysisModule im
 
     private void createGraph(ITmfGraphProvider provider) {
 
-        fGraph = new TmfGraph();
-        provider.assignTargetGraph(fGraph);
+        TmfGraph graph = new TmfGraph();
+        fGraph = graph;
+        provider.assignTargetGraph(graph);
+        /* The graph can be queried while it is being built */
+        fGraphLatch.countDown();
 
-        build(provider);
+        try {
+            build(provider, graph);
+        } finally {
+            graph.closeGraph();
+        }
 
     }
 
-    private void build(ITmfGraphProvider provider) {
+    private void build(ITmfGraphProvider provider, TmfGraph graph) {
         /* Cancel any previous request */
         ITmfEventRequest request = fRequest;
         if ((request != null) && (!request.isCompleted())) {
@@ -126,7 +216,7 @@ public abstract class TmfGraphBuilderModule extends TmfAbstractAnalysisModule im
         }
 
         try {
-            request = new TmfGraphBuildRequest(provider);
+            request = new TmfGraphBuildRequest(provider, graph);
             fRequest = request;
             provider.getTrace().sendRequest(request);
 
@@ -139,14 +229,17 @@ public abstract class TmfGraphBuilderModule extends TmfAbstractAnalysisModule im
     private static class TmfGraphBuildRequest extends TmfEventRequest {
 
         private final ITmfGraphProvider fProvider;
+        private final TmfGraph fTargetGraph;
 
         /**
          * Constructor
          *
          * @param provider
          *            The graph provider
+         * @param graph
+         *            The graph being built
          */
-        public TmfGraphBuildRequest(ITmfGraphProvider provider) {
+        public TmfGraphBuildRequest(ITmfGraphProvider provider, TmfGraph graph) {
             super(TmfEvent.class,
                     TmfTimeRange.ETERNITY,
                     0,
@@ -154,18 +247,29 @@ public abstract class TmfGraphBuilderModule extends TmfAbstractAnalysisModule im
                     ITmfEventRequest.ExecutionType.BACKGROUND);
 
             fProvider = provider;
+            fTargetGraph = graph;
         }
 
         @Override
         public void handleData(final ITmfEvent event) {
             super.handleData(event);
             fProvider.processEvent(event);
+            /*
+             * The events are read in order, the next events do not add
+             * vertices before this one. They may still link or unlink older
+             * vertices.
+             */
+            fTargetGraph.setSafeTime(event.getTimestamp().toNanos() - 1);
         }
 
         @Override
         public synchronized void done() {
-            super.done();
-            fProvider.done();
+            /* Finish the graph before releasing the threads waiting for it */
+            try {
+                fProvider.done();
+            } finally {
+                super.done();
+            }
         }
 
         @Override
@@ -0,0 +1,313 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.analysis.graph.core.criticalpath;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.analysis.graph.core.base.IGraphWorker;
+import org.eclipse.tracecompass.analysis.graph.core.base.TmfEdge;
+import org.eclipse.tracecompass.analysis.graph.core.base.TmfEdge.EdgeType;
+import org.eclipse.tracecompass.analysis.graph.core.base.TmfGraph;
+import org.eclipse.tracecompass.analysis.graph.core.base.TmfVertex;
+import org.eclipse.tracecompass.analysis.graph.core.base.TmfVertex.EdgeDirection;
+import org.eclipse.tracecompass.common.core.NonNullUtils;
+import org.eclipse.tracecompass.internal.analysis.graph.core.Activator;
+import org.eclipse.tracecompass.internal.analysis.graph.core.criticalpath.CriticalPathAlgorithmBounded;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
+
+/**
+ * Computes the critical paths of many workers of a graph at once, for
+ * instance of all the threads handling requests in a service, along with the
+ * time each path spends on each worker and each type of edge.
+ * <p>
+ * The critical paths are computed concurrently with the bounded algorithm.
+ * The graph is only read. If it is still being built, the requests should end
+ * before its safe time, see {@link TmfGraph#getSafeTime()}, and the paths are
+ * provisional.
+ *
+ * @since 2.2
+ */
+public class CriticalPathBatch {
+
+    private final TmfGraph fGraph;
+    private final int fNbThreads;
+
+    /**
+     * A critical path to compute: a worker and the time range of its path
+     */
+    public static final class Request {
+        private final IGraphWorker fWorker;
+        private final long fStart;
+        private final long fEnd;
+
+        /**
+         * Constructor
+         *
+         * @param worker
+         *            The worker whose critical path to compute
+         * @param start
+         *            The start of the path, it starts at the first vertex of
+         *            the worker at or after that time
+         * @param end
+         *            The end of the path, it stops at the last vertex before
+         *            that time
+         */
+        public Request(IGraphWorker worker, long start, long end) {
+            fWorker = worker;
+            fStart = start;
+            fEnd = end;
+        }
+
+        /**
+         * Get the worker
+         *
+         * @return The worker
+         */
+        public IGraphWorker getWorker() {
+            return fWorker;
+        }
+
+        /**
+         * Get the start time
+         *
+         * @return The start time
+         */
+        public long getStart() {
+            return fStart;
+        }
+
+        /**
+         * Get the end time
+         *
+         * @return The end time
+         */
+        public long getEnd() {
+            return fEnd;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fWorker, fStart, fEnd);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (!(obj instanceof Request)) {
+                return false;
+            }
+            Request other = (Request) obj;
+            return fWorker.equals(other.fWorker) && fStart == other.fStart && fEnd == other.fEnd;
+        }
+
+        @Override
+        public String toString() {
+            return "Request [worker=" + fWorker + ", start=" + fStart + ", end=" + fEnd + ']'; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+    }
+
+    /**
+     * The time spent on each worker and on each type of edge by critical paths.
+     * The time a path spends on another worker than the one it was computed
+     * for is time that worker was blocked by the other one, and the edge types
+     * tell what it was waiting for, like a timer, a device or the network.
+     */
+    public static final class Blame {
+        private final Map<IGraphWorker, Long> fWorkerDurations = new HashMap<>();
+        private final Map<EdgeType, Long> fTypeDurations = new EnumMap<>(EdgeType.class);
+
+        private void add(IGraphWorker worker, EdgeType type, long duration) {
+            fWorkerDurations.merge(worker, duration, Long::sum);
+            fTypeDurations.merge(type, duration, Long::sum);
+        }
+
+        private void add(Blame other) {
+            other.fWorkerDurations.forEach((worker, duration) -> fWorkerDurations.merge(worker, duration, Long::sum));
+            other.fTypeDurations.forEach((type, duration) -> fTypeDurations.merge(type, duration, Long::sum));
+        }
+
+        /**
+         * Get the time spent on each worker
+         *
+         * @return The duration for each worker
+         */
+        public Map<IGraphWorker, Long> getWorkerDurations() {
+            return Collections.unmodifiableMap(fWorkerDurations);
+        }
+
+        /**
+         * Get the time spent on each type of edge
+         *
+         * @return The duration for each edge type
+         */
+        public Map<EdgeType, Long> getTypeDurations() {
+            return Collections.unmodifiableMap(fTypeDurations);
+        }
+    }
+
+    /**
+     * The results of a batch
+     */
+    public static final class Result {
+        private final Map<Request, TmfGraph> fPaths = new LinkedHashMap<>();
+        private final Map<Request, Blame> fBlames = new LinkedHashMap<>();
+        private final Blame fTotal = new Blame();
+
+        /**
+         * Get the critical paths. A request is missing if its computation
+         * failed or was cancelled.
+         *
+         * @return The critical path of each request
+         */
+        public Map<Request, TmfGraph> getCriticalPaths() {
+            return Collections.unmodifiableMap(fPaths);
+        }
+
+        /**
+         * Get the blame statistics of each critical path
+         *
+         * @return The blame statistics of each request
+         */
+        public Map<Request, Blame> getBlames() {
+            return Collections.unmodifiableMap(fBlames);
+        }
+
+        /**
+         * Get the blame statistics of all the critical paths together
+         *
+         * @return The aggregated blame statistics
+         */
+        public Blame getTotalBlame() {
+            return fTotal;
+        }
+    }
+
+    /**
+     * Constructor, using one thread per available processor
+     *
+     * @param graph
+     *            The graph on which to compute the critical paths
+     */
+    public CriticalPathBatch(TmfGraph graph) {
+        this(graph, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param graph
+     *            The graph on which to compute the critical paths
+     * @param nbThreads
+     *            The number of threads computing the paths
+     */
+    public CriticalPathBatch(TmfGraph graph, int nbThreads) {
+        if (nbThreads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive: " + nbThreads); //$NON-NLS-1$
+        }
+        fGraph = graph;
+        fNbThreads = nbThreads;
+    }
+
+    /**
+     * Compute the critical paths of requests
+     *
+     * @param requests
+     *            The critical paths to compute
+     * @param monitor
+     *            The progress monitor, the paths that are not computed yet
+     *            when it is cancelled are left out of the result
+     * @return The critical paths and their blame statistics, in the order of
+     *         the requests
+     */
+    public Result compute(Collection<Request> requests, IProgressMonitor monitor) {
+        ICriticalPathAlgorithm algorithm = new CriticalPathAlgorithmBounded(fGraph);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(fNbThreads, Math.max(1, requests.size())));
+        Map<Request, Future<@Nullable PathResult>> futures = new LinkedHashMap<>();
+        for (Request request : requests) {
+            futures.computeIfAbsent(request, r -> executor.submit(() -> monitor.isCanceled() ? null : computePath(algorithm, r)));
+        }
+        executor.shutdown();
+
+        Result result = new Result();
+        for (Map.Entry<Request, Future<@Nullable PathResult>> entry : futures.entrySet()) {
+            Request request = entry.getKey();
+            PathResult path;
+            try {
+                path = entry.getValue().get();
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                return result;
+            } catch (ExecutionException e) {
+                Activator.getInstance().logError("Error computing the critical path of " + request, e.getCause()); //$NON-NLS-1$
+                continue;
+            }
+            if (path == null) {
+                continue;
+            }
+            result.fPaths.put(request, path.fPath);
+            result.fBlames.put(request, path.fBlame);
+            result.fTotal.add(path.fBlame);
+        }
+        return result;
+    }
+
+    private static final class PathResult {
+        private final TmfGraph fPath;
+        private final Blame fBlame;
+
+        public PathResult(TmfGraph path) {
+            fPath = path;
+            fBlame = computeBlame(path);
+        }
+    }
+
+    /**
+     * Compute the critical path of a request and its blame statistics, on a
+     * thread of the executor
+     */
+    private PathResult computePath(ICriticalPathAlgorithm algorithm, Request request) throws CriticalPathAlgorithmException {
+        TmfVertex start = fGraph.getVertexAt(TmfTimestamp.fromNanos(request.getStart()), request.getWorker());
+        if (start == null || start.getTs() >= request.getEnd()) {
+            /* Nothing happens with this worker in the range */
+            return new PathResult(new TmfGraph());
+        }
+        /* Only the time of the end vertex is used by the algorithm */
+        return new PathResult(algorithm.compute(start, new TmfVertex(request.getEnd())));
+    }
+
+    /**
+     * Sum the durations of the horizontal edges of a critical path by worker
+     * and by type
+     */
+    private static Blame computeBlame(TmfGraph path) {
+        Blame blame = new Blame();
+        for (IGraphWorker worker : path.getWorkers()) {
+            for (TmfVertex vertex : path.getNodesOf(worker)) {
+                TmfEdge edge = vertex.getEdge(EdgeDirection.OUTGOING_HORIZONTAL_EDGE);
+                if (edge != null) {
+                    blame.add(NonNullUtils.checkNotNull(worker), edge.getType(), edge.getDuration());
+                }
+            }
+        }
+        return blame;
+    }
+}
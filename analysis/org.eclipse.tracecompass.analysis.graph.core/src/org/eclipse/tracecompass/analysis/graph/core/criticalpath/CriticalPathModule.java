@@ -9,6 +9,8 @@
 
 package org.eclipse.tracecompass.analysis.graph.core.criticalpath;
 
+import java.util.concurrent.TimeUnit;
+
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
@@ -20,6 +22,7 @@ import org.eclipse.tracecompass.analysis.graph.core.building.TmfGraphBuilderModu
 import org.eclipse.tracecompass.common.core.NonNullUtils;
 import org.eclipse.tracecompass.internal.analysis.graph.core.Activator;
 import org.eclipse.tracecompass.internal.analysis.graph.core.criticalpath.CriticalPathAlgorithmBounded;
+import org.eclipse.tracecompass.internal.analysis.graph.core.criticalpath.CriticalPathAlgorithmBounded.PartialPath;
 import org.eclipse.tracecompass.internal.analysis.graph.core.criticalpath.Messages;
 import org.eclipse.tracecompass.tmf.core.analysis.TmfAbstractAnalysisModule;
 import org.eclipse.tracecompass.tmf.core.exceptions.TmfAnalysisException;
@@ -41,6 +44,9 @@ public class CriticalPathModule extends TmfAbstractAnalysisModule implements ICr
     /** Worker_id parameter name */
     public static final String PARAM_WORKER = "workerid"; //$NON-NLS-1$
 
+    /** Interval between the partial critical paths, in milliseconds */
+    private static final long PARTIAL_PATH_INTERVAL = 1000;
+
     private final TmfGraphBuilderModule fGraphModule;
 
     private volatile @Nullable TmfGraph fCriticalPath;
@@ -74,9 +80,13 @@ public class CriticalPathModule extends TmfAbstractAnalysisModule implements ICr
 
         /* Get the graph */
         TmfGraphBuilderModule graphModule = fGraphModule;
-        graphModule.schedule();
+        boolean scheduled = graphModule.schedule().isOK();
 
         monitor.setTaskName(NLS.bind(Messages.CriticalPathModule_waitingForGraph, graphModule.getName()));
+        TmfGraph partialGraph = scheduled ? graphModule.waitForGraph(monitor) : null;
+        if (partialGraph != null) {
+            publishPartialPaths(partialGraph, worker, monitor);
+        }
         if (!graphModule.waitForCompletion(monitor)) {
             Activator.getInstance().logInfo("Critical path execution: graph building was cancelled.  Results may not be accurate."); //$NON-NLS-1$
             return false;
@@ -89,13 +99,18 @@ public class CriticalPathModule extends TmfAbstractAnalysisModule implements ICr
         TmfVertex head = graph.getHead(worker);
         if (head == null) {
             /* Nothing happens with this worker, return an empty graph */
-            fCriticalPath = new TmfGraph();
+            TmfGraph empty = new TmfGraph();
+            empty.closeGraph();
+            fCriticalPath = empty;
             return true;
         }
 
         ICriticalPathAlgorithm cp = getAlgorithm(graph);
         try {
-            fCriticalPath = cp.compute(head, null);
+            TmfGraph criticalPath = cp.compute(head, null);
+            /* The final critical path is done building, unlike partial ones */
+            criticalPath.closeGraph();
+            fCriticalPath = criticalPath;
             return true;
         } catch (CriticalPathAlgorithmException e) {
             Activator.getInstance().logError(NonNullUtils.nullToEmptyString(e.getMessage()), e);
@@ -103,6 +118,48 @@ public class CriticalPathModule extends TmfAbstractAnalysisModule implements ICr
         return false;
     }
 
+    /**
+     * Publish the critical path up to the safe time of the graph at regular
+     * intervals while the graph is being built. The path is extended from the
+     * time it was last published, it is not computed again from the head of
+     * the worker. The partial paths are not closed, so the clients can tell
+     * them apart from the final one. They are provisional, since the graph
+     * provider may still change edges before the safe time.
+     */
+    private void publishPartialPaths(TmfGraph graph, IGraphWorker worker, IProgressMonitor monitor) {
+        long publishedTime = Long.MIN_VALUE;
+        PartialPath path = null;
+        try {
+            while (!graph.waitForDoneBuilding(PARTIAL_PATH_INTERVAL, TimeUnit.MILLISECONDS)) {
+                if (monitor.isCanceled()) {
+                    return;
+                }
+                long safeTime = graph.getSafeTime();
+                if (safeTime <= publishedTime) {
+                    continue;
+                }
+                if (path == null) {
+                    TmfVertex head = graph.getHead(worker);
+                    if (head == null || head.getTs() > safeTime) {
+                        continue;
+                    }
+                    path = new CriticalPathAlgorithmBounded(graph).startPath(head);
+                }
+                try {
+                    path.extend(safeTime);
+                    fCriticalPath = path.getPath();
+                    publishedTime = safeTime;
+                } catch (CriticalPathAlgorithmException e) {
+                    /* Wait for the final path */
+                    Activator.getInstance().logWarning("Error computing a partial critical path up to " + safeTime, e); //$NON-NLS-1$
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     @Override
     protected void canceling() {
         // Do nothing
@@ -130,7 +187,12 @@ public class CriticalPathModule extends TmfAbstractAnalysisModule implements ICr
     }
 
     /**
-     * Gets the graph for the critical path
+     * Gets the graph for the critical path. While the execution graph is being
+     * built, this is a partial critical path up to the safe time of the graph,
+     * which grows as the graph is built. It is not done building, see
+     * {@link TmfGraph#isDoneBuilding()}, and it is provisional: the final path
+     * may differ before the safe time, since the graph provider can still
+     * change the edges there, for instance when network packets are matched.
      *
      * @return The critical path graph
      */
@@ -50,77 +50,122 @@ public class CriticalPathAlgorithmBounded extends AbstractCriticalPathAlgorithm
 
     @Override
     public TmfGraph compute(TmfVertex start, @Nullable TmfVertex end) throws CriticalPathAlgorithmException {
-        /* Create new graph for the critical path result */
-        TmfGraph criticalPath = new TmfGraph();
+        PartialPath path = new PartialPath(start);
+        path.extend((end == null) ? Long.MAX_VALUE : end.getTs());
+        return path.getPath();
+    }
 
-        /* Get the main graph from which to get critical path */
-        TmfGraph graph = getGraph();
+    /**
+     * Start a critical path that is extended as the graph is built, see
+     * {@link PartialPath}
+     *
+     * @param start
+     *            The vertex from which to compute the path
+     * @return The critical path, empty but for the start vertex
+     */
+    public PartialPath startPath(TmfVertex start) {
+        return new PartialPath(start);
+    }
 
-        /*
-         * Calculate path starting from the object the start vertex belongs to
-         */
-        IGraphWorker parent = checkNotNull(graph.getParentOf(start));
-        criticalPath.add(parent, new TmfVertex(start));
-        TmfVertex currentVertex = start;
-        TmfEdge nextEdge = currentVertex.getEdge(EdgeDirection.OUTGOING_HORIZONTAL_EDGE);
+    /**
+     * A critical path computed up to a time, that can be extended to a later
+     * time. The horizontal edges of the worker are resolved one at a time, so
+     * the path up to a time is the beginning of the path up to a later time,
+     * as long as the graph is not modified before the first time. Extending
+     * the path only resolves the edges between the two times.
+     */
+    public class PartialPath {
+
+        private final TmfGraph fPath = new TmfGraph();
+        private final IGraphWorker fWorker;
+        private TmfVertex fCurrentVertex;
 
-        long endTime = Long.MAX_VALUE;
-        if (end != null) {
-            endTime = end.getTs();
+        private PartialPath(TmfVertex start) {
+            fWorker = checkNotNull(getGraph().getParentOf(start));
+            fPath.add(fWorker, new TmfVertex(start));
+            fCurrentVertex = start;
         }
 
-        /*
-         * Run through all horizontal edges from this object and resolve each
-         * blocking as they come
+        /**
+         * Get the critical path, it grows each time it is extended
+         *
+         * @return The critical path graph
          */
-        while (nextEdge != null) {
-            TmfVertex nextVertex = nextEdge.getVertexTo();
-            if (nextVertex.getTs() >= endTime) {
-                break;
-            }
-            switch (nextEdge.getType()) {
-            case IPI:
-            case USER_INPUT:
-            case BLOCK_DEVICE:
-            case TIMER:
-            case INTERRUPTED:
-            case PREEMPTED:
-            case RUNNING:
-                /**
-                 * This edge is not blocked, so nothing to resolve, just add the
-                 * edge to the critical path
-                 */
-                /**
-                 * TODO: Normally, the parent of the link's vertex to should be
-                 * the object itself, verify if that is true
-                 */
-                IGraphWorker parentTo = checkNotNull(graph.getParentOf(nextEdge.getVertexTo()));
-                if (parentTo != parent) {
-                    throw new CriticalPathAlgorithmException("no, the parents of horizontal edges are not always identical... shouldn't they be?"); //$NON-NLS-1$
+        public TmfGraph getPath() {
+            return fPath;
+        }
+
+        /**
+         * Extend the critical path with the horizontal edges of the worker
+         * that end before a time
+         *
+         * @param endTime
+         *            The time before which the edges are resolved
+         * @throws CriticalPathAlgorithmException
+         *             If an edge cannot be resolved, the path should not be
+         *             extended anymore
+         */
+        public void extend(long endTime) throws CriticalPathAlgorithmException {
+            /* Get the main graph from which to get critical path */
+            TmfGraph graph = getGraph();
+            TmfGraph criticalPath = fPath;
+            IGraphWorker parent = fWorker;
+            TmfVertex currentVertex = fCurrentVertex;
+            TmfEdge nextEdge = currentVertex.getEdge(EdgeDirection.OUTGOING_HORIZONTAL_EDGE);
+
+            /*
+             * Run through all horizontal edges from this object and resolve
+             * each blocking as they come
+             */
+            while (nextEdge != null) {
+                TmfVertex nextVertex = nextEdge.getVertexTo();
+                if (nextVertex.getTs() >= endTime) {
+                    break;
                 }
-                criticalPath.append(parentTo, new TmfVertex(nextEdge.getVertexTo()), nextEdge.getType(), nextEdge.getLinkQualifier());
-                break;
-            case NETWORK:
-            case BLOCKED:
-                List<TmfEdge> links = resolveBlockingBounded(nextEdge, nextEdge.getVertexFrom());
-                Collections.reverse(links);
-                appendPathComponent(criticalPath, graph, currentVertex, links);
-                break;
-            case EPS:
-                if (nextEdge.getDuration() != 0) {
-                    throw new CriticalPathAlgorithmException("epsilon duration is not zero " + nextEdge); //$NON-NLS-1$
+                switch (nextEdge.getType()) {
+                case IPI:
+                case USER_INPUT:
+                case BLOCK_DEVICE:
+                case TIMER:
+                case INTERRUPTED:
+                case PREEMPTED:
+                case RUNNING:
+                    /**
+                     * This edge is not blocked, so nothing to resolve, just add
+                     * the edge to the critical path
+                     */
+                    /**
+                     * TODO: Normally, the parent of the link's vertex to should
+                     * be the object itself, verify if that is true
+                     */
+                    IGraphWorker parentTo = checkNotNull(graph.getParentOf(nextEdge.getVertexTo()));
+                    if (parentTo != parent) {
+                        throw new CriticalPathAlgorithmException("no, the parents of horizontal edges are not always identical... shouldn't they be?"); //$NON-NLS-1$
+                    }
+                    criticalPath.append(parentTo, new TmfVertex(nextEdge.getVertexTo()), nextEdge.getType(), nextEdge.getLinkQualifier());
+                    break;
+                case NETWORK:
+                case BLOCKED:
+                    List<TmfEdge> links = resolveBlockingBounded(nextEdge, nextEdge.getVertexFrom());
+                    Collections.reverse(links);
+                    appendPathComponent(criticalPath, graph, currentVertex, links);
+                    break;
+                case EPS:
+                    if (nextEdge.getDuration() != 0) {
+                        throw new CriticalPathAlgorithmException("epsilon duration is not zero " + nextEdge); //$NON-NLS-1$
+                    }
+                    break;
+                case DEFAULT:
+                    throw new CriticalPathAlgorithmException("Illegal link type " + nextEdge.getType()); //$NON-NLS-1$
+                case UNKNOWN:
+                default:
+                    break;
                 }
-                break;
-            case DEFAULT:
-                throw new CriticalPathAlgorithmException("Illegal link type " + nextEdge.getType()); //$NON-NLS-1$
-            case UNKNOWN:
-            default:
-                break;
+                currentVertex = nextVertex;
+                fCurrentVertex = currentVertex;
+                nextEdge = currentVertex.getEdge(EdgeDirection.OUTGOING_HORIZONTAL_EDGE);
             }
-            currentVertex = nextVertex;
-            nextEdge = currentVertex.getEdge(EdgeDirection.OUTGOING_HORIZONTAL_EDGE);
         }
-        return criticalPath;
     }
 
     /** Add the links to the critical path, with currentVertex to glue to */
@@ -165,7 +210,7 @@ public class CriticalPathAlgorithmBounded extends AbstractCriticalPathAlgorithm
         TmfEdge prev = null;
         for (TmfEdge link : links) {
             // check connectivity
-            if (prev != null && prev.getVertexTo() != link.getVertexFrom()) {
+            if (prev != null && !prev.getVertexTo().equals(link.getVertexFrom())) {
                 anchor = copyLink(criticalPath, graph, anchor, prev.getVertexTo(), link.getVertexFrom(),
                         Math.max(prev.getVertexTo().getTs(), link.getVertexFrom().getTs()),
                         TmfEdge.EdgeType.DEFAULT, link.getLinkQualifier());
@@ -275,7 +320,7 @@ public class CriticalPathAlgorithmBounded extends AbstractCriticalPathAlgorithm
                 if (!stack.isEmpty()) {
                     TmfVertex v = stack.removeFirst();
                     /* rewind subpath */
-                    while (!subPath.isEmpty() && subPath.getLast().getVertexFrom() != v) {
+                    while (!subPath.isEmpty() && !subPath.getLast().getVertexFrom().equals(v)) {
                         subPath.removeLast();
                     }
                     TmfEdge edge = v.getEdge(EdgeDirection.INCOMING_VERTICAL_EDGE);
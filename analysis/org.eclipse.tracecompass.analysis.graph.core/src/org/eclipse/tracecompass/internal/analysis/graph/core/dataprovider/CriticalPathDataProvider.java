@@ -83,12 +83,19 @@ public class CriticalPathDataProvider extends AbstractTmfTraceDataProvider imple
      */
     private final BiMap<IGraphWorker, Long> fWorkerToEntryId = HashBiMap.create();
 
+    /**
+     * The critical path of the cached visitors and its number of vertices,
+     * partial critical paths grow while the execution graph is being built
+     */
+    private @Nullable TmfGraph fCriticalPath;
+    private int fCriticalPathSize;
+
     private final LoadingCache<IGraphWorker, CriticalPathVisitor> fHorizontalVisitorCache = CacheBuilder.newBuilder()
             .maximumSize(10).build(new CacheLoader<IGraphWorker, CriticalPathVisitor>() {
 
                 @Override
                 public CriticalPathVisitor load(IGraphWorker key) throws Exception {
-                    TmfGraph criticalPath = fCriticalPathModule.getCriticalPath();
+                    TmfGraph criticalPath = fCriticalPath;
                     return new CriticalPathVisitor(criticalPath, key);
                 }
             });
@@ -119,6 +126,12 @@ public class CriticalPathDataProvider extends AbstractTmfTraceDataProvider imple
         if (graph == null) {
             return new TmfModelResponse<>(null, Status.RUNNING, CommonStatusMessage.RUNNING);
         }
+        int size = graph.size();
+        if (graph != fCriticalPath || size != fCriticalPathSize) {
+            fHorizontalVisitorCache.invalidateAll();
+            fCriticalPath = graph;
+            fCriticalPathSize = size;
+        }
 
         IGraphWorker current = getCurrent();
         if (current == null) {
@@ -126,6 +139,13 @@ public class CriticalPathDataProvider extends AbstractTmfTraceDataProvider imple
         }
 
         CriticalPathVisitor visitor = fHorizontalVisitorCache.getUnchecked(current);
+        if (!graph.isDoneBuilding()) {
+            /*
+             * Partial and provisional critical path, up to the safe time of
+             * the execution graph
+             */
+            return new TmfModelResponse<>(visitor.getEntries(), Status.RUNNING, CommonStatusMessage.RUNNING);
+        }
         return new TmfModelResponse<>(visitor.getEntries(), Status.COMPLETED, CommonStatusMessage.COMPLETED);
     }
 
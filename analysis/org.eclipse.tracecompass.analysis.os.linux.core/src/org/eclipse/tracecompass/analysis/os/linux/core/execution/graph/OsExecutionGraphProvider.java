@@ -17,6 +17,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.tracecompass.analysis.graph.core.base.IGraphWorker;
+import org.eclipse.tracecompass.analysis.graph.core.base.IGraphWorkerSerializer;
 import org.eclipse.tracecompass.analysis.graph.core.base.TmfEdge;
 import org.eclipse.tracecompass.analysis.graph.core.base.TmfGraph;
 import org.eclipse.tracecompass.analysis.graph.core.base.TmfVertex;
@@ -27,6 +28,7 @@ import org.eclipse.tracecompass.analysis.os.linux.core.trace.DefaultEventLayout;
 import org.eclipse.tracecompass.analysis.os.linux.core.trace.IKernelAnalysisEventLayout;
 import org.eclipse.tracecompass.analysis.os.linux.core.trace.IKernelTrace;
 import org.eclipse.tracecompass.internal.analysis.os.linux.core.Activator;
+import org.eclipse.tracecompass.internal.analysis.os.linux.core.execution.graph.OsWorkerSerializer;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 
 /**
@@ -58,6 +60,8 @@ public class OsExecutionGraphProvider extends AbstractTmfGraphProvider {
     private static final String ATTRIBUTE_CLASS = "class"; //$NON-NLS-1$
     private static final String ATTRIBUTE_PRIORITY = "priority"; //$NON-NLS-1$
     private static final int DEFAULT_PRIORITY = 10;
+    /** Version of the graph building logic, of the saved graphs */
+    private static final int VERSION = 1;
 
     private final OsSystemModel fSystem;
 
@@ -119,6 +123,16 @@ public class OsExecutionGraphProvider extends AbstractTmfGraphProvider {
         }
     }
 
+    @Override
+    public IGraphWorkerSerializer getWorkerSerializer() {
+        return OsWorkerSerializer.INSTANCE;
+    }
+
+    @Override
+    public int getProviderVersion() {
+        return VERSION;
+    }
+
     /**
      * Simplify graph after construction
      */
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.analysis.os.linux.core.execution.graph;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.eclipse.tracecompass.analysis.graph.core.base.IGraphWorker;
+import org.eclipse.tracecompass.analysis.graph.core.base.IGraphWorkerSerializer;
+import org.eclipse.tracecompass.analysis.os.linux.core.execution.graph.OsWorker;
+import org.eclipse.tracecompass.analysis.os.linux.core.model.HostThread;
+
+/**
+ * Serializer of the {@link OsWorker} of the execution graph. The status of the
+ * workers is only used while building the graph and is not saved.
+ */
+public final class OsWorkerSerializer implements IGraphWorkerSerializer {
+
+    /** The instance of this serializer */
+    public static final OsWorkerSerializer INSTANCE = new OsWorkerSerializer();
+
+    private OsWorkerSerializer() {
+        // Use the instance
+    }
+
+    @Override
+    public void serialize(IGraphWorker worker, DataOutput output) throws IOException {
+        if (!(worker instanceof OsWorker)) {
+            throw new IOException("Unsupported graph worker: " + worker); //$NON-NLS-1$
+        }
+        OsWorker osWorker = (OsWorker) worker;
+        HostThread hostThread = osWorker.getHostThread();
+        output.writeUTF(hostThread.getHost());
+        output.writeInt(hostThread.getTid());
+        output.writeUTF(osWorker.getName());
+        output.writeLong(osWorker.getStart());
+    }
+
+    @Override
+    public IGraphWorker deserialize(DataInput input) throws IOException {
+        String host = input.readUTF();
+        int tid = input.readInt();
+        String name = input.readUTF();
+        long start = input.readLong();
+        return new OsWorker(new HostThread(host, tid), name, start);
+    }
+}
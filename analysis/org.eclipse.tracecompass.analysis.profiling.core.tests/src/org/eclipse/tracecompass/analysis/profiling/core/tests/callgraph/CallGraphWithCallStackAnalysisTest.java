@@ -16,9 +16,11 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.tracecompass.analysis.profiling.core.callgraph.ICallGraphProvider;
 import org.eclipse.tracecompass.analysis.profiling.core.tests.CallStackTestBase;
@@ -28,8 +30,17 @@ import org.eclipse.tracecompass.analysis.profiling.core.tests.data.TestDataBigCa
 import org.eclipse.tracecompass.analysis.profiling.core.tests.data.TestDataSmallCallStack;
 import org.eclipse.tracecompass.analysis.profiling.core.tests.stubs.CallStackAnalysisStub;
 import org.eclipse.tracecompass.internal.analysis.profiling.core.callgraph.AggregatedCalledFunction;
+import org.eclipse.tracecompass.analysis.timing.core.statistics.IStatistics;
+import org.eclipse.tracecompass.analysis.timing.core.statistics.Statistics;
 import org.eclipse.tracecompass.internal.analysis.profiling.core.callgraph.CallGraphAnalysis;
+import org.eclipse.tracecompass.internal.analysis.profiling.core.callgraph.CallGraphStatisticsAnalysis;
+import org.eclipse.tracecompass.internal.analysis.profiling.core.callgraph.ICalledFunction;
 import org.eclipse.tracecompass.internal.analysis.profiling.core.callgraph.ThreadNode;
+import org.eclipse.tracecompass.segmentstore.core.ISegment;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.segmentstore.core.ISegmentStore;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfAnalysisException;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
@@ -95,6 +106,63 @@ public class CallGraphWithCallStackAnalysisTest extends CallStackTestBase {
 
     }
 
+    /**
+     * Test the statistics of selections, assembled from the call graph,
+     * against the statistics of the calls of the call stack intersecting them
+     *
+     * @throws TmfAnalysisException
+     *             If the statistics analysis cannot be set up
+     */
+    @Test
+    public void testRangeStatistics() throws TmfAnalysisException {
+        CallStackAnalysisStub module = getModule();
+        ITmfTrace trace = module.getTrace();
+        assertNotNull(trace);
+        ISegmentStore<@NonNull ISegment> calls = module.getSegmentStore();
+        assertNotNull(calls);
+        ITmfStateSystem ss = module.getStateSystem();
+        assertNotNull(ss);
+
+        CallGraphStatisticsAnalysis statistics = new CallGraphStatisticsAnalysis();
+        try {
+            assertTrue(statistics.setTrace(trace));
+            statistics.schedule();
+            assertTrue(statistics.waitForCompletion());
+
+            long start = ss.getStartTime();
+            long end = ss.getCurrentEndTime();
+            long step = Math.max(1, (end - start) / 7);
+            for (long t0 = start; t0 <= end; t0 += step) {
+                for (long t1 = t0; t1 <= end + step; t1 += step) {
+                    String msg = "Range [" + t0 + ", " + t1 + "]";
+                    Map<String, IStatistics<ISegment>> expected = new HashMap<>();
+                    IStatistics<ISegment> expectedTotal = new Statistics<>(ISegment::getLength);
+                    for (ISegment call : calls.getIntersectingElements(t0, t1)) {
+                        expected.computeIfAbsent(String.valueOf(((ICalledFunction) call).getSymbol()), symbol -> new Statistics<>(ISegment::getLength)).update(call);
+                        expectedTotal.update(call);
+                    }
+                    Map<String, IStatistics<ISegment>> actual = statistics.getStatsPerTypeForRange(t0, t1, new NullProgressMonitor());
+                    assertEquals(msg, expected.keySet(), actual.keySet());
+                    for (Map.Entry<String, IStatistics<ISegment>> entry : expected.entrySet()) {
+                        compareStatistics(msg + " " + entry.getKey(), entry.getValue(), actual.get(entry.getKey()));
+                    }
+                    compareStatistics(msg, expectedTotal, statistics.getStatsForRange(t0, t1, new NullProgressMonitor()));
+                }
+            }
+        } finally {
+            statistics.dispose();
+        }
+    }
+
+    private static void compareStatistics(String msg, IStatistics<ISegment> expected, IStatistics<ISegment> actual) {
+        assertNotNull(msg, actual);
+        assertEquals(msg, expected.getNbElements(), actual.getNbElements());
+        assertEquals(msg, expected.getTotal(), actual.getTotal(), 0.0);
+        assertEquals(msg, expected.getMin(), actual.getMin());
+        assertEquals(msg, expected.getMax(), actual.getMax());
+        assertEquals(msg, expected.getMean(), actual.getMean(), 0.001);
+    }
+
     private static void compareCallGraphs(Map<String, AggregateData> expected, Collection<AggregatedCalledFunction> actual, int depth) {
         for (AggregatedCalledFunction function : actual) {
             AggregateData aggregateData = expected.get(function.getSymbol());
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.analysis.profiling.core.tests.callgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.eclipse.tracecompass.internal.analysis.profiling.core.callgraph.CalledFunctionFactory;
+import org.eclipse.tracecompass.internal.analysis.profiling.core.callgraph.CalledFunctionStore;
+import org.eclipse.tracecompass.internal.analysis.profiling.core.callgraph.ICalledFunction;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the {@link CalledFunctionStore}
+ */
+public class CalledFunctionStoreTest {
+
+    private CalledFunctionStore fFixture;
+
+    /**
+     * Create a store with a call and two callees
+     */
+    @Before
+    public void setup() {
+        CalledFunctionStore store = new CalledFunctionStore();
+        int main = store.add(10, 1010, 0, "Hello", 1, 2, -1);
+        store.add(20, 50, 1, "Hi", 1, 2, main);
+        store.add(400, 500, 1, 0x42L, 1, 2, main);
+        fFixture = store;
+    }
+
+    /**
+     * Test the fields and the self times of the calls
+     */
+    @Test
+    public void testFields() {
+        CalledFunctionStore store = fFixture;
+        assertEquals(3, store.size());
+        ICalledFunction main = store.get(0);
+        assertEquals(10, main.getStart());
+        assertEquals(1010, main.getEnd());
+        assertEquals(0, main.getDepth());
+        assertEquals("Hello", main.getSymbol());
+        assertEquals(1, main.getProcessId());
+        assertEquals(1000 - 30 - 100, main.getSelfTime());
+        assertNull(main.getParent());
+
+        ICalledFunction callee = store.get(2);
+        assertEquals(0x42L, callee.getSymbol());
+        assertEquals(100, callee.getSelfTime());
+        assertEquals(main, callee.getParent());
+        assertEquals(main.hashCode(), store.get(0).hashCode());
+        assertTrue(store.contains(callee));
+    }
+
+    /**
+     * Test that the iterator returns the calls by start time
+     */
+    @Test
+    public void testIterator() {
+        CalledFunctionStore store = new CalledFunctionStore();
+        store.add(30, 40, 0, "c", 1, 2, -1);
+        store.add(10, 20, 0, "a", 1, 2, -1);
+        store.add(20, 30, 0, "b", 1, 2, -1);
+        List<Object> symbols = new ArrayList<>();
+        store.forEach(call -> symbols.add(call.getSymbol()));
+        assertEquals(3, symbols.size());
+        assertEquals("a", symbols.get(0));
+        assertEquals("b", symbols.get(1));
+        assertEquals("c", symbols.get(2));
+    }
+
+    /**
+     * Test that the arrays and the iterables of the store are in the order of
+     * the iterator, and that the intersecting calls can be iterated more than
+     * once
+     */
+    @Test
+    public void testArrays() {
+        CalledFunctionStore store = fFixture;
+        List<ICalledFunction> expected = new ArrayList<>();
+        store.forEach(expected::add);
+        assertEquals(expected, Arrays.asList(store.toArray()));
+        assertEquals(expected, Arrays.asList(store.toArray(new ICalledFunction[0])));
+
+        ICalledFunction[] larger = new ICalledFunction[5];
+        assertTrue(larger == store.toArray(larger));
+        assertEquals(expected, Arrays.asList(larger).subList(0, 3));
+        assertNull(larger[3]);
+
+        Iterable<ICalledFunction> intersecting = store.getIntersectingElements(30, 30);
+        for (int i = 0; i < 2; i++) {
+            Iterator<ICalledFunction> iterator = intersecting.iterator();
+            assertTrue(iterator.hasNext());
+            assertEquals(store.get(0), iterator.next());
+            assertTrue(iterator.hasNext());
+            assertEquals(store.get(1), iterator.next());
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    /**
+     * Compare the intersecting calls with the ones found by iterating over the
+     * whole store
+     */
+    @Test
+    public void testIntersectingElements() {
+        CalledFunctionStore store = new CalledFunctionStore();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            long start = random.nextInt(100000);
+            store.add(start, start + random.nextInt(i % 100 == 0 ? 10000 : 100), 0, i % 10, 1, 2, -1);
+        }
+        for (int i = 0; i < 100; i++) {
+            long start = random.nextInt(110000) - 5000;
+            long end = start + random.nextInt(2000);
+            Set<ICalledFunction> expected = new HashSet<>();
+            for (ICalledFunction call : store) {
+                if (call.getStart() <= end && call.getEnd() >= start) {
+                    expected.add(call);
+                }
+            }
+            Set<ICalledFunction> actual = new HashSet<>();
+            store.getIntersectingElements(start, end).forEach(actual::add);
+            assertEquals(expected, actual);
+        }
+    }
+
+    /**
+     * Test appending a store to another, the symbols and callers of the calls
+     * must be kept
+     */
+    @Test
+    public void testAddAll() {
+        CalledFunctionStore store = new CalledFunctionStore();
+        int root = store.add(0, 5, 0, "Hi", 3, 4, -1);
+        store.addAll(fFixture);
+        assertEquals(4, store.size());
+        ICalledFunction callee = store.get(2);
+        assertEquals("Hi", callee.getSymbol());
+        ICalledFunction parent = callee.getParent();
+        assertNotNull(parent);
+        assertEquals("Hello", parent.getSymbol());
+        assertEquals(store.get(1), parent);
+        assertNull(store.get(root).getParent());
+        assertEquals(5, store.get(root).getSelfTime());
+
+        store.dispose();
+        assertTrue(store.isEmpty());
+        assertFalse(store.getIntersectingElements(0, Long.MAX_VALUE).iterator().hasNext());
+    }
+
+    /**
+     * Test that the calls are sorted by start time, then end time, when they
+     * are added in any order
+     */
+    @Test
+    public void testSortOrder() {
+        CalledFunctionStore store = new CalledFunctionStore();
+        Random random = new Random(7);
+        for (int i = 0; i < 10000; i++) {
+            /* Runs of calls in order, like the calls of a thread */
+            long start = (i % 500 < 250) ? i : random.nextInt(1000);
+            store.add(start, start + random.nextInt(50), 0, i, 1, 2, -1);
+        }
+        ICalledFunction previous = null;
+        int count = 0;
+        for (ICalledFunction call : store) {
+            if (previous != null) {
+                assertTrue(previous.getStart() < call.getStart() ||
+                        (previous.getStart() == call.getStart() && previous.getEnd() <= call.getEnd()));
+            }
+            previous = call;
+            count++;
+        }
+        assertEquals(10000, count);
+    }
+
+    /**
+     * Test copying call objects in the store, the callers that are not in the
+     * store are copied once with their callees
+     */
+    @Test
+    public void testAddObjects() {
+        ICalledFunction main = CalledFunctionFactory.create(0, 100, 0, "main", 1, null);
+        ICalledFunction foo = CalledFunctionFactory.create(10, 40, 1, "foo", 1, main);
+        ICalledFunction bar = CalledFunctionFactory.create(50, 60, 1, "bar", 1, main);
+        ICalledFunction baz = CalledFunctionFactory.create(15, 20, 2, "baz", 1, foo);
+
+        CalledFunctionStore store = new CalledFunctionStore();
+        /* The callees come before their callers */
+        assertTrue(store.addAll(Arrays.asList(baz, bar, main)));
+        assertEquals(4, store.size());
+        Map<Object, ICalledFunction> calls = new HashMap<>();
+        store.forEach(call -> calls.put(call.getSymbol(), call));
+        assertEquals(4, calls.size());
+        ICalledFunction storedMain = calls.get("main");
+        ICalledFunction storedFoo = calls.get("foo");
+        assertNotNull(storedMain);
+        assertNotNull(storedFoo);
+        assertEquals(100 - 30 - 10, storedMain.getSelfTime());
+        assertEquals(30 - 5, storedFoo.getSelfTime());
+        assertEquals(storedMain, storedFoo.getParent());
+        assertEquals(storedFoo, calls.get("baz").getParent());
+        assertEquals(storedMain, calls.get("bar").getParent());
+        assertNull(storedMain.getParent());
+
+        /* The calls of the store are not copied again */
+        assertFalse(store.add(storedFoo));
+        assertEquals(4, store.size());
+
+        /* The calls of another store are copied with their thread */
+        assertTrue(store.add(fFixture.get(2)));
+        assertEquals(6, store.size());
+        ICalledFunction callee = store.get(5);
+        assertEquals(0x42L, callee.getSymbol());
+        assertEquals(100, callee.getSelfTime());
+        ICalledFunction caller = callee.getParent();
+        assertNotNull(caller);
+        assertEquals("Hello", caller.getSymbol());
+        assertEquals(1000 - 30 - 100, caller.getSelfTime());
+    }
+}
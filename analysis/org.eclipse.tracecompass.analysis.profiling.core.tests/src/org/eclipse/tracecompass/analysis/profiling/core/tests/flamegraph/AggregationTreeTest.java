@@ -13,6 +13,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -50,6 +51,7 @@ public class AggregationTreeTest {
     private static final int LARGE_AMOUNT_OF_SEGMENTS = 1000;
     private static final String @NonNull [] PP = { PROCESS_PATH };
     private static final String @NonNull [] TP = { THREAD_PATH };
+    private static final String @NonNull [] ALL_THREADS = { "*" };
 
     private static final Object NULL_STATE_VALUE = null;
 
@@ -631,6 +633,127 @@ public class AggregationTreeTest {
         cga.dispose();
     }
 
+    /**
+     * Test a state system with many threads, whose aggregation trees are
+     * built in parallel and merged in the flame graph. Each thread has the
+     * same call stack:
+     *
+     * <pre>
+     * ____1____
+     *  _2_ _3_
+     * </pre>
+     */
+    @Test
+    public void multiThreadTest() {
+        ITmfStateSystemBuilder fixture = createFixture();
+        int nbThreads = 16;
+        for (int i = 0; i < nbThreads; i++) {
+            int parentQuark = fixture.getQuarkAbsoluteAndAdd(PROCESS_PATH, THREAD_PATH + i, CALLSTACK_PATH);
+            long start = i;
+            fixture.pushAttribute(start, 1, parentQuark);
+            fixture.pushAttribute(start + 1, 2, parentQuark);
+            fixture.popAttribute(start + 3, parentQuark);
+            fixture.pushAttribute(start + 4, 3, parentQuark);
+            fixture.popAttribute(start + 8, parentQuark);
+            fixture.popAttribute(start + 10, parentQuark);
+        }
+        fixture.closeHistory(100);
+        CGAnalysis cga = new CGAnalysis();
+        setCga(cga);
+        assertTrue(cga.iterateOverStateSystem(fixture, ALL_THREADS, PP, new NullProgressMonitor()));
+        List<ThreadNode> threads = cga.getThreadNodes();
+        assertEquals("Number of threads found", nbThreads, threads.size());
+        for (ThreadNode thread : threads) {
+            assertEquals("Number of root functions", 1, thread.getChildren().size());
+            AggregatedCalledFunction root = thread.getChildren().iterator().next();
+            assertEquals("Root duration", 10, root.getDuration());
+            assertEquals("Root self time", 4, root.getSelfTime());
+            assertEquals("Number of callees", 2, root.getChildren().size());
+        }
+
+        // The flame graph merges the trees of all the threads
+        Collection<ThreadNode> flameGraph = cga.getFlameGraph();
+        assertEquals(1, flameGraph.size());
+        ThreadNode merged = flameGraph.iterator().next();
+        assertEquals("Number of root functions", 1, merged.getChildren().size());
+        AggregatedCalledFunction root = merged.getChildren().iterator().next();
+        assertEquals("Merged duration", 10 * nbThreads, root.getDuration());
+        assertEquals("Merged self time", 4 * nbThreads, root.getSelfTime());
+        assertEquals("Merged number of calls", nbThreads, root.getNbCalls());
+        assertEquals("Number of callees", 2, root.getChildren().size());
+        for (AggregatedCalledFunction callee : root.getChildren()) {
+            assertEquals("Callee number of calls", nbThreads, callee.getNbCalls());
+            long duration = callee.getSymbol().equals(2L) ? 2 : 4;
+            assertEquals("Callee duration", duration * nbThreads, callee.getDuration());
+        }
+
+        // The trees of the threads are not modified by the merge
+        AggregatedCalledFunction threadRoot = threads.get(0).getChildren().iterator().next();
+        assertEquals("Root duration", 10, threadRoot.getDuration());
+        cga.dispose();
+    }
+
+    /**
+     * Test the aggregated trees of time ranges, assembled from pre-aggregated
+     * buckets of calls, against the calls starting in the ranges. Each thread
+     * repeatedly calls function 1, which calls function 2.
+     */
+    @Test
+    public void timeRangeTest() {
+        ITmfStateSystemBuilder fixture = createFixture();
+        int nbThreads = 2;
+        int nbCalls = 3000;
+        for (int i = 0; i < nbThreads; i++) {
+            int parentQuark = fixture.getQuarkAbsoluteAndAdd(PROCESS_PATH, THREAD_PATH + i, CALLSTACK_PATH);
+            for (int j = 0; j < nbCalls; j++) {
+                long start = j * 10L;
+                fixture.pushAttribute(start, 1, parentQuark);
+                fixture.pushAttribute(start + 2, 2, parentQuark);
+                fixture.popAttribute(start + 6, parentQuark);
+                fixture.popAttribute(start + 9, parentQuark);
+            }
+        }
+        fixture.closeHistory(nbCalls * 10L);
+        CGAnalysis cga = new CGAnalysis();
+        setCga(cga);
+        assertTrue(cga.iterateOverStateSystem(fixture, ALL_THREADS, PP, new NullProgressMonitor()));
+
+        long[][] ranges = { { 0, nbCalls * 10L }, { 5, 29 }, { 1234, 25000 }, { 10240, 20479 }, { 3, 3 }, { nbCalls * 10L, Long.MAX_VALUE } };
+        for (long[] range : ranges) {
+            long start = range[0];
+            long end = range[1];
+            /* Number of calls to each function starting in the range */
+            long nbFirst = 0;
+            long nbSecond = 0;
+            for (int j = 0; j < nbCalls; j++) {
+                nbFirst += (j * 10L >= start && j * 10L <= end) ? nbThreads : 0;
+                nbSecond += (j * 10L + 2 >= start && j * 10L + 2 <= end) ? nbThreads : 0;
+            }
+            String msg = "Range [" + start + ", " + end + "]";
+            ThreadNode merged = cga.getFlameGraph(start, end).iterator().next();
+            if (nbFirst == 0 && nbSecond == 0) {
+                assertEquals(msg, 0, merged.getChildren().size());
+                continue;
+            }
+            assertEquals(msg, 1, merged.getChildren().size());
+            AggregatedCalledFunction first = merged.getChildren().iterator().next();
+            assertEquals(msg, nbFirst, first.getNbCalls());
+            assertEquals(msg, nbFirst * 9, first.getDuration());
+            assertEquals(msg, nbFirst * 5, first.getSelfTime());
+            AggregatedCalledFunction second = first.getChildren().iterator().next();
+            assertEquals(msg, nbSecond, second.getNbCalls());
+            assertEquals(msg, nbSecond * 4, second.getDuration());
+        }
+
+        /* The whole range is the same as the flame graph */
+        AggregatedCalledFunction all = cga.getFlameGraph().iterator().next().getChildren().iterator().next();
+        AggregatedCalledFunction range = cga.getFlameGraph(Long.MIN_VALUE, Long.MAX_VALUE).iterator().next().getChildren().iterator().next();
+        assertEquals(all.getNbCalls(), range.getNbCalls());
+        assertEquals(all.getDuration(), range.getDuration());
+        assertEquals(all.getSelfTime(), range.getSelfTime());
+        cga.dispose();
+    }
+
     /**
      * Gets the call graph analysis
      *
@@ -9,7 +9,9 @@
 
 package org.eclipse.tracecompass.internal.analysis.profiling.core.callgraph;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -88,6 +90,21 @@ public class AggregatedCalledFunction implements Cloneable {
         fStatistics = new AggregatedCalledFunctionStatistics();
     }
 
+    /**
+     * Constructor of a callee without calls yet, on the path to the calls added
+     * with {@link #addCall(ICalledFunction)}
+     */
+    private AggregatedCalledFunction(ICalledFunction function, AggregatedCalledFunction parent) {
+        fSymbol = function.getSymbol();
+        fDuration = 0;
+        fSelfTime = 0;
+        fDepth = function.getDepth();
+        fProcessId = function.getProcessId();
+        fMaxDepth = parent.getMaxDepth();
+        fParent = parent;
+        fStatistics = new AggregatedCalledFunctionStatistics();
+    }
+
     /**
      * copy constructor, used by the clone method
      *
@@ -159,6 +176,42 @@ public class AggregatedCalledFunction implements Cloneable {
         }
     }
 
+    /**
+     * Merge another aggregated function into this one: add its durations, self
+     * time and statistics, and merge its callees with the callees of this
+     * function of the same symbol. The callees of the other function are
+     * moved to this one, so it must not be used after.
+     *
+     * @param other
+     *            The aggregated function to merge into this one
+     */
+    public synchronized void merge(AggregatedCalledFunction other) {
+        merge(this, other);
+    }
+
+    /**
+     * Add a single call to the tree below this function, under the callees
+     * matching the symbols of its callers. The call must be complete, its self
+     * time and statistics are final.
+     *
+     * @param call
+     *            The call to add, with its callers as parents
+     */
+    synchronized void addCall(ICalledFunction call) {
+        Deque<ICalledFunction> path = new ArrayDeque<>();
+        for (ICalledFunction function = call; function != null; function = function.getParent()) {
+            path.push(function);
+        }
+        AggregatedCalledFunction node = this;
+        for (ICalledFunction function : path) {
+            AggregatedCalledFunction parent = node;
+            node = parent.fChildren.computeIfAbsent(function.getSymbol(), symbol -> new AggregatedCalledFunction(function, parent));
+        }
+        node.addToDuration(call.getLength());
+        node.addToSelfTime(call.getSelfTime());
+        node.getFunctionStatistics().update(call);
+    }
+
     @Override
     public @NonNull AggregatedCalledFunction clone() {
         // We use a constructor instead of super.clone, otherwise some fields cannot be
@@ -13,10 +13,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ListenerList;
@@ -81,6 +85,15 @@ public class CallGraphAnalysis extends TmfAbstractAnalysisModule implements ISeg
      */
     private List<ThreadNode> fThreadNodes = new ArrayList<>();
 
+    /** The calls of all the threads */
+    private volatile @Nullable CalledFunctionStore fCallStore = null;
+
+    /**
+     * The aggregated trees of the calls by time range, built with the first
+     * time range query and kept until the analysis runs again
+     */
+    private volatile @Nullable CallGraphBuckets fBuckets = null;
+
     private final @Nullable CallStackAnalysis fCallStackAnalysis;
 
     /**
@@ -159,12 +172,25 @@ public class CallGraphAnalysis extends TmfAbstractAnalysisModule implements ISeg
         if (ss == null || !iterateOverStateSystem(ss, threadsPattern, processesPattern, monitor)) {
             return false;
         }
+        CalledFunctionStore store = fCallStore;
+        if (store != null) {
+            sendUpdate(store);
+        }
         monitor.worked(1);
         monitor.done();
         return true;
 
     }
 
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void sendUpdate(CalledFunctionStore store) {
+        /* The store is read-only for the listeners */
+        ISegmentStore<ISegment> segmentStore = (ISegmentStore) store;
+        for (IAnalysisProgressListener listener : fListeners) {
+            listener.onComplete(this, segmentStore);
+        }
+    }
+
     /**
      * Iterate over the process of the state system,then iterate over the
      * different threads of each process.
@@ -203,7 +229,11 @@ public class CallGraphAnalysis extends TmfAbstractAnalysisModule implements ISeg
 
             }
         }
-        iterateOverCallStack2D(ss, mainAttribs, monitor);
+        CalledFunctionStore store = new CalledFunctionStore();
+        if (iterateOverCallStack2D(ss, mainAttribs, store, monitor)) {
+            fCallStore = store;
+            fBuckets = null;
+        }
         return true;
     }
 
@@ -280,10 +310,45 @@ public class CallGraphAnalysis extends TmfAbstractAnalysisModule implements ISeg
         }
     }
 
+    /**
+     * The calls of a thread. The functions are only kept until they are
+     * complete, to find the index of the caller of the next calls.
+     */
+    private static class ThreadCalls {
+        private final CalledFunctionStore fStore = new CalledFunctionStore();
+        private final Map<ICalledFunction, Integer> fPending = new IdentityHashMap<>();
+        private final long fThreadId;
+
+        public ThreadCalls(long threadId) {
+            fThreadId = threadId;
+        }
+
+        public void add(AbstractCalledFunction function) {
+            ICalledFunction parent = function.getParent();
+            Integer parentIndex = (parent == null) ? null : fPending.get(parent);
+            int index = fStore.add(function.getStart(), function.getEnd(), function.getDepth(), function.getSymbol(),
+                    function.getProcessId(), fThreadId, (parentIndex == null) ? -1 : parentIndex);
+            fPending.put(function, index);
+        }
+
+        public void complete(AbstractCalledFunction function) {
+            fPending.remove(function);
+        }
+
+        /*
+         * Forget the functions that were never completed, once the call stack
+         * of the thread is parsed
+         */
+        public void clearPending() {
+            fPending.clear();
+        }
+    }
+
     /** Represent a callgraph level in the algorithm */
     private static class CallGraphLevel {
 
         private final ThreadNode fThreadNode;
+        private final ThreadCalls fCalls;
         private final List<CallgraphRange> fRanges = new ArrayList<>();
         private final Map<AggregatedCalledFunction, FunctionCall> fAggregated = new HashMap<>();
         private final List<ITmfStateInterval> fOrphanedIntervals = new ArrayList<>();
@@ -291,8 +356,9 @@ public class CallGraphAnalysis extends TmfAbstractAnalysisModule implements ISeg
         private final int fDepth;
         private @Nullable CallGraphLevel fChild = null;
 
-        public CallGraphLevel(ThreadNode threadNode, int depth, @Nullable CallGraphLevel parent) {
+        public CallGraphLevel(ThreadNode threadNode, ThreadCalls calls, int depth, @Nullable CallGraphLevel parent) {
             fThreadNode = threadNode;
+            fCalls = calls;
             fDepth = depth;
             fParent = parent;
         }
@@ -305,6 +371,19 @@ public class CallGraphAnalysis extends TmfAbstractAnalysisModule implements ISeg
             fChild = childLvl;
         }
 
+        /* Create a function of this level and add it to the calls */
+        public AbstractCalledFunction createFunction(long start, long end, Object value, @Nullable AbstractCalledFunction parent) {
+            AbstractCalledFunction function = CalledFunctionFactory.create(start, end, fDepth, value, getProcessId(), parent);
+            fCalls.add(function);
+            return function;
+        }
+
+        /* Add a complete call to its aggregated parent */
+        public void addChild(AggregatedCalledFunction parent, AbstractCalledFunction function, AggregatedCalledFunction aggregated) {
+            parent.addChild(function, aggregated);
+            fCalls.complete(function);
+        }
+
         public void setCovered(CallgraphRange newRange) {
             // Try to get the biggest range including the new one from all the
             // others
@@ -379,7 +458,7 @@ public class CallGraphAnalysis extends TmfAbstractAnalysisModule implements ISeg
                  */
                 toRemove.add(interval);
                 CallgraphRange childRange = new CallgraphRange(interval.getStartTime(), interval.getEndTime());
-                AbstractCalledFunction childFunc = CalledFunctionFactory.create(childRange.fStart, childRange.fEnd + 1, fDepth + 1, Objects.requireNonNull(interval.getValue()), fThreadNode.getProcessId(), function);
+                AbstractCalledFunction childFunc = child.createFunction(childRange.fStart, childRange.fEnd + 1, Objects.requireNonNull(interval.getValue()), function);
                 AggregatedCalledFunction childAgg = new AggregatedCalledFunction(childFunc, aggregated);
 
                 /*
@@ -392,7 +471,7 @@ public class CallGraphAnalysis extends TmfAbstractAnalysisModule implements ISeg
                      * Yes, add the child to the current aggregated call and set
                      * this range as covered in both child and current level
                      */
-                    aggregated.addChild(childFunc, childAgg);
+                    child.addChild(aggregated, childFunc, childAgg);
                     child.setCovered(childRange);
                     setCovered(childRange);
                 } else {
@@ -439,7 +518,7 @@ public class CallGraphAnalysis extends TmfAbstractAnalysisModule implements ISeg
                             // there were null values above, just ignore
                             continue;
                         }
-                        parent.addChild(entry.getValue().fFunc, entry.getKey());
+                        addChild(parent, entry.getValue().fFunc, entry.getKey());
                         setCovered(parentRange);
                         tryToCompleteParentCoverage(parentRange);
                     }
@@ -458,38 +537,58 @@ public class CallGraphAnalysis extends TmfAbstractAnalysisModule implements ISeg
             return parent.fAggregated.get(parentCall);
         }
 
-        public int getDepth() {
-            return fDepth;
-        }
-
         public int getProcessId() {
             return fThreadNode.getProcessId();
         }
 
     }
 
-    private static boolean iterateOverCallStack2D(ITmfStateSystem ss, Map<ThreadNode, List<Integer>> parentAttribs, IProgressMonitor monitor) {
+    private static boolean iterateOverCallStack2D(ITmfStateSystem ss, Map<ThreadNode, List<Integer>> parentAttribs, CalledFunctionStore calls, IProgressMonitor monitor) {
+        if (parentAttribs.isEmpty()) {
+            return true;
+        }
+        /*
+         * The aggregation trees of the threads are independent from each
+         * other, build them in parallel, each with its own 2D query
+         */
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parentAttribs.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            List<ForkJoinTask<Boolean>> tasks = new ArrayList<>();
+            List<ThreadCalls> threadCalls = new ArrayList<>();
+            for (Entry<ThreadNode, List<Integer>> entry : parentAttribs.entrySet()) {
+                ThreadNode threadNode = entry.getKey();
+                List<Integer> subAttributes = entry.getValue();
+                ThreadCalls callList = new ThreadCalls(threadNode.getId());
+                threadCalls.add(callList);
+                tasks.add(pool.submit(() -> iterateOverThreadCallStack(ss, threadNode, subAttributes, callList, monitor)));
+            }
+            boolean completed = true;
+            for (ForkJoinTask<Boolean> task : tasks) {
+                completed &= Boolean.TRUE.equals(task.join());
+            }
+            threadCalls.forEach(threadCall -> calls.addAll(threadCall.fStore));
+            return completed;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static boolean iterateOverThreadCallStack(ITmfStateSystem ss, ThreadNode threadNode, List<Integer> attributes, ThreadCalls calls, IProgressMonitor monitor) {
         try {
             long start = ss.getStartTime();
             long end = ss.getCurrentEndTime();
 
             Map<Integer, CallGraphLevel> attribToLevel = new HashMap<>();
-            List<Integer> attributes = new ArrayList<>();
 
-            // Create the levels for all the thread nodes and attributes
-            for (Entry<ThreadNode, List<Integer>> entry : parentAttribs.entrySet()) {
-                ThreadNode threadNode = entry.getKey();
-                List<Integer> subAttributes = entry.getValue();
-                attributes.addAll(subAttributes);
-                CallGraphLevel prevLevel = null;
-                for (int i = 0; i < subAttributes.size(); i++) {
-                    CallGraphLevel level = new CallGraphLevel(threadNode, i, prevLevel);
-                    if (prevLevel != null) {
-                        prevLevel.setChild(level);
-                    }
-                    prevLevel = level;
-                    attribToLevel.put(subAttributes.get(i), level);
+            // Create the levels for the attributes of the thread
+            CallGraphLevel prevLevel = null;
+            for (int i = 0; i < attributes.size(); i++) {
+                CallGraphLevel level = new CallGraphLevel(threadNode, calls, i, prevLevel);
+                if (prevLevel != null) {
+                    prevLevel.setChild(level);
                 }
+                prevLevel = level;
+                attribToLevel.put(attributes.get(i), level);
             }
 
             /*
@@ -536,7 +635,7 @@ public class CallGraphAnalysis extends TmfAbstractAnalysisModule implements ISeg
                      * this interval
                      */
                     FunctionCall parentData = level.getParentData(parent);
-                    AbstractCalledFunction function = CalledFunctionFactory.create(intervalStart, intervalEnd + 1, level.getDepth(), value, level.getProcessId(), (parentData == null) ? null : parentData.fFunc);
+                    AbstractCalledFunction function = level.createFunction(intervalStart, intervalEnd + 1, value, (parentData == null) ? null : parentData.fFunc);
                     AggregatedCalledFunction aggregated = new AggregatedCalledFunction(function, parent);
                     /*
                      * See if there are any children intervals to process and
@@ -558,7 +657,7 @@ public class CallGraphAnalysis extends TmfAbstractAnalysisModule implements ISeg
                      * Yes, add the current site to the parent and set this
                      * range as covered for the current level
                      */
-                    parent.addChild(function, aggregated);
+                    level.addChild(parent, function, aggregated);
                     level.setCovered(range);
                 }
 
@@ -569,6 +668,8 @@ public class CallGraphAnalysis extends TmfAbstractAnalysisModule implements ISeg
             }
         } catch (StateSystemDisposedException e) {
             return false;
+        } finally {
+            calls.clearPending();
         }
         return true;
     }
@@ -601,8 +702,10 @@ public class CallGraphAnalysis extends TmfAbstractAnalysisModule implements ISeg
      */
     @Override
     @Deprecated
+    @SuppressWarnings({ "unchecked", "rawtypes" })
     public @Nullable ISegmentStore<@NonNull ISegment> getSegmentStore() {
-        return null;
+        /* The store is read-only, no other segments can be added to it */
+        return (ISegmentStore) fCallStore;
     }
 
     /**
@@ -613,11 +716,79 @@ public class CallGraphAnalysis extends TmfAbstractAnalysisModule implements ISeg
     public Collection<ThreadNode> getFlameGraph() {
         AbstractCalledFunction initSegment = CalledFunctionFactory.create(0, 0, -1, "", 0, null); //$NON-NLS-1$
         ThreadNode init = new ThreadNode(initSegment, 0, 0);
-        fThreadNodes.forEach(
-                tn -> tn.getChildren().forEach(
-                        child -> init.addChild(initSegment, child.clone())));
+        List<ThreadNode> threadNodes = fThreadNodes;
+        if (!threadNodes.isEmpty()) {
+            AggregatedCalledFunction merged = ForkJoinPool.commonPool().invoke(new MergeTask(threadNodes, 0, threadNodes.size()));
+            merged.getChildren().forEach(child -> init.addChild(initSegment, child));
+        }
+        return Collections.singleton(init);
+
+    }
+
+    /**
+     * Merge copies of the aggregation trees of a range of threads, by merging
+     * the two halves of the range in parallel
+     */
+    private static class MergeTask extends RecursiveTask<AggregatedCalledFunction> {
+        private static final long serialVersionUID = -2516396356370342455L;
+
+        private final transient List<ThreadNode> fNodes;
+        private final int fFrom;
+        private final int fTo;
+
+        public MergeTask(List<ThreadNode> nodes, int from, int to) {
+            fNodes = nodes;
+            fFrom = from;
+            fTo = to;
+        }
+
+        @Override
+        protected AggregatedCalledFunction compute() {
+            if (fTo - fFrom == 1) {
+                return fNodes.get(fFrom).clone();
+            }
+            int middle = (fFrom + fTo) >>> 1;
+            MergeTask left = new MergeTask(fNodes, fFrom, middle);
+            left.fork();
+            AggregatedCalledFunction merged = new MergeTask(fNodes, middle, fTo).compute();
+            AggregatedCalledFunction leftMerged = left.join();
+            /* The copies of the thread nodes are only merged for their callees */
+            leftMerged.merge(merged);
+            return leftMerged;
+        }
+    }
+
+    /**
+     * Merged aggregated tree of the calls starting in a time range, like
+     * {@link #getFlameGraph()} for a selection. The tree is assembled from
+     * trees pre-aggregated by time range, which are built with the first query
+     * and reused by the following ones.
+     *
+     * @param start
+     *            The start of the time range
+     * @param end
+     *            The end of the time range, inclusive
+     * @return The merged thread node of the range, empty if the analysis is not
+     *         completed
+     */
+    public Collection<ThreadNode> getFlameGraph(long start, long end) {
+        AbstractCalledFunction initSegment = CalledFunctionFactory.create(0, 0, -1, "", 0, null); //$NON-NLS-1$
+        ThreadNode init = new ThreadNode(initSegment, 0, 0);
+        CallGraphBuckets buckets = getBuckets();
+        if (buckets != null) {
+            buckets.getAggregatedTree(start, end).getChildren().forEach(child -> init.addChild(initSegment, child));
+        }
         return Collections.singleton(init);
+    }
 
+    private synchronized @Nullable CallGraphBuckets getBuckets() {
+        CallGraphBuckets buckets = fBuckets;
+        CalledFunctionStore store = fCallStore;
+        if (buckets == null && store != null) {
+            buckets = new CallGraphBuckets(store);
+            fBuckets = buckets;
+        }
+        return buckets;
     }
 
     /**
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.analysis.profiling.core.callgraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pre-aggregated call trees of the calls of a call graph, to get the
+ * aggregated tree of the calls of any time range without walking all of them.
+ * <p>
+ * The calls are sorted by start time and split in buckets of a fixed number of
+ * calls. The aggregated tree of each bucket is kept, and the trees are merged
+ * two by two in levels, like a segment tree. The tree of a time range is
+ * assembled from the largest pre-aggregated trees covering the range, and
+ * the calls of the buckets at the edges of the range, which are only
+ * partially covered.
+ */
+public class CallGraphBuckets {
+
+    /** Number of calls in each bucket */
+    private static final int BUCKET_SIZE = 1024;
+
+    private final CalledFunctionStore fCalls;
+    /** The aggregated trees of each level, level 0 being the buckets */
+    private final List<AggregatedCalledFunction[]> fLevels = new ArrayList<>();
+
+    /**
+     * Constructor, aggregates the calls in buckets
+     *
+     * @param calls
+     *            The calls of the call graph, it should not be modified
+     *            afterwards
+     */
+    public CallGraphBuckets(CalledFunctionStore calls) {
+        fCalls = calls;
+        int size = calls.size();
+
+        /* Aggregate the calls of each bucket */
+        AggregatedCalledFunction[] level = new AggregatedCalledFunction[(size + BUCKET_SIZE - 1) / BUCKET_SIZE];
+        for (int i = 0; i < level.length; i++) {
+            AggregatedCalledFunction bucket = createRoot();
+            addCalls(bucket, i * BUCKET_SIZE, Math.min(size, (i + 1) * BUCKET_SIZE));
+            level[i] = bucket;
+        }
+        fLevels.add(level);
+
+        /* Merge the trees two by two up to a single tree */
+        while (level.length > 1) {
+            AggregatedCalledFunction[] lower = level;
+            level = new AggregatedCalledFunction[(lower.length + 1) / 2];
+            for (int i = 0; i < level.length; i++) {
+                AggregatedCalledFunction merged = lower[2 * i].clone();
+                if (2 * i + 1 < lower.length) {
+                    merged.merge(lower[2 * i + 1].clone());
+                }
+                level[i] = merged;
+            }
+            fLevels.add(level);
+        }
+    }
+
+    /**
+     * Get the aggregated tree of the calls starting in a time range
+     *
+     * @param start
+     *            The start of the range
+     * @param end
+     *            The end of the range, inclusive
+     * @return A new aggregated tree, whose root is not a call, with the root
+     *         calls of the range as children
+     */
+    public AggregatedCalledFunction getAggregatedTree(long start, long end) {
+        AggregatedCalledFunction root = createRoot();
+        int from = fCalls.getRankOf(start);
+        int to = (end == Long.MAX_VALUE) ? fCalls.size() : fCalls.getRankOf(end + 1);
+        if (from >= to) {
+            return root;
+        }
+        /* The first and last buckets may only be partially in the range */
+        int firstBucket = (from + BUCKET_SIZE - 1) / BUCKET_SIZE;
+        int lastBucket = to / BUCKET_SIZE;
+        if (firstBucket >= lastBucket) {
+            addCalls(root, from, to);
+            return root;
+        }
+        addCalls(root, from, firstBucket * BUCKET_SIZE);
+        addCalls(root, lastBucket * BUCKET_SIZE, to);
+
+        /* Merge the largest pre-aggregated trees covering the full buckets */
+        int low = firstBucket;
+        int high = lastBucket;
+        for (AggregatedCalledFunction[] level : fLevels) {
+            if (low >= high) {
+                break;
+            }
+            if ((low & 1) == 1) {
+                root.merge(level[low++].clone());
+            }
+            if ((high & 1) == 1) {
+                root.merge(level[--high].clone());
+            }
+            low >>= 1;
+            high >>= 1;
+        }
+        return root;
+    }
+
+    private static AggregatedCalledFunction createRoot() {
+        return new AggregatedCalledFunction(CalledFunctionFactory.create(0, 0, -1, "", 0, null), 0); //$NON-NLS-1$
+    }
+
+    private void addCalls(AggregatedCalledFunction root, int from, int to) {
+        for (int i = from; i < to; i++) {
+            root.addCall(fCalls.getByStart(i));
+        }
+    }
+}
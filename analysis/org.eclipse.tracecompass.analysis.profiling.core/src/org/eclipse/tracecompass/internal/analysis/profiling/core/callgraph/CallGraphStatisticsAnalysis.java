@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Ericsson
+ * Copyright (c) 2017, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License v1.0 which
@@ -9,19 +9,33 @@
 
 package org.eclipse.tracecompass.internal.analysis.profiling.core.callgraph;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.analysis.profiling.core.callstack.CallStackAnalysis;
 import org.eclipse.tracecompass.analysis.timing.core.segmentstore.ISegmentStoreProvider;
 import org.eclipse.tracecompass.analysis.timing.core.segmentstore.statistics.AbstractSegmentStatisticsAnalysis;
+import org.eclipse.tracecompass.analysis.timing.core.statistics.IStatistics;
+import org.eclipse.tracecompass.analysis.timing.core.statistics.Statistics;
 import org.eclipse.tracecompass.segmentstore.core.ISegment;
+import org.eclipse.tracecompass.segmentstore.core.ISegmentStore;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTraceUtils;
 
 /**
  * Call graph statistics analysis used to get statistics on each function type.
+ * <p>
+ * The statistics of a selection are assembled from the aggregated call trees
+ * of the call graph, pre-aggregated by time range, and from the calls
+ * starting before the selection and ending in it, instead of going through
+ * all the calls of the selection.
  *
  * @author Matthew Khouzam
  */
@@ -53,5 +67,85 @@ public class CallGraphStatisticsAnalysis extends AbstractSegmentStatisticsAnalys
         return null;
     }
 
+    @Override
+    public @Nullable IStatistics<ISegment> getStatsForRange(long start, long end, IProgressMonitor monitor) {
+        Map<String, IStatistics<ISegment>> perType = getRangeStats(start, end, monitor);
+        if (perType == null) {
+            return super.getStatsForRange(start, end, monitor);
+        }
+        if (monitor.isCanceled()) {
+            return null;
+        }
+        IStatistics<ISegment> total = new Statistics<>(ISegment::getLength);
+        perType.values().forEach(total::merge);
+        return total;
+    }
+
+    @Override
+    public Map<@NonNull String, IStatistics<ISegment>> getStatsPerTypeForRange(long start, long end, IProgressMonitor monitor) {
+        Map<String, IStatistics<ISegment>> perType = getRangeStats(start, end, monitor);
+        if (perType == null) {
+            return super.getStatsPerTypeForRange(start, end, monitor);
+        }
+        return perType;
+    }
 
+    /**
+     * Get the statistics per function of the calls intersecting a time range,
+     * from the call graph
+     *
+     * @return The statistics per function, or <code>null</code> if the range
+     *         is the whole trace or if the call graph is not available
+     */
+    private @Nullable Map<String, IStatistics<ISegment>> getRangeStats(long start, long end, IProgressMonitor monitor) {
+        long t0 = Long.min(start, end);
+        long t1 = Long.max(start, end);
+        ITmfTrace trace = getTrace();
+        if (trace == null || (t0 == TmfTimeRange.ETERNITY.getStartTime().toNanos() && t1 == TmfTimeRange.ETERNITY.getEndTime().toNanos())) {
+            return null;
+        }
+        ISegmentStoreProvider provider = getSegmentProviderAnalysis(trace);
+        if (!(provider instanceof CallStackAnalysis) || !(((CallStackAnalysis) provider).getCallGraph() instanceof CallGraphAnalysis)) {
+            return null;
+        }
+        /* The call graph is built once and answers all the following ranges */
+        CallGraphAnalysis callGraph = (CallGraphAnalysis) ((CallStackAnalysis) provider).getCallGraph();
+        callGraph.schedule();
+        callGraph.waitForCompletion();
+        ISegmentStore<ISegment> calls = callGraph.getSegmentStore();
+        if (calls == null) {
+            return null;
+        }
+
+        Map<String, IStatistics<ISegment>> perType = new HashMap<>();
+        /* The calls starting in the range, from the pre-aggregated trees */
+        Deque<AggregatedCalledFunction> nodes = new ArrayDeque<>();
+        callGraph.getFlameGraph(t0, t1).forEach(node -> nodes.addAll(node.getChildren()));
+        while (!nodes.isEmpty()) {
+            if (monitor.isCanceled()) {
+                return null;
+            }
+            AggregatedCalledFunction node = nodes.pop();
+            nodes.addAll(node.getChildren());
+            getStats(perType, String.valueOf(node.getSymbol())).merge(getDurations(node));
+        }
+        /* The calls starting before the range and ending in it */
+        for (ISegment call : calls.getIntersectingElements(t0)) {
+            String type = getSegmentType(call);
+            if (call.getStart() < t0 && type != null) {
+                getStats(perType, type).update(call);
+            }
+        }
+        return perType;
+    }
+
+    private static IStatistics<ISegment> getStats(Map<String, IStatistics<ISegment>> perType, String type) {
+        return perType.computeIfAbsent(type, t -> new Statistics<>(ISegment::getLength));
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static IStatistics<ISegment> getDurations(AggregatedCalledFunction node) {
+        /* The durations of the calls are their lengths as segments */
+        return (IStatistics) node.getFunctionStatistics().getDurationStatistics();
+    }
 }
@@ -0,0 +1,562 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.analysis.profiling.core.callgraph;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.common.core.NonNullUtils;
+import org.eclipse.tracecompass.internal.analysis.profiling.core.callstack.SymbolAspect;
+import org.eclipse.tracecompass.segmentstore.core.ISegmentStore;
+
+/**
+ * Segment store of called functions kept in primitive arrays, one per field:
+ * start, end, self time, depth, symbol id, process id, thread id and the index
+ * of the caller. The symbols are interned in a table. The
+ * {@link ICalledFunction} objects returned by the store are flyweight views on
+ * an index of the store, created on demand, so the calls of large traces take
+ * a few dozen bytes each.
+ *
+ * Calls are added with {@link #add(long, long, int, Object, int, long, int)}
+ * while building the call graph. Call objects can also be copied in the store
+ * with {@link #add(ICalledFunction)} and {@link #addAll(Collection)}. The store
+ * is sorted by start time lazily, on the first query after calls are added.
+ * The iterators of the store walk the sorted indexes and create the views as
+ * they advance, so iterating on the whole store does not copy it.
+ */
+public class CalledFunctionStore implements ISegmentStore<@NonNull ICalledFunction> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] fStarts = new long[INITIAL_CAPACITY];
+    private long[] fEnds = new long[INITIAL_CAPACITY];
+    private long[] fSelfTimes = new long[INITIAL_CAPACITY];
+    private long[] fThreadIds = new long[INITIAL_CAPACITY];
+    private int[] fDepths = new int[INITIAL_CAPACITY];
+    private int[] fSymbols = new int[INITIAL_CAPACITY];
+    private int[] fProcessIds = new int[INITIAL_CAPACITY];
+    private int[] fParents = new int[INITIAL_CAPACITY];
+    private int fSize = 0;
+
+    private final List<Object> fSymbolTable = new ArrayList<>();
+    private final Map<Object, Integer> fSymbolIds = new HashMap<>();
+
+    /** Indexes of the calls sorted by start time, null if not sorted yet */
+    private int @Nullable [] fSorted = null;
+    private long fMaxLength = 0;
+
+    // ------------------------------------------------------------------------
+    // Building the store
+    // ------------------------------------------------------------------------
+
+    /**
+     * Add a call to the store. If the call has a caller, the self time of the
+     * caller is decreased by the duration of the call.
+     *
+     * @param start
+     *            The start time
+     * @param end
+     *            The end time
+     * @param depth
+     *            The depth in the call stack
+     * @param symbol
+     *            The symbol of the function
+     * @param processId
+     *            The process ID
+     * @param threadId
+     *            The thread ID
+     * @param parent
+     *            The index of the caller in this store, -1 if none
+     * @return The index of the call
+     */
+    public synchronized int add(long start, long end, int depth, Object symbol, int processId, long threadId, int parent) {
+        if (start > end) {
+            throw new IllegalArgumentException(Messages.TimeError + '[' + start + ',' + end + ']');
+        }
+        if (parent >= fSize) {
+            throw new IllegalArgumentException("Unknown caller " + parent); //$NON-NLS-1$
+        }
+        if (parent >= 0) {
+            fSelfTimes[parent] -= end - start;
+        }
+        return append(start, end, end - start, depth, symbol, processId, threadId, parent);
+    }
+
+    private int append(long start, long end, long selfTime, int depth, Object symbol, int processId, long threadId, int parent) {
+        ensureCapacity(fSize + 1);
+        int index = fSize;
+        fStarts[index] = start;
+        fEnds[index] = end;
+        fSelfTimes[index] = selfTime;
+        fThreadIds[index] = threadId;
+        fDepths[index] = depth;
+        fSymbols[index] = getSymbolId(symbol);
+        fProcessIds[index] = processId;
+        fParents[index] = parent;
+        fMaxLength = Math.max(fMaxLength, end - start);
+        fSize++;
+        fSorted = null;
+        return index;
+    }
+
+    /*
+     * Copy a call object in the store, after its callers. The callers already
+     * copied are in the map, with their index.
+     */
+    private int copy(ICalledFunction call, Map<ICalledFunction, Integer> copied) {
+        if (contains(call)) {
+            return ((StoredCalledFunction) call).fIndex;
+        }
+        Integer index = copied.get(call);
+        if (index != null) {
+            return index;
+        }
+        ICalledFunction parent = call.getParent();
+        int parentIndex = (parent == null) ? -1 : copy(parent, copied);
+        long threadId = (call instanceof StoredCalledFunction) ? ((StoredCalledFunction) call).getThreadId() : -1;
+        int newIndex = append(call.getStart(), call.getEnd(), call.getSelfTime(), call.getDepth(), call.getSymbol(), call.getProcessId(), threadId, parentIndex);
+        copied.put(call, newIndex);
+        return newIndex;
+    }
+
+    /**
+     * Append all the calls of another store to this one, the callers are
+     * those of the other store
+     *
+     * @param other
+     *            The store to append
+     */
+    public void addAll(CalledFunctionStore other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Cannot append a store to itself"); //$NON-NLS-1$
+        }
+        synchronized (other) {
+            synchronized (this) {
+                int offset = fSize;
+                int size = other.fSize;
+                ensureCapacity(offset + size);
+                System.arraycopy(other.fStarts, 0, fStarts, offset, size);
+                System.arraycopy(other.fEnds, 0, fEnds, offset, size);
+                System.arraycopy(other.fSelfTimes, 0, fSelfTimes, offset, size);
+                System.arraycopy(other.fThreadIds, 0, fThreadIds, offset, size);
+                System.arraycopy(other.fDepths, 0, fDepths, offset, size);
+                System.arraycopy(other.fProcessIds, 0, fProcessIds, offset, size);
+                for (int i = 0; i < size; i++) {
+                    fSymbols[offset + i] = getSymbolId(other.fSymbolTable.get(other.fSymbols[i]));
+                    int parent = other.fParents[i];
+                    fParents[offset + i] = (parent < 0) ? -1 : parent + offset;
+                }
+                fMaxLength = Math.max(fMaxLength, other.fMaxLength);
+                fSize += size;
+                fSorted = null;
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= fStarts.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, fStarts.length * 2);
+        fStarts = Arrays.copyOf(fStarts, newCapacity);
+        fEnds = Arrays.copyOf(fEnds, newCapacity);
+        fSelfTimes = Arrays.copyOf(fSelfTimes, newCapacity);
+        fThreadIds = Arrays.copyOf(fThreadIds, newCapacity);
+        fDepths = Arrays.copyOf(fDepths, newCapacity);
+        fSymbols = Arrays.copyOf(fSymbols, newCapacity);
+        fProcessIds = Arrays.copyOf(fProcessIds, newCapacity);
+        fParents = Arrays.copyOf(fParents, newCapacity);
+    }
+
+    private int getSymbolId(Object symbol) {
+        Integer id = fSymbolIds.get(symbol);
+        if (id == null) {
+            id = fSymbolTable.size();
+            fSymbolTable.add(symbol);
+            fSymbolIds.put(symbol, id);
+        }
+        return id;
+    }
+
+    // ------------------------------------------------------------------------
+    // Access by index
+    // ------------------------------------------------------------------------
+
+    /**
+     * Get a view of a call of the store
+     *
+     * @param index
+     *            The index of the call, as returned by
+     *            {@link #add(long, long, int, Object, int, long, int)}
+     * @return The call
+     */
+    public ICalledFunction get(int index) {
+        if (index < 0 || index >= fSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + fSize); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return new StoredCalledFunction(index);
+    }
+
+    /**
+     * Get the call of a given rank in the order of start times
+     *
+     * @param rank
+     *            The rank of the call, from 0 to {@link #size()} - 1
+     * @return The call
+     */
+    synchronized ICalledFunction getByStart(int rank) {
+        return new StoredCalledFunction(getSorted()[rank]);
+    }
+
+    /**
+     * Get the rank of the first call starting at or after a time, in the order
+     * of start times
+     *
+     * @param time
+     *            The time
+     * @return The rank, {@link #size()} if all calls start before the time
+     */
+    synchronized int getRankOf(long time) {
+        int[] sorted = getSorted();
+        int low = 0;
+        int high = fSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (fStarts[sorted[mid]] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int[] getSorted() {
+        int[] sorted = fSorted;
+        if (sorted == null) {
+            /* Sort the indexes by start time, then end time */
+            sorted = new int[fSize];
+            for (int i = 0; i < fSize; i++) {
+                sorted[i] = i;
+            }
+            mergeSort(sorted, new int[fSize], 0, fSize);
+            fSorted = sorted;
+        }
+        return sorted;
+    }
+
+    /*
+     * Merge sort of the indexes in [from, to), using a buffer of the same
+     * size. The calls of each thread are added mostly in order, so the runs
+     * already in order are not merged.
+     */
+    private void mergeSort(int[] indexes, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(indexes, buffer, from, middle);
+        mergeSort(indexes, buffer, middle, to);
+        if (compare(indexes[middle - 1], indexes[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(indexes, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && compare(buffer[left], buffer[right]) <= 0)) {
+                indexes[i] = buffer[left++];
+            } else {
+                indexes[i] = buffer[right++];
+            }
+        }
+    }
+
+    private int compare(int a, int b) {
+        int cmp = Long.compare(fStarts[a], fStarts[b]);
+        return (cmp != 0) ? cmp : Long.compare(fEnds[a], fEnds[b]);
+    }
+
+    // ------------------------------------------------------------------------
+    // ISegmentStore
+    // ------------------------------------------------------------------------
+
+    @Override
+    public synchronized Iterable<@NonNull ICalledFunction> getIntersectingElements(long start, long end) {
+        /*
+         * The calls intersecting the range start at most the longest duration
+         * before the start of the range
+         */
+        long from = (start < Long.MIN_VALUE + fMaxLength) ? Long.MIN_VALUE : start - fMaxLength;
+        int rank = getRankOf(from);
+        int[] sorted = getSorted();
+        int size = fSize;
+        return () -> new SortedIterator(sorted, rank, size, start, end);
+    }
+
+    @Override
+    public synchronized Iterator<@NonNull ICalledFunction> iterator() {
+        return new SortedIterator(getSorted(), 0, fSize, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized int size() {
+        return fSize;
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return fSize == 0;
+    }
+
+    @Override
+    public boolean contains(@Nullable Object o) {
+        if (!(o instanceof StoredCalledFunction)) {
+            return false;
+        }
+        StoredCalledFunction function = (StoredCalledFunction) o;
+        return function.getStore() == this;
+    }
+
+    @Override
+    public boolean containsAll(@Nullable Collection<?> c) {
+        return c != null && c.stream().allMatch(this::contains);
+    }
+
+    @Override
+    public synchronized Object[] toArray() {
+        return toArray(new Object[fSize]);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public synchronized <T> T[] toArray(T[] a) {
+        T[] array = (a.length >= fSize) ? a : (T[]) Array.newInstance(a.getClass().getComponentType(), fSize);
+        int[] sorted = getSorted();
+        for (int i = 0; i < fSize; i++) {
+            array[i] = (T) new StoredCalledFunction(sorted[i]);
+        }
+        if (array.length > fSize) {
+            array[fSize] = null;
+        }
+        return array;
+    }
+
+    /**
+     * Copy a call in the store. The callers of the call that are not in the
+     * store are copied with it. The self time of the call is kept as is, the
+     * self times of the calls already in the store are not changed. The thread
+     * ID of calls that do not come from a store is -1.
+     *
+     * @param e
+     *            The call to add
+     * @return <code>false</code> if the call is already in the store
+     */
+    @Override
+    public boolean add(@Nullable ICalledFunction e) {
+        if (e == null) {
+            throw new IllegalArgumentException("Cannot add a null call"); //$NON-NLS-1$
+        }
+        return addAll(Collections.singleton(e));
+    }
+
+    /**
+     * Copy calls in the store, like {@link #add(ICalledFunction)}. The callers
+     * that are in the collection are copied once, whatever their position in
+     * the collection.
+     *
+     * @param c
+     *            The calls to add
+     * @return <code>false</code> if all the calls are already in the store
+     */
+    @Override
+    public synchronized boolean addAll(@Nullable Collection<? extends @NonNull ICalledFunction> c) {
+        if (c == null) {
+            return false;
+        }
+        Map<ICalledFunction, Integer> copied = new HashMap<>();
+        boolean changed = false;
+        for (ICalledFunction call : c) {
+            if (!contains(call)) {
+                copy(call, copied);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public synchronized void clear() {
+        fSize = 0;
+        fSorted = null;
+        fMaxLength = 0;
+        fSymbolTable.clear();
+        fSymbolIds.clear();
+    }
+
+    @Override
+    public void dispose() {
+        clear();
+    }
+
+    /**
+     * Iterator on the calls of the store in the order of start times, from a
+     * rank to the first call starting after the end of a range. The calls
+     * ending before the start of the range are skipped. The views are created
+     * as the iterator advances.
+     */
+    private final class SortedIterator implements Iterator<@NonNull ICalledFunction> {
+
+        private final int[] fSortedIndexes;
+        private final int fLimit;
+        private final long fRangeStart;
+        private final long fRangeEnd;
+        private int fRank;
+        private int fNext = -1;
+
+        public SortedIterator(int[] sorted, int rank, int limit, long start, long end) {
+            fSortedIndexes = sorted;
+            fRank = rank;
+            fLimit = limit;
+            fRangeStart = start;
+            fRangeEnd = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (fNext >= 0) {
+                return true;
+            }
+            synchronized (CalledFunctionStore.this) {
+                while (fRank < fLimit) {
+                    int index = fSortedIndexes[fRank];
+                    if (fStarts[index] > fRangeEnd) {
+                        fRank = fLimit;
+                        return false;
+                    }
+                    fRank++;
+                    if (fEnds[index] >= fRangeStart) {
+                        fNext = index;
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public ICalledFunction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ICalledFunction next = new StoredCalledFunction(fNext);
+            fNext = -1;
+            return next;
+        }
+    }
+
+    /**
+     * Flyweight view of a call of the store
+     */
+    private final class StoredCalledFunction implements ICalledFunction {
+
+        private static final long serialVersionUID = -4129837645238574839L;
+
+        private final int fIndex;
+
+        public StoredCalledFunction(int index) {
+            fIndex = index;
+        }
+
+        private CalledFunctionStore getStore() {
+            return CalledFunctionStore.this;
+        }
+
+        @Override
+        public long getStart() {
+            return fStarts[fIndex];
+        }
+
+        @Override
+        public long getEnd() {
+            return fEnds[fIndex];
+        }
+
+        @Override
+        public Object getSymbol() {
+            return fSymbolTable.get(fSymbols[fIndex]);
+        }
+
+        @Override
+        public @Nullable ICalledFunction getParent() {
+            int parent = fParents[fIndex];
+            return (parent < 0) ? null : new StoredCalledFunction(parent);
+        }
+
+        @Override
+        public long getSelfTime() {
+            return fSelfTimes[fIndex];
+        }
+
+        @Override
+        public int getDepth() {
+            return fDepths[fIndex];
+        }
+
+        @Override
+        public int getProcessId() {
+            return fProcessIds[fIndex];
+        }
+
+        /**
+         * Get the thread ID of this call
+         *
+         * @return The thread ID
+         */
+        public long getThreadId() {
+            return fThreadIds[fIndex];
+        }
+
+        @Override
+        public String getName() {
+            return NonNullUtils.nullToEmptyString(SymbolAspect.SYMBOL_ASPECT.resolve(this));
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(getStore()), fIndex);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (!(obj instanceof StoredCalledFunction)) {
+                return false;
+            }
+            StoredCalledFunction other = (StoredCalledFunction) obj;
+            return getStore() == other.getStore() && fIndex == other.fIndex;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + getStart() + ", " + getEnd() + ']' + " Duration: " + getLength() + ", Self Time: " + getSelfTime(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        }
+    }
+}
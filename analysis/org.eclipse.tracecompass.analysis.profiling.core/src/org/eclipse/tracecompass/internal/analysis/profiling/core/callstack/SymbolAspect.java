@@ -9,7 +9,6 @@
 
 package org.eclipse.tracecompass.internal.analysis.profiling.core.callstack;
 
-import java.util.Collection;
 import java.util.Comparator;
 
 import org.eclipse.jdt.annotation.NonNull;
@@ -19,9 +18,7 @@ import org.eclipse.tracecompass.internal.analysis.profiling.core.callgraph.ICall
 import org.eclipse.tracecompass.internal.analysis.profiling.core.callgraph.Messages;
 import org.eclipse.tracecompass.segmentstore.core.ISegment;
 import org.eclipse.tracecompass.tmf.core.segment.ISegmentAspect;
-import org.eclipse.tracecompass.tmf.core.symbols.ISymbolProvider;
 import org.eclipse.tracecompass.tmf.core.symbols.SymbolProviderManager;
-import org.eclipse.tracecompass.tmf.core.symbols.SymbolProviderUtils;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 
@@ -77,12 +74,12 @@ public final class SymbolAspect implements ISegmentAspect {
                 Object symbol = calledFunction.getSymbol();
                 if (symbol instanceof Long) {
                     Long longAddress = (Long) symbol;
-                    Collection<ISymbolProvider> providers = SymbolProviderManager.getInstance().getSymbolProviders(trace);
+                    SymbolProviderManager manager = SymbolProviderManager.getInstance();
 
                     // look for a symbol for a given process, if available
                     long time = segment.getStart();
                     int pid = calledFunction.getProcessId();
-                    return (pid > 0) ? SymbolProviderUtils.getSymbolText(providers, pid, time, longAddress) : SymbolProviderUtils.getSymbolText(providers, longAddress);
+                    return (pid > 0) ? manager.getSymbolText(trace, pid, time, longAddress) : manager.getSymbolText(trace, longAddress);
                 }
                 return String.valueOf(symbol);
             }
@@ -42,7 +42,6 @@ import org.eclipse.tracecompass.tmf.core.response.ITmfResponse;
 import org.eclipse.tracecompass.tmf.core.response.TmfModelResponse;
 import org.eclipse.tracecompass.tmf.core.symbols.ISymbolProvider;
 import org.eclipse.tracecompass.tmf.core.symbols.SymbolProviderManager;
-import org.eclipse.tracecompass.tmf.core.symbols.SymbolProviderUtils;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.core.util.Pair;
 
@@ -51,6 +50,7 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multimap;
 
 /**
  * Call Stack Data Provider
@@ -78,27 +78,11 @@ public class CallStackDataProvider extends AbstractTimeGraphDataProvider<@NonNul
                     ITmfStateInterval interval = pidInterval.getSecond();
 
                     Object nameValue = interval.getValue();
-                    Long address = null;
-                    String name = null;
-                    if (nameValue instanceof String) {
-                        name = (String) nameValue;
-                        try {
-                            address = Long.parseLong(name, 16);
-                        } catch (NumberFormatException e) {
-                            // leave name as null
-                        }
-                    } else if (nameValue instanceof Integer) {
-                        Integer intValue = (Integer) nameValue;
-                        name = "0x" + Integer.toUnsignedString(intValue, 16); //$NON-NLS-1$
-                        address = intValue.longValue();
-                    } else if (nameValue instanceof Long) {
-                        address = (long) nameValue;
-                        name = "0x" + Long.toUnsignedString(address, 16); //$NON-NLS-1$
-                    }
+                    Long address = getAddress(nameValue);
                     if (address != null) {
-                        name = SymbolProviderUtils.getSymbolText(fProviders, pid, interval.getStartTime(), address);
+                        return SymbolProviderManager.getInstance().getSymbolText(getTrace(), pid, interval.getStartTime(), address);
                     }
-                    return name;
+                    return (nameValue instanceof String) ? (String) nameValue : null;
                 }
             });
 
@@ -197,6 +181,21 @@ public class CallStackDataProvider extends AbstractTimeGraphDataProvider<@NonNul
         }
     }
 
+    private static @Nullable Long getAddress(@Nullable Object nameValue) {
+        if (nameValue instanceof String) {
+            try {
+                return Long.parseLong((String) nameValue, 16);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        } else if (nameValue instanceof Integer) {
+            return ((Integer) nameValue).longValue();
+        } else if (nameValue instanceof Long) {
+            return (Long) nameValue;
+        }
+        return null;
+    }
+
     private static int getThreadProcessId(String name, @Nullable Object value) {
         if (value instanceof Number) {
             return ((Number) value).intValue();
@@ -233,6 +232,7 @@ public class CallStackDataProvider extends AbstractTimeGraphDataProvider<@NonNul
             }
             intervals.put(interval.getAttribute(), interval);
         }
+        resolveSymbols(intervals.values());
         subMonitor.worked(1);
 
         Map<@NonNull Integer, @NonNull Predicate<@NonNull Map<@NonNull String, @NonNull String>>> predicates = new HashMap<>();
@@ -260,6 +260,34 @@ public class CallStackDataProvider extends AbstractTimeGraphDataProvider<@NonNul
         return rows;
     }
 
+    /*
+     * Resolve the symbols of the queried intervals in batch, by process, each
+     * at the start time of its interval. The names of the states are then
+     * found in the symbol cache.
+     */
+    private void resolveSymbols(Collection<ITmfStateInterval> intervals) {
+        Multimap<Integer, ITmfStateInterval> addressIntervals = ArrayListMultimap.create();
+        for (ITmfStateInterval interval : intervals) {
+            Integer pid = fQuarkToPid.get(interval.getAttribute());
+            if (pid != null && getAddress(interval.getValue()) != null) {
+                addressIntervals.put(pid, interval);
+            }
+        }
+        SymbolProviderManager manager = SymbolProviderManager.getInstance();
+        for (Entry<Integer, Collection<ITmfStateInterval>> entry : addressIntervals.asMap().entrySet()) {
+            Collection<ITmfStateInterval> pidIntervals = entry.getValue();
+            long[] timestamps = new long[pidIntervals.size()];
+            long[] addresses = new long[pidIntervals.size()];
+            int i = 0;
+            for (ITmfStateInterval interval : pidIntervals) {
+                timestamps[i] = interval.getStartTime();
+                addresses[i] = Objects.requireNonNull(getAddress(interval.getValue()));
+                i++;
+            }
+            manager.getSymbolTexts(getTrace(), entry.getKey(), timestamps, addresses);
+        }
+    }
+
     private ITimeGraphState createTimeGraphState(ITmfStateInterval interval) {
         long startTime = interval.getStartTime();
         long duration = interval.getEndTime() - startTime + 1;
@@ -291,6 +319,7 @@ public class CallStackDataProvider extends AbstractTimeGraphDataProvider<@NonNul
      */
     public void resetFunctionNames(@Nullable IProgressMonitor monitor) {
         fTimeEventNames.invalidateAll();
+        SymbolProviderManager.getInstance().clearSymbolCache(getTrace());
         synchronized (fProviders) {
             Collection<@NonNull ISymbolProvider> symbolProviders = SymbolProviderManager.getInstance().getSymbolProviders(getTrace());
             SubMonitor sub = SubMonitor.convert(monitor, "CallStackDataProvider#resetFunctionNames", symbolProviders.size()); //$NON-NLS-1$
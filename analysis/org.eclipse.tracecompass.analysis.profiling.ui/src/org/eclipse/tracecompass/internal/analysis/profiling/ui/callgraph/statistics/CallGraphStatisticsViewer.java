@@ -8,7 +8,6 @@
  *******************************************************************************/
 package org.eclipse.tracecompass.internal.analysis.profiling.ui.callgraph.statistics;
 
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Objects;
 import java.util.function.Function;
@@ -19,7 +18,6 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.tracecompass.analysis.timing.core.segmentstore.SegmentStoreStatisticsModel;
 import org.eclipse.tracecompass.analysis.timing.ui.views.segmentstore.statistics.AbstractSegmentsStatisticsViewer;
 import org.eclipse.tracecompass.internal.analysis.profiling.core.callgraph.CallGraphStatisticsAnalysis;
-import org.eclipse.tracecompass.tmf.core.symbols.ISymbolProvider;
 import org.eclipse.tracecompass.tmf.core.symbols.SymbolProviderManager;
 import org.eclipse.tracecompass.tmf.core.symbols.SymbolProviderUtils;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
@@ -35,10 +33,10 @@ public class CallGraphStatisticsViewer extends AbstractSegmentsStatisticsViewer
 
     private static final class SymbolFormatter implements Function<@NonNull TmfGenericTreeEntry<@NonNull SegmentStoreStatisticsModel>, String> {
 
-        private final @NonNull Collection<@NonNull ISymbolProvider> fSymbolProviders;
+        private final @Nullable ITmfTrace fTrace;
 
         public SymbolFormatter(@Nullable ITmfTrace trace) {
-            fSymbolProviders = trace != null ? SymbolProviderManager.getInstance().getSymbolProviders(trace) : Collections.emptySet();
+            fTrace = trace;
         }
 
         @Override
@@ -46,7 +44,8 @@ public class CallGraphStatisticsViewer extends AbstractSegmentsStatisticsViewer
             String original = stat.getName();
             try {
                 Long address = Long.decode(original);
-                return SymbolProviderUtils.getSymbolText(fSymbolProviders, address);
+                ITmfTrace trace = fTrace;
+                return trace != null ? SymbolProviderManager.getInstance().getSymbolText(trace, address) : SymbolProviderUtils.getSymbolText(Collections.emptySet(), address);
 
             } catch (NumberFormatException e) {
                 return original;
@@ -23,6 +23,7 @@ import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.tmf.core.symbols.IMappingFile;
 import org.eclipse.tracecompass.tmf.core.symbols.TmfResolvedSymbol;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.ui.symbols.ISymbolProvider;
 import org.eclipse.tracecompass.tmf.ui.symbols.ISymbolProviderPreferencePage;
@@ -102,6 +103,12 @@ public class BasicSymbolProvider implements ISymbolProvider {
                 .collect(Collectors.toList()));
     }
 
+    @Override
+    public TmfTimeRange getValidityRange(int pid, long timestamp) {
+        /* The mapping files do not depend on the time */
+        return TmfTimeRange.ETERNITY;
+    }
+
     private static @Nullable TmfResolvedSymbol getSymbol(long address, List<IMappingFile> mappingFiles) {
         TmfResolvedSymbol currentFloorEntry = null;
         for (IMappingFile mf : mappingFiles) {
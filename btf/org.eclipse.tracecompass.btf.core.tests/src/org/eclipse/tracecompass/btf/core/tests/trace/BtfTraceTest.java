@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014 Ericsson
+ * Copyright (c) 2014, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License v1.0 which
@@ -13,13 +13,17 @@ package org.eclipse.tracecompass.btf.core.tests.trace;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Map;
 
+import org.eclipse.tracecompass.btf.core.event.BtfEvent;
 import org.eclipse.tracecompass.btf.core.tests.utils.BtfTestTrace;
+import org.eclipse.tracecompass.btf.core.trace.BtfColumnNames;
 import org.eclipse.tracecompass.btf.core.trace.BtfTrace;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.TraceValidationStatus;
 import org.junit.After;
@@ -140,4 +144,35 @@ public class BtfTraceTest {
         assertNotNull(event1);
         assertEquals(event, event1);
     }
+
+    /**
+     * Read the typed columns of the first events
+     */
+    @Test
+    public void testReadColumns() {
+        ITmfContext ctx = fixture.seekEvent(0);
+        BtfEvent event = (BtfEvent) fixture.getNext(ctx);
+        assertNotNull(event);
+        assertEquals("SEM_DataElement1", event.getSource());
+        assertEquals(0L, event.getSourceInstance());
+        assertEquals("SEM_DataElement1", event.getTarget());
+        assertEquals(0L, event.getTargetInstance());
+        assertEquals("ready", event.getEvent());
+        assertEquals("0", event.getNotes());
+        ITmfEventField content = event.getContent();
+        assertEquals("ready", content.getFieldValue(String.class, BtfColumnNames.EVENT.toString()));
+        assertEquals("0", content.getFieldValue(String.class, BtfColumnNames.NOTES.toString()));
+
+        fixture.getNext(ctx);
+        event = (BtfEvent) fixture.getNext(ctx);
+        assertNotNull(event);
+        assertEquals("SIM", event.getSource());
+        assertEquals(-1L, event.getSourceInstance());
+        assertEquals("SYS_WAKE-UP", event.getTarget());
+        assertEquals("trigger", event.getEvent());
+        assertNull(event.getNotes());
+        content = event.getContent();
+        assertEquals(-1L, (long) content.getFieldValue(Long.class, BtfColumnNames.SOURCE_INSTANCE.toString()));
+        assertNull(content.getField(BtfColumnNames.NOTES.toString()));
+    }
 }
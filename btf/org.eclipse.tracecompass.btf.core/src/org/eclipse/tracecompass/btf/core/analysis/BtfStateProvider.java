@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2015 Ericsson
+ * Copyright (c) 2014, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License v1.0 which
@@ -17,7 +17,6 @@ import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.tracecompass.btf.core.event.BtfEvent;
-import org.eclipse.tracecompass.btf.core.trace.BtfColumnNames;
 import org.eclipse.tracecompass.btf.core.trace.BtfTrace;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
 import org.eclipse.tracecompass.statesystem.core.exceptions.AttributeNotFoundException;
@@ -140,7 +139,10 @@ public class BtfStateProvider extends AbstractTmfStateProvider {
         final ITmfStateSystemBuilder ssb = checkNotNull(getStateSystemBuilder());
 
         final long ts = event.getTimestamp().getValue();
-        final String eventType = (String) event.getContent().getField(BtfColumnNames.EVENT.toString()).getValue();
+        final String eventType = event.getEvent();
+        if (eventType == null) {
+            return;
+        }
         final String source = event.getSource();
         final String target = event.getTarget();
         String task;
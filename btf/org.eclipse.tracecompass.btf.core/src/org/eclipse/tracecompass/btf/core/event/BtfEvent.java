@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2015 Ericsson
+ * Copyright (c) 2014, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License v1.0 which
@@ -14,6 +14,8 @@
 package org.eclipse.tracecompass.btf.core.event;
 
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.btf.core.trace.BtfColumnNames;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEventType;
 import org.eclipse.tracecompass.tmf.core.event.TmfEvent;
@@ -23,6 +25,9 @@ import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 /**
  * A Btf event, basically a wrapper for the TmfEvent with the additional fields
  * source, target and description.
+ * <p>
+ * The columns of the event are also available as typed values, and the
+ * content is only generated from them when it is needed.
  *
  * @author Matthew Khouzam
  */
@@ -31,6 +36,11 @@ public class BtfEvent extends TmfEvent {
     private final String fDescription;
     private final String fSource;
     private final String fTarget;
+    private final long fSourceInstance;
+    private final long fTargetInstance;
+    private final @Nullable String fEvent;
+    private final @Nullable String fNotes;
+    private @Nullable ITmfEventField fContent;
 
     /**
      * Standard constructor.
@@ -64,6 +74,71 @@ public class BtfEvent extends TmfEvent {
         fDescription = description;
         fSource = source;
         fTarget = target;
+        fContent = content;
+        Long sourceInstance = (content == null) ? null : content.getFieldValue(Long.class, BtfColumnNames.SOURCE_INSTANCE.toString());
+        Long targetInstance = (content == null) ? null : content.getFieldValue(Long.class, BtfColumnNames.TARGET_INSTANCE.toString());
+        fSourceInstance = (sourceInstance == null) ? -1L : sourceInstance;
+        fTargetInstance = (targetInstance == null) ? -1L : targetInstance;
+        fEvent = (content == null) ? null : content.getFieldValue(String.class, BtfColumnNames.EVENT.toString());
+        fNotes = (content == null) ? null : content.getFieldValue(String.class, BtfColumnNames.NOTES.toString());
+    }
+
+    /**
+     * Constructor from the columns of the event. The content is generated
+     * from them by the type when it is first needed.
+     *
+     * @param trace
+     *            the parent trace
+     * @param rank
+     *            the event rank
+     * @param timestamp
+     *            the event timestamp
+     * @param source
+     *            the event source
+     * @param sourceInstance
+     *            the source instance
+     * @param type
+     *            the event type
+     * @param target
+     *            the event reference
+     * @param targetInstance
+     *            the target instance
+     * @param event
+     *            the "event" payload, without the notes
+     * @param notes
+     *            the notes, or null if there are none
+     * @since 2.2
+     */
+    public BtfEvent(final ITmfTrace trace,
+            final long rank,
+            final ITmfTimestamp timestamp,
+            final String source,
+            final long sourceInstance,
+            final BtfEventType type,
+            final String target,
+            final long targetInstance,
+            final String event,
+            final @Nullable String notes) {
+        super(trace, rank, timestamp, type, null);
+        fDescription = type.getDescription();
+        fSource = source;
+        fTarget = target;
+        fSourceInstance = sourceInstance;
+        fTargetInstance = targetInstance;
+        fEvent = event;
+        fNotes = notes;
+    }
+
+    @Override
+    public synchronized ITmfEventField getContent() {
+        ITmfEventField content = fContent;
+        ITmfEventType type = getType();
+        String event = fEvent;
+        if (content == null && type instanceof BtfEventType && event != null) {
+            content = ((BtfEventType) type).generateContent(event, fNotes, fSourceInstance, fTargetInstance);
+            fContent = content;
+        }
+        return content;
     }
 
     /**
@@ -99,4 +174,46 @@ public class BtfEvent extends TmfEvent {
     public String getTarget() {
         return fTarget;
     }
+
+    /**
+     * Returns the source instance of this event.
+     *
+     * @return This event's source instance, or -1 if there is none
+     * @since 2.2
+     */
+    public long getSourceInstance() {
+        return fSourceInstance;
+    }
+
+    /**
+     * Returns the target instance of this event.
+     *
+     * @return This event's target instance, or -1 if there is none
+     * @since 2.2
+     */
+    public long getTargetInstance() {
+        return fTargetInstance;
+    }
+
+    /**
+     * Returns the value of the "event" column of this event, without the
+     * notes, for example "start".
+     *
+     * @return This event's event payload, or null if it is unknown
+     * @since 2.2
+     */
+    public @Nullable String getEvent() {
+        return fEvent;
+    }
+
+    /**
+     * Returns the notes of this event, the eighth column of the signal and
+     * semaphore events.
+     *
+     * @return This event's notes, or null if there are none
+     * @since 2.2
+     */
+    public @Nullable String getNotes() {
+        return fNotes;
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2015 Ericsson
+ * Copyright (c) 2014, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License v1.0 which
@@ -17,6 +17,7 @@ import java.util.Collection;
 import java.util.List;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.btf.core.Messages;
 import org.eclipse.tracecompass.btf.core.trace.BtfColumnNames;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
@@ -110,20 +111,35 @@ public class BtfEventType extends TmfEventType {
      * @return a field.
      */
     public ITmfEventField generateContent(String event, long sourceInstance, long targetInstance) {
-        String[] data;
-        TmfEventField retField;
+        if (fHasNotes) {
+            String[] data = event.split(",", 2); //$NON-NLS-1$
+            return generateContent(data[0], data.length == 2 ? data[1] : null, sourceInstance, targetInstance);
+        }
+        return generateContent(event, null, sourceInstance, targetInstance);
+    }
+
+    /**
+     * Gets the event field values from the columns of an event
+     *
+     * @param event
+     *            the "event" payload, without the notes
+     * @param notes
+     *            the notes, ignored if this type has no notes
+     * @param sourceInstance
+     *            source instance
+     * @param targetInstance
+     *            target instance
+     * @return a field.
+     * @since 2.2
+     */
+    public ITmfEventField generateContent(String event, @Nullable String notes, long sourceInstance, long targetInstance) {
         TmfEventField sourceInstanceField = new TmfEventField(BtfColumnNames.SOURCE_INSTANCE.toString(), sourceInstance, null);
         TmfEventField targetInstanceField = new TmfEventField(BtfColumnNames.TARGET_INSTANCE.toString(), targetInstance, null);
+        TmfEventField eventField = new TmfEventField(BtfColumnNames.EVENT.toString(), event, BTFPayload.getFieldDescription(event));
         if (fHasNotes) {
-            data = event.split(",", 2); //$NON-NLS-1$
-            TmfEventField eventField = new TmfEventField(BtfColumnNames.EVENT.toString(), data[0], BTFPayload.getFieldDescription(data[0]));
-            TmfEventField notesField = new TmfEventField(BtfColumnNames.NOTES.toString(), data.length == 2 ? data[1] : null, null);
-            retField = new TmfEventField(ITmfEventField.ROOT_FIELD_ID, null, new TmfEventField[] { eventField, sourceInstanceField, targetInstanceField, notesField });
-        } else {
-            data = new String[] { event };
-            TmfEventField eventField = new TmfEventField(BtfColumnNames.EVENT.toString(), data[0], BTFPayload.getFieldDescription(data[0]));
-            retField = new TmfEventField(ITmfEventField.ROOT_FIELD_ID, null, new TmfEventField[] { eventField, sourceInstanceField, targetInstanceField });
+            TmfEventField notesField = new TmfEventField(BtfColumnNames.NOTES.toString(), notes, null);
+            return new TmfEventField(ITmfEventField.ROOT_FIELD_ID, null, new TmfEventField[] { eventField, sourceInstanceField, targetInstanceField, notesField });
         }
-        return retField;
+        return new TmfEventField(ITmfEventField.ROOT_FIELD_ID, null, new TmfEventField[] { eventField, sourceInstanceField, targetInstanceField });
     }
 }
@@ -0,0 +1,395 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.btf.core.trace;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.btf.core.event.BtfEventType;
+
+/**
+ * Reader of the lines of a BTF file, through regions of the file mapped in
+ * memory.
+ * <p>
+ * The columns of a record are found in place in the mapped region. The
+ * timestamp and the instances are parsed as primitives, and the names are
+ * taken from a cache of the last strings read, since the same entities and
+ * events appear on most lines of a trace. The bytes of the file are read as
+ * ISO-8859-1 characters, like {@link java.io.RandomAccessFile#readLine()}.
+ */
+class BtfRecordReader implements Closeable {
+
+    /** Size of the regions of the file that are mapped at once */
+    private static final long MAPPED_REGION_SIZE = 64L << 20;
+
+    /** Number of strings in the cache, must be a power of 2 */
+    private static final int CACHE_SIZE = 4096;
+
+    /** Number of columns before the event column */
+    private static final int NB_SEPARATORS = 6;
+
+    private final FileChannel fChannel;
+    private long fSize;
+    private long fPosition = 0;
+    private @Nullable MappedByteBuffer fRegion = null;
+    private long fRegionStart = 0;
+
+    /* Bounds of the last line in the current region */
+    private int fLineStart;
+    private int fLineEnd;
+    private final int[] fSeparators = new int[NB_SEPARATORS];
+    private long fNumber;
+
+    private final @Nullable String[] fCache = new String[CACHE_SIZE];
+    private char[] fChars = new char[256];
+
+    /* Columns of the last record */
+    private long fTimestamp;
+    private String fSource = ""; //$NON-NLS-1$
+    private long fSourceInstance;
+    private @Nullable BtfEventType fType;
+    private String fTarget = ""; //$NON-NLS-1$
+    private long fTargetInstance;
+    private String fEvent = ""; //$NON-NLS-1$
+    private @Nullable String fNotes;
+
+    /**
+     * Constructor
+     *
+     * @param file
+     *            The BTF file
+     * @throws IOException
+     *             If the file cannot be opened
+     */
+    public BtfRecordReader(File file) throws IOException {
+        fChannel = Objects.requireNonNull(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+        fSize = fChannel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        fRegion = null;
+        fChannel.close();
+    }
+
+    /**
+     * Get the position of the next line to read
+     *
+     * @return The position in bytes
+     */
+    public long getPosition() {
+        return fPosition;
+    }
+
+    /**
+     * Set the position of the next line to read
+     *
+     * @param position
+     *            The position in bytes
+     */
+    public void seek(long position) {
+        fPosition = position;
+    }
+
+    /**
+     * Get a byte of the file
+     *
+     * @param position
+     *            The position of the byte
+     * @return The byte, or -1 if the position is after the end of the file
+     * @throws IOException
+     *             If the file cannot be read
+     */
+    public int getByte(long position) throws IOException {
+        if (position < 0 || position >= fSize) {
+            return -1;
+        }
+        MappedByteBuffer region = map(position, 1);
+        return region.get((int) (position - fRegionStart)) & 0xFF;
+    }
+
+    /**
+     * Read the next line
+     *
+     * @return The line, without its line terminator, or null at the end of
+     *         the file
+     * @throws IOException
+     *             If the file cannot be read
+     */
+    public @Nullable String readLine() throws IOException {
+        if (!nextLine()) {
+            return null;
+        }
+        return newString(Objects.requireNonNull(fRegion), fLineStart, fLineEnd);
+    }
+
+    /**
+     * Read the next line as a record. The columns of the record are then
+     * available with the getters of this reader.
+     *
+     * @return false if there is no line left, or if the line is not a valid
+     *         record
+     * @throws IOException
+     *             If the file cannot be read
+     */
+    public boolean readRecord() throws IOException {
+        if (!nextLine()) {
+            return false;
+        }
+        MappedByteBuffer region = Objects.requireNonNull(fRegion);
+        int[] separators = fSeparators;
+        int nbSeparators = 0;
+        for (int i = fLineStart; i < fLineEnd && nbSeparators < NB_SEPARATORS; i++) {
+            if (region.get(i) == ',') {
+                separators[nbSeparators++] = i;
+            }
+        }
+        if (nbSeparators < NB_SEPARATORS) {
+            return false;
+        }
+        if (!parseLong(region, fLineStart, separators[0])) {
+            return false;
+        }
+        fTimestamp = fNumber;
+        BtfEventType type = BtfEventTypeFactory.parse(getString(region, separators[2] + 1, separators[3]));
+        if (type == null) {
+            return false;
+        }
+        fType = type;
+        fSource = getString(region, separators[0] + 1, separators[1]);
+        fSourceInstance = parseLong(region, separators[1] + 1, separators[2]) ? fNumber : -1L;
+        fTarget = getString(region, separators[3] + 1, separators[4]);
+        fTargetInstance = parseLong(region, separators[4] + 1, separators[5]) ? fNumber : -1L;
+        int eventStart = separators[5] + 1;
+        int eventEnd = fLineEnd;
+        fNotes = null;
+        if (type.hasNotes()) {
+            for (int i = eventStart; i < fLineEnd; i++) {
+                if (region.get(i) == ',') {
+                    eventEnd = i;
+                    fNotes = getString(region, i + 1, fLineEnd);
+                    break;
+                }
+            }
+        }
+        fEvent = getString(region, eventStart, eventEnd);
+        return true;
+    }
+
+    /**
+     * @return The timestamp of the last record, in the time scale of the file
+     */
+    public long getTimestamp() {
+        return fTimestamp;
+    }
+
+    /**
+     * @return The source of the last record
+     */
+    public String getSource() {
+        return fSource;
+    }
+
+    /**
+     * @return The source instance of the last record, or -1 if it is not a
+     *         number
+     */
+    public long getSourceInstance() {
+        return fSourceInstance;
+    }
+
+    /**
+     * @return The type of the last record
+     */
+    public BtfEventType getType() {
+        return Objects.requireNonNull(fType);
+    }
+
+    /**
+     * @return The target of the last record
+     */
+    public String getTarget() {
+        return fTarget;
+    }
+
+    /**
+     * @return The target instance of the last record, or -1 if it is not a
+     *         number
+     */
+    public long getTargetInstance() {
+        return fTargetInstance;
+    }
+
+    /**
+     * @return The event of the last record, without the notes
+     */
+    public String getEvent() {
+        return fEvent;
+    }
+
+    /**
+     * @return The notes of the last record, or null if its type has no notes
+     *         or if the line has none
+     */
+    public @Nullable String getNotes() {
+        return fNotes;
+    }
+
+    /**
+     * Find the bounds of the next line in the mapped region, and move the
+     * position after its line terminator: "\n", "\r" or "\r\n".
+     */
+    private boolean nextLine() throws IOException {
+        if (fPosition >= fSize) {
+            /* The file may have grown */
+            fSize = fChannel.size();
+            if (fPosition >= fSize) {
+                return false;
+            }
+        }
+        long start = fPosition;
+        long length = Math.min(fSize - start, 1024);
+        while (true) {
+            MappedByteBuffer region = map(start, length);
+            int offset = (int) (start - fRegionStart);
+            int limit = region.capacity();
+            for (int i = offset; i < limit; i++) {
+                byte b = region.get(i);
+                if (b == '\n' || b == '\r') {
+                    int next = i + 1;
+                    if (b == '\r') {
+                        if (next == limit && fRegionStart + limit < fSize) {
+                            /* The line terminator may continue after the region */
+                            break;
+                        }
+                        if (next < limit && region.get(next) == '\n') {
+                            next++;
+                        }
+                    }
+                    fLineStart = offset;
+                    fLineEnd = i;
+                    fPosition = fRegionStart + next;
+                    return true;
+                }
+            }
+            if (fRegionStart + limit >= fSize) {
+                /* The last line has no line terminator */
+                fLineStart = offset;
+                fLineEnd = limit;
+                fPosition = fSize;
+                return true;
+            }
+            /* Map a larger region that contains the whole line */
+            length = Math.min(fSize - start, Math.max(2 * (fRegionStart + limit - start), length));
+        }
+    }
+
+    /**
+     * Make sure the mapped region contains the given bytes
+     */
+    private MappedByteBuffer map(long position, long length) throws IOException {
+        MappedByteBuffer region = fRegion;
+        if (region == null || position < fRegionStart || position + length > fRegionStart + region.capacity()) {
+            long size = Math.max(length, Math.min(MAPPED_REGION_SIZE, fSize - position));
+            region = Objects.requireNonNull(fChannel.map(MapMode.READ_ONLY, position, size));
+            fRegion = region;
+            fRegionStart = position;
+        }
+        return region;
+    }
+
+    /**
+     * Parse a decimal number the same way {@code Longs.tryParse()} does, and
+     * store it in {@link #fNumber}
+     *
+     * @return false if the bytes are not a number
+     */
+    private boolean parseLong(MappedByteBuffer region, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        boolean negative = region.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) {
+            return false;
+        }
+        /* Accumulate negatively to reach Long.MIN_VALUE */
+        long accumulator = 0;
+        long cap = Long.MIN_VALUE / 10;
+        for (; i < end; i++) {
+            int digit = region.get(i) - '0';
+            if (digit < 0 || digit > 9 || accumulator < cap) {
+                return false;
+            }
+            accumulator *= 10;
+            if (accumulator < Long.MIN_VALUE + digit) {
+                return false;
+            }
+            accumulator -= digit;
+        }
+        if (negative) {
+            fNumber = accumulator;
+        } else if (accumulator == Long.MIN_VALUE) {
+            return false;
+        } else {
+            fNumber = -accumulator;
+        }
+        return true;
+    }
+
+    /**
+     * Get the string of some bytes, from the cache if it was read recently
+     */
+    private String getString(MappedByteBuffer region, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + (region.get(i) & 0xFF);
+        }
+        int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        String cached = fCache[slot];
+        if (cached != null && matches(cached, region, start, end)) {
+            return cached;
+        }
+        String string = newString(region, start, end);
+        fCache[slot] = string;
+        return string;
+    }
+
+    private static boolean matches(String string, MappedByteBuffer region, int start, int end) {
+        if (string.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (string.charAt(i - start) != (char) (region.get(i) & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String newString(MappedByteBuffer region, int start, int end) {
+        int length = end - start;
+        if (fChars.length < length) {
+            fChars = new char[Math.max(length, 2 * fChars.length)];
+        }
+        char[] chars = fChars;
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (region.get(start + i) & 0xFF);
+        }
+        return new String(chars, 0, length);
+    }
+}
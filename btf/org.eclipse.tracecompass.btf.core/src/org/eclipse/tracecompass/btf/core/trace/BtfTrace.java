@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2017 Ericsson
+ * Copyright (c) 2014, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License v1.0 which
@@ -14,15 +14,12 @@
 package org.eclipse.tracecompass.btf.core.trace;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -38,7 +35,6 @@ import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
 import org.eclipse.tracecompass.tmf.core.event.aspect.ITmfEventAspect;
 import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
-import org.eclipse.tracecompass.tmf.core.io.BufferedRandomAccessFile;
 import org.eclipse.tracecompass.tmf.core.parsers.custom.CustomTxtTraceContext;
 import org.eclipse.tracecompass.tmf.core.project.model.ITmfPropertiesProvider;
 import org.eclipse.tracecompass.tmf.core.signal.TmfSignalHandler;
@@ -58,18 +54,17 @@ import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
 import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Iterators;
-import com.google.common.primitives.Longs;
 
 /**
  * BTF reader. Reads Best Trace Format traces.
+ * <p>
+ * The file is read through regions mapped in memory, and the columns of the
+ * events are parsed in place by a {@link BtfRecordReader}.
  *
  * @author Matthew Khouzam
  */
 public class BtfTrace extends TmfTrace implements ITmfPersistentlyIndexable, ITmfPropertiesProvider {
 
-    private static final int MAX_FIELDS = 7;
-
     private static final long MICROSECONDS_IN_A_SECOND = 1000000L;
 
     private static final String VERSION = "#version"; //$NON-NLS-1$
@@ -111,7 +106,7 @@ public class BtfTrace extends TmfTrace implements ITmfPersistentlyIndexable, ITm
     private BtfTimestampFormat fTsFormat = BtfTimestampFormat.NS;
 
     private File fFile;
-    private RandomAccessFile fFileInput;
+    private BtfRecordReader fFileInput;
     private long fDataOffset;
     private long fTsOffset = 0;
 
@@ -124,7 +119,7 @@ public class BtfTrace extends TmfTrace implements ITmfPersistentlyIndexable, ITm
         fProperties.put(TIMESCALE, fTsFormat.toString());
     }
 
-    private void parseHeader(RandomAccessFile input) throws IOException {
+    private void parseHeader(BtfRecordReader input) throws IOException {
         String line = input.readLine();
         long pos = 0;
         while (line != null && line.startsWith("#")) { //$NON-NLS-1$
@@ -165,39 +160,39 @@ public class BtfTrace extends TmfTrace implements ITmfPersistentlyIndexable, ITm
                 fProperties.put(TIMESCALE, fTsFormat.toString());
                 break;
             case lENTITYTYPE:
-                pos = fFileInput.getFilePointer();
+                pos = fFileInput.getPosition();
                 line = fFileInput.readLine();
                 while (line.startsWith("#-")) { //$NON-NLS-1$
                     String tempLine = line.substring(1);
                     String[] elements = tempLine.split(" ", 2); //$NON-NLS-1$
                     fEntityTypes.put(Integer.parseInt(elements[0]), BtfEventTypeFactory.parse(elements[1]));
-                    pos = fFileInput.getFilePointer();
+                    pos = fFileInput.getPosition();
                     line = fFileInput.readLine();
                 }
                 fFileInput.seek(pos);
                 fProperties.put(ENTITYTYPE, fEntityTypes.toString());
                 break;
             case lENTITYTABLE:
-                pos = fFileInput.getFilePointer();
+                pos = fFileInput.getPosition();
                 line = fFileInput.readLine();
                 while (line.startsWith("#-")) { //$NON-NLS-1$
                     String tempLine = line.substring(1);
                     String[] elements = tempLine.split(" ", 2); //$NON-NLS-1$
                     fEntityTable.put(Integer.parseInt(elements[0]), elements[1]);
-                    pos = fFileInput.getFilePointer();
+                    pos = fFileInput.getPosition();
                     line = fFileInput.readLine();
                 }
                 fProperties.put(ENTITYTABLE, fEntityTable.toString());
                 fFileInput.seek(pos);
                 break;
             case lENTITYTYPETABLE:
-                pos = fFileInput.getFilePointer();
+                pos = fFileInput.getPosition();
                 line = fFileInput.readLine();
                 while (line.startsWith("#-")) { //$NON-NLS-1$
                     String tempLine = line.substring(1);
                     String[] elements = tempLine.split(" ", 2); //$NON-NLS-1$
                     fEntityTypeTable.put(BtfEventTypeFactory.parse(elements[0]), elements[1]);
-                    pos = fFileInput.getFilePointer();
+                    pos = fFileInput.getPosition();
                     line = fFileInput.readLine();
                 }
                 fFileInput.seek(pos);
@@ -206,7 +201,7 @@ public class BtfTrace extends TmfTrace implements ITmfPersistentlyIndexable, ITm
             default:
                 break;
             }
-            fDataOffset = input.getFilePointer();
+            fDataOffset = input.getPosition();
             line = input.readLine();
         }
         fTsOffset = (long) (fTsOffset * fTsFormat.getScaleFactor());
@@ -217,7 +212,7 @@ public class BtfTrace extends TmfTrace implements ITmfPersistentlyIndexable, ITm
         super.initTrace(resource, path, type);
         fFile = new File(path);
         try {
-            fFileInput = new RandomAccessFile(fFile, "r"); //$NON-NLS-1$
+            fFileInput = new BtfRecordReader(fFile);
             parseHeader(fFileInput);
         } catch (IOException e) {
             throw new TmfTraceException(e.getMessage(), e);
@@ -228,7 +223,7 @@ public class BtfTrace extends TmfTrace implements ITmfPersistentlyIndexable, ITm
     private void initFile() throws TmfTraceException {
         closeFile();
         try {
-            fFileInput = new BufferedRandomAccessFile(getPath(), "r"); //$NON-NLS-1$
+            fFileInput = new BtfRecordReader(new File(getPath()));
         } catch (IOException e) {
             throw new TmfTraceException(e.getMessage(), e);
         }
@@ -263,21 +258,18 @@ public class BtfTrace extends TmfTrace implements ITmfPersistentlyIndexable, ITm
             Activator.logError("Error validating file: " + path, e); //$NON-NLS-1$
             return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "IOException validating file: " + path, e); //$NON-NLS-1$
         }
-        try (BufferedRandomAccessFile rafile = new BufferedRandomAccessFile(path, "r")) { //$NON-NLS-1$
+        try (BtfRecordReader reader = new BtfRecordReader(file)) {
             int lineCount = 0;
             int matches = 0;
-            String line = rafile.getNextLine();
-            while ((line != null) && line.startsWith("#")) { //$NON-NLS-1$
-                line = rafile.getNextLine();
+            while (reader.getByte(reader.getPosition()) == '#') {
+                reader.readLine();
             }
-            while ((line != null) && (lineCount++ < MAX_LINES)) {
-                ITmfEvent event = parseLine(0, line);
-                if (event != null) {
+            while ((reader.getByte(reader.getPosition()) != -1) && (lineCount++ < MAX_LINES)) {
+                if (reader.readRecord()) {
                     matches++;
                 }
 
                 confidence = MAX_CONFIDENCE * matches / lineCount;
-                line = rafile.getNextLine();
             }
         } catch (IOException e) {
             Activator.logError("Error validating file: " + path, e); //$NON-NLS-1$
@@ -289,23 +281,13 @@ public class BtfTrace extends TmfTrace implements ITmfPersistentlyIndexable, ITm
 
     @Override
     public ITmfLocation getCurrentLocation() {
-        long temp = -1;
-        try {
-            temp = fFileInput.getFilePointer();
-        } catch (IOException e) {
-        }
-        return new TmfLongLocation(temp);
+        return new TmfLongLocation(fFileInput.getPosition());
     }
 
     @Override
     public double getLocationRatio(ITmfLocation location) {
         long size = fFile.length() - fDataOffset;
-        long pos;
-        try {
-            pos = fFileInput.getFilePointer() - fDataOffset;
-        } catch (IOException e) {
-            pos = 0;
-        }
+        long pos = fFileInput.getPosition() - fDataOffset;
         return 1.0 / size * pos;
     }
 
@@ -315,21 +297,13 @@ public class BtfTrace extends TmfTrace implements ITmfPersistentlyIndexable, ITm
         if (NULL_LOCATION.equals(location) || fFile == null) {
             return context;
         }
-        try {
-            if (location == null) {
-                fFileInput.seek(fDataOffset);
-            } else if (location.getLocationInfo() instanceof Long) {
-                fFileInput.seek((Long) location.getLocationInfo());
-            }
-            context.setLocation(new TmfLongLocation(fFileInput.getFilePointer()));
-            return context;
-        } catch (final FileNotFoundException e) {
-            Activator.logError("Error seeking event. File not found: " + getPath(), e); //$NON-NLS-1$
-            return context;
-        } catch (final IOException e) {
-            Activator.logError("Error seeking event. File: " + getPath(), e); //$NON-NLS-1$
-            return context;
+        if (location == null) {
+            fFileInput.seek(fDataOffset);
+        } else if (location.getLocationInfo() instanceof Long) {
+            fFileInput.seek((Long) location.getLocationInfo());
         }
+        context.setLocation(new TmfLongLocation(fFileInput.getPosition()));
+        return context;
     }
 
     @Override
@@ -340,8 +314,7 @@ public class BtfTrace extends TmfTrace implements ITmfPersistentlyIndexable, ITm
         try {
             long pos = Math.round(ratio * fFile.length()) - fDataOffset;
             while (pos > 0) {
-                fFileInput.seek(pos - 1);
-                if (fFileInput.read() == '\n') {
+                if (fFileInput.getByte(pos - 1) == '\n') {
                     break;
                 }
                 pos--;
@@ -384,18 +357,13 @@ public class BtfTrace extends TmfTrace implements ITmfPersistentlyIndexable, ITm
     private ITmfEvent parseLine(TmfContext context) {
         ITmfLocation location = context.getLocation();
         if (location != null) {
-            try {
-                if (!location.getLocationInfo().equals(fFileInput.getFilePointer())) {
-                    seekEvent(location);
-                }
-            } catch (IOException e1) {
+            if (!location.getLocationInfo().equals(fFileInput.getPosition())) {
                 seekEvent(location);
             }
-            String line;
             try {
-                line = fFileInput.readLine();
-                return parseLine(context.getRank(), line);
-
+                if (fFileInput.readRecord()) {
+                    return createEvent(context.getRank(), fFileInput);
+                }
             } catch (IOException e) {
                 Activator.logError(e.getMessage(), e);
             }
@@ -404,52 +372,24 @@ public class BtfTrace extends TmfTrace implements ITmfPersistentlyIndexable, ITm
     }
 
     /**
-     * Parse a line of text and make an event using it.
+     * Make an event from the last record read
      *
      * @param rank
      *            the rank of the event
-     * @param line
-     *            the raw string of the event
-     * @return the event, or null if the line is not a valid format
+     * @param reader
+     *            the reader of the record
+     * @return the event
      */
-    private ITmfEvent parseLine(long rank, String line) {
-        if (line == null) {
-            return null;
-        }
-        String[] tokens = line.split(",", MAX_FIELDS); //$NON-NLS-1$
-        if (tokens.length < MAX_FIELDS) {
-            return null;
-        }
-        Iterator<String> token = Iterators.forArray(tokens);
-        Long timestamp = Longs.tryParse(token.next());
-        if (timestamp == null) {
-            return null;
-        }
-        String source = token.next();
-        Long sourceInstance = Longs.tryParse(token.next());
-        if (sourceInstance == null) {
-            sourceInstance = -1L;
-        }
-        BtfEventType type = BtfEventTypeFactory.parse(token.next());
-        if (type == null) {
-            return null;
-        }
-        String target = token.next();
-        Long targetInstance = Longs.tryParse(token.next());
-        if (targetInstance == null) {
-            targetInstance = -1L;
-        }
-        String event = token.next();
-
-        ITmfEventField content = type.generateContent(event, sourceInstance, targetInstance);
-
+    private ITmfEvent createEvent(long rank, BtfRecordReader reader) {
         return new BtfEvent(this, rank,
-                getTimestampTransform().transform(fTsFormat.createTimestamp(timestamp + fTsOffset)),
-                source,
-                type,
-                type.getDescription(),
-                content,
-                target);
+                getTimestampTransform().transform(fTsFormat.createTimestamp(reader.getTimestamp() + fTsOffset)),
+                reader.getSource(),
+                reader.getSourceInstance(),
+                reader.getType(),
+                reader.getTarget(),
+                reader.getTargetInstance(),
+                reader.getEvent(),
+                reader.getNotes());
     }
 
     @Override
@@ -492,10 +432,10 @@ public class BtfTrace extends TmfTrace implements ITmfPersistentlyIndexable, ITm
 
     @Override
     public synchronized void dispose() {
-        RandomAccessFile raf = fFileInput;
-        if (raf != null) {
+        BtfRecordReader reader = fFileInput;
+        if (reader != null) {
             try {
-                raf.close();
+                reader.close();
             } catch (IOException e) {
             }
         }
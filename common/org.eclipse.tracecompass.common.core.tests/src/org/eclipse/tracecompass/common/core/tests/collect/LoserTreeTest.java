@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.common.core.tests.collect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.tracecompass.common.core.collect.LoserTree;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+/**
+ * Test suite for the {@link LoserTree}
+ */
+public class LoserTreeTest {
+
+    /**
+     * Test an empty tree
+     */
+    @Test
+    public void testEmpty() {
+        LoserTree<String> tree = new LoserTree<>(0);
+        assertTrue(tree.isEmpty());
+        assertNull(tree.peek());
+        assertEquals(-1, tree.peekSlot());
+        assertNull(tree.removeTop());
+
+        tree = new LoserTree<>(5);
+        assertTrue(tree.isEmpty());
+        assertNull(tree.peek());
+    }
+
+    /**
+     * Test merging sorted inputs of various counts, refilling the slot of the
+     * removed winner like a k-way merge does
+     */
+    @Test
+    public void testMerge() {
+        Random random = new Random(42);
+        for (int nbInputs = 1; nbInputs < 20; nbInputs++) {
+            List<long[]> inputs = new ArrayList<>();
+            int total = 0;
+            for (int i = 0; i < nbInputs; i++) {
+                long[] input = new long[random.nextInt(50)];
+                long value = 0;
+                for (int j = 0; j < input.length; j++) {
+                    value += random.nextInt(10);
+                    input[j] = value;
+                }
+                inputs.add(input);
+                total += input.length;
+            }
+
+            LoserTree<Integer> tree = new LoserTree<>(nbInputs);
+            int[] positions = new int[nbInputs];
+            for (int i = 0; i < nbInputs; i++) {
+                if (inputs.get(i).length > 0) {
+                    tree.set(i, inputs.get(i)[0], i);
+                }
+            }
+
+            long previous = Long.MIN_VALUE;
+            int count = 0;
+            while (!tree.isEmpty()) {
+                int slot = tree.peekSlot();
+                long key = tree.peekKey();
+                assertTrue(key >= previous);
+                previous = key;
+                assertEquals(Integer.valueOf(slot), tree.removeTop());
+                count++;
+                long[] input = inputs.get(slot);
+                if (++positions[slot] < input.length) {
+                    tree.set(slot, input[positions[slot]], slot);
+                }
+            }
+            assertEquals(total, count);
+        }
+    }
+
+    /**
+     * Test that elements with equal keys are ordered by the tie breaker, then
+     * by slot
+     */
+    @Test
+    public void testTieBreaker() {
+        LoserTree<String> tree = new LoserTree<>(4, Comparator.naturalOrder());
+        tree.set(0, 1, "b");
+        tree.set(1, 1, "a");
+        tree.set(2, 0, "z");
+        tree.set(3, 1, "a");
+
+        assertEquals("z", tree.removeTop());
+        assertEquals(1, tree.peekSlot());
+        assertEquals("a", tree.removeTop());
+        assertEquals(3, tree.peekSlot());
+        assertEquals("a", tree.removeTop());
+        assertEquals("b", tree.removeTop());
+        assertNull(tree.removeTop());
+    }
+
+    /**
+     * Test updating and removing slots that are not the winner, and growing
+     * the tree
+     */
+    @Test
+    public void testUpdates() {
+        LoserTree<String> tree = new LoserTree<>(3);
+        tree.set(0, 10, "a");
+        tree.set(1, 20, "b");
+        tree.set(2, 30, "c");
+        assertEquals("a", tree.peek());
+
+        tree.set(2, 5, "c");
+        assertEquals("c", tree.peek());
+        tree.remove(2);
+        assertEquals("a", tree.peek());
+        tree.replaceTop(25, "a");
+        assertEquals("b", tree.peek());
+
+        tree.ensureCapacity(5);
+        assertEquals(5, tree.capacity());
+        tree.set(4, 1, "e");
+        assertEquals("e", tree.peek());
+        assertEquals(3, tree.size());
+        assertEquals(ImmutableList.of("a", "b", "e"), ImmutableList.copyOf(tree));
+
+        tree.clear();
+        assertTrue(tree.isEmpty());
+        assertTrue(Iterables.isEmpty(tree));
+    }
+}
@@ -0,0 +1,430 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.common.core.collect;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * A tournament tree (loser tree) to merge k ordered inputs, typically the
+ * readers of the files or traces to merge by timestamp.
+ * <p>
+ * Each input owns a slot of the tree, holding its current element and a
+ * primitive <code>long</code> key. Elements are ordered by their key first,
+ * then by the optional tie breaker comparator when the keys are equal, then
+ * by slot index, so the merge order is deterministic. The key must be
+ * consistent with the comparator: if an element's key is lower than another's,
+ * the element must not be greater than the other according to the comparator.
+ * <p>
+ * Consuming the winner and refilling its slot, the usual merge step, costs
+ * O(log k) key comparisons on a single path of the tree, where a binary heap
+ * needs a removal and an insertion. Setting a slot that is not the current
+ * winner invalidates the tree, which is rebuilt in O(k) on the next access.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T>
+ *            The type of elements to merge
+ * @since 3.2
+ */
+public class LoserTree<T> implements Iterable<T> {
+
+    private static final int NO_SLOT = -1;
+
+    private final @Nullable Comparator<? super T> fTieBreaker;
+
+    private int fCapacity;
+    private long[] fKeys;
+    private @Nullable Object[] fElements;
+    private boolean[] fActive;
+    /**
+     * fTree[0] is the winner slot, fTree[1..capacity-1] are the slots that
+     * lost the match at each internal node
+     */
+    private int[] fTree;
+    private int fSize = 0;
+
+    /** The tree needs to be rebuilt before being read */
+    private boolean fDirty = false;
+    /** Winner slot removed by {@link #removeTop()} but not replayed yet */
+    private int fPendingSlot = NO_SLOT;
+
+    /**
+     * Constructor for elements ordered by their key only
+     *
+     * @param capacity
+     *            The initial number of slots
+     */
+    public LoserTree(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param capacity
+     *            The initial number of slots
+     * @param tieBreaker
+     *            The comparator used to order elements with equal keys, or
+     *            <code>null</code> to order them by slot index only
+     */
+    public LoserTree(int capacity, @Nullable Comparator<? super T> tieBreaker) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative: " + capacity); //$NON-NLS-1$
+        }
+        fTieBreaker = tieBreaker;
+        fCapacity = capacity;
+        fKeys = new long[capacity];
+        fElements = new Object[capacity];
+        fActive = new boolean[capacity];
+        fTree = new int[Math.max(1, capacity)];
+        fTree[0] = NO_SLOT;
+    }
+
+    /**
+     * Get the number of slots of this tree
+     *
+     * @return The number of slots
+     */
+    public int capacity() {
+        return fCapacity;
+    }
+
+    /**
+     * Increase the number of slots of this tree, the existing slots keep their
+     * index and content
+     *
+     * @param capacity
+     *            The minimum number of slots
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= fCapacity) {
+            return;
+        }
+        flushPending();
+        fKeys = Arrays.copyOf(fKeys, capacity);
+        fElements = Arrays.copyOf(fElements, capacity);
+        fActive = Arrays.copyOf(fActive, capacity);
+        fTree = new int[capacity];
+        fCapacity = capacity;
+        fDirty = true;
+    }
+
+    /**
+     * Get the number of slots that currently hold an element
+     *
+     * @return The number of elements
+     */
+    public int size() {
+        return fSize;
+    }
+
+    /**
+     * Check if no slot holds an element
+     *
+     * @return <code>true</code> if the tree is empty
+     */
+    public boolean isEmpty() {
+        return fSize == 0;
+    }
+
+    /**
+     * Set the element of a slot, replacing the previous one if any
+     *
+     * @param slot
+     *            The slot index
+     * @param key
+     *            The key of the element
+     * @param element
+     *            The element
+     */
+    public void set(int slot, long key, T element) {
+        checkSlot(slot);
+        if (slot == fPendingSlot) {
+            /* Refill the slot of the winner that was just removed */
+            fPendingSlot = NO_SLOT;
+            fill(slot, key, element);
+            replay(slot);
+            return;
+        }
+        flushPending();
+        boolean isWinner = !fDirty && fTree[0] == slot;
+        fill(slot, key, element);
+        if (isWinner) {
+            replay(slot);
+        } else {
+            fDirty = true;
+        }
+    }
+
+    /**
+     * Remove the element of a slot, if any
+     *
+     * @param slot
+     *            The slot index
+     */
+    public void remove(int slot) {
+        checkSlot(slot);
+        flushPending();
+        if (!fActive[slot]) {
+            return;
+        }
+        boolean isWinner = !fDirty && fTree[0] == slot;
+        empty(slot);
+        if (isWinner) {
+            replay(slot);
+        } else {
+            fDirty = true;
+        }
+    }
+
+    /**
+     * Remove all the elements
+     */
+    public void clear() {
+        Arrays.fill(fActive, false);
+        Arrays.fill(fElements, null);
+        fSize = 0;
+        fPendingSlot = NO_SLOT;
+        fDirty = true;
+    }
+
+    /**
+     * Get the smallest element
+     *
+     * @return The smallest element, or <code>null</code> if the tree is empty
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable T peek() {
+        int slot = peekSlot();
+        return (slot == NO_SLOT) ? null : (T) fElements[slot];
+    }
+
+    /**
+     * Get the slot of the smallest element
+     *
+     * @return The slot index, or -1 if the tree is empty
+     */
+    public int peekSlot() {
+        validate();
+        int winner = fTree[0];
+        return (winner != NO_SLOT && fActive[winner]) ? winner : NO_SLOT;
+    }
+
+    /**
+     * Get the key of the smallest element
+     *
+     * @return The key of the smallest element
+     * @throws NoSuchElementException
+     *             If the tree is empty
+     */
+    public long peekKey() {
+        int slot = peekSlot();
+        if (slot == NO_SLOT) {
+            throw new NoSuchElementException();
+        }
+        return fKeys[slot];
+    }
+
+    /**
+     * Replace the smallest element by the next element of the same input. This
+     * is the usual merge step and costs O(log k).
+     *
+     * @param key
+     *            The key of the new element
+     * @param element
+     *            The new element
+     * @throws NoSuchElementException
+     *             If the tree is empty
+     */
+    public void replaceTop(long key, T element) {
+        int slot = peekSlot();
+        if (slot == NO_SLOT) {
+            throw new NoSuchElementException();
+        }
+        fill(slot, key, element);
+        replay(slot);
+    }
+
+    /**
+     * Remove and return the smallest element. The tree is only updated when it
+     * is next accessed, so that refilling the same slot right away with
+     * {@link #set(int, long, Object)} costs a single O(log k) update.
+     *
+     * @return The smallest element, or <code>null</code> if the tree is empty
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable T removeTop() {
+        int slot = peekSlot();
+        if (slot == NO_SLOT) {
+            return null;
+        }
+        T element = (T) fElements[slot];
+        empty(slot);
+        fPendingSlot = slot;
+        return element;
+    }
+
+    /**
+     * Iterate over the elements of the tree, in slot order
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int fNext = nextActive(0);
+
+            private int nextActive(int from) {
+                int i = from;
+                while (i < fCapacity && !fActive[i]) {
+                    i++;
+                }
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return fNext < fCapacity;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T element = (T) fElements[fNext];
+                fNext = nextActive(fNext + 1);
+                return element;
+            }
+        };
+    }
+
+    // ------------------------------------------------------------------------
+    // Helpers
+    // ------------------------------------------------------------------------
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= fCapacity) {
+            throw new IndexOutOfBoundsException("Invalid slot " + slot + " for capacity " + fCapacity); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    private void fill(int slot, long key, T element) {
+        if (!fActive[slot]) {
+            fActive[slot] = true;
+            fSize++;
+        }
+        fKeys[slot] = key;
+        fElements[slot] = element;
+    }
+
+    private void empty(int slot) {
+        if (fActive[slot]) {
+            fActive[slot] = false;
+            fElements[slot] = null;
+            fSize--;
+        }
+    }
+
+    private void flushPending() {
+        int slot = fPendingSlot;
+        if (slot != NO_SLOT) {
+            fPendingSlot = NO_SLOT;
+            replay(slot);
+        }
+    }
+
+    private void validate() {
+        flushPending();
+        if (fDirty) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Check if the element in slot a comes before the element in slot b.
+     * Empty slots come after everything else.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean beats(int a, int b) {
+        boolean activeA = fActive[a];
+        boolean activeB = fActive[b];
+        if (activeA != activeB) {
+            return activeA;
+        }
+        if (!activeA) {
+            return a < b;
+        }
+        long keyA = fKeys[a];
+        long keyB = fKeys[b];
+        if (keyA != keyB) {
+            return keyA < keyB;
+        }
+        Comparator<? super T> tieBreaker = fTieBreaker;
+        if (tieBreaker != null) {
+            int cmp = tieBreaker.compare((T) fElements[a], (T) fElements[b]);
+            if (cmp != 0) {
+                return cmp < 0;
+            }
+        }
+        return a < b;
+    }
+
+    /**
+     * Play the matches from the leaf of the slot up to the root, after the
+     * element of the winner slot changed
+     */
+    private void replay(int slot) {
+        int winner = slot;
+        int node = (slot + fCapacity) >>> 1;
+        while (node > 0) {
+            int loser = fTree[node];
+            if (beats(loser, winner)) {
+                fTree[node] = winner;
+                winner = loser;
+            }
+            node >>>= 1;
+        }
+        fTree[0] = winner;
+    }
+
+    private void rebuild() {
+        fDirty = false;
+        int capacity = fCapacity;
+        if (capacity == 0) {
+            fTree[0] = NO_SLOT;
+            return;
+        }
+        /*
+         * Nodes 1..capacity-1 are internal, nodes capacity..2*capacity-1 are
+         * the leaves of the slots
+         */
+        int[] winners = new int[2 * capacity];
+        for (int i = 0; i < capacity; i++) {
+            winners[capacity + i] = i;
+        }
+        for (int node = capacity - 1; node > 0; node--) {
+            int left = winners[2 * node];
+            int right = winners[2 * node + 1];
+            if (beats(left, right)) {
+                winners[node] = left;
+                fTree[node] = right;
+            } else {
+                winners[node] = right;
+                fTree[node] = left;
+            }
+        }
+        fTree[0] = (capacity == 1) ? 0 : winners[1];
+    }
+}
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Set;
 
+import org.eclipse.tracecompass.common.core.collect.LoserTree;
 import org.eclipse.tracecompass.ctf.core.CTFException;
 import org.eclipse.tracecompass.ctf.core.event.IEventDeclaration;
 import org.eclipse.tracecompass.ctf.core.event.IEventDefinition;
@@ -57,9 +58,10 @@ public class CTFTraceReader implements AutoCloseable {
     private final List<CTFStreamInputReader> fStreamInputReaders = Collections.synchronizedList(new ArrayList<CTFStreamInputReader>());
 
     /**
-     * Priority queue to order the trace file readers by timestamp.
+     * Tournament tree to order the trace file readers by timestamp. The slot of
+     * a reader is its index in {@link #fStreamInputReaders}.
      */
-    private PriorityQueue<CTFStreamInputReader> fPrio;
+    private LoserTree<CTFStreamInputReader> fPrio;
 
     /**
      * Array to count the number of event per trace file.
@@ -182,10 +184,18 @@ public class CTFTraceReader implements AutoCloseable {
     /**
      * Get the priority queue of this trace reader.
      *
-     * @return The priority queue of input readers
+     * @return A copy of the priority queue of input readers
+     * @deprecated The readers are no longer ordered in a priority queue, the
+     *             returned queue is a copy. Use {@link #getTopStream()} to get
+     *             the reader with the oldest event.
      */
+    @Deprecated
     protected PriorityQueue<CTFStreamInputReader> getPrio() {
-        return fPrio;
+        PriorityQueue<CTFStreamInputReader> prio = new PriorityQueue<>(MIN_PRIO_SIZE, new StreamInputReaderTimestampComparator());
+        for (CTFStreamInputReader reader : fPrio) {
+            prio.add(reader);
+        }
+        return prio;
     }
 
     // ------------------------------------------------------------------------
@@ -262,8 +272,9 @@ public class CTFTraceReader implements AutoCloseable {
         }
         long[] temp = fEventCountPerTraceFile;
         fEventCountPerTraceFile = new long[readers.size() + temp.length];
+        fPrio.ensureCapacity(fStreamInputReaders.size());
         for (CTFStreamInputReader reader : readers) {
-            fPrio.add(reader);
+            fPrio.set(fStreamInputReaders.indexOf(reader), getKey(reader), reader);
         }
         System.arraycopy(temp, 0, fEventCountPerTraceFile, 0, temp.length);
     }
@@ -283,37 +294,29 @@ public class CTFTraceReader implements AutoCloseable {
     }
 
     /**
-     * Initializes the priority queue used to choose the trace file with the lower
-     * next event timestamp.
+     * Initializes the tournament tree used to choose the trace file with the
+     * lower next event timestamp.
      *
      * @throws CTFException
      *             if an error occurs
      */
     private void populateStreamInputReaderHeap() throws CTFException {
+        fPrio = new LoserTree<>(fStreamInputReaders.size());
         if (fStreamInputReaders.isEmpty()) {
-            fPrio = new PriorityQueue<>(MIN_PRIO_SIZE,
-                    new StreamInputReaderTimestampComparator());
             return;
         }
 
-        /*
-         * Create the priority queue with a size twice as bigger as the number of reader
-         * in order to avoid constant resizing.
-         */
-        fPrio = new PriorityQueue<>(
-                Math.max(fStreamInputReaders.size() * 2, MIN_PRIO_SIZE),
-                new StreamInputReaderTimestampComparator());
-
         int pos = 0;
 
-        for (CTFStreamInputReader reader : fStreamInputReaders) {
+        for (int slot = 0; slot < fStreamInputReaders.size(); slot++) {
+            CTFStreamInputReader reader = fStreamInputReaders.get(slot);
             /*
-             * Add each trace file reader in the priority queue, if we are able to read an
+             * Add each trace file reader in the tree, if we are able to read an
              * event from it.
              */
             CTFResponse readNextEvent = reader.readNextEvent();
             if (readNextEvent == CTFResponse.OK || readNextEvent == CTFResponse.WAIT) {
-                fPrio.add(reader);
+                fPrio.set(slot, getKey(reader), reader);
 
                 fEventCountPerTraceFile[pos] = 0;
                 reader.setName(pos);
@@ -323,6 +326,22 @@ public class CTFTraceReader implements AutoCloseable {
         }
     }
 
+    /**
+     * Get the key of a reader in the tournament tree. Timestamps are compared
+     * as unsigned values, flipping the sign bit makes their signed order match.
+     *
+     * @param reader
+     *            The reader
+     * @return The key, readers without a current event come last
+     */
+    private static long getKey(CTFStreamInputReader reader) {
+        IEventDefinition currentEvent = reader.getCurrentEvent();
+        if (currentEvent == null) {
+            return Long.MAX_VALUE;
+        }
+        return currentEvent.getTimestamp() ^ Long.MIN_VALUE;
+    }
+
     /**
      * Get the current event, which is the current event of the trace file reader
      * with the lowest timestamp.
@@ -345,12 +364,12 @@ public class CTFTraceReader implements AutoCloseable {
      */
     public boolean advance() throws CTFException {
         /*
-         * Remove the reader from the top of the priority queue.
+         * Get the reader at the top of the tournament tree.
          */
-        CTFStreamInputReader top = fPrio.poll();
+        CTFStreamInputReader top = fPrio.peek();
 
         /*
-         * If the queue was empty.
+         * If the tree was empty.
          */
         if (top == null) {
             return false;
@@ -361,9 +380,9 @@ public class CTFTraceReader implements AutoCloseable {
         switch (top.readNextEvent()) {
         case OK: {
             /*
-             * Add it back in the queue.
+             * Replay its matches with the new event.
              */
-            fPrio.add(top);
+            fPrio.replaceTop(getKey(top), top);
             /*
              * We're in OK, there's a guaranteed top#getCurrentEvent() unless another thread
              * does something bad.
@@ -375,17 +394,19 @@ public class CTFTraceReader implements AutoCloseable {
             break;
         }
         case WAIT: {
-            fPrio.add(top);
+            fPrio.replaceTop(getKey(top), top);
             break;
         }
         case FINISH:
+            fPrio.removeTop();
             break;
         case ERROR:
         default:
             // something bad happend
+            fPrio.removeTop();
         }
         /*
-         * If there is no reader in the queue, it means the trace reader reached the end
+         * If there is no reader in the tree, it means the trace reader reached the end
          * of the trace.
          */
         return hasMoreEvents();
@@ -430,20 +451,21 @@ public class CTFTraceReader implements AutoCloseable {
      */
     public boolean seek(long timestamp) throws CTFException {
         /*
-         * Remove all the trace readers from the priority queue
+         * Remove all the trace readers from the tournament tree
          */
         fPrio.clear();
-        for (CTFStreamInputReader streamInputReader : fStreamInputReaders) {
+        for (int slot = 0; slot < fStreamInputReaders.size(); slot++) {
+            CTFStreamInputReader streamInputReader = fStreamInputReaders.get(slot);
             /*
              * Seek the trace reader.
              */
             streamInputReader.seek(timestamp);
 
             /*
-             * Add it to the priority queue if there is a current event.
+             * Add it to the tree if there is a current event.
              */
             if (streamInputReader.getCurrentEvent() != null) {
-                fPrio.add(streamInputReader);
+                fPrio.set(slot, getKey(streamInputReader), streamInputReader);
             }
         }
         return hasMoreEvents();
@@ -32,6 +32,7 @@ import org.eclipse.tracecompass.tmf.core.request.ITmfEventRequest;
 import org.eclipse.tracecompass.tmf.core.request.ITmfEventRequest.ExecutionType;
 import org.eclipse.tracecompass.tmf.core.request.TmfEventRequest;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.experiment.TmfExperiment;
 import org.eclipse.tracecompass.tmf.ctf.core.trace.CtfTmfTrace;
 import org.eclipse.tracecompass.tmf.tests.stubs.trace.TmfExperimentStub;
 import org.junit.Test;
@@ -44,6 +45,7 @@ import org.junit.Test;
 public class ExperimentBenchmark {
 
     private static final String TEST_ID = "org.eclipse.linuxtools#Experiment benchmark#";
+    private static final String TEST_ID_PREFETCH = "org.eclipse.linuxtools#Experiment prefetch benchmark#";
     private static final int MAX_TRACES = 160;
     private static final int BLOCK_SIZE = 100;
     private static final String TRACES_ROOT_PATH;
@@ -64,13 +66,25 @@ public class ExperimentBenchmark {
      */
     @Test
     public void benchmarkExperimentSizeRequest() {
+        runBenchmark(TEST_ID, "Experiment Benchmark:", 0);
+    }
+
+    /**
+     * Run the benchmark with each trace read ahead on its own thread
+     */
+    @Test
+    public void benchmarkExperimentPrefetchSizeRequest() {
+        runBenchmark(TEST_ID_PREFETCH, "Experiment Prefetch Benchmark:", TmfExperiment.DEFAULT_PREFETCH_BUFFER_SIZE);
+    }
+
+    private void runBenchmark(String testId, String summaryPrefix, int prefetchBufferSize) {
         Performance perf = Performance.getDefault();
 
         for (int numTraces = 1; numTraces < MAX_TRACES; numTraces = (int) (1.6 * (numTraces + 1))) {
-            PerformanceMeter pm = perf.createPerformanceMeter(TEST_ID + numTraces + " traces");
-            perf.tagAsSummary(pm, "Experiment Benchmark:" + numTraces + " traces", Dimension.CPU_TIME);
+            PerformanceMeter pm = perf.createPerformanceMeter(testId + numTraces + " traces");
+            perf.tagAsSummary(pm, summaryPrefix + numTraces + " traces", Dimension.CPU_TIME);
             if ((int) (1.6 * (numTraces + 1)) > MAX_TRACES) {
-                perf.tagAsGlobalSummary(pm, "Experiment Benchmark:" + numTraces + " traces", Dimension.CPU_TIME);
+                perf.tagAsGlobalSummary(pm, summaryPrefix + numTraces + " traces", Dimension.CPU_TIME);
             }
 
             int sampleSize = SAMPLE_SIZE;
@@ -84,6 +98,7 @@ public class ExperimentBenchmark {
                 InnerEventRequest traceReq[] = new InnerEventRequest[numTraces];
 
                 init(numTraces);
+                fExperiment.setPrefetchBufferSize(prefetchBufferSize);
                 fExperiment.sendRequest(expReq);
                 List<ITmfTrace> traces = fExperiment.getTraces();
                 for (int i = 0; i < numTraces; i++) {
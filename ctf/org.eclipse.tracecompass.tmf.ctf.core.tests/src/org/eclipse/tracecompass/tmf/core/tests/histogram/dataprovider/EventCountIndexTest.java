@@ -0,0 +1,229 @@
+/**********************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ **********************************************************************/
+
+package org.eclipse.tracecompass.tmf.core.tests.histogram.dataprovider;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.LongUnaryOperator;
+
+import org.eclipse.tracecompass.internal.tmf.core.histogram.EventCountIndex;
+import org.junit.Test;
+
+/**
+ * Test the {@link EventCountIndex}
+ */
+public class EventCountIndexTest {
+
+    private static final long START = 1000;
+
+    /**
+     * Build an index from sorted timestamps
+     */
+    private static EventCountIndex buildIndex(long[] timestamps) {
+        EventCountIndex index = new EventCountIndex();
+        for (long ts : timestamps) {
+            index.addEvent(ts);
+        }
+        index.finish();
+        return index;
+    }
+
+    /**
+     * Generate sorted timestamps with bursts and gaps
+     */
+    private static long[] generateTimestamps(int nb, long seed) {
+        Random random = new Random(seed);
+        long[] timestamps = new long[nb];
+        long ts = START;
+        for (int i = 0; i < nb; i++) {
+            ts += random.nextInt(10) == 0 ? random.nextInt(1000000) : random.nextInt(100);
+            timestamps[i] = ts;
+        }
+        return timestamps;
+    }
+
+    /**
+     * Count the events at or before a time, the reference for the index
+     */
+    private static LongUnaryOperator exactCount(long[] timestamps) {
+        return time -> {
+            int pos = Arrays.binarySearch(timestamps, time);
+            if (pos < 0) {
+                return -pos - 1;
+            }
+            while (pos + 1 < timestamps.length && timestamps[pos + 1] == time) {
+                pos++;
+            }
+            return pos + 1;
+        };
+    }
+
+    private static long[] expectedHistogram(long[] times, LongUnaryOperator exactCount) {
+        long[] expected = new long[times.length];
+        long prevTotal = (times[0] == START) ? 0 : exactCount.applyAsLong(Math.max(START, times[0] - 1));
+        for (int i = 0; i < times.length; i++) {
+            long curTotal = exactCount.applyAsLong(Math.max(START, times[i]));
+            expected[i] = curTotal - prevTotal;
+            prevTotal = curTotal;
+        }
+        return expected;
+    }
+
+    /**
+     * Get the maximum error of the count at a time, the number of events of the
+     * bucket containing that time
+     */
+    private static long maxError(EventCountIndex index, LongUnaryOperator exactCount, long time) {
+        long width = index.getBucketWidth();
+        return exactCount.applyAsLong(time + width) - exactCount.applyAsLong(time - width);
+    }
+
+    /**
+     * Test the counts at various times, the index must give the exact count
+     * unless the time is inside the events of a bucket, where the count is
+     * interpolated
+     */
+    @Test
+    public void testCountAt() {
+        long[] timestamps = generateTimestamps(200000, 42);
+        EventCountIndex index = buildIndex(timestamps);
+        LongUnaryOperator exactCount = exactCount(timestamps);
+        assertEquals(timestamps.length, index.getTotal());
+        assertTrue(index.getBucketWidth() > 1);
+
+        Random random = new Random(7);
+        long end = timestamps[timestamps.length - 1];
+        int exact = 0;
+        int interpolated = 0;
+        long prevTime = Long.MIN_VALUE;
+        long prevCount = 0;
+        long[] times = new long[10000];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = START - 10 + (long) (random.nextDouble() * (end - START + 20));
+        }
+        Arrays.sort(times);
+        for (long time : times) {
+            long count = index.getCountAt(time);
+            long expected = exactCount.applyAsLong(time);
+            if (count == expected) {
+                exact++;
+            } else {
+                assertTrue(Math.abs(count - expected) < maxError(index, exactCount, time));
+                interpolated++;
+            }
+            /* The interpolated counts must not go backwards */
+            if (time > prevTime) {
+                assertTrue(count >= prevCount);
+            }
+            prevTime = time;
+            prevCount = count;
+        }
+        assertTrue(exact > 0);
+        assertTrue(interpolated > 0);
+        assertEquals(0, index.getCountAt(START - 1));
+        assertEquals(timestamps.length, index.getCountAt(end));
+        assertEquals(timestamps.length, index.getCountAt(Long.MAX_VALUE));
+    }
+
+    /**
+     * Test histogram queries at different resolutions
+     */
+    @Test
+    public void testHistogramQuery() {
+        long[] timestamps = generateTimestamps(100000, 12);
+        EventCountIndex index = buildIndex(timestamps);
+        LongUnaryOperator exactCount = exactCount(timestamps);
+        long end = timestamps[timestamps.length - 1];
+
+        for (int nb : new int[] { 1, 2, 10, 100, 1000, 5000 }) {
+            for (long start : new long[] { START, START + 12345, end / 2 }) {
+                long[] times = new long[nb];
+                long step = Math.max(1, (end - start) / nb);
+                for (int i = 0; i < nb; i++) {
+                    times[i] = start + i * step;
+                }
+                long[] expected = expectedHistogram(times, exactCount);
+                long[] values = index.histogramQuery(times, START);
+                assertEquals(expected.length, values.length);
+                long prevError = maxError(index, exactCount, Math.max(START, times[0] - 1));
+                for (int i = 0; i < nb; i++) {
+                    long error = maxError(index, exactCount, times[i]);
+                    assertTrue(values[i] >= 0);
+                    assertTrue(Math.abs(values[i] - expected[i]) <= prevError + error);
+                    prevError = error;
+                }
+            }
+        }
+        /* The interpolation errors cancel out, the bins add up to the total */
+        long[] times = new long[] { START, START + 12345, end / 2, end };
+        assertEquals(timestamps.length, Arrays.stream(index.histogramQuery(times, START)).sum());
+    }
+
+    /**
+     * Test that only the queries whose step is at least the bucket width are
+     * coarse enough for the index
+     */
+    @Test
+    public void testCoarseEnough() {
+        EventCountIndex index = buildIndex(generateTimestamps(100000, 7));
+        long width = index.getBucketWidth();
+        assertTrue(index.isCoarseEnough(new long[] { START }));
+        assertTrue(index.isCoarseEnough(new long[] { START, START + width, START + 3 * width }));
+        assertFalse(index.isCoarseEnough(new long[] { START, START + width - 1 }));
+        assertFalse(index.isCoarseEnough(new long[] { START, START + 2 * width, START + 3 * width - 1 }));
+    }
+
+    /**
+     * Test an empty index
+     */
+    @Test
+    public void testEmpty() {
+        EventCountIndex index = buildIndex(new long[0]);
+        assertEquals(0, index.getTotal());
+        assertEquals(0, index.getCountAt(START));
+        assertArrayEquals(new long[] { 0, 0 }, index.histogramQuery(new long[] { START, START + 10 }, START));
+    }
+
+    /**
+     * Test writing and reading back an index
+     *
+     * @throws IOException
+     *             if the temporary file cannot be created
+     */
+    @Test
+    public void testSaveLoad() throws IOException {
+        long[] timestamps = generateTimestamps(50000, 3);
+        EventCountIndex index = buildIndex(timestamps);
+        File file = File.createTempFile("index", ".idx");
+        try {
+            index.save(file);
+            EventCountIndex loaded = EventCountIndex.load(file);
+            assertNotNull(loaded);
+            assertEquals(index.getTotal(), loaded.getTotal());
+            assertEquals(index.getBucketWidth(), loaded.getBucketWidth());
+            long end = timestamps[timestamps.length - 1];
+            for (long time = START; time < end; time += 997) {
+                assertEquals(index.getCountAt(time), loaded.getCountAt(time));
+            }
+        } finally {
+            file.delete();
+        }
+        assertNull(EventCountIndex.load(file));
+    }
+}
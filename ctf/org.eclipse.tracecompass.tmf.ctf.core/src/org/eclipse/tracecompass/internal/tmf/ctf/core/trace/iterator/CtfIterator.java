@@ -144,7 +144,7 @@ public class CtfIterator extends CTFTraceReader
      * @return CtfTmfEvent The current event
      */
     public synchronized CtfTmfEvent getCurrentEvent() {
-        final CTFStreamInputReader top = super.getPrio().peek();
+        final CTFStreamInputReader top = getTopStream();
         if (top != null) {
             if (!fCurLocation.equals(fPreviousLocation)) {
                 fPreviousLocation = fCurLocation;
@@ -162,7 +162,7 @@ public class CtfIterator extends CTFTraceReader
      * @return long The current timestamp location
      */
     public synchronized long getCurrentTimestamp() {
-        final CTFStreamInputReader top = super.getPrio().peek();
+        final CTFStreamInputReader top = getTopStream();
         if (top != null) {
             IEventDefinition currentEvent = top.getCurrentEvent();
             if (currentEvent != null) {
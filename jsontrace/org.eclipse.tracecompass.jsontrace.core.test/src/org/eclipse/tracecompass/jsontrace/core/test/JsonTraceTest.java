@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Ericsson
+ * Copyright (c) 2018, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License v1.0 which
@@ -13,15 +13,24 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.jsontrace.core.job.SortedTraceIndex;
 import org.eclipse.tracecompass.jsontrace.core.test.stub.JsonStubTrace;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.signal.TmfSignalHandler;
+import org.eclipse.tracecompass.tmf.core.signal.TmfSignalManager;
+import org.eclipse.tracecompass.tmf.core.signal.TmfTraceUpdatedSignal;
 import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfTraceIndexer;
 import org.junit.Test;
 
 /**
@@ -31,6 +40,28 @@ import org.junit.Test;
  */
 public class JsonTraceTest {
 
+    /**
+     * Listener of the signal sent by the indexer when it restores an index.
+     * It is public so that the signal manager can call its handler.
+     */
+    public static class IndexRestoredListener {
+
+        private volatile @Nullable TmfTraceUpdatedSignal fSignal = null;
+
+        /**
+         * Keep the signal if it was sent by an indexer
+         *
+         * @param signal
+         *            the TmfTraceUpdatedSignal
+         */
+        @TmfSignalHandler
+        public void traceUpdated(TmfTraceUpdatedSignal signal) {
+            if (signal.getSource() instanceof ITmfTraceIndexer) {
+                fSignal = signal;
+            }
+        }
+    }
+
     /**
      * Test the unsorted json trace
      *
@@ -61,6 +92,48 @@ public class JsonTraceTest {
         testJsonTrace(path, nbEvents, startTime, endTime);
     }
 
+    /**
+     * Test that the index of a newly sorted trace is restored from the index
+     * written by the sorting job
+     *
+     * @throws TmfTraceException
+     *             If there is a problem while initializing the trace
+     */
+    @Test
+    public void testSortedTraceIndex() throws TmfTraceException {
+        String path = "traces/unsortedTrace.json"; //$NON-NLS-1$
+        ITmfTrace trace = new JsonStubTrace();
+        trace.initTrace(null, path, ITmfEvent.class);
+        trace.dispose();
+        TmfTraceManager.deleteSupplementaryFiles(trace);
+
+        trace = new JsonStubTrace();
+        IndexRestoredListener listener = new IndexRestoredListener();
+        TmfSignalManager.register(listener);
+        try {
+            trace.initTrace(null, path, ITmfEvent.class);
+            File sortedFile = new File(TmfTraceManager.getSupplementaryFileDir(trace) + new File(path).getName());
+            assertNotNull(SortedTraceIndex.load(sortedFile, new File(path)));
+            trace.indexTrace(true);
+            TmfTraceUpdatedSignal signal = listener.fSignal;
+            assertNotNull("Index not seeded", signal); //$NON-NLS-1$
+            assertEquals(trace, signal.getTrace());
+            assertEquals(5, signal.getNbEvents());
+            assertEquals(1, signal.getRange().getStartTime().toNanos());
+            assertEquals(5, signal.getRange().getEndTime().toNanos());
+            assertEquals(5, trace.getNbEvents());
+            assertEquals(1, trace.getStartTime().toNanos());
+            assertEquals(5, trace.getEndTime().toNanos());
+            ITmfContext context = trace.seekEvent(3);
+            ITmfEvent event = trace.getNext(context);
+            assertNotNull(event);
+            assertEquals(4, event.getTimestamp().toNanos());
+        } finally {
+            TmfSignalManager.deregister(listener);
+            trace.dispose();
+        }
+    }
+
     private void testJsonTrace(String path, long expectedNbEvents, ITmfTimestamp startTime, ITmfTimestamp endTime)
             throws TmfTraceException {
         ITmfTrace trace = new JsonStubTrace();
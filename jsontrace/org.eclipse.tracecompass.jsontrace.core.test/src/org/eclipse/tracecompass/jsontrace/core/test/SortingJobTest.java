@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.jsontrace.core.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.tracecompass.internal.jsontrace.core.job.SortedTraceIndex;
+import org.eclipse.tracecompass.jsontrace.core.test.stub.JsonStubTrace;
+import org.eclipse.tracecompass.jsontrace.core.test.stub.JsonStubTraceSortingJob;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the sorting of a json trace split in many small chunks, which are
+ * sorted in parallel and then merged
+ */
+public class SortingJobTest {
+
+    private static final int NB_EVENTS = 1000;
+    private static final int CHUNK_SIZE = 256;
+    private static final long MEMORY_BUDGET = 4 * CHUNK_SIZE;
+
+    private File fFile;
+    private List<String> fEvents;
+
+    /**
+     * Write an unsorted trace with integer, decimal, quoted and very large
+     * timestamps, events without timestamp and events with the same timestamp
+     *
+     * @throws IOException
+     *             If the trace could not be written
+     */
+    @Before
+    public void setup() throws IOException {
+        Random random = new Random(0);
+        fEvents = new ArrayList<>();
+        for (int i = 0; i < NB_EVENTS; i++) {
+            int value = random.nextInt(100);
+            switch (i % 10) {
+            case 0:
+                fEvents.add("{\"id\":" + i + "}");
+                break;
+            case 1:
+                fEvents.add("{\"timestamp\":" + value + ".5, \"id\":" + i + "}");
+                break;
+            case 2:
+                fEvents.add("{\"timestamp\":1000000000000000000000" + value + ", \"id\":" + i + "}");
+                break;
+            case 3:
+                fEvents.add("{\"timestamp\":\"" + value + "\", \"id\":" + i + "}");
+                break;
+            default:
+                fEvents.add("{\"timestamp\":" + value + ", \"id\":" + i + "}");
+                break;
+            }
+        }
+        fFile = File.createTempFile("sorting", ".json");
+        String content = "{\"events\":[" + String.join(",\n", fEvents) + "]}";
+        Files.write(fFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Delete the trace
+     */
+    @After
+    public void cleanup() {
+        fFile.delete();
+    }
+
+    /**
+     * Test that the sorted trace has the events in the order of their
+     * timestamps, the events without timestamp first, and the events with the
+     * same timestamp in the order of the original trace
+     *
+     * @throws TmfTraceException
+     *             If there is a problem while initializing the trace
+     * @throws InterruptedException
+     *             If the sorting job was interrupted
+     * @throws IOException
+     *             If the sorted trace could not be read
+     */
+    @Test
+    public void testSortChunks() throws TmfTraceException, InterruptedException, IOException {
+        ITmfTrace trace = new JsonStubTrace();
+        File sortedFile = sort(trace);
+        List<String> lines = Files.readAllLines(sortedFile.toPath(), StandardCharsets.UTF_8);
+        assertEquals("[", lines.get(0));
+        assertEquals("]", lines.get(lines.size() - 1));
+        List<String> actual = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size() - 1)) {
+            actual.add(line.endsWith(",") ? line.substring(0, line.length() - 1) : line);
+        }
+        List<String> expected = new ArrayList<>(fEvents);
+        expected.sort(Comparator.comparing(SortingJobTest::getTimestamp));
+        assertEquals(expected, actual);
+        assertNotNull(SortedTraceIndex.load(sortedFile, fFile));
+        TmfTraceManager.deleteSupplementaryFiles(trace);
+    }
+
+    /**
+     * Test that the index of the sorted trace is no longer valid once the
+     * middle of the trace is changed, even if its length does not change
+     *
+     * @throws TmfTraceException
+     *             If there is a problem while initializing the trace
+     * @throws InterruptedException
+     *             If the sorting job was interrupted
+     * @throws IOException
+     *             If the trace could not be changed
+     */
+    @Test
+    public void testChangedTrace() throws TmfTraceException, InterruptedException, IOException {
+        ITmfTrace trace = new JsonStubTrace();
+        File sortedFile = sort(trace);
+        assertNotNull(SortedTraceIndex.load(sortedFile, fFile));
+
+        long lastModified = fFile.lastModified();
+        try (RandomAccessFile raf = new RandomAccessFile(fFile, "rw")) { //$NON-NLS-1$
+            long middle = raf.length() / 2;
+            raf.seek(middle);
+            int value = raf.read();
+            raf.seek(middle);
+            raf.write(value == '0' ? '1' : '0');
+        }
+        assertTrue(fFile.setLastModified(lastModified + 2000));
+        assertNull(SortedTraceIndex.load(sortedFile, fFile));
+        TmfTraceManager.deleteSupplementaryFiles(trace);
+    }
+
+    /**
+     * Sort the trace with small chunks and a small memory budget
+     *
+     * @return the sorted file
+     */
+    private File sort(ITmfTrace trace) throws TmfTraceException, InterruptedException {
+        String path = fFile.getPath();
+        trace.initTrace(null, path, ITmfEvent.class);
+        trace.dispose();
+        TmfTraceManager.deleteSupplementaryFiles(trace);
+
+        Job job = new JsonStubTraceSortingJob(trace, path, CHUNK_SIZE, MEMORY_BUDGET);
+        job.schedule();
+        job.join();
+        IStatus result = job.getResult();
+        assertNotNull(result);
+        assertTrue(result.getMessage(), result.isOK());
+        return new File(TmfTraceManager.getSupplementaryFileDir(trace) + fFile.getName());
+    }
+
+    private static BigDecimal getTimestamp(String event) {
+        String key = "\"timestamp\":";
+        int start = event.indexOf(key);
+        if (start < 0) {
+            return BigDecimal.ONE.negate();
+        }
+        int end = event.indexOf(',', start);
+        return new BigDecimal(event.substring(start + key.length(), end).replace("\"", ""));
+    }
+}
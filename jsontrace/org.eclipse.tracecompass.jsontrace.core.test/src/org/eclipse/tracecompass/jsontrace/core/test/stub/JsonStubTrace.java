@@ -9,7 +9,6 @@
 
 package org.eclipse.tracecompass.jsontrace.core.test.stub;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.util.HashSet;
@@ -28,7 +27,6 @@ import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
 import org.eclipse.tracecompass.tmf.core.io.BufferedRandomAccessFile;
 import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
-import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 import org.eclipse.tracecompass.tmf.core.trace.TraceValidationStatus;
 import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
 import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
@@ -51,8 +49,7 @@ public class JsonStubTrace extends JsonTrace {
     public void initTrace(IResource resource, String path, Class<? extends ITmfEvent> type) throws TmfTraceException {
         super.initTrace(resource, path, type);
         fProperties.put("Type", "JSON-Stub"); //$NON-NLS-1$ //$NON-NLS-2$
-        String dir = TmfTraceManager.getSupplementaryFileDir(this);
-        fFile = new File(dir + new File(path).getName());
+        fFile = getSortedFile();
         if (!fFile.exists()) {
             Job sortJob = new JsonStubTraceSortingJob(this, path);
             sortJob.schedule();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Ericsson
+ * Copyright (c) 2018, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License v1.0 which
@@ -33,6 +33,22 @@ public class JsonStubTraceSortingJob extends SortingJob {
         super(trace, path, "\"timestamp\":", 1); //$NON-NLS-1$
     }
 
+    /**
+     * Constructor with the sizes used to split the trace
+     *
+     * @param trace
+     *            Trace to sort
+     * @param path
+     *            Trace path
+     * @param chunkSize
+     *            Number of bytes of events sorted at once
+     * @param memoryBudget
+     *            Maximum number of bytes of events in memory
+     */
+    public JsonStubTraceSortingJob(ITmfTrace trace, String path, int chunkSize, long memoryBudget) {
+        super(trace, path, "\"timestamp\":", 1, chunkSize, memoryBudget); //$NON-NLS-1$
+    }
+
     @Override
     protected void processMetadata(ITmfTrace trace, String dir) throws IOException {
         // No metadata to process
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.jsontrace.core.job;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.eclipse.tracecompass.internal.provisional.jsontrace.core.trace.JsonTrace;
+
+/**
+ * Splits a JSON trace into its events, reading the file by large blocks and
+ * copying the bytes of the events directly into a {@link Traceling}. The
+ * events are delimited the same way as by
+ * {@link JsonTrace#readNextEventString}.
+ */
+class JsonEventSplitter {
+
+    private final InputStream fInput;
+    private final byte[] fBuffer;
+    private int fPos = 0;
+    private int fLimit = 0;
+
+    /**
+     * Constructor
+     *
+     * @param input
+     *            The trace input, positioned at the start of the events
+     * @param bufferSize
+     *            The size of the blocks to read
+     */
+    public JsonEventSplitter(InputStream input, int bufferSize) {
+        fInput = input;
+        fBuffer = new byte[bufferSize];
+    }
+
+    /**
+     * Skip the input up to and including the next occurrence of a character
+     *
+     * @param c
+     *            The character to find
+     * @return false if the end of the input was reached first
+     * @throws IOException
+     *             If the input could not be read
+     */
+    public boolean skipPast(char c) throws IOException {
+        while (fPos < fLimit || fill()) {
+            for (int i = fPos; i < fLimit; i++) {
+                if (fBuffer[i] == c) {
+                    fPos = i + 1;
+                    return true;
+                }
+            }
+            fPos = fLimit;
+        }
+        return false;
+    }
+
+    /**
+     * Append the next event to a traceling
+     *
+     * @param traceling
+     *            The traceling
+     * @return false if there are no more events
+     * @throws IOException
+     *             If the input could not be read
+     */
+    public boolean readNextEvent(Traceling traceling) throws IOException {
+        int scope = -1;
+        int arrScope = 0;
+        boolean inQuotes = false;
+        while (fPos < fLimit || fill()) {
+            byte[] buffer = fBuffer;
+            int limit = fLimit;
+            int eventStart = (scope >= 0) ? fPos : -1;
+            for (int i = fPos; i < limit; i++) {
+                byte b = buffer[i];
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (inQuotes) {
+                    // do nothing
+                } else if (b == '[') {
+                    arrScope++;
+                } else if (b == ']') {
+                    if (arrScope > 0) {
+                        arrScope--;
+                    } else {
+                        fPos = i + 1;
+                        traceling.discardEvent();
+                        return false;
+                    }
+                } else if (b == '{') {
+                    scope++;
+                    if (scope == 0) {
+                        eventStart = i;
+                    }
+                } else if (b == '}') {
+                    if (scope > 0) {
+                        scope--;
+                    } else if (scope == 0) {
+                        traceling.append(buffer, eventStart, i + 1 - eventStart);
+                        traceling.endEvent();
+                        fPos = i + 1;
+                        return true;
+                    }
+                }
+            }
+            if (eventStart >= 0) {
+                traceling.append(buffer, eventStart, limit - eventStart);
+            }
+            fPos = limit;
+        }
+        traceling.discardEvent();
+        return false;
+    }
+
+    private boolean fill() throws IOException {
+        int read = fInput.read(fBuffer);
+        while (read == 0) {
+            read = fInput.read(fBuffer);
+        }
+        fPos = 0;
+        fLimit = Math.max(read, 0);
+        return read > 0;
+    }
+}
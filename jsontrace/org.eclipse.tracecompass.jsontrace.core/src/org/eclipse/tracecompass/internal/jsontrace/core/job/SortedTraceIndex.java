@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.jsontrace.core.job;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Index of a sorted JSON trace, written next to it by the {@link SortingJob}.
+ * It identifies the trace that was sorted by its length, modification time
+ * and a checksum of its ends, so that an unchanged trace is not sorted again, and it holds the offset in the sorted file of one event every
+ * interval events, so that the trace checkpoints can be restored without
+ * reading the whole sorted file.
+ * <p>
+ * The events without a timestamp key are not counted, so the ranks of the
+ * checkpoints are those of the trace only if it parses one event per object
+ * with a timestamp key and skips the others, as required by {@link
+ * org.eclipse.tracecompass.internal.provisional.jsontrace.core.trace.JsonTrace}.
+ */
+public final class SortedTraceIndex {
+
+    private static final String EXTENSION = ".idx"; //$NON-NLS-1$
+    private static final int MAGIC = 0x4A534F4E;
+    private static final int VERSION = 2;
+    /** Number of bytes read at each end of the trace to identify it */
+    private static final int FINGERPRINT_BLOCK_SIZE = 1 << 16;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final int fInterval;
+    private final long fNbEvents;
+    private final long[] fOffsets;
+    private final long fLastOffset;
+
+    private SortedTraceIndex(int interval, long nbEvents, long[] offsets, long lastOffset) {
+        fInterval = interval;
+        fNbEvents = nbEvents;
+        fOffsets = offsets;
+        fLastOffset = lastOffset;
+    }
+
+    /**
+     * Get the index file of a sorted trace
+     *
+     * @param sortedFile
+     *            The sorted trace file
+     * @return The index file
+     */
+    public static File getIndexFile(File sortedFile) {
+        return new File(sortedFile.getPath() + EXTENSION);
+    }
+
+    /**
+     * Load the index of a sorted trace
+     *
+     * @param sortedFile
+     *            The sorted trace file
+     * @param source
+     *            The trace that was sorted
+     * @return The index, or null if there is no index, or if the sorted file
+     *         does not match the trace or is incomplete
+     */
+    public static @Nullable SortedTraceIndex load(File sortedFile, File source) {
+        File indexFile = getIndexFile(sortedFile);
+        if (!sortedFile.isFile() || !indexFile.isFile() || !source.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            if (in.readLong() != source.length() || in.readLong() != source.lastModified()
+                    || in.readLong() != getFingerprint(source) || in.readLong() != sortedFile.length()) {
+                return null;
+            }
+            int interval = in.readInt();
+            long nbEvents = in.readLong();
+            long lastOffset = in.readLong();
+            int nbCheckpoints = in.readInt();
+            if (interval <= 0 || nbCheckpoints < 0) {
+                return null;
+            }
+            long[] offsets = new long[nbCheckpoints];
+            for (int i = 0; i < nbCheckpoints; i++) {
+                offsets[i] = in.readLong();
+            }
+            return new SortedTraceIndex(interval, nbEvents, offsets, lastOffset);
+        } catch (IOException e) {
+            /* Incomplete or unreadable index, sort again */
+            return null;
+        }
+    }
+
+    /**
+     * Get the number of events between two checkpoints
+     *
+     * @return The interval
+     */
+    public int getInterval() {
+        return fInterval;
+    }
+
+    /**
+     * Get the number of events with a timestamp key in the sorted trace
+     *
+     * @return The number of events
+     */
+    public long getNbEvents() {
+        return fNbEvents;
+    }
+
+    /**
+     * Get the number of checkpoints
+     *
+     * @return The number of checkpoints
+     */
+    public int getNbCheckpoints() {
+        return fOffsets.length;
+    }
+
+    /**
+     * Get the offset in the sorted file of the event of a checkpoint, that is
+     * the event of rank <code>checkpoint * interval</code>
+     *
+     * @param checkpoint
+     *            The index of the checkpoint
+     * @return The offset of the first byte of the event
+     */
+    public long getCheckpointOffset(int checkpoint) {
+        return fOffsets[checkpoint];
+    }
+
+    /**
+     * Get the offset in the sorted file of the last event
+     *
+     * @return The offset of the first byte of the event
+     */
+    public long getLastOffset() {
+        return fLastOffset;
+    }
+
+    /**
+     * Checksum of the beginning and of the end of a file. A trace of the same
+     * length and modification time with different ends, like a copy of
+     * another trace, is then not mistaken for the trace that was sorted.
+     */
+    private static long getFingerprint(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[FINGERPRINT_BLOCK_SIZE];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) { //$NON-NLS-1$
+            long length = raf.length();
+            int read = (int) Math.min(length, FINGERPRINT_BLOCK_SIZE);
+            raf.readFully(buffer, 0, read);
+            crc.update(buffer, 0, read);
+            long tail = Math.max(read, length - FINGERPRINT_BLOCK_SIZE);
+            read = (int) (length - tail);
+            raf.seek(tail);
+            raf.readFully(buffer, 0, read);
+            crc.update(buffer, 0, read);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Builder of the index, given the events in the order they are written
+     * to the sorted file
+     */
+    static final class Builder {
+
+        private final int fInterval;
+        private long[] fOffsets = new long[16];
+        private int fNbCheckpoints = 0;
+        private long fNbEvents = 0;
+        private long fLastOffset = -1;
+
+        /**
+         * Constructor
+         *
+         * @param interval
+         *            The number of events between two checkpoints
+         */
+        public Builder(int interval) {
+            fInterval = interval;
+        }
+
+        /**
+         * Add an event of the sorted file. Only the events with a timestamp
+         * key are added, they are the ones the trace parses.
+         *
+         * @param offset
+         *            The offset of the event in the sorted file
+         * @param timestamp
+         *            The timestamp of the event
+         */
+        public void addEvent(long offset, TimestampKey timestamp) {
+            if (timestamp.isMissing()) {
+                return;
+            }
+            if (fNbEvents % fInterval == 0) {
+                if (fNbCheckpoints == fOffsets.length) {
+                    fOffsets = Arrays.copyOf(fOffsets, fNbCheckpoints * 2);
+                }
+                fOffsets[fNbCheckpoints++] = offset;
+            }
+            fNbEvents++;
+            fLastOffset = offset;
+        }
+
+        /**
+         * Write the index of the sorted file, once it is complete
+         *
+         * @param sortedFile
+         *            The sorted trace file
+         * @param source
+         *            The trace that was sorted
+         * @throws IOException
+         *             If the index could not be written
+         */
+        public void write(File sortedFile, File source) throws IOException {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getIndexFile(sortedFile)), BUFFER_SIZE))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(source.length());
+                out.writeLong(source.lastModified());
+                out.writeLong(getFingerprint(source));
+                out.writeLong(sortedFile.length());
+                out.writeInt(fInterval);
+                out.writeLong(fNbEvents);
+                out.writeLong(fLastOffset);
+                out.writeInt(fNbCheckpoints);
+                for (int i = 0; i < fNbCheckpoints; i++) {
+                    out.writeLong(fOffsets[i]);
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Ericsson
+ * Copyright (c) 2018, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License v1.0 which
@@ -9,17 +9,26 @@
 
 package org.eclipse.tracecompass.internal.jsontrace.core.job;
 
-import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.math.BigDecimal;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -29,12 +38,10 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.annotation.NonNull;
-import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils;
 import org.eclipse.tracecompass.internal.jsontrace.core.Activator;
 import org.eclipse.tracecompass.internal.jsontrace.core.Messages;
-import org.eclipse.tracecompass.internal.provisional.jsontrace.core.trace.JsonTrace;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 
@@ -42,65 +49,50 @@ import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
  * On-disk sorting job. It splits a trace into tracelets. Each tracelet is
  * sorted in ram and written to disk, then the tracelets are merged into a big
  * trace.
+ * <p>
+ * The splitting, the sorting and the merging are pipelined: the trace is read
+ * by large blocks and split into chunks of events, which are sorted and
+ * written concurrently by a pool of workers while the next chunks are read.
+ * The chunks waiting to be sorted are bounded by a memory budget, so the
+ * reading waits for the workers when they fall behind.
+ * The tracelets are binary files where each event is preceded by its
+ * timestamp, so they are merged without parsing the events again.
+ * <p>
+ * Once the sorted trace is written, a {@link SortedTraceIndex} is written next
+ * to it, so that the trace is not sorted again as long as it is unchanged.
  *
  * @author Matthew Khouzam
  */
 public abstract class SortingJob extends Job {
 
-    private static final char CLOSE_BRACKET = ']';
-    private static final char OPEN_BRACKET = '[';
     private static final int CHARS_PER_LINE_ESTIMATE = 50;
     private static final @NonNull Logger LOGGER = TraceCompassLog.getLogger(SortingJob.class);
-    private static final int CHUNK_SIZE = 65535;
-
-    private static final Comparator<PartiallyParsedEvent> EVENT_COMPARATOR = Comparator
-            .comparing(PartiallyParsedEvent::getTs);
-
-    private static final class PartiallyParsedEvent {
-        private static final @NonNull BigDecimal MINUS_ONE = BigDecimal.valueOf(-1);
+    /** Number of bytes of events sorted at once */
+    private static final int CHUNK_SIZE = 32 << 20;
+    /**
+     * Maximum number of bytes of events in memory, in the chunks being sorted
+     * and in the one being read
+     */
+    private static final long MEMORY_BUDGET = 256 << 20;
+    private static final int IO_BUFFER_SIZE = 1 << 20;
+    /** Memory used by the input buffers of the merge, for all the tracelets */
+    private static final int MERGE_BUFFER_BUDGET = 64 << 20;
+    private static final int MIN_MERGE_BUFFER_SIZE = 1 << 16;
+    /** Number of events between two progress updates */
+    private static final int PROGRESS_INTERVAL = 1 << 10;
 
-        private final BigDecimal fTs;
-        private String fLine;
-        private final int fPos;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
 
-        public PartiallyParsedEvent(String key, String string, int i) {
-            fLine = string;
-            int indexOf = string.indexOf(key);
-            fPos = i;
-            if (indexOf < 0) {
-                fTs = MINUS_ONE;
-            } else {
-                int index = indexOf + key.length();
-                int end = string.indexOf(',', index);
-                if (end == -1) {
-                    end = string.indexOf('}', index);
-                }
-                BigDecimal ts;
-                String number = string.substring(index, end).trim().replace("\"", "");
-                if (!number.isEmpty()) {
-                    try {
-                        // This may be a bit slow, it can be optimized if need be.
-                        ts = new BigDecimal(number);
-                    } catch (NumberFormatException e) {
-                        // Cannot be parsed as a number, set to -1
-                        ts = MINUS_ONE;
-                    }
-                } else {
-                    ts = MINUS_ONE;
-                }
-                fTs = ts;
-            }
-        }
-
-        public BigDecimal getTs() {
-            return fTs;
-        }
-    }
+    private static final Comparator<Traceling.Reader> READER_COMPARATOR = Comparator
+            .comparing(Traceling.Reader::getTimestamp)
+            .thenComparingInt(Traceling.Reader::getIndex);
 
     private final Integer fBracketsToSkip;
     private final String fTsKey;
     private final String fPath;
     private final ITmfTrace fTrace;
+    private final int fChunkSize;
+    private final long fMemoryBudget;
 
     /**
      * Constructor
@@ -116,11 +108,35 @@ public abstract class SortingJob extends Job {
      *            Number of bracket to skip
      */
     public SortingJob(ITmfTrace trace, String path, String tsKey, int bracketsToSkip) {
+        this(trace, path, tsKey, bracketsToSkip, CHUNK_SIZE, Math.min(MEMORY_BUDGET, Runtime.getRuntime().maxMemory() / 4));
+    }
+
+    /**
+     * Constructor with the sizes used to split the trace, for tests
+     *
+     * @param trace
+     *            Trace to sort
+     * @param path
+     *            Trace path
+     * @param tsKey
+     *            Timestamp key, represent the json object key. The value associated
+     *            to this key is the timestamp that will be use to sort
+     * @param bracketsToSkip
+     *            Number of bracket to skip
+     * @param chunkSize
+     *            Number of bytes of events sorted at once
+     * @param memoryBudget
+     *            Maximum number of bytes of events in memory. At least one
+     *            chunk is sorted while the next one is read.
+     */
+    protected SortingJob(ITmfTrace trace, String path, String tsKey, int bracketsToSkip, int chunkSize, long memoryBudget) {
         super(Messages.SortingJob_description);
         fTrace = trace;
         fPath = path;
         fTsKey = tsKey;
         fBracketsToSkip = bracketsToSkip;
+        fChunkSize = chunkSize;
+        fMemoryBudget = memoryBudget;
     }
 
     /**
@@ -145,95 +161,52 @@ public abstract class SortingJob extends Job {
         File tempDir = new File(dir + ".tmp"); //$NON-NLS-1$
         tempDir.mkdirs();
         List<File> tracelings = new ArrayList<>();
-        try (BufferedInputStream parser = new BufferedInputStream(new FileInputStream(fPath))) {
-            int data = 0;
+        ExecutorService workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try (InputStream input = new FileInputStream(fPath)) {
+            JsonEventSplitter splitter = new JsonEventSplitter(input, IO_BUFFER_SIZE);
             for (int nbBracket = 0; nbBracket < fBracketsToSkip; nbBracket++) {
-                data = parser.read();
-                while (data != '[') {
-                    data = parser.read();
-                    if (data == -1) {
-                        return new Status(IStatus.ERROR, Activator.PLUGIN_ID,
-                                "Missing symbol \'[\' or \']\' in " + fPath); //$NON-NLS-1$
-                    }
+                if (!splitter.skipPast('[')) {
+                    return new Status(IStatus.ERROR, Activator.PLUGIN_ID,
+                            "Missing symbol \'[\' or \']\' in " + fPath); //$NON-NLS-1$
                 }
             }
-            List<PartiallyParsedEvent> events = new ArrayList<>(CHUNK_SIZE);
-            String eventString = JsonTrace.readNextEventString(() -> (char) parser.read());
-            if (eventString == null) {
-                return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Empty event in " + fPath); //$NON-NLS-1$
-            }
-            PartiallyParsedEvent line = new PartiallyParsedEvent(fTsKey, eventString, 0);
-            line.fLine = data + '"' + line.fLine;
-            int cnt = 0;
-            int filen = 0;
-            while (eventString != null) {
-                while (cnt < CHUNK_SIZE) {
-                    events.add(line);
-                    subMonitor.worked(1);
-                    if (subMonitor.isCanceled()) {
-                        return Status.CANCEL_STATUS;
-                    }
-                    eventString = JsonTrace.readNextEventString(() -> (char) parser.read());
-                    if (eventString == null) {
-                        break;
+            byte[] tsKey = fTsKey.getBytes(StandardCharsets.UTF_8);
+            Deque<Future<Integer>> pending = new ArrayDeque<>();
+            long pendingBytes = 0;
+            Traceling traceling = new Traceling();
+            long nbEvents = 0;
+            while (splitter.readNextEvent(traceling)) {
+                nbEvents++;
+                if (traceling.getSize() >= fChunkSize) {
+                    /* Sort the chunk while the next one is read */
+                    pendingBytes += traceling.getSize();
+                    pending.add(submit(workers, traceling, new File(tempDir, "traceling" + tracelings.size()), tsKey, tracelings)); //$NON-NLS-1$
+                    traceling = new Traceling();
+                    while (!pending.isEmpty() && pendingBytes + fChunkSize > fMemoryBudget) {
+                        pendingBytes -= await(pending.removeFirst());
                     }
-                    line = new PartiallyParsedEvent(fTsKey, eventString, 0);
-                    cnt++;
                 }
-                events.sort(EVENT_COMPARATOR);
-                cnt = 0;
-                File traceling = new File(tempDir + File.separator + "test" + filen + ".json"); //$NON-NLS-1$ //$NON-NLS-2$
-                tracelings.add(traceling);
-                boolean success = traceling.createNewFile();
-                if (!success) {
-                    return new Status(IStatus.ERROR, Activator.PLUGIN_ID,
-                            "Could not create partial file " + traceling.getAbsolutePath()); //$NON-NLS-1$
-                }
-                try (PrintWriter fs = new PrintWriter(traceling)) {
-                    fs.println(OPEN_BRACKET);
-                    for (PartiallyParsedEvent sortedEvent : events) {
-                        fs.println(sortedEvent.fLine + ',');
+                if (nbEvents % PROGRESS_INTERVAL == 0) {
+                    subMonitor.worked(PROGRESS_INTERVAL);
+                    if (subMonitor.isCanceled()) {
+                        return Status.CANCEL_STATUS;
                     }
-                    fs.println(CLOSE_BRACKET);
-                }
-                events.clear();
-                filen++;
-                subMonitor.worked(1);
-                if (subMonitor.isCanceled()) {
-                    return Status.CANCEL_STATUS;
                 }
-
             }
-            subMonitor.subTask(Messages.SortingJob_merging);
-            PriorityQueue<PartiallyParsedEvent> evs = new PriorityQueue<>(EVENT_COMPARATOR);
-            List<BufferedInputStream> parsers = new ArrayList<>();
-            int i = 0;
-            for (File traceling : tracelings) {
-
-                /*
-                 * This resource is added to a priority queue and then removed at the very end.
-                 */
-                BufferedInputStream createParser = new BufferedInputStream(new FileInputStream(traceling));
-                while (data != '{') {
-                    data = (char) parser.read();
-                    if (data == (char) -1) {
-                        break;
-                    }
-                }
-                eventString = JsonTrace.readNextEventString(() -> (char) createParser.read());
-                PartiallyParsedEvent parse = new PartiallyParsedEvent(fTsKey, eventString, i);
-                evs.add(parse);
-                i++;
-                parsers.add(createParser);
-                subMonitor.worked(1);
-                if (subMonitor.isCanceled()) {
-                    break;
-                }
+            if (nbEvents == 0) {
+                return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Empty event in " + fPath); //$NON-NLS-1$
+            }
+            if (traceling.getCount() > 0) {
+                pending.add(submit(workers, traceling, new File(tempDir, "traceling" + tracelings.size()), tsKey, tracelings)); //$NON-NLS-1$
+            }
+            while (!pending.isEmpty()) {
+                await(pending.removeFirst());
             }
             if (subMonitor.isCanceled()) {
                 return Status.CANCEL_STATUS;
             }
 
+            subMonitor.subTask(Messages.SortingJob_merging);
             processMetadata(trace, dir);
 
             File file = new File(dir + File.separator + new File(trace.getPath()).getName());
@@ -242,34 +215,29 @@ public abstract class SortingJob extends Job {
                 return new Status(IStatus.ERROR, Activator.PLUGIN_ID,
                         "Could not create file " + file.getAbsolutePath()); //$NON-NLS-1$
             }
-            try (PrintWriter tempWriter = new PrintWriter(file)) {
-                tempWriter.println('[');
-                while (!evs.isEmpty()) {
-                    PartiallyParsedEvent sortedEvent = evs.poll();
-                    PartiallyParsedEvent parse = readNextEvent(parsers.get(sortedEvent.fPos), fTsKey, sortedEvent.fPos);
-                    if (parse != null) {
-                        tempWriter.println(sortedEvent.fLine.trim() + ',');
-                        evs.add(parse);
-                    } else {
-                        tempWriter.println(sortedEvent.fLine.trim() + (evs.isEmpty() ? "" : ',')); //$NON-NLS-1$
-                    }
-                    subMonitor.worked(1);
-                    if (subMonitor.isCanceled()) {
-                        return Status.CANCEL_STATUS;
-                    }
-                }
-                tempWriter.println(']');
-            }
-            for (BufferedInputStream tmpParser : parsers) {
-                tmpParser.close();
+            Files.deleteIfExists(SortedTraceIndex.getIndexFile(file).toPath());
+            SortedTraceIndex.Builder index = new SortedTraceIndex.Builder(trace.getCacheSize());
+            if (!merge(tracelings, file, index, subMonitor)) {
+                return Status.CANCEL_STATUS;
             }
+            index.write(file, new File(fPath));
         } catch (IOException e) {
             TraceCompassLogUtils.traceInstant(LOGGER, Level.WARNING, "IOException in sorting job", "trace", fPath, //$NON-NLS-1$ //$NON-NLS-2$
                     "exception", e); //$NON-NLS-1$
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Status.CANCEL_STATUS;
         } finally {
+            /* Let the workers stop before deleting their files */
+            workers.shutdownNow();
+            try {
+                workers.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
             try {
                 for (File tl : tracelings) {
-                    Files.delete(tl.toPath());
+                    Files.deleteIfExists(tl.toPath());
                 }
                 Files.delete(tempDir.toPath());
             } catch (IOException e) {
@@ -282,6 +250,84 @@ public abstract class SortingJob extends Job {
 
     }
 
+    /**
+     * Sort and write a chunk in a worker
+     *
+     * @return The future number of bytes of events of the chunk
+     */
+    private static Future<Integer> submit(ExecutorService workers, Traceling traceling, File file, byte[] tsKey, List<File> tracelings) {
+        tracelings.add(file);
+        return workers.submit(() -> {
+            traceling.sortAndWrite(file, tsKey, IO_BUFFER_SIZE);
+            return traceling.getSize();
+        });
+    }
+
+    private static int await(Future<Integer> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Merge the sorted tracelets into the sorted trace file, adding its events
+     * to the index as they are written
+     *
+     * @return false if the job was cancelled
+     */
+    private static boolean merge(List<File> tracelings, File file, SortedTraceIndex.Builder index, IProgressMonitor monitor) throws IOException {
+        int bufferSize = Math.max(MIN_MERGE_BUFFER_SIZE, Math.min(IO_BUFFER_SIZE, MERGE_BUFFER_BUDGET / tracelings.size()));
+        List<Traceling.Reader> readers = new ArrayList<>();
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file), IO_BUFFER_SIZE)) {
+            PriorityQueue<Traceling.Reader> evs = new PriorityQueue<>(READER_COMPARATOR);
+            for (File traceling : tracelings) {
+                Traceling.Reader reader = new Traceling.Reader(traceling, readers.size(), bufferSize);
+                readers.add(reader);
+                if (reader.next()) {
+                    evs.add(reader);
+                }
+            }
+            output.write('[');
+            output.write(LINE_SEPARATOR);
+            long offset = 1 + LINE_SEPARATOR.length;
+            long nbEvents = 0;
+            while (!evs.isEmpty()) {
+                Traceling.Reader reader = evs.poll();
+                index.addEvent(offset, reader.getTimestamp());
+                output.write(reader.getEvent(), 0, reader.getLength());
+                offset += reader.getLength() + LINE_SEPARATOR.length;
+                if (reader.next()) {
+                    evs.add(reader);
+                }
+                if (!evs.isEmpty()) {
+                    output.write(',');
+                    offset++;
+                }
+                output.write(LINE_SEPARATOR);
+                nbEvents++;
+                if (nbEvents % PROGRESS_INTERVAL == 0) {
+                    monitor.worked(PROGRESS_INTERVAL);
+                    if (monitor.isCanceled()) {
+                        return false;
+                    }
+                }
+            }
+            output.write(']');
+            output.write(LINE_SEPARATOR);
+        } finally {
+            for (Traceling.Reader reader : readers) {
+                reader.close();
+            }
+        }
+        return true;
+    }
+
     /**
      * Process whatever metadata that can be found after the event list in the trace
      * file file
@@ -293,11 +339,4 @@ public abstract class SortingJob extends Job {
      * @throws IOException
      */
     protected abstract void processMetadata(ITmfTrace trace, String dir) throws IOException;
-
-    private static @Nullable PartiallyParsedEvent readNextEvent(BufferedInputStream parser, String key, int i)
-            throws IOException {
-        String event = JsonTrace.readNextEventString(() -> (char) parser.read());
-        return event == null ? null : new PartiallyParsedEvent(key, event, i);
-
-    }
-}
\ No newline at end of file
+}
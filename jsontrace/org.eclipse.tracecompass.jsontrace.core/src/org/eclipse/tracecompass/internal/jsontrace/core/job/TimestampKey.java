@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.jsontrace.core.job;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The timestamp of an event, by which the events are sorted. Integer
+ * timestamps, the most common ones, are kept as longs, the other ones as
+ * {@link BigDecimal}. Events without a valid timestamp have a timestamp of -1.
+ * Events without a timestamp key at all are ordered the same way, but are
+ * told apart with {@link #isMissing()}.
+ */
+final class TimestampKey implements Comparable<TimestampKey> {
+
+    /** The timestamp of the events without a valid timestamp */
+    static final TimestampKey MINUS_ONE = new TimestampKey(-1, null);
+
+    /** The timestamp of the events without a timestamp key */
+    static final TimestampKey MISSING = new TimestampKey(-1, null);
+
+    /* Types of the serialized timestamps */
+    private static final byte LONG_TYPE = 0;
+    private static final byte BIG_TYPE = 1;
+    private static final byte MISSING_TYPE = 2;
+
+    /** Maximum number of digits of a timestamp parsed as a long */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final long fValue;
+    private final @Nullable BigDecimal fBigValue;
+
+    private TimestampKey(long value, @Nullable BigDecimal bigValue) {
+        fValue = value;
+        fBigValue = bigValue;
+    }
+
+    /**
+     * Extract the timestamp of an event. The value is the text following the
+     * first occurrence of the key, up to the next comma, or closing brace if
+     * there is no comma, without its quotes.
+     *
+     * @param data
+     *            The buffer containing the event
+     * @param offset
+     *            The offset of the event in the buffer
+     * @param length
+     *            The length of the event
+     * @param key
+     *            The timestamp key, with its quotes and colon
+     * @return The timestamp of the event
+     */
+    public static TimestampKey parse(byte[] data, int offset, int length, byte[] key) {
+        int end = offset + length;
+        int index = indexOf(data, offset, end, key);
+        if (index < 0) {
+            return MISSING;
+        }
+        int start = index + key.length;
+        int stop = indexOf(data, start, end, (byte) ',');
+        if (stop < 0) {
+            stop = indexOf(data, start, end, (byte) '}');
+            if (stop < 0) {
+                return MINUS_ONE;
+            }
+        }
+        /* Trim, then remove the quotes */
+        while (start < stop && (data[start] & 0xff) <= ' ') {
+            start++;
+        }
+        while (stop > start && (data[stop - 1] & 0xff) <= ' ') {
+            stop--;
+        }
+        byte[] number = new byte[stop - start];
+        int size = 0;
+        for (int i = start; i < stop; i++) {
+            if (data[i] != '"') {
+                number[size++] = data[i];
+            }
+        }
+        if (size == 0) {
+            return MINUS_ONE;
+        }
+        TimestampKey timestamp = parseLong(number, size);
+        if (timestamp != null) {
+            return timestamp;
+        }
+        try {
+            return new TimestampKey(0, new BigDecimal(new String(number, 0, size, StandardCharsets.ISO_8859_1)));
+        } catch (NumberFormatException e) {
+            /* Cannot be parsed as a number */
+            return MINUS_ONE;
+        }
+    }
+
+    /**
+     * Read a timestamp written by {@link #write(DataOutput)}
+     *
+     * @param in
+     *            The input
+     * @return The timestamp
+     * @throws IOException
+     *             If the timestamp could not be read
+     */
+    public static TimestampKey read(DataInput in) throws IOException {
+        byte type = in.readByte();
+        if (type == MISSING_TYPE) {
+            return MISSING;
+        }
+        if (type == BIG_TYPE) {
+            int scale = in.readInt();
+            byte[] unscaled = new byte[in.readInt()];
+            in.readFully(unscaled);
+            return new TimestampKey(0, new BigDecimal(new BigInteger(unscaled), scale));
+        }
+        return new TimestampKey(in.readLong(), null);
+    }
+
+    /**
+     * Write the timestamp
+     *
+     * @param out
+     *            The output
+     * @throws IOException
+     *             If the timestamp could not be written
+     */
+    public void write(DataOutput out) throws IOException {
+        if (isMissing()) {
+            out.writeByte(MISSING_TYPE);
+            return;
+        }
+        BigDecimal bigValue = fBigValue;
+        out.writeByte(bigValue != null ? BIG_TYPE : LONG_TYPE);
+        if (bigValue != null) {
+            byte[] unscaled = bigValue.unscaledValue().toByteArray();
+            out.writeInt(bigValue.scale());
+            out.writeInt(unscaled.length);
+            out.write(unscaled);
+        } else {
+            out.writeLong(fValue);
+        }
+    }
+
+    /**
+     * Get whether the event has no timestamp key
+     *
+     * @return true if the timestamp key is missing
+     */
+    public boolean isMissing() {
+        return this == MISSING;
+    }
+
+    @Override
+    public int compareTo(TimestampKey other) {
+        if (fBigValue == null && other.fBigValue == null) {
+            return Long.compare(fValue, other.fValue);
+        }
+        return toBigDecimal().compareTo(other.toBigDecimal());
+    }
+
+    private BigDecimal toBigDecimal() {
+        BigDecimal bigValue = fBigValue;
+        return (bigValue != null) ? bigValue : BigDecimal.valueOf(fValue);
+    }
+
+    private static @Nullable TimestampKey parseLong(byte[] number, int size) {
+        boolean negative = number[0] == '-';
+        int start = negative ? 1 : 0;
+        if (size == start || size - start > MAX_LONG_DIGITS) {
+            return null;
+        }
+        long value = 0;
+        for (int i = start; i < size; i++) {
+            int digit = number[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            value = value * 10 + digit;
+        }
+        return new TimestampKey(negative ? -value : value, null);
+    }
+
+    private static int indexOf(byte[] data, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] data, int from, int to, byte[] key) {
+        int last = to - key.length;
+        for (int i = from; i <= last; i++) {
+            int j = 0;
+            while (j < key.length && data[i + j] == key[j]) {
+                j++;
+            }
+            if (j == key.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
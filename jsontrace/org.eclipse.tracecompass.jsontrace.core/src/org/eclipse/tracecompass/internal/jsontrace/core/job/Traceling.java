@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.jsontrace.core.job;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A chunk of the events of a trace, kept as raw bytes. Once full, it is sorted
+ * and written to a binary file, where each event is preceded by its timestamp,
+ * so that the tracelings can be merged without parsing the events again.
+ */
+class Traceling {
+
+    private static final int INITIAL_SIZE = 1 << 16;
+    private static final int INITIAL_COUNT = 1 << 10;
+
+    private static final Comparator<Entry> ENTRY_COMPARATOR = Comparator.comparing(entry -> entry.fTimestamp);
+
+    private byte[] fData = new byte[INITIAL_SIZE];
+    private int fSize = 0;
+    private int fEventStart = 0;
+    private int[] fOffsets = new int[INITIAL_COUNT];
+    private int fCount = 0;
+
+    private static final class Entry {
+        private final TimestampKey fTimestamp;
+        private final int fOffset;
+        private final int fLength;
+
+        public Entry(TimestampKey timestamp, int offset, int length) {
+            fTimestamp = timestamp;
+            fOffset = offset;
+            fLength = length;
+        }
+    }
+
+    /**
+     * Append bytes to the event being read
+     *
+     * @param buffer
+     *            The buffer
+     * @param offset
+     *            The offset of the bytes in the buffer
+     * @param length
+     *            The number of bytes
+     */
+    public void append(byte[] buffer, int offset, int length) {
+        if (fSize + length > fData.length) {
+            fData = Arrays.copyOf(fData, Math.max(fData.length * 2, fSize + length));
+        }
+        System.arraycopy(buffer, offset, fData, fSize, length);
+        fSize += length;
+    }
+
+    /**
+     * End the event being read
+     */
+    public void endEvent() {
+        if (fCount + 1 >= fOffsets.length) {
+            fOffsets = Arrays.copyOf(fOffsets, fOffsets.length * 2);
+        }
+        fOffsets[fCount++] = fEventStart;
+        fOffsets[fCount] = fSize;
+        fEventStart = fSize;
+    }
+
+    /**
+     * Discard the bytes of an event that was not ended
+     */
+    public void discardEvent() {
+        fSize = fEventStart;
+    }
+
+    /**
+     * Get the number of bytes of the events
+     *
+     * @return The size
+     */
+    public int getSize() {
+        return fSize;
+    }
+
+    /**
+     * Get the number of events
+     *
+     * @return The number of events
+     */
+    public int getCount() {
+        return fCount;
+    }
+
+    /**
+     * Sort the events by timestamp, keeping the order of the events with the
+     * same timestamp, and write them to a file
+     *
+     * @param file
+     *            The file to write
+     * @param timestampKey
+     *            The key of the timestamp in the events
+     * @param bufferSize
+     *            The size of the output buffer
+     * @throws IOException
+     *             If the file could not be written
+     */
+    public void sortAndWrite(File file, byte[] timestampKey, int bufferSize) throws IOException {
+        Entry[] entries = new Entry[fCount];
+        for (int i = 0; i < fCount; i++) {
+            int offset = fOffsets[i];
+            int length = fOffsets[i + 1] - offset;
+            entries[i] = new Entry(TimestampKey.parse(fData, offset, length, timestampKey), offset, length);
+        }
+        Arrays.sort(entries, ENTRY_COMPARATOR);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), bufferSize))) {
+            out.writeInt(entries.length);
+            for (Entry entry : entries) {
+                entry.fTimestamp.write(out);
+                out.writeInt(entry.fLength);
+                out.write(fData, entry.fOffset, entry.fLength);
+            }
+        }
+    }
+
+    /**
+     * Reader of the events of a traceling file, in order
+     */
+    static class Reader implements Closeable {
+
+        private final DataInputStream fInput;
+        private final int fIndex;
+        private int fRemaining;
+        private TimestampKey fTimestamp = TimestampKey.MINUS_ONE;
+        private byte[] fEvent = new byte[INITIAL_SIZE];
+        private int fLength = 0;
+
+        /**
+         * Constructor
+         *
+         * @param file
+         *            The traceling file
+         * @param index
+         *            The index of the traceling, to order the events with
+         *            the same timestamp
+         * @param bufferSize
+         *            The size of the input buffer
+         * @throws IOException
+         *             If the file could not be opened
+         */
+        public Reader(File file, int index, int bufferSize) throws IOException {
+            fInput = new DataInputStream(new BufferedInputStream(new FileInputStream(file), bufferSize));
+            fIndex = index;
+            fRemaining = fInput.readInt();
+        }
+
+        /**
+         * Read the next event
+         *
+         * @return false if there are no more events
+         * @throws IOException
+         *             If the event could not be read
+         */
+        public boolean next() throws IOException {
+            if (fRemaining == 0) {
+                return false;
+            }
+            fRemaining--;
+            fTimestamp = TimestampKey.read(fInput);
+            fLength = fInput.readInt();
+            if (fLength > fEvent.length) {
+                fEvent = new byte[Math.max(fLength, fEvent.length * 2)];
+            }
+            fInput.readFully(fEvent, 0, fLength);
+            return true;
+        }
+
+        /**
+         * Get the timestamp of the current event
+         *
+         * @return The timestamp
+         */
+        public TimestampKey getTimestamp() {
+            return fTimestamp;
+        }
+
+        /**
+         * Get the index of the traceling
+         *
+         * @return The index
+         */
+        public int getIndex() {
+            return fIndex;
+        }
+
+        /**
+         * Get the bytes of the current event
+         *
+         * @return The buffer, valid up to {@link #getLength()}
+         */
+        public byte[] getEvent() {
+            return fEvent;
+        }
+
+        /**
+         * Get the length of the current event
+         *
+         * @return The length in bytes
+         */
+        public int getLength() {
+            return fLength;
+        }
+
+        @Override
+        public void close() throws IOException {
+            fInput.close();
+        }
+    }
+}
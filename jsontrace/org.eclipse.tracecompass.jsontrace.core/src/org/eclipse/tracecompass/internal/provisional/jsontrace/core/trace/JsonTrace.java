@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Ericsson
+ * Copyright (c) 2018, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License v1.0 which
@@ -20,19 +20,26 @@ import java.util.Map;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.internal.jsontrace.core.Activator;
+import org.eclipse.tracecompass.internal.jsontrace.core.job.SortedTraceIndex;
 import org.eclipse.tracecompass.tmf.core.project.model.ITmfPropertiesProvider;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTraceKnownSize;
 import org.eclipse.tracecompass.tmf.core.trace.TmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfPersistentlyIndexable;
 import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfTraceIndexer;
-import org.eclipse.tracecompass.tmf.core.trace.indexer.TmfBTreeTraceIndexer;
 import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
 import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
 
 /**
  * Json trace. Can read unsorted or sorted JSON traces.
+ * <p>
+ * The index of a sorted trace is restored from the index written by the
+ * sorting job, which counts the objects that have the timestamp key of the
+ * trace. {@link #parseEvent(ITmfContext)} must therefore return exactly one
+ * event for each of these objects, and skip the objects without a timestamp
+ * key, otherwise the ranks of the restored checkpoints are wrong.
  *
  * @author Katherine Nadeau
  */
@@ -137,9 +144,28 @@ public abstract class JsonTrace extends TmfTrace
         return CHECKPOINT_SIZE;
     }
 
+    /**
+     * Get the sorted copy of the trace, in the supplementary files directory
+     *
+     * @return the sorted trace file
+     */
+    protected File getSortedFile() {
+        return new File(TmfTraceManager.getSupplementaryFileDir(this) + new File(getPath()).getName());
+    }
+
+    /**
+     * Create the indexer. If the sorted copy of the trace was not completely
+     * written, or if the trace was changed since it was sorted, the
+     * supplementary files, which all depend on the sorted copy, are deleted
+     * first, so that the trace is sorted and indexed again.
+     */
     @Override
     protected ITmfTraceIndexer createIndexer(int interval) {
-        return new TmfBTreeTraceIndexer(this, interval);
+        File sortedFile = getSortedFile();
+        if (sortedFile.exists() && SortedTraceIndex.load(sortedFile, new File(getPath())) == null) {
+            TmfTraceManager.deleteSupplementaryFiles(this);
+        }
+        return new JsonTraceIndexer(this, interval);
     }
 
     /**
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.provisional.jsontrace.core.trace;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.jsontrace.core.job.SortedTraceIndex;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.TmfBTreeTraceIndexer;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.ITmfCheckpoint;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.ITmfCheckpointIndex;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.TmfCheckpoint;
+import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
+
+/**
+ * Indexer of a sorted JSON trace. When there is no index yet, the checkpoints
+ * are restored from the {@link SortedTraceIndex} written when the trace was
+ * sorted, reading only the events at the checkpoints, and the index is then
+ * handled as if it had been restored from disk. The ranks of the checkpoints
+ * are only right if the trace follows the contract of
+ * {@link JsonTrace#parseEvent(ITmfContext)}.
+ */
+class JsonTraceIndexer extends TmfBTreeTraceIndexer {
+
+    private final int fInterval;
+
+    /**
+     * Constructor
+     *
+     * @param trace
+     *            The trace to index
+     * @param interval
+     *            The checkpoints interval
+     */
+    public JsonTraceIndexer(JsonTrace trace, int interval) {
+        super(trace, interval);
+        fInterval = interval;
+    }
+
+    @Override
+    protected boolean seedIndex(ITmfCheckpointIndex index) {
+        JsonTrace trace = (JsonTrace) fTrace;
+        File file = trace.fFile;
+        if (file == null) {
+            return false;
+        }
+        SortedTraceIndex sortedIndex = SortedTraceIndex.load(file, new File(trace.getPath()));
+        if (sortedIndex == null || sortedIndex.getInterval() != fInterval || sortedIndex.getNbEvents() == 0) {
+            return false;
+        }
+        List<ITmfCheckpoint> checkpoints = new ArrayList<>();
+        ITmfTimestamp endTime;
+        synchronized (trace) {
+            for (int i = 0; i < sortedIndex.getNbCheckpoints(); i++) {
+                long offset = sortedIndex.getCheckpointOffset(i);
+                ITmfTimestamp timestamp = getTimestamp(trace, offset);
+                if (timestamp == null) {
+                    return false;
+                }
+                checkpoints.add(new TmfCheckpoint(timestamp, new TmfLongLocation(offset), i));
+            }
+            endTime = getTimestamp(trace, sortedIndex.getLastOffset());
+        }
+        if (endTime == null || checkpoints.isEmpty()) {
+            return false;
+        }
+        for (ITmfCheckpoint checkpoint : checkpoints) {
+            index.insert(checkpoint);
+        }
+        index.setTimeRange(new TmfTimeRange(checkpoints.get(0).getTimestamp(), endTime));
+        index.setNbEvents(sortedIndex.getNbEvents());
+        return true;
+    }
+
+    private static @Nullable ITmfTimestamp getTimestamp(JsonTrace trace, long offset) {
+        ITmfContext context = trace.seekEvent(new TmfLongLocation(offset));
+        ITmfEvent event = trace.parseEvent(context);
+        context.dispose();
+        return (event != null) ? event.getTimestamp() : null;
+    }
+}
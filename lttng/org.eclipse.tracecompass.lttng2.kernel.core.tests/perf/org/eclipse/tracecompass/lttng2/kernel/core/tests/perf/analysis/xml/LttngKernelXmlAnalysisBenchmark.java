@@ -45,6 +45,8 @@ public class LttngKernelXmlAnalysisBenchmark extends XmlAnalysisPerfBenchmark {
         return Arrays.asList(new Object[][] {
                 { "syscall with many threads", 25, "syscallSegments.xml", "xml.syscall.cpu.time", FileUtils.toFile(FileLocator.toFileURL(CtfTestTrace.MANY_THREADS.getTraceURL())).getAbsolutePath() },
                 { "syscall with os_events", 10, "syscallSegments.xml", "xml.syscall.cpu.time", CtfBenchmarkTrace.ALL_OS_ANALYSES.getTracePath().toString() },
+                { "wakeup with many threads", 25, "wakeupSegments.xml", "xml.wakeup.latency", FileUtils.toFile(FileLocator.toFileURL(CtfTestTrace.MANY_THREADS.getTraceURL())).getAbsolutePath() },
+                { "wakeup with os_events", 10, "wakeupSegments.xml", "xml.wakeup.latency", CtfBenchmarkTrace.ALL_OS_ANALYSES.getTracePath().toString() },
         });
     }
 
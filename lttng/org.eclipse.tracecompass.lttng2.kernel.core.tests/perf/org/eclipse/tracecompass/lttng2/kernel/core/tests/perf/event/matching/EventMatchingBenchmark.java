@@ -41,6 +41,7 @@ public class EventMatchingBenchmark {
     private static final String TIME = " (time)";
     private static final String MEMORY = " (memory usage)";
     private static final String TEST_SUMMARY = "Event matching";
+    private static final int NB_PARTITIONS = Runtime.getRuntime().availableProcessors();
 
     /**
      * Initialize some data
@@ -60,7 +61,7 @@ public class EventMatchingBenchmark {
         CtfTmfTrace trace2 = CtfTmfTestTraceUtils.getTrace(CtfTestTrace.SYNC_DEST);
 
         Set<@NonNull ITmfTrace> traces = ImmutableSet.of(trace1, trace2);
-        runCpuTest(traces, "Match TCP events", 100);
+        runCpuTest(traces, "Match TCP events", 100, 1);
 
         trace1.dispose();
         trace2.dispose();
@@ -77,7 +78,8 @@ public class EventMatchingBenchmark {
         CtfTmfTrace trace3 = CtfTmfTestTraceUtils.getTrace(CtfTestTrace.DJANGO_HTTPD);
 
         Set<@NonNull ITmfTrace> traces = ImmutableSet.of(trace1, trace2, trace3);
-        runCpuTest(traces, "Django traces", 10);
+        runCpuTest(traces, "Django traces", 10, 1);
+        runCpuTest(traces, "Django traces (partitioned)", 10, NB_PARTITIONS);
         runMemoryTest(traces, "Django traces", 10);
 
         trace1.dispose();
@@ -85,13 +87,14 @@ public class EventMatchingBenchmark {
         trace3.dispose();
     }
 
-    private static void runCpuTest(Set<@NonNull ITmfTrace> testTraces, String testName, int loop_count) {
+    private static void runCpuTest(Set<@NonNull ITmfTrace> testTraces, String testName, int loop_count, int nbPartitions) {
         Performance perf = Performance.getDefault();
         PerformanceMeter pm = perf.createPerformanceMeter(TEST_ID + testName + TIME);
         perf.tagAsSummary(pm, TEST_SUMMARY + ':' + testName + TIME, Dimension.CPU_TIME);
 
         for (int i = 0; i < loop_count; i++) {
             TmfEventMatching traceMatch = new TmfEventMatching(testTraces);
+            traceMatch.setNbPartitions(nbPartitions);
 
             pm.start();
             traceMatch.matchEvents();
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.lttng2.ust.core.tests.analysis.debuginfo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.tracecompass.internal.lttng2.ust.core.analysis.debuginfo.FileOffsetMapper;
+import org.eclipse.tracecompass.internal.lttng2.ust.core.analysis.debuginfo.FileOffsetMapper.Addr2lineInfo;
+import org.eclipse.tracecompass.internal.lttng2.ust.core.analysis.debuginfo.FileOffsetMapper.ResolvedOffsets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link FileOffsetMapper} parsing of the 'addr2line' output and
+ * its saved offsets
+ */
+public class FileOffsetMapperTest {
+
+    /**
+     * Output of 'addr2line -a -i -f' for an inlined function, an offset that
+     * cannot be resolved and a function without line number
+     */
+    private static final List<String> OUTPUT = Arrays.asList(
+            "0x0000000000001234",
+            "inner",
+            "/src/a.c:10",
+            "outer",
+            "/src/a.c:20 (discriminator 3)",
+            "0x0000000000005678",
+            "??",
+            "??:0",
+            "0x00000000000000ff",
+            "main",
+            "/src/main.c:?");
+
+    private File fFile;
+
+    /**
+     * Create the file of the saved offsets
+     *
+     * @throws IOException
+     *             If the file cannot be created
+     */
+    @Before
+    public void setup() throws IOException {
+        File file = File.createTempFile("offsets", ".addr2line");
+        Files.delete(file.toPath());
+        fFile = file;
+    }
+
+    /**
+     * Delete the file of the saved offsets
+     *
+     * @throws IOException
+     *             If the file cannot be deleted
+     */
+    @After
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(fFile.toPath());
+    }
+
+    /**
+     * Test parsing the output of 'addr2line'
+     */
+    @Test
+    public void testParseOutput() {
+        Map<Long, List<Addr2lineInfo>> infos = FileOffsetMapper.parseAddr2lineOutput(OUTPUT);
+        assertEquals(3, infos.size());
+
+        List<Addr2lineInfo> inlined = infos.get(0x1234L);
+        assertNotNull(inlined);
+        assertEquals(2, inlined.size());
+        assertInfo(inlined.get(0), "inner", "/src/a.c", 10L);
+        assertInfo(inlined.get(1), "outer", "/src/a.c", 20L);
+
+        List<Addr2lineInfo> unknown = infos.get(0x5678L);
+        assertNotNull(unknown);
+        assertEquals(1, unknown.size());
+        assertInfo(unknown.get(0), null, null, 0L);
+
+        List<Addr2lineInfo> noLine = infos.get(0xffL);
+        assertNotNull(noLine);
+        assertInfo(noLine.get(0), "main", "/src/main.c", null);
+
+        /* Nothing before the first address is a callsite */
+        assertTrue(FileOffsetMapper.parseAddr2lineOutput(Collections.singletonList("main")).isEmpty());
+    }
+
+    /**
+     * Test that the resolved offsets are read back from the saved file, and
+     * that the offsets that could not be resolved are not saved
+     *
+     * @throws IOException
+     *             If the file cannot be read
+     */
+    @Test
+    public void testSavedOffsets() throws IOException {
+        Map<Long, List<Addr2lineInfo>> infos = FileOffsetMapper.parseAddr2lineOutput(OUTPUT);
+        ResolvedOffsets offsets = new ResolvedOffsets(fFile);
+        offsets.addAll(infos);
+        assertNotNull(offsets.get(0x1234L));
+        assertNull(offsets.get(0x5678L));
+
+        ResolvedOffsets saved = new ResolvedOffsets(fFile);
+        List<Addr2lineInfo> inlined = saved.get(0x1234L);
+        assertNotNull(inlined);
+        assertEquals(2, inlined.size());
+        assertInfo(inlined.get(0), "inner", "/src/a.c", 10L);
+        assertInfo(inlined.get(1), "outer", "/src/a.c", 20L);
+        List<Addr2lineInfo> noLine = saved.get(0xffL);
+        assertNotNull(noLine);
+        assertInfo(noLine.get(0), "main", "/src/main.c", null);
+        assertNull(saved.get(0x5678L));
+
+        /* Offsets resolved later are appended */
+        saved.addAll(FileOffsetMapper.parseAddr2lineOutput(Arrays.asList("0x10", "later", "/src/b.c:5")));
+        ResolvedOffsets appended = new ResolvedOffsets(fFile);
+        assertNotNull(appended.get(0x1234L));
+        List<Addr2lineInfo> later = appended.get(0x10L);
+        assertNotNull(later);
+        assertInfo(later.get(0), "later", "/src/b.c", 5L);
+    }
+
+    /**
+     * Test that a file without the current version is replaced when offsets
+     * are saved
+     *
+     * @throws IOException
+     *             If the file cannot be written or read
+     */
+    @Test
+    public void testUnversionedFile() throws IOException {
+        Files.write(fFile.toPath(), Arrays.asList("1234\told\t/src/old.c\t1", "5678"), StandardCharsets.UTF_8);
+        ResolvedOffsets offsets = new ResolvedOffsets(fFile);
+        assertNull(offsets.get(0x1234L));
+        assertNull(offsets.get(0x5678L));
+
+        offsets.addAll(FileOffsetMapper.parseAddr2lineOutput(OUTPUT));
+        List<String> lines = Files.readAllLines(fFile.toPath(), StandardCharsets.UTF_8);
+        assertFalse(lines.get(0).startsWith("1234"));
+        assertTrue(lines.stream().noneMatch(line -> line.contains("old")));
+        List<Addr2lineInfo> inlined = new ResolvedOffsets(fFile).get(0x1234L);
+        assertNotNull(inlined);
+        assertInfo(inlined.get(0), "inner", "/src/a.c", 10L);
+    }
+
+    private static void assertInfo(Addr2lineInfo info, String functionName, String fileName, Long lineNumber) {
+        assertEquals(functionName, info.getFunctionName());
+        assertEquals(fileName, info.getSourceFileName());
+        assertEquals(lineNumber, info.getSourceLineNumber());
+    }
+}
@@ -11,15 +11,31 @@ package org.eclipse.tracecompass.internal.lttng2.ust.core.analysis.debuginfo;
 
 import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.eclipse.jdt.annotation.NonNull;
@@ -27,9 +43,10 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils.ScopeLog;
-import org.eclipse.tracecompass.common.core.process.ProcessUtils;
+import org.eclipse.tracecompass.internal.lttng2.ust.core.Activator;
 import org.eclipse.tracecompass.tmf.core.event.lookup.TmfCallsite;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -49,6 +66,14 @@ public final class FileOffsetMapper {
     private static final String ADDR2LINE_EXECUTABLE = "addr2line"; //$NON-NLS-1$
 
     private static final long CACHE_SIZE = 1000;
+    private static final long BINARY_CACHE_SIZE = 32;
+
+    /** Address printed by addr2line before the information of each offset */
+    private static final Pattern ADDRESS_LINE = Pattern.compile("0x([0-9a-fA-F]+)"); //$NON-NLS-1$
+    private static final Pattern BUILD_ID = Pattern.compile("[0-9a-fA-F]+"); //$NON-NLS-1$
+    private static final String RESOLVED_OFFSETS_DIRECTORY = "addr2line"; //$NON-NLS-1$
+    private static final String RESOLVED_OFFSETS_EXTENSION = ".addr2line"; //$NON-NLS-1$
+    private static final String SEPARATOR = "\t"; //$NON-NLS-1$
 
     private FileOffsetMapper() {}
 
@@ -160,6 +185,33 @@ public final class FileOffsetMapper {
         return info.fFunctionName;
     }
 
+    /**
+     * Get the function/symbol names corresponding to many offsets of a binary
+     * file. The offsets that were not resolved before are resolved together,
+     * with a single call to the external tool.
+     *
+     * @param file
+     *            The binary file to look at
+     * @param buildId
+     *            The expected buildId of the binary file (is not verified at
+     *            the moment)
+     * @param offsets
+     *            The memory offsets in the file
+     * @return The function/symbol names found, by offset
+     */
+    public static Map<Long, String> getFunctionNamesFromOffsets(File file, @Nullable String buildId, Collection<Long> offsets) {
+        Map<Long, String> names = new HashMap<>();
+        getAddr2lineInfos(file, buildId, offsets).forEach((offset, output) -> {
+            if (!Iterables.isEmpty(output)) {
+                String functionName = Iterables.getLast(output).fFunctionName;
+                if (functionName != null) {
+                    names.put(offset, functionName);
+                }
+            }
+        });
+        return names;
+    }
+
     // ------------------------------------------------------------------------
     // Utility methods making use of 'addr2line'
     // ------------------------------------------------------------------------
@@ -178,6 +230,13 @@ public final class FileOffsetMapper {
      * symbols in a file on disk are independent from the trace referring to it.
      */
     private static final LoadingCache<FileOffset, @NonNull Iterable<Addr2lineInfo>> ADDR2LINE_INFO_CACHE;
+
+    /**
+     * Offsets resolved by 'addr2line' for each build ID, saved in the plug-in
+     * state location so that binaries are not resolved again the next time
+     * they are looked at, by any trace.
+     */
+    private static final LoadingCache<String, ResolvedOffsets> RESOLVED_OFFSETS_CACHE;
     static {
         ADDR2LINE_INFO_CACHE = checkNotNull(CacheBuilder.newBuilder()
                 .maximumSize(CACHE_SIZE)
@@ -188,24 +247,57 @@ public final class FileOffsetMapper {
                                 "File", fo.fFilePath,  //$NON-NLS-1$
                                 "Offset", fo.fOffset, //$NON-NLS-1$
                                 "Build id", fo.fBuildId)) { //$NON-NLS-1$
-                            return callAddr2line(fo);
+                            return resolveOffset(fo);
                         }
                     }
                 }));
+        RESOLVED_OFFSETS_CACHE = checkNotNull(CacheBuilder.newBuilder()
+                .maximumSize(BINARY_CACHE_SIZE)
+                .build(new CacheLoader<String, ResolvedOffsets>() {
+                    @Override
+                    public ResolvedOffsets load(String buildId) {
+                        return new ResolvedOffsets(getResolvedOffsetsFile(buildId));
+                    }
+                }));
     }
 
-    private static class Addr2lineInfo {
+    /**
+     * The information printed by 'addr2line' for a callsite of an offset
+     */
+    @VisibleForTesting
+    public static final class Addr2lineInfo {
 
         private final @Nullable String fSourceFileName;
         private final @Nullable Long fSourceLineNumber;
         private final @Nullable String fFunctionName;
 
-        public Addr2lineInfo(@Nullable String sourceFileName,  @Nullable String functionName, @Nullable Long sourceLineNumber) {
+        private Addr2lineInfo(@Nullable String sourceFileName, @Nullable String functionName, @Nullable Long sourceLineNumber) {
             fSourceFileName = sourceFileName;
             fSourceLineNumber = sourceLineNumber;
             fFunctionName = functionName;
         }
 
+        /**
+         * @return The source file name, null if unknown
+         */
+        public @Nullable String getSourceFileName() {
+            return fSourceFileName;
+        }
+
+        /**
+         * @return The source line number, null if unknown
+         */
+        public @Nullable Long getSourceLineNumber() {
+            return fSourceLineNumber;
+        }
+
+        /**
+         * @return The function name, null if unknown
+         */
+        public @Nullable String getFunctionName() {
+            return fFunctionName;
+        }
+
         @Override
         public String toString() {
             return new ToStringBuilder(this)
@@ -239,41 +331,171 @@ public final class FileOffsetMapper {
         }
     }
 
-    private static Iterable<Addr2lineInfo> callAddr2line(FileOffset fo) {
-        String filePath = fo.fFilePath;
-        long offset = fo.fOffset;
+    private static Map<Long, Iterable<Addr2lineInfo>> getAddr2lineInfos(File file, @Nullable String buildId, Collection<Long> offsets) {
+        try (ScopeLog sl = new TraceCompassLogUtils.ScopeLog(LOGGER, Level.FINER, "FileOffsetMapper:Addr2lineInfos", //$NON-NLS-1$
+                "File", file,  //$NON-NLS-1$
+                "Offsets", offsets.size(), //$NON-NLS-1$
+                "Build id", buildId)) { //$NON-NLS-1$
 
-        List<Addr2lineInfo> callsites = new LinkedList<>();
+            Map<Long, Iterable<Addr2lineInfo>> infos = new HashMap<>();
+            if (!Files.exists((file.toPath()))) {
+                sl.addData("file not found", file.toPath()); //$NON-NLS-1$
+                return infos;
+            }
+            String filePath = checkNotNull(file.toString());
+            ResolvedOffsets resolvedOffsets = getResolvedOffsets(buildId);
+            SortedSet<Long> missing = new TreeSet<>(Long::compareUnsigned);
+            for (Long offset : offsets) {
+                Iterable<Addr2lineInfo> info = ADDR2LINE_INFO_CACHE.getIfPresent(new FileOffset(filePath, buildId, offset));
+                if (info == null && resolvedOffsets != null) {
+                    info = resolvedOffsets.get(offset);
+                }
+                if (info != null) {
+                    infos.put(offset, info);
+                } else {
+                    missing.add(offset);
+                }
+            }
+            if (!missing.isEmpty()) {
+                Map<Long, List<Addr2lineInfo>> resolved = callAddr2line(filePath, missing);
+                if (resolvedOffsets != null) {
+                    resolvedOffsets.addAll(resolved);
+                }
+                /* The offsets that cannot be resolved are only known in memory */
+                resolved.forEach((offset, info) -> ADDR2LINE_INFO_CACHE.put(new FileOffset(filePath, buildId, offset), info));
+                infos.putAll(resolved);
+            }
+            sl.addData("resolved", missing.size()); //$NON-NLS-1$
+            return infos;
+        }
+    }
+
+    private static Iterable<Addr2lineInfo> resolveOffset(FileOffset fo) {
+        ResolvedOffsets resolvedOffsets = getResolvedOffsets(fo.fBuildId);
+        if (resolvedOffsets != null) {
+            Iterable<Addr2lineInfo> info = resolvedOffsets.get(fo.fOffset);
+            if (info != null) {
+                return info;
+            }
+        }
+        Map<Long, List<Addr2lineInfo>> resolved = callAddr2line(fo.fFilePath, Collections.singleton(fo.fOffset));
+        if (resolvedOffsets != null) {
+            resolvedOffsets.addAll(resolved);
+        }
+        List<Addr2lineInfo> info = resolved.get(fo.fOffset);
+        return (info != null) ? info : Collections.emptySet();
+    }
 
+    /**
+     * Call 'addr2line' once for many offsets of a file. The offsets are passed
+     * on the standard input and the '-a' flag prints each of them before its
+     * information.
+     *
+     * @return The information of each offset, or an empty map if the command
+     *         failed
+     */
+    private static Map<Long, List<Addr2lineInfo>> callAddr2line(String filePath, Collection<Long> offsets) {
         // FIXME Could eventually use CDT's Addr2line class once it implements --inlines
-        List<String> command = Arrays.asList(ADDR2LINE_EXECUTABLE, "-i", "-f", "-C", "-e", filePath, "0x" + Long.toHexString(offset)); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
-        List<String> output = ProcessUtils.getOutputFromCommand(command);
+        List<String> command = Arrays.asList(ADDR2LINE_EXECUTABLE, "-a", "-i", "-f", "-C", "-e", filePath); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+        List<String> output = new ArrayList<>();
+        Path input = null;
+        Path errors = null;
+        try {
+            input = Files.createTempFile(RESOLVED_OFFSETS_DIRECTORY, null);
+            try (Writer writer = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+                for (Long offset : offsets) {
+                    writer.write("0x" + Long.toHexString(offset) + '\n'); //$NON-NLS-1$
+                }
+            }
+            /*
+             * The error messages go to their own file, if they were mixed with
+             * the output, they would break the pairs of function and location
+             * lines
+             */
+            errors = Files.createTempFile(RESOLVED_OFFSETS_DIRECTORY, null);
+            ProcessBuilder builder = new ProcessBuilder(command);
+            builder.redirectInput(input.toFile());
+            builder.redirectError(errors.toFile());
+            Process p = builder.start();
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+                String line = br.readLine();
+                while (line != null) {
+                    output.add(line);
+                    line = br.readLine();
+                }
+            }
+            if (p.waitFor() != 0) {
+                /* Command returned an error */
+                TraceCompassLogUtils.traceInstant(LOGGER, Level.FINE, "FileOffsetMapper:Addr2lineError", //$NON-NLS-1$
+                        "File", filePath, //$NON-NLS-1$
+                        "Error", Files.readAllLines(errors, StandardCharsets.UTF_8)); //$NON-NLS-1$
+                return Collections.emptyMap();
+            }
+        } catch (IOException e) {
+            return Collections.emptyMap();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyMap();
+        } finally {
+            deleteTempFile(input);
+            deleteTempFile(errors);
+        }
+        return parseAddr2lineOutput(output);
+    }
 
-        if (output == null) {
-            /* Command returned an error */
-            return Collections.emptySet();
+    private static void deleteTempFile(@Nullable Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // Temporary file, ignore
+            }
         }
+    }
 
+    /**
+     * Parse the output of 'addr2line' called with the '-a', '-i' and '-f'
+     * flags: each address is followed by pairs of function and location lines,
+     * one pair for each inlined function.
+     *
+     * @param output
+     *            The lines of the standard output of 'addr2line'
+     * @return The callsites of each address, in the order of the output
+     */
+    @VisibleForTesting
+    public static Map<Long, List<Addr2lineInfo>> parseAddr2lineOutput(List<String> output) {
+        Map<Long, List<Addr2lineInfo>> callsites = new HashMap<>();
+        List<Addr2lineInfo> currentCallsites = null;
         /*
-         * When passing the -f flag, the output alternates between function
-         * names and file/line location.
+         * When passing the -a and -f flags, the address is followed by lines
+         * alternating between function names and file/line location, one pair
+         * for each inlined function.
          */
-        boolean oddLine = false; // We flip at the start, first loop will be odd
+        boolean functionLine = true;
         String currentFunctionName = null;
-        for (String outputLine : output) {
-            /* Flip the boolean for the following line */
-            oddLine = !oddLine;
-
+        for (String line : output) {
             // Remove discriminator part, for example: /build/buildd/glibc-2.21/elf/dl-object.c:78 (discriminator 8)
-            outputLine = outputLine.replaceFirst(DISCRIMINATOR, "").trim(); //$NON-NLS-1$
-
-            if (oddLine) {
+            String outputLine = line.replaceFirst(DISCRIMINATOR, "").trim(); //$NON-NLS-1$
+
+            if (functionLine) {
+                Matcher matcher = ADDRESS_LINE.matcher(outputLine);
+                if (matcher.matches()) {
+                    /* This is the address of the next offset */
+                    currentCallsites = new ArrayList<>();
+                    callsites.put(Long.parseUnsignedLong(matcher.group(1), 16), currentCallsites);
+                    continue;
+                }
+                if (currentCallsites == null) {
+                    /* Error messages before the first address */
+                    continue;
+                }
                 /* This is a line indicating the function name */
                 if (outputLine.equals(UNKNOWN_VALUE)) {
                     currentFunctionName = null;
                 } else {
                     currentFunctionName = outputLine;
                 }
+                functionLine = false;
             } else {
                 /* This is a line indicating a call site */
                 String[] elems = outputLine.split(":"); //$NON-NLS-1$
@@ -283,15 +505,178 @@ public final class FileOffsetMapper {
                 }
                 Long lineNumber;
                 try {
-                    lineNumber = Long.valueOf(elems[1]);
+                    lineNumber = (elems.length > 1) ? Long.valueOf(elems[1]) : null;
                 } catch (NumberFormatException e) {
                     /* Probably a '?' output, meaning unknown line number. */
                     lineNumber = null;
                 }
-                callsites.add(new Addr2lineInfo(fileName, currentFunctionName, lineNumber));
+                Objects.requireNonNull(currentCallsites).add(new Addr2lineInfo(fileName, currentFunctionName, lineNumber));
+                functionLine = true;
             }
         }
-
         return callsites;
     }
+
+    // ------------------------------------------------------------------------
+    // Offsets resolved in previous sessions
+    // ------------------------------------------------------------------------
+
+    private static @Nullable ResolvedOffsets getResolvedOffsets(@Nullable String buildId) {
+        if (buildId == null || !BUILD_ID.matcher(buildId).matches() || getResolvedOffsetsDirectory() == null) {
+            return null;
+        }
+        return RESOLVED_OFFSETS_CACHE.getUnchecked(buildId);
+    }
+
+    private static @Nullable File getResolvedOffsetsDirectory() {
+        Activator activator = Activator.getDefault();
+        if (activator == null) {
+            return null;
+        }
+        try {
+            return activator.getStateLocation().append(RESOLVED_OFFSETS_DIRECTORY).toFile();
+        } catch (IllegalStateException e) {
+            /* No state location, do not save the resolved offsets */
+            return null;
+        }
+    }
+
+    private static File getResolvedOffsetsFile(String buildId) {
+        return new File(getResolvedOffsetsDirectory(), buildId + RESOLVED_OFFSETS_EXTENSION);
+    }
+
+    /**
+     * The offsets of a binary resolved by 'addr2line', backed by a file. The
+     * first line of the file is its version, then each line is a callsite:
+     * the offset, the function name, the source file and the line number,
+     * separated by tabs. The offsets that 'addr2line' could not resolve are
+     * not saved, they may be resolved later, for instance once the debug
+     * information of the binary is found. A file of another version is
+     * replaced.
+     */
+    @VisibleForTesting
+    public static final class ResolvedOffsets {
+
+        private static final String VERSION = "#addr2line offsets 1"; //$NON-NLS-1$
+
+        private final File fFile;
+        private final Map<Long, List<Addr2lineInfo>> fOffsets = new HashMap<>();
+        /* Whether the file has the current version, new callsites are appended to it */
+        private boolean fVersioned = false;
+
+        /**
+         * Constructor, reads the offsets saved in a file
+         *
+         * @param file
+         *            The file of the resolved offsets, it may not exist
+         */
+        public ResolvedOffsets(File file) {
+            fFile = file;
+            if (!file.exists()) {
+                return;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line = reader.readLine();
+                if (!VERSION.equals(line)) {
+                    /* Unknown version, the file is rewritten on the next save */
+                    return;
+                }
+                fVersioned = true;
+                line = reader.readLine();
+                while (line != null) {
+                    readLine(line);
+                    line = reader.readLine();
+                }
+            } catch (IOException | RuntimeException e) {
+                Activator.getDefault().logWarning("Error reading the resolved offsets file " + file, e); //$NON-NLS-1$
+            }
+        }
+
+        private void readLine(String line) {
+            String[] elems = line.split(SEPARATOR, -1);
+            if (elems.length == 4) {
+                List<Addr2lineInfo> infos = fOffsets.computeIfAbsent(Long.parseUnsignedLong(elems[0], 16), offset -> new ArrayList<>());
+                infos.add(new Addr2lineInfo(nullIfUnknown(elems[2]), nullIfUnknown(elems[1]),
+                        elems[3].isEmpty() ? null : Long.valueOf(elems[3])));
+            }
+        }
+
+        /* Whether 'addr2line' found a function or a source file for an offset */
+        private static boolean isResolved(List<Addr2lineInfo> infos) {
+            return infos.stream().anyMatch(info -> info.fFunctionName != null || info.fSourceFileName != null);
+        }
+
+        private static @Nullable String nullIfUnknown(String value) {
+            return value.equals(UNKNOWN_VALUE) ? null : value;
+        }
+
+        /**
+         * Get the callsites of a resolved offset
+         *
+         * @param offset
+         *            The offset
+         * @return The callsites of the offset, null if it was not resolved
+         */
+        public synchronized @Nullable List<Addr2lineInfo> get(long offset) {
+            return fOffsets.get(offset);
+        }
+
+        /**
+         * Add and save the offsets resolved by 'addr2line'. The offsets that
+         * could not be resolved are ignored.
+         *
+         * @param offsets
+         *            The callsites of each offset
+         */
+        public synchronized void addAll(Map<Long, List<Addr2lineInfo>> offsets) {
+            Map<Long, List<Addr2lineInfo>> resolved = new HashMap<>();
+            offsets.forEach((offset, infos) -> {
+                if (isResolved(infos)) {
+                    resolved.put(offset, infos);
+                }
+            });
+            if (resolved.isEmpty()) {
+                return;
+            }
+            fOffsets.putAll(resolved);
+            /* The files of all the instances are written one at a time */
+            synchronized (ResolvedOffsets.class) {
+                try {
+                    Files.createDirectories(fFile.toPath().getParent());
+                    OpenOption mode = fVersioned ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+                    try (BufferedWriter writer = Files.newBufferedWriter(fFile.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+                        if (!fVersioned) {
+                            /* Write the offsets known so far after the version */
+                            writer.write(VERSION);
+                            writer.newLine();
+                            for (Map.Entry<Long, List<Addr2lineInfo>> entry : fOffsets.entrySet()) {
+                                writeOffset(writer, entry.getKey(), entry.getValue());
+                            }
+                            fVersioned = true;
+                        } else {
+                            for (Map.Entry<Long, List<Addr2lineInfo>> entry : resolved.entrySet()) {
+                                writeOffset(writer, entry.getKey(), entry.getValue());
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    Activator.getDefault().logWarning("Error writing the resolved offsets file " + fFile, e); //$NON-NLS-1$
+                }
+            }
+        }
+
+        private static void writeOffset(BufferedWriter writer, long offset, List<Addr2lineInfo> infos) throws IOException {
+            String hexOffset = Long.toHexString(offset);
+            for (Addr2lineInfo info : infos) {
+                String functionName = info.fFunctionName;
+                String sourceFileName = info.fSourceFileName;
+                Long sourceLineNumber = info.fSourceLineNumber;
+                writer.write(hexOffset + '\t'
+                        + (functionName == null ? UNKNOWN_VALUE : functionName) + '\t'
+                        + (sourceFileName == null ? UNKNOWN_VALUE : sourceFileName) + '\t'
+                        + (sourceLineNumber == null ? "" : sourceLineNumber.toString())); //$NON-NLS-1$
+                writer.newLine();
+            }
+        }
+    }
 }
@@ -12,11 +12,21 @@ package org.eclipse.tracecompass.lttng2.ust.core.analysis.debuginfo;
 import static org.eclipse.tracecompass.common.core.NonNullUtils.nullToEmptyString;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.internal.lttng2.ust.core.analysis.debuginfo.FileOffsetMapper;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.event.aspect.ITmfEventAspect;
+import org.eclipse.tracecompass.tmf.core.util.Pair;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 
 /**
  * Aspect for the function location obtained with the UST debug info.
@@ -75,4 +85,38 @@ public class UstDebugInfoFunctionAspect implements ITmfEventAspect<FunctionLocat
         return new FunctionLocation(functionName, null);
     }
 
+    /**
+     * Get the function locations of many binary callsites at once. The
+     * offsets of each binary file are resolved together, which is much faster
+     * than resolving them one at a time.
+     *
+     * @param callsites
+     *            The binary callsites, representing binaries and offsets
+     *            within these binaries
+     * @return The corresponding function locations, in the order of the
+     *         callsites, <code>null</code> for the callsites that cannot be
+     *         resolved
+     * @since 4.1
+     */
+    public static List<@Nullable FunctionLocation> getFunctionsFromBinaryLocations(List<BinaryCallsite> callsites) {
+        /* Group the offsets by binary file */
+        ListMultimap<Pair<String, @Nullable String>, Long> offsets = ArrayListMultimap.create();
+        for (BinaryCallsite bc : callsites) {
+            offsets.put(new Pair<>(bc.getBinaryFilePath(), bc.getBuildId()), bc.getOffset());
+        }
+        Map<Pair<String, @Nullable String>, Map<Long, String>> functionNames = new HashMap<>();
+        for (Map.Entry<Pair<String, @Nullable String>, Collection<Long>> entry : offsets.asMap().entrySet()) {
+            Pair<String, @Nullable String> binary = entry.getKey();
+            functionNames.put(binary, FileOffsetMapper.getFunctionNamesFromOffsets(new File(binary.getFirst()), binary.getSecond(), entry.getValue()));
+        }
+
+        List<@Nullable FunctionLocation> locations = new ArrayList<>(callsites.size());
+        for (BinaryCallsite bc : callsites) {
+            Map<Long, String> names = Objects.requireNonNull(functionNames.get(new Pair<>(bc.getBinaryFilePath(), bc.getBuildId())));
+            String functionName = names.get(bc.getOffset());
+            locations.add(functionName == null ? null : new FunctionLocation(functionName, null));
+        }
+        return locations;
+    }
+
 }
@@ -21,9 +21,16 @@ import org.eclipse.tracecompass.lttng2.ust.core.analysis.debuginfo.UstDebugInfoA
 import org.eclipse.tracecompass.lttng2.ust.core.analysis.debuginfo.UstDebugInfoBinaryAspect;
 import org.eclipse.tracecompass.lttng2.ust.core.analysis.debuginfo.UstDebugInfoFunctionAspect;
 import org.eclipse.tracecompass.lttng2.ust.core.trace.LttngUstTrace;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
 import org.eclipse.tracecompass.tmf.core.symbols.DefaultSymbolProvider;
 import org.eclipse.tracecompass.tmf.core.symbols.SymbolProviderManager;
 import org.eclipse.tracecompass.tmf.core.symbols.TmfResolvedSymbol;
+import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceUtils;
 import org.eclipse.tracecompass.tmf.ui.symbols.ISymbolProvider;
 import org.eclipse.tracecompass.tmf.ui.symbols.ISymbolProviderPreferencePage;
 
@@ -85,6 +92,68 @@ public class UstDebugInfoSymbolProvider extends DefaultSymbolProvider implements
         if (loc != null) {
             return new TmfResolvedSymbol(bc.getOffset(), loc.getFunctionName());
         }
+        return getOtherSymbol(pid, timestamp, bc);
+    }
+
+    @Override
+    public @Nullable TmfResolvedSymbol[] getSymbols(int pid, long[] timestamps, long[] addresses) {
+        List<Integer> queries = new ArrayList<>();
+        List<BinaryCallsite> callsites = new ArrayList<>();
+        for (int i = 0; i < addresses.length; i++) {
+            BinaryCallsite bc = UstDebugInfoBinaryAspect.getBinaryCallsite(getTrace(), pid, timestamps[i], addresses[i]);
+            if (bc != null) {
+                queries.add(i);
+                callsites.add(bc);
+            }
+        }
+
+        /* Resolve the offsets of each binary in a single batch */
+        List<@Nullable FunctionLocation> locations = UstDebugInfoFunctionAspect.getFunctionsFromBinaryLocations(callsites);
+        @Nullable TmfResolvedSymbol[] symbols = new @Nullable TmfResolvedSymbol[addresses.length];
+        for (int i = 0; i < callsites.size(); i++) {
+            BinaryCallsite bc = callsites.get(i);
+            FunctionLocation loc = locations.get(i);
+            int query = queries.get(i);
+            symbols[query] = (loc != null) ? new TmfResolvedSymbol(bc.getOffset(), loc.getFunctionName()) : getOtherSymbol(pid, timestamps[query], bc);
+        }
+        return symbols;
+    }
+
+    /**
+     * The symbols of a process are the same as long as the binaries loaded in
+     * the process do not change, that is as long as none of the attributes of
+     * the process in the debug info state system change.
+     */
+    @Override
+    public @NonNull TmfTimeRange getValidityRange(int pid, long timestamp) {
+        ITmfTimestamp time = TmfTimestamp.fromNanos(timestamp);
+        TmfTimeRange range = new TmfTimeRange(time, time);
+        UstDebugInfoAnalysisModule module = TmfTraceUtils.getAnalysisModuleOfClass(getTrace(), UstDebugInfoAnalysisModule.class, UstDebugInfoAnalysisModule.ID);
+        ITmfStateSystem ss = (module == null) ? null : module.getStateSystem();
+        /* The binaries loaded later are not known until the state system is built */
+        if (ss == null || !ss.waitUntilBuilt(0) || timestamp < ss.getStartTime() || timestamp > ss.getCurrentEndTime()) {
+            return range;
+        }
+        try {
+            List<@NonNull ITmfStateInterval> state = ss.queryFullState(timestamp);
+            long start = ss.getStartTime();
+            long end = ss.getCurrentEndTime();
+            for (Integer baddrQuark : ss.getQuarks(String.valueOf(pid), "*")) { //$NON-NLS-1$
+                List<Integer> quarks = new ArrayList<>(ss.getSubAttributes(baddrQuark, false));
+                quarks.add(baddrQuark);
+                for (Integer quark : quarks) {
+                    ITmfStateInterval interval = state.get(quark);
+                    start = Math.max(start, interval.getStartTime());
+                    end = Math.min(end, interval.getEndTime());
+                }
+            }
+            return new TmfTimeRange(TmfTimestamp.fromNanos(start), TmfTimestamp.fromNanos(end));
+        } catch (StateSystemDisposedException e) {
+            return range;
+        }
+    }
+
+    private @Nullable TmfResolvedSymbol getOtherSymbol(int pid, long timestamp, BinaryCallsite bc) {
         // Try to see if some other symbol provider has a symbol for this relative binary callsite
         // FIXME: Ideally, it would be good to be able to specify the filename
         for (org.eclipse.tracecompass.tmf.core.symbols.ISymbolProvider provider : fOtherProviders) {
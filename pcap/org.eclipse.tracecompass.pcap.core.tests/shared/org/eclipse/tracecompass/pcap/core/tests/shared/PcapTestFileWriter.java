@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.pcap.core.tests.shared;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.eclipse.tracecompass.internal.pcap.core.trace.PcapFileValues;
+
+/**
+ * Writer of little-endian pcap files of random Ethernet packets, to test the
+ * parsing of files larger than the test traces.
+ */
+public final class PcapTestFileWriter {
+
+    private static final int ETHERNET_LINK_TYPE = 1;
+    private static final int SNAPSHOT_LENGTH = 65535;
+    /** The smallest Ethernet frame, without the frame check sequence */
+    private static final int MIN_PACKET_SIZE = 60;
+    private static final int ETHER_TYPE_POSITION = 12;
+    /** An EtherType that is not parsed, so the payload is an unknown packet */
+    private static final short UNKNOWN_ETHER_TYPE = (short) 0x88B5;
+    private static final int MAX_PACKET_SIZE = 1514;
+    private static final long FIRST_SECOND = 1500000000L;
+    private static final int PACKETS_PER_SECOND = 1000;
+    private static final int MICROSECONDS_PER_PACKET = 1000000 / PACKETS_PER_SECOND;
+
+    private PcapTestFileWriter() {
+        // Do nothing
+    }
+
+    /**
+     * Write a pcap file of packets of random sizes, with increasing
+     * timestamps. The data of the packets is random, so it can contain bytes
+     * that look like packet headers.
+     *
+     * @param path
+     *            The file to write
+     * @param nbPackets
+     *            The number of packets
+     * @param seed
+     *            The seed of the random sizes and data
+     * @throws IOException
+     *             If the file cannot be written
+     */
+    public static void write(Path path, int nbPackets, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            ByteBuffer header = ByteBuffer.allocate(PcapFileValues.GLOBAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(PcapFileValues.MAGIC_BIG_ENDIAN_MICRO);
+            header.putShort((short) 2);
+            header.putShort((short) 4);
+            header.putInt(0);
+            header.putInt(0);
+            header.putInt(SNAPSHOT_LENGTH);
+            header.putInt(ETHERNET_LINK_TYPE);
+            out.write(header.array());
+
+            ByteBuffer packetHeader = ByteBuffer.allocate(PcapFileValues.PACKET_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < nbPackets; i++) {
+                int length = MIN_PACKET_SIZE + random.nextInt(MAX_PACKET_SIZE - MIN_PACKET_SIZE + 1);
+                packetHeader.clear();
+                packetHeader.putInt((int) (FIRST_SECOND + i / PACKETS_PER_SECOND));
+                packetHeader.putInt((i % PACKETS_PER_SECOND) * MICROSECONDS_PER_PACKET + random.nextInt(MICROSECONDS_PER_PACKET));
+                packetHeader.putInt(length);
+                packetHeader.putInt(length);
+                out.write(packetHeader.array());
+
+                byte[] data = new byte[length];
+                random.nextBytes(data);
+                ByteBuffer.wrap(data).putShort(ETHER_TYPE_POSITION, UNKNOWN_ETHER_TYPE);
+                out.write(data);
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.pcap.core.tests.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.eclipse.tracecompass.internal.pcap.core.packet.BadPacketException;
+import org.eclipse.tracecompass.internal.pcap.core.protocol.pcap.PcapPacket;
+import org.eclipse.tracecompass.internal.pcap.core.trace.BadPcapFileException;
+import org.eclipse.tracecompass.internal.pcap.core.trace.PacketCheckpoints;
+import org.eclipse.tracecompass.internal.pcap.core.trace.PcapFileValues;
+import org.eclipse.tracecompass.internal.pcap.core.trace.PcapOldFile;
+import org.eclipse.tracecompass.internal.pcap.core.trace.PcapRecordScanner;
+import org.eclipse.tracecompass.pcap.core.tests.shared.PcapTestFileWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit Class that tests that the parallel scan of the packet headers of a
+ * pcap file gives the same result as a sequential parse of the file.
+ */
+public class PcapRecordScannerTest {
+
+    private static final int NB_PACKETS = 5000;
+    private static final int INTERVAL = 100;
+    private static final int MAX_REGIONS = 16;
+
+    private Path fPath;
+    private long[] fPositions;
+    private long[] fTimestamps;
+
+    /**
+     * Write a pcap file and parse it sequentially
+     *
+     * @throws IOException
+     *             Thrown when an IO error occurs. Fails the test.
+     * @throws BadPcapFileException
+     *             Thrown when the file is erroneous. Fails the test.
+     * @throws BadPacketException
+     *             Thrown when a packet is erroneous. Fails the test.
+     */
+    @Before
+    public void setUp() throws IOException, BadPcapFileException, BadPacketException {
+        fPath = Files.createTempFile("scanner", ".pcap"); //$NON-NLS-1$ //$NON-NLS-2$
+        PcapTestFileWriter.write(fPath, NB_PACKETS, 1);
+        fPositions = new long[NB_PACKETS];
+        fTimestamps = new long[NB_PACKETS];
+        try (PcapOldFile file = new PcapOldFile(fPath)) {
+            int rank = 0;
+            long position = file.getPosition();
+            PcapPacket packet = file.parseNextPacket();
+            while (packet != null) {
+                fPositions[rank] = position;
+                fTimestamps[rank] = packet.getTimestamp();
+                rank++;
+                position = file.getPosition();
+                packet = file.parseNextPacket();
+            }
+            assertEquals(NB_PACKETS, rank);
+        }
+    }
+
+    /**
+     * Delete the pcap file
+     *
+     * @throws IOException
+     *             Thrown when an IO error occurs. Fails the test.
+     */
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(fPath);
+    }
+
+    /**
+     * Test that the checkpoints are the same for any number of regions,
+     * including regions whose boundaries fall inside packets
+     *
+     * @throws IOException
+     *             Thrown when an IO error occurs. Fails the test.
+     * @throws BadPcapFileException
+     *             Thrown when the file is erroneous. Fails the test.
+     */
+    @Test
+    public void testScanRegions() throws IOException, BadPcapFileException {
+        long size = Files.size(fPath);
+        boolean boundaryInPacket = false;
+        try (PcapOldFile file = new PcapOldFile(fPath)) {
+            for (int nbRegions = 1; nbRegions <= MAX_REGIONS; nbRegions++) {
+                long regionSize = (size - PcapFileValues.GLOBAL_HEADER_SIZE) / nbRegions;
+                for (int i = 1; i < nbRegions; i++) {
+                    boundaryInPacket |= Arrays.binarySearch(fPositions, PcapFileValues.GLOBAL_HEADER_SIZE + i * regionSize) < 0;
+                }
+                PacketCheckpoints checkpoints = createScanner(file).scan(INTERVAL, nbRegions);
+                assertNotNull(checkpoints);
+                assertCheckpoints(checkpoints);
+            }
+        }
+        assertTrue(boundaryInPacket);
+    }
+
+    /**
+     * Test that the packets are only counted when the interval is 0
+     *
+     * @throws IOException
+     *             Thrown when an IO error occurs. Fails the test.
+     * @throws BadPcapFileException
+     *             Thrown when the file is erroneous. Fails the test.
+     */
+    @Test
+    public void testCountPackets() throws IOException, BadPcapFileException {
+        try (PcapOldFile file = new PcapOldFile(fPath)) {
+            PacketCheckpoints checkpoints = createScanner(file).scan(0, 4);
+            assertNotNull(checkpoints);
+            assertEquals(NB_PACKETS, checkpoints.getNbPackets());
+            assertEquals(0, checkpoints.getNbCheckpoints());
+            assertEquals(NB_PACKETS, file.getTotalNbPackets());
+        }
+    }
+
+    /**
+     * Test that the file seeks the packets from the checkpoints it was indexed
+     * with
+     *
+     * @throws IOException
+     *             Thrown when an IO error occurs. Fails the test.
+     * @throws BadPcapFileException
+     *             Thrown when the file is erroneous. Fails the test.
+     */
+    @Test
+    public void testIndexPackets() throws IOException, BadPcapFileException {
+        try (PcapOldFile file = new PcapOldFile(fPath)) {
+            PacketCheckpoints checkpoints = file.indexPackets(INTERVAL);
+            assertNotNull(checkpoints);
+            assertCheckpoints(checkpoints);
+            assertEquals(NB_PACKETS, file.getTotalNbPackets());
+            for (int rank = NB_PACKETS - 1; rank >= 0; rank -= 37) {
+                file.seekPacket(rank);
+                assertEquals(fPositions[rank], file.getPosition());
+            }
+        }
+    }
+
+    /**
+     * Test that a file whose last packet is truncated is not scanned
+     *
+     * @throws IOException
+     *             Thrown when an IO error occurs. Fails the test.
+     * @throws BadPcapFileException
+     *             Thrown when the file is erroneous. Fails the test.
+     */
+    @Test
+    public void testTruncatedPacket() throws IOException, BadPcapFileException {
+        Files.write(fPath, new byte[PcapFileValues.PACKET_HEADER_SIZE - 1], StandardOpenOption.APPEND);
+        try (PcapOldFile file = new PcapOldFile(fPath)) {
+            assertNull(createScanner(file).scan(INTERVAL, 1));
+            assertNull(createScanner(file).scan(INTERVAL, 4));
+            assertNull(file.indexPackets(INTERVAL));
+        }
+    }
+
+    private static PcapRecordScanner createScanner(PcapOldFile file) throws IOException {
+        return new PcapRecordScanner(file.getFileChannel(), file.getByteOrder(), file.getTimestampPrecision(), file.getSnapShotLength());
+    }
+
+    private void assertCheckpoints(PacketCheckpoints checkpoints) {
+        assertEquals(NB_PACKETS, checkpoints.getNbPackets());
+        assertEquals(INTERVAL, checkpoints.getInterval());
+        assertEquals((NB_PACKETS + INTERVAL - 1) / INTERVAL, checkpoints.getNbCheckpoints());
+        for (int i = 0; i < checkpoints.getNbCheckpoints(); i++) {
+            assertEquals(fPositions[i * INTERVAL], checkpoints.getPosition(i));
+            assertEquals(fTimestamps[i * INTERVAL], checkpoints.getTimestamp(i));
+        }
+        assertTrue(checkpoints.hasValidTimestamps());
+        assertEquals(Arrays.stream(fTimestamps).min().getAsLong(), checkpoints.getMinTimestamp());
+        assertEquals(Arrays.stream(fTimestamps).max().getAsLong(), checkpoints.getMaxTimestamp());
+    }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.pcap.core.tests.stream;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.tracecompass.internal.pcap.core.stream.FlowTable;
+import org.junit.Test;
+
+/**
+ * JUnit Class that tests the table of the streams of a protocol, keyed by the
+ * addresses of the endpoints of the packets.
+ */
+public class FlowTableTest {
+
+    private static final long MAC_A = 0x0000_1122_3344_5566L;
+    private static final long MAC_B = 0x0000_AABB_CCDD_EEFFL;
+    private static final long IP_PORT_A = (0xC0A8_0001L << 16) | 80;
+    private static final long IP_PORT_B = (0xC0A8_0002L << 16) | 51000;
+
+    /**
+     * Test that the packets going from the second endpoint of a stream to
+     * the first are found with the reverse direction bit set
+     */
+    @Test
+    public void testDirection() {
+        FlowTable table = new FlowTable();
+        long[] aToB = { MAC_A, IP_PORT_A, MAC_B, IP_PORT_B };
+        long[] bToA = { MAC_B, IP_PORT_B, MAC_A, IP_PORT_A };
+        assertEquals(FlowTable.NOT_FOUND, table.get(aToB));
+
+        table.put(aToB, 5);
+        assertEquals(5 << 1, table.get(aToB));
+        assertEquals((5 << 1) | 1, table.get(bToA));
+
+        /* A stream with the same addresses but another port is another stream */
+        long[] otherPort = { MAC_A, IP_PORT_A + 1, MAC_B, IP_PORT_B };
+        assertEquals(FlowTable.NOT_FOUND, table.get(otherPort));
+        table.put(otherPort, 6);
+        assertEquals(6 << 1, table.get(otherPort));
+        assertEquals(5 << 1, table.get(aToB));
+        assertEquals((5 << 1) | 1, table.get(bToA));
+
+        table.clear();
+        assertEquals(FlowTable.NOT_FOUND, table.get(aToB));
+        assertEquals(FlowTable.NOT_FOUND, table.get(bToA));
+    }
+
+    /**
+     * Test that the packets of a stream from an endpoint to itself always go
+     * from the first endpoint to the second
+     */
+    @Test
+    public void testSelfFlow() {
+        FlowTable table = new FlowTable();
+        long[] self = { MAC_A, IP_PORT_A, MAC_A, IP_PORT_A };
+        table.put(self, 0);
+        assertEquals(0, table.get(self));
+
+        long[] aToB = { MAC_A, IP_PORT_A, MAC_B, IP_PORT_B };
+        assertEquals(FlowTable.NOT_FOUND, table.get(aToB));
+        table.put(aToB, 1);
+        assertEquals(0, table.get(self));
+        assertEquals(1 << 1, table.get(aToB));
+    }
+
+    /**
+     * Test that the streams are still found after the table grows, when many
+     * keys have the same hash. The first endpoint of each key below has the
+     * same MAC address * 31 + IPv4 address and port, which is what is hashed.
+     */
+    @Test
+    public void testGrowWithCollisions() {
+        FlowTable table = new FlowTable();
+        int nbStreams = 5000;
+        long base = 31L * nbStreams;
+        for (int id = 0; id < nbStreams; id++) {
+            table.put(collidingKey(base, id, false), id);
+            /* Check the streams added before each time the table grows */
+            if (Integer.bitCount(id) == 1) {
+                for (int other = 0; other <= id; other++) {
+                    assertStream(table, base, other);
+                }
+            }
+        }
+        for (int id = 0; id < nbStreams; id++) {
+            assertStream(table, base, id);
+        }
+        assertEquals(FlowTable.NOT_FOUND, table.get(collidingKey(base, nbStreams, false)));
+        assertEquals(FlowTable.NOT_FOUND, table.get(collidingKey(base, nbStreams, true)));
+    }
+
+    private static long[] collidingKey(long base, int id, boolean reverse) {
+        long mac = id;
+        long ipPort = base - 31L * id;
+        return reverse ? new long[] { MAC_B, IP_PORT_B, mac, ipPort } : new long[] { mac, ipPort, MAC_B, IP_PORT_B };
+    }
+
+    private static void assertStream(FlowTable table, long base, int id) {
+        assertEquals(id << 1, table.get(collidingKey(base, id, false)));
+        assertEquals((id << 1) | 1, table.get(collidingKey(base, id, true)));
+    }
+}
@@ -290,7 +290,7 @@ public abstract class Packet {
         if (payload == null) {
             return 0;
         }
-        return ByteBuffer.wrap(payload.array(), payload.arrayOffset(), payload.limit()).hashCode();
+        return wholePayload(payload).hashCode();
     }
 
     /**
@@ -310,9 +310,29 @@ public abstract class Packet {
         if (otherPayload == null) {
             return false;
         }
-        ByteBuffer buffer = ByteBuffer.wrap(payload.array(), payload.arrayOffset(), payload.limit());
-        ByteBuffer otherBuffer = ByteBuffer.wrap(otherPayload.array(), otherPayload.arrayOffset(), otherPayload.limit());
-        return buffer.equals(otherBuffer);
+        return wholePayload(payload).equals(wholePayload(otherPayload));
+    }
+
+    /**
+     * Returns the bytes of the specified payload, from its start to its
+     * limit. The payload may be a view of a file mapped in memory, which has
+     * no backing array.
+     *
+     * @param payload
+     *            the payload
+     * @return the bytes of the payload
+     */
+    protected static byte[] payloadToArray(ByteBuffer payload) {
+        ByteBuffer buffer = wholePayload(payload);
+        byte[] array = new byte[buffer.remaining()];
+        buffer.get(array);
+        return array;
+    }
+
+    private static ByteBuffer wholePayload(ByteBuffer payload) {
+        ByteBuffer buffer = payload.duplicate();
+        buffer.position(0);
+        return buffer;
     }
 
     /**
@@ -20,6 +20,7 @@ import org.eclipse.tracecompass.internal.pcap.core.packet.BadPacketException;
 import org.eclipse.tracecompass.internal.pcap.core.trace.PcapFileValues;
 import org.eclipse.tracecompass.internal.pcap.core.trace.PcapOldFile;
 import org.eclipse.tracecompass.internal.pcap.core.util.ConversionHelper;
+import org.eclipse.tracecompass.internal.pcap.core.util.PcapTimestampScale;
 
 /**
  * Class that represents a Pcap packet. This is the highest level of
@@ -66,22 +67,11 @@ public class PcapOldPacket extends PcapPacket {
         timestampMostSignificant = ConversionHelper.unsignedIntToLong(header.getInt());
         // Get Timestamp LSB
         timestampLeastSignificant = ConversionHelper.unsignedIntToLong(header.getInt());
-        switch (getTimestampScale()) {
-        case MICROSECOND:
-            if (timestampLeastSignificant > TIMESTAMP_MICROSECOND_MAX) {
-                throw new BadPacketException("The timestamp is erroneous."); //$NON-NLS-1$
-            }
-            setTimeStamp(TIMESTAMP_MICROSECOND_MAX * timestampMostSignificant + timestampLeastSignificant);
-            break;
-        case NANOSECOND:
-            if (timestampMostSignificant > TIMESTAMP_NANOSECOND_MAX) {
-                throw new BadPacketException("The timestamp is erroneous."); //$NON-NLS-1$
-            }
-            setTimeStamp(TIMESTAMP_NANOSECOND_MAX * timestampMostSignificant + timestampLeastSignificant);
-            break;
-        default:
-            throw new IllegalArgumentException("The timestamp precision is not valid!"); //$NON-NLS-1$
+        long timestamp = getTimestamp(timestampMostSignificant, timestampLeastSignificant, getTimestampScale());
+        if (timestamp < 0) {
+            throw new BadPacketException("The timestamp is erroneous."); //$NON-NLS-1$
         }
+        setTimeStamp(timestamp);
 
         // Get captured length from the packet
         setIncludedLength(ConversionHelper.unsignedIntToLong(header.getInt()));
@@ -103,6 +93,35 @@ public class PcapOldPacket extends PcapPacket {
 
     }
 
+    /**
+     * Method that computes the timestamp of a packet from the timestamp fields
+     * of its header.
+     *
+     * @param timestampMostSignificant
+     *            The seconds field of the header.
+     * @param timestampLeastSignificant
+     *            The microseconds or nanoseconds field of the header.
+     * @param scale
+     *            The timestamp precision of the file.
+     * @return The timestamp, or -1 if the fields are erroneous.
+     */
+    public static long getTimestamp(long timestampMostSignificant, long timestampLeastSignificant, PcapTimestampScale scale) {
+        switch (scale) {
+        case MICROSECOND:
+            if (timestampLeastSignificant > TIMESTAMP_MICROSECOND_MAX) {
+                return -1;
+            }
+            return TIMESTAMP_MICROSECOND_MAX * timestampMostSignificant + timestampLeastSignificant;
+        case NANOSECOND:
+            if (timestampMostSignificant > TIMESTAMP_NANOSECOND_MAX) {
+                return -1;
+            }
+            return TIMESTAMP_NANOSECOND_MAX * timestampMostSignificant + timestampLeastSignificant;
+        default:
+            throw new IllegalArgumentException("The timestamp precision is not valid!"); //$NON-NLS-1$
+        }
+    }
+
     @Override
     public PcapOldFile getPcapFile() {
         return (PcapOldFile) super.getPcapFile();
@@ -14,7 +14,6 @@ package org.eclipse.tracecompass.internal.pcap.core.protocol.unknown;
 
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
 
@@ -89,7 +88,7 @@ public class UnknownPacket extends Packet {
 
     @Override
     public String toString() {
-        byte[] array = Arrays.copyOfRange(fPayload.array(), fPayload.arrayOffset(), fPayload.arrayOffset() + fPayload.limit());
+        byte[] array = payloadToArray(fPayload);
         String string = "Payload: " + ConversionHelper.bytesToHex(array, true); //$NON-NLS-1$
         final Packet child = fChildPacket;
         if (child != null) {
@@ -132,7 +131,7 @@ public class UnknownPacket extends Packet {
     public Map<String, String> getFields() {
         Map<String, String> map = fFields;
         if (map == null) {
-            byte[] array = Arrays.copyOfRange(fPayload.array(), fPayload.arrayOffset(), fPayload.arrayOffset() + fPayload.limit());
+            byte[] array = payloadToArray(fPayload);
 
             Builder<String, String> builder = ImmutableMap.<@NonNull String, @NonNull String> builder()
                     .put("Binary", ConversionHelper.bytesToHex(array, true)); //$NON-NLS-1$
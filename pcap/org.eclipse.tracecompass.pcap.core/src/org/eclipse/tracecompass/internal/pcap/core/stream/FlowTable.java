@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.pcap.core.stream;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.eclipse.tracecompass.internal.pcap.core.packet.Packet;
+
+/**
+ * Table of the streams of a protocol, keyed by the addresses of the two
+ * endpoints of the packets. The addresses are read directly from the raw
+ * headers of the packet and of its parent packets, so that no endpoint object
+ * is needed to find the stream of a packet, and the keys are stored in an
+ * open-addressing table of primitives.
+ * <p>
+ * The key of a packet is made of two longs per endpoint: the MAC address,
+ * then the IPv4 address and the port, each of them being 0 when the protocol
+ * of the stream does not go up to that layer. The key of a stream is the key
+ * of its first packet, and the packets going the other way are found with the
+ * same hash.
+ */
+public class FlowTable {
+
+    /** Number of longs in a key */
+    public static final int KEY_SIZE = 4;
+
+    /** Value returned when a packet has no stream */
+    public static final int NOT_FOUND = -1;
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    /* Offsets of the addresses in the headers */
+    private static final int ETHERNET_DESTINATION_OFFSET = 0;
+    private static final int ETHERNET_SOURCE_OFFSET = 6;
+    private static final int IPV4_SOURCE_OFFSET = 12;
+    private static final int IPV4_DESTINATION_OFFSET = 16;
+    private static final int PORT_SOURCE_OFFSET = 0;
+    private static final int PORT_DESTINATION_OFFSET = 2;
+    private static final int PORT_SIZE = 16;
+
+    private long[] fKeys = new long[INITIAL_CAPACITY * KEY_SIZE];
+    /* Stream id + 1 of each slot, 0 for empty slots */
+    private int[] fIds = new int[INITIAL_CAPACITY];
+    private int fSize = 0;
+
+    /**
+     * Read the key of a packet. The protocols that support streams are always
+     * above Ethernet II, IPv4 and TCP or UDP, so the header of each of them is
+     * the payload of its parent packet.
+     *
+     * @param packet
+     *            The packet at the protocol of the streams
+     * @param key
+     *            The array of {@link #KEY_SIZE} longs to fill: the source MAC
+     *            address, the source IPv4 address and port, and the same for
+     *            the destination
+     * @return false if the key of the packet could not be read
+     */
+    public static boolean readKey(Packet packet, long[] key) {
+        Arrays.fill(key, 0L);
+        for (Packet current = packet; current != null; current = current.getParentPacket()) {
+            Packet parent = current.getParentPacket();
+            ByteBuffer header = (parent == null) ? null : parent.getPayload();
+            switch (current.getProtocol()) {
+            case PCAP:
+                break;
+            case ETHERNET_II:
+                if (header == null) {
+                    return false;
+                }
+                key[0] = getMacAddress(header, ETHERNET_SOURCE_OFFSET);
+                key[2] = getMacAddress(header, ETHERNET_DESTINATION_OFFSET);
+                break;
+            case IPV4:
+                if (header == null) {
+                    return false;
+                }
+                key[1] |= (header.getInt(IPV4_SOURCE_OFFSET) & 0xFFFFFFFFL) << PORT_SIZE;
+                key[3] |= (header.getInt(IPV4_DESTINATION_OFFSET) & 0xFFFFFFFFL) << PORT_SIZE;
+                break;
+            case TCP:
+            case UDP:
+                if (header == null) {
+                    return false;
+                }
+                key[1] |= header.getShort(PORT_SOURCE_OFFSET) & 0xFFFFL;
+                key[3] |= header.getShort(PORT_DESTINATION_OFFSET) & 0xFFFFL;
+                break;
+            case UNKNOWN:
+            default:
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long getMacAddress(ByteBuffer header, int offset) {
+        return ((header.getShort(offset) & 0xFFFFL) << Integer.SIZE) | (header.getInt(offset + 2) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Find the stream of a packet
+     *
+     * @param key
+     *            The key of the packet
+     * @return The id of the stream shifted left by one, with the lowest bit
+     *         set if the packet goes from the second endpoint of the stream to
+     *         the first, or {@link #NOT_FOUND}
+     */
+    public int get(long[] key) {
+        long[] keys = fKeys;
+        int mask = fIds.length - 1;
+        for (int slot = hash(key, 0) & mask; fIds[slot] != 0; slot = (slot + 1) & mask) {
+            int base = slot * KEY_SIZE;
+            if (keys[base] == key[0] && keys[base + 1] == key[1] && keys[base + 2] == key[2] && keys[base + 3] == key[3]) {
+                return (fIds[slot] - 1) << 1;
+            }
+            if (keys[base] == key[2] && keys[base + 1] == key[3] && keys[base + 2] == key[0] && keys[base + 3] == key[1]) {
+                return ((fIds[slot] - 1) << 1) | 1;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Add a stream, whose first endpoint is the source of the packet
+     *
+     * @param key
+     *            The key of the first packet of the stream
+     * @param id
+     *            The id of the stream
+     */
+    public void put(long[] key, int id) {
+        if ((fSize + 1) * 2 > fIds.length) {
+            grow();
+        }
+        insert(key, 0, id + 1);
+        fSize++;
+    }
+
+    /**
+     * Remove all the streams
+     */
+    public void clear() {
+        fKeys = new long[INITIAL_CAPACITY * KEY_SIZE];
+        fIds = new int[INITIAL_CAPACITY];
+        fSize = 0;
+    }
+
+    private void insert(long[] key, int offset, int value) {
+        int mask = fIds.length - 1;
+        int slot = hash(key, offset) & mask;
+        while (fIds[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        System.arraycopy(key, offset, fKeys, slot * KEY_SIZE, KEY_SIZE);
+        fIds[slot] = value;
+    }
+
+    private void grow() {
+        long[] keys = fKeys;
+        int[] ids = fIds;
+        fKeys = new long[keys.length * 2];
+        fIds = new int[ids.length * 2];
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (ids[slot] != 0) {
+                insert(keys, slot * KEY_SIZE, ids[slot]);
+            }
+        }
+    }
+
+    /**
+     * Hash of a key that does not depend on the direction of the packet
+     */
+    private static int hash(long[] key, int offset) {
+        long h = mix(key[offset] * 31 + key[offset + 1]) + mix(key[offset + 2] * 31 + key[offset + 3]);
+        h = mix(h);
+        return (int) (h ^ (h >>> Integer.SIZE));
+    }
+
+    /* Finalizer of MurmurHash3 */
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014 Ericsson
+ * Copyright (c) 2014, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License v1.0 which
@@ -13,7 +13,6 @@
 package org.eclipse.tracecompass.internal.pcap.core.stream;
 
 import org.eclipse.tracecompass.internal.pcap.core.endpoint.ProtocolEndpointPair;
-import org.eclipse.tracecompass.internal.pcap.core.packet.Packet;
 import org.eclipse.tracecompass.internal.pcap.core.protocol.PcapProtocol;
 import org.eclipse.tracecompass.internal.pcap.core.protocol.pcap.PcapPacket;
 
@@ -74,25 +73,19 @@ public class PacketStream {
      *
      * @param packet
      *            The packet that must be added.
+     * @param isAtoB
+     *            Whether the packet goes from the first endpoint of the stream
+     *            to the second.
      */
-    synchronized void add(PcapPacket packet) {
-
-        Packet newPacket = packet.getPacket(fProtocol);
-        if (newPacket == null) {
-            return;
-        }
+    synchronized void add(PcapPacket packet, boolean isAtoB) {
 
         // Update packet and byte number
-        if (fEndpointPair.getFirstEndpoint().equals(newPacket.getSourceEndpoint()) &&
-                fEndpointPair.getSecondEndpoint().equals(newPacket.getDestinationEndpoint())) {
+        if (isAtoB) {
             fNbPacketsAtoB++;
             fNbBytesAtoB += packet.getOriginalLength();
-        } else if (fEndpointPair.getFirstEndpoint().equals(newPacket.getDestinationEndpoint()) &&
-                fEndpointPair.getSecondEndpoint().equals(newPacket.getSourceEndpoint())) {
+        } else {
             fNbPacketsBtoA++;
             fNbBytesBtoA += packet.getOriginalLength();
-        } else {
-            throw new IllegalStateException();
         }
 
         // Update start and stop time
@@ -13,13 +13,11 @@
 
 package org.eclipse.tracecompass.internal.pcap.core.stream;
 
-import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
-
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.LinkedList;
-import java.util.Map;
+import java.util.List;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.internal.pcap.core.endpoint.ProtocolEndpoint;
@@ -35,7 +33,10 @@ import org.eclipse.tracecompass.internal.pcap.core.trace.PcapFile;
 import org.eclipse.tracecompass.internal.pcap.core.util.PcapHelper;
 
 /**
- * Class that parse an entire pcap file to build the different streams.
+ * Class that parse an entire pcap file to build the different streams. The
+ * stream of a packet is found in a {@link FlowTable} from the raw addresses of
+ * the packet, so that the endpoints of a stream are only built for its first
+ * packet.
  *
  * @author Vincent Perot
  */
@@ -44,9 +45,9 @@ public class PacketStreamBuilder {
     private final IPacketFilter fPacketFilter;
     private final PcapProtocol fProtocol;
 
-    private final Map<Integer, PacketStream> fStreams;
-    private final Map<ProtocolEndpointPair, Integer> fIDs;
-    private int fCurrentId;
+    private final List<PacketStream> fStreams;
+    private final FlowTable fFlows;
+    private final long[] fKey;
 
     /**
      * Main constructor.
@@ -55,11 +56,11 @@ public class PacketStreamBuilder {
      *            The protocol of the builder.
      */
     public PacketStreamBuilder(PcapProtocol protocol) {
-        fCurrentId = 0;
         fProtocol = protocol;
         fPacketFilter = new PacketFilterByProtocol(protocol);
-        fStreams = new HashMap<>();
-        fIDs = new HashMap<>();
+        fStreams = new ArrayList<>();
+        fFlows = new FlowTable();
+        fKey = new long[FlowTable.KEY_SIZE];
     }
 
     /**
@@ -70,6 +71,9 @@ public class PacketStreamBuilder {
      * @return The stream that has the specified ID.
      */
     public synchronized @Nullable PacketStream getStream(int id) {
+        if (id < 0 || id >= fStreams.size()) {
+            return null;
+        }
         return fStreams.get(id);
     }
 
@@ -87,8 +91,12 @@ public class PacketStreamBuilder {
      */
     public synchronized @Nullable PacketStream getStream(ProtocolEndpoint endpointA, ProtocolEndpoint endpointB) {
         ProtocolEndpointPair set = new ProtocolEndpointPair(endpointA, endpointB);
-        Integer id = checkNotNull(fIDs.get(set));
-        return fStreams.get(id);
+        for (PacketStream stream : fStreams) {
+            if (set.equals(stream.getEndpointPair())) {
+                return stream;
+            }
+        }
+        return null;
     }
 
     /**
@@ -97,7 +105,7 @@ public class PacketStreamBuilder {
      * @return The streams as a list.
      */
     public synchronized Iterable<PacketStream> getStreams() {
-        Iterable<PacketStream> iterable = new LinkedList<>(fStreams.values());
+        Iterable<PacketStream> iterable = new LinkedList<>(fStreams);
         return iterable;
     }
 
@@ -114,17 +122,20 @@ public class PacketStreamBuilder {
             if (newPacket == null) {
                 return;
             }
-            ProtocolEndpointPair endpointSet = new ProtocolEndpointPair(newPacket);
-            if (!fIDs.containsKey(endpointSet)) {
-                fIDs.put(endpointSet, fCurrentId);
-
-                PacketStream stream = new PacketStream(fProtocol, fCurrentId, endpointSet);
-                stream.add(packet);
-                fStreams.put(fCurrentId, stream);
-                fCurrentId++;
+            long[] key = fKey;
+            if (!FlowTable.readKey(newPacket, key)) {
+                return;
+            }
+            int flow = fFlows.get(key);
+            if (flow == FlowTable.NOT_FOUND) {
+                int id = fStreams.size();
+                fFlows.put(key, id);
+
+                PacketStream stream = new PacketStream(fProtocol, id, new ProtocolEndpointPair(newPacket));
+                stream.add(packet, true);
+                fStreams.add(stream);
             } else {
-                Integer id = fIDs.get(endpointSet);
-                checkNotNull(fStreams.get(id)).add(packet);
+                fStreams.get(flow >>> 1).add(packet, (flow & 1) == 0);
             }
         }
         return;
@@ -142,10 +153,9 @@ public class PacketStreamBuilder {
     /**
      * Method that clears the builder.
      */
-    public void clear() {
+    public synchronized void clear() {
         fStreams.clear();
-        fIDs.clear();
-        fCurrentId = 0;
+        fFlows.clear();
     }
 
     /**
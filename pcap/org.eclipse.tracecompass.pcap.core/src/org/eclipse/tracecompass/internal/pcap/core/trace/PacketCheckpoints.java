@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.pcap.core.trace;
+
+import org.eclipse.tracecompass.internal.pcap.core.util.PcapTimestampScale;
+
+/**
+ * Result of a scan of the packet headers of a pcap file: the number of
+ * packets, the position and timestamp of one packet every interval packets,
+ * and the bounds of the timestamps of the packets. The timestamps are in the
+ * precision of the file.
+ */
+public final class PacketCheckpoints {
+
+    private final PcapTimestampScale fScale;
+    private final int fInterval;
+    private final long fNbPackets;
+    private final long[] fPositions;
+    private final long[] fTimestamps;
+    private final long fMinTimestamp;
+    private final long fMaxTimestamp;
+    private final boolean fValidTimestamps;
+
+    PacketCheckpoints(PcapTimestampScale scale, int interval, long nbPackets, long[] positions, long[] timestamps,
+            long minTimestamp, long maxTimestamp, boolean validTimestamps) {
+        fScale = scale;
+        fInterval = interval;
+        fNbPackets = nbPackets;
+        fPositions = positions;
+        fTimestamps = timestamps;
+        fMinTimestamp = minTimestamp;
+        fMaxTimestamp = maxTimestamp;
+        fValidTimestamps = validTimestamps;
+    }
+
+    /**
+     * Getter method for the timestamp precision of the file.
+     *
+     * @return The timestamp precision.
+     */
+    public PcapTimestampScale getTimestampScale() {
+        return fScale;
+    }
+
+    /**
+     * Getter method for the number of packets between two checkpoints.
+     *
+     * @return The interval.
+     */
+    public int getInterval() {
+        return fInterval;
+    }
+
+    /**
+     * Getter method for the number of packets in the file.
+     *
+     * @return The number of packets.
+     */
+    public long getNbPackets() {
+        return fNbPackets;
+    }
+
+    /**
+     * Getter method for the number of checkpoints, which are the packets whose
+     * rank is a multiple of the interval.
+     *
+     * @return The number of checkpoints.
+     */
+    public int getNbCheckpoints() {
+        return fPositions.length;
+    }
+
+    /**
+     * Getter method for the position in the file of the packet of a
+     * checkpoint.
+     *
+     * @param checkpoint
+     *            The index of the checkpoint.
+     * @return The position of the packet header in bytes.
+     */
+    public long getPosition(int checkpoint) {
+        return fPositions[checkpoint];
+    }
+
+    /**
+     * Getter method for the timestamp of the packet of a checkpoint.
+     *
+     * @param checkpoint
+     *            The index of the checkpoint.
+     * @return The timestamp of the packet.
+     */
+    public long getTimestamp(int checkpoint) {
+        return fTimestamps[checkpoint];
+    }
+
+    /**
+     * Getter method for the smallest timestamp of the packets.
+     *
+     * @return The smallest timestamp.
+     */
+    public long getMinTimestamp() {
+        return fMinTimestamp;
+    }
+
+    /**
+     * Getter method for the largest timestamp of the packets.
+     *
+     * @return The largest timestamp.
+     */
+    public long getMaxTimestamp() {
+        return fMaxTimestamp;
+    }
+
+    /**
+     * Method that indicates if the timestamps of all the packet headers are
+     * valid. Otherwise, some packets cannot be parsed.
+     *
+     * @return Whether all the timestamps are valid.
+     */
+    public boolean hasValidTimestamps() {
+        return fValidTimestamps;
+    }
+}
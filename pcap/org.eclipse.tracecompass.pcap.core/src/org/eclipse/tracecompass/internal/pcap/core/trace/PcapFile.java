@@ -15,8 +15,11 @@ package org.eclipse.tracecompass.internal.pcap.core.trace;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Objects;
@@ -29,15 +32,25 @@ import org.eclipse.tracecompass.internal.pcap.core.util.PcapTimestampScale;
 
 /**
  * Class that allows the interaction with a pcap file.
+ * <p>
+ * The file is read through regions mapped in memory. The buffers of the
+ * packets are views of these regions, so the packet data is never copied.
  *
  * @author Vincent Perot
  */
 public abstract class PcapFile implements Closeable {
 
+    /** Size of the regions of the file that are mapped at once */
+    private static final long MAPPED_REGION_SIZE = 64L << 20;
+
     private long fCurrentRank = 0;
     private long fTotalNumberPackets = -1;
 
     private FileChannel fFileChannel;
+    private long fPosition = 0;
+    private long fSize;
+    private @Nullable MappedByteBuffer fRegion = null;
+    private long fRegionStart = 0;
     private Path fPcapFilePath;
     private ByteOrder fByteOrder = ByteOrder.LITTLE_ENDIAN;
     private int fMajorVersion;
@@ -71,6 +84,7 @@ public abstract class PcapFile implements Closeable {
 
         // File is not empty. Try to open.
         fFileChannel = Objects.requireNonNull(FileChannel.open(fPcapFilePath));
+        fSize = fFileChannel.size();
     }
 
     /**
@@ -139,7 +153,7 @@ public abstract class PcapFile implements Closeable {
 
         if (positionInBytes != null) {
             // Index is known. Move to position.
-            getFileChannel().position(positionInBytes.longValue());
+            setPosition(positionInBytes.longValue());
             setCurrentRank(rank);
         } else {
             // Index is unknown. Find the corresponding position.
@@ -148,7 +162,7 @@ public abstract class PcapFile implements Closeable {
             setCurrentRank(floorRank);
             positionInBytes = fileIndex.get(floorRank);
             if (positionInBytes != null) {
-                getFileChannel().position(positionInBytes);
+                setPosition(positionInBytes);
                 // skip until wanted packet is found
                 while (getCurrentRank() < rank && skipNextPacket()) {
                     // Do nothing
@@ -175,20 +189,47 @@ public abstract class PcapFile implements Closeable {
      */
     public synchronized long getTotalNbPackets() throws IOException, BadPcapFileException {
         if (fTotalNumberPackets == -1) {
-            long rank = fCurrentRank;
-            fCurrentRank = fFileIndex.floorKey(rank);
-
-            // skip until end of file.
-            while (skipNextPacket()) {
-                // Do nothing;
-            }
-            fTotalNumberPackets = fCurrentRank;
-            fCurrentRank = rank;
-            seekPacket(rank);
+            fTotalNumberPackets = countPackets();
         }
         return fTotalNumberPackets;
     }
 
+    /**
+     * Method that counts the packets of the file. By default, the packets are
+     * skipped until the end of file, then the file is moved back to the
+     * current rank.
+     *
+     * @return The total number of packets.
+     * @throws IOException
+     *             Thrown when some IO error occurs.
+     * @throws BadPcapFileException
+     *             Thrown when a packet header is invalid.
+     */
+    protected long countPackets() throws IOException, BadPcapFileException {
+        long rank = fCurrentRank;
+        fCurrentRank = fFileIndex.floorKey(rank);
+
+        // skip until end of file.
+        while (skipNextPacket()) {
+            // Do nothing;
+        }
+        long totalNumberPackets = fCurrentRank;
+        fCurrentRank = rank;
+        seekPacket(rank);
+        return totalNumberPackets;
+    }
+
+    /**
+     * Setter method for the total number of packets in the file, when it is
+     * known without calling {@link #countPackets()}.
+     *
+     * @param totalNbPackets
+     *            The total number of packets.
+     */
+    protected synchronized void setTotalNbPackets(long totalNbPackets) {
+        fTotalNumberPackets = totalNbPackets;
+    }
+
     /**
      * Getter method for the Byte Order of the file.
      *
@@ -260,15 +301,106 @@ public abstract class PcapFile implements Closeable {
      */
     @Override
     public void close() throws IOException {
+        fRegion = null;
         getFileChannel().close();
     }
 
     /**
-     * Getter method that returns the file channel of the file.
+     * Getter method that returns the file channel of the file. The position
+     * of the channel is not the position of the reader, see
+     * {@link #getPosition()}.
      *
      * @return the file channel
      */
     public FileChannel getFileChannel() {
         return fFileChannel;
     }
+
+    /**
+     * Getter method that returns the position of the reader in the file.
+     *
+     * @return the position in bytes
+     */
+    public long getPosition() {
+        return fPosition;
+    }
+
+    /**
+     * Setter method for the position of the reader in the file.
+     *
+     * @param position
+     *            the position in bytes
+     */
+    public void setPosition(long position) {
+        fPosition = position;
+    }
+
+    /**
+     * Method that checks if there are enough bytes left in the file after the
+     * current position. The size of the file is read again if there are not,
+     * in case the file has grown.
+     *
+     * @param length
+     *            the number of bytes
+     * @return true if the bytes are in the file
+     * @throws IOException
+     *             Thrown when the size of the file cannot be read.
+     */
+    protected boolean hasRemaining(long length) throws IOException {
+        if (fSize - fPosition >= length) {
+            return true;
+        }
+        fSize = fFileChannel.size();
+        return fSize - fPosition >= length;
+    }
+
+    /**
+     * Method that returns a view of the bytes of the file at the current
+     * position, then moves the position after these bytes. The caller must
+     * make sure that the bytes are in the file with
+     * {@link #hasRemaining(long)}.
+     *
+     * @param length
+     *            the number of bytes
+     * @param byteOrder
+     *            the byte order of the view
+     * @return the view, from position 0 to its limit
+     * @throws IOException
+     *             Thrown when the file cannot be mapped.
+     */
+    protected ByteBuffer readBuffer(int length, ByteOrder byteOrder) throws IOException {
+        ByteBuffer buffer = getBuffer(fPosition, length, byteOrder);
+        fPosition += length;
+        return buffer;
+    }
+
+    /**
+     * Method that returns a view of the bytes of the file at a given position.
+     *
+     * @param position
+     *            the position of the bytes in the file
+     * @param length
+     *            the number of bytes
+     * @param byteOrder
+     *            the byte order of the view
+     * @return the view, from position 0 to its limit
+     * @throws IOException
+     *             Thrown when the file cannot be mapped.
+     */
+    protected ByteBuffer getBuffer(long position, int length, ByteOrder byteOrder) throws IOException {
+        MappedByteBuffer region = fRegion;
+        if (region == null || position < fRegionStart || position + length > fRegionStart + region.capacity()) {
+            long size = Math.max(length, Math.min(MAPPED_REGION_SIZE, fSize - position));
+            region = Objects.requireNonNull(fFileChannel.map(MapMode.READ_ONLY, position, size));
+            fRegion = region;
+            fRegionStart = position;
+        }
+        ByteBuffer buffer = region.duplicate();
+        int offset = (int) (position - fRegionStart);
+        buffer.limit(offset + length);
+        buffer.position(offset);
+        ByteBuffer view = buffer.slice();
+        view.order(byteOrder);
+        return view;
+    }
 }
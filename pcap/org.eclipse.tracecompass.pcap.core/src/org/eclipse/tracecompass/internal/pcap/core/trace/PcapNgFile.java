@@ -69,12 +69,9 @@ public class PcapNgFile extends PcapFile {
         // - 2 bytes of Minor Version
         // - 8 bytes of Section Length
         // ---------------------------------------------------------------
-        ByteBuffer header = ByteBuffer.allocate(PcapNgFileValues.BLOCK_HEADER_SIZE + PcapNgFileValues.SHB_MIN_BODY_SIZE);
-        getFileChannel().read(header);
-        header.flip();
         // By default, try little-endian byte order
         ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
-        header.order(byteOrder);
+        ByteBuffer header = readBuffer(PcapNgFileValues.BLOCK_HEADER_SIZE + PcapNgFileValues.SHB_MIN_BODY_SIZE, byteOrder);
         // Block Type
         int blockType = header.getInt();
         if (blockType != PcapNgFileValues.SHB) {
@@ -100,9 +97,9 @@ public class PcapNgFile extends PcapFile {
         int minorVersion = ConversionHelper.unsignedShortToInt(header.getShort());
 
         // Set position at end of SHB block
-        getFileChannel().position(blockLength);
+        setPosition(blockLength);
         // Set initial file position for seeking next packet
-        getFileIndex().put(0L, getFileChannel().position());
+        getFileIndex().put(0L, getPosition());
         // initialize the pcapNG configuration
         init(byteOrder, majorVersion, minorVersion);
     }
@@ -314,34 +311,27 @@ public class PcapNgFile extends PcapFile {
      *             Thrown when the block is erroneous.
      */
     private @Nullable PcapNgBlock parseBlock() throws IOException, BadPcapFileException {
-        long position = getFileChannel().position();
-        if (getFileChannel().size() - position < PcapNgFileValues.BLOCK_HEADER_SIZE) {
+        long position = getPosition();
+        if (!hasRemaining(PcapNgFileValues.BLOCK_HEADER_SIZE)) {
             return null; // End of file reached
         }
         ByteOrder byteOrder = getByteOrder();
 
-        ByteBuffer blockHeader = ByteBuffer.allocate(PcapNgFileValues.BLOCK_HEADER_SIZE);
-        blockHeader.order(byteOrder);
         // Read block header from the current position based on byte order
-        getFileChannel().read(blockHeader);
-        blockHeader.flip();
+        ByteBuffer blockHeader = readBuffer(PcapNgFileValues.BLOCK_HEADER_SIZE, byteOrder);
         // Get block type
         int blockType = blockHeader.getInt();
         // Get block length
         int blockLength = blockHeader.getInt();
 
-        // Read the body of the block or packet data
-        ByteBuffer blockBody = ByteBuffer.allocate(blockLength - PcapNgFileValues.BLOCK_HEADER_SIZE - PcapNgFileValues.BLOCK_FOOTER_SIZE);
-        blockBody.order(byteOrder);
-        // Read block body from the current position based on byte order
-        getFileChannel().read(blockBody);
-        blockBody.flip();
+        int bodyLength = blockLength - PcapNgFileValues.BLOCK_HEADER_SIZE - PcapNgFileValues.BLOCK_FOOTER_SIZE;
+        if (bodyLength < 0 || !hasRemaining((long) bodyLength + PcapNgFileValues.BLOCK_FOOTER_SIZE)) {
+            throw new BadPcapFileException("Inconsistent Block Total Length"); //$NON-NLS-1$
+        }
+        // The body of the block or packet data is a view of the mapped file
+        ByteBuffer blockBody = readBuffer(bodyLength, byteOrder);
 
-        ByteBuffer blockFooter = ByteBuffer.allocate(PcapNgFileValues.BLOCK_FOOTER_SIZE);
-        blockFooter.order(byteOrder);
-        getFileChannel().read(blockFooter);
-        blockFooter.flip();
-        int blockLengthFooter = blockFooter.getInt();
+        int blockLengthFooter = readBuffer(PcapNgFileValues.BLOCK_FOOTER_SIZE, byteOrder).getInt();
         if (blockLengthFooter != blockLength) {
             throw new BadPcapFileException("Inconsistent Block Total Length"); //$NON-NLS-1$
         }
@@ -351,26 +341,25 @@ public class PcapNgFile extends PcapFile {
     @Override
     public synchronized boolean skipNextPacket() throws IOException, BadPcapFileException {
         ByteOrder byteOrder = getByteOrder();
-        long position = getFileChannel().position();
-        while (getFileChannel().size() - position >= PcapNgFileValues.BLOCK_HEADER_SIZE) {
-            ByteBuffer blockHeader = ByteBuffer.allocate(PcapNgFileValues.BLOCK_HEADER_SIZE);
-            getFileChannel().read(blockHeader);
-            blockHeader.flip();
-            blockHeader.order(byteOrder);
+        long position = getPosition();
+        while (hasRemaining(PcapNgFileValues.BLOCK_HEADER_SIZE)) {
+            ByteBuffer blockHeader = getBuffer(position, PcapNgFileValues.BLOCK_HEADER_SIZE, byteOrder);
             // Get block type
             int blockType = blockHeader.getInt();
             // Get block length
             int blockLength = blockHeader.getInt();
+            if (blockLength < PcapNgFileValues.BLOCK_HEADER_SIZE + PcapNgFileValues.BLOCK_FOOTER_SIZE) {
+                throw new BadPcapFileException("Inconsistent Block Total Length"); //$NON-NLS-1$
+            }
 
             if (blockType == PcapNgFileValues.IDB) {
-                getFileChannel().position(position);
                 PcapNgBlock block = parseBlock();
                 if (block != null) {
                     parseIDB(block);
                 }
             }
 
-            getFileChannel().position(position + blockLength);
+            setPosition(position + blockLength);
             if (blockType == PcapNgFileValues.SHB) {
                 break; // ignore other sections
             }
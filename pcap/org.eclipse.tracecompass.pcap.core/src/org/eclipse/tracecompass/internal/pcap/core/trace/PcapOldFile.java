@@ -59,9 +59,7 @@ public class PcapOldFile extends PcapFile {
         // Parse the global header.
         // Read the magic number (4 bytes) from the input stream
         // and determine the mode (big endian or little endian)
-        ByteBuffer globalHeader = ByteBuffer.allocate(PcapFileValues.GLOBAL_HEADER_SIZE);
-        getFileChannel().read(globalHeader);
-        globalHeader.flip();
+        ByteBuffer globalHeader = readBuffer(PcapFileValues.GLOBAL_HEADER_SIZE, ByteOrder.BIG_ENDIAN);
         int magicNumber = globalHeader.getInt();
 
         switch (magicNumber) {
@@ -97,7 +95,7 @@ public class PcapOldFile extends PcapFile {
         fSnapshotLength = ConversionHelper.unsignedIntToLong(globalHeader.getInt());
         fDataLinkType = ConversionHelper.unsignedIntToLong(globalHeader.getInt());
 
-        fileIndex.put(getCurrentRank(), getFileChannel().position());
+        fileIndex.put(getCurrentRank(), getPosition());
         // Data initialization
         init(byteOrder, fMajorVersion, fMinorVersion);
     }
@@ -116,23 +114,17 @@ public class PcapOldFile extends PcapFile {
     public synchronized @Nullable PcapOldPacket parseNextPacket() throws IOException, BadPcapFileException, BadPacketException {
 
         // Parse the packet header
-        if (getFileChannel().size() - getFileChannel().position() == 0) {
+        if (!hasRemaining(1)) {
             return null;
         }
-        if (getFileChannel().size() - getFileChannel().position() < PcapFileValues.PACKET_HEADER_SIZE) {
+        if (!hasRemaining(PcapFileValues.PACKET_HEADER_SIZE)) {
             throw new BadPcapFileException("A pcap header is invalid."); //$NON-NLS-1$
         }
 
-        ByteBuffer pcapPacketHeader = ByteBuffer.allocate(PcapFileValues.PACKET_HEADER_SIZE);
-        pcapPacketHeader.clear();
-        pcapPacketHeader.order(getByteOrder());
-        getFileChannel().read(pcapPacketHeader);
-        pcapPacketHeader.flip();
+        ByteBuffer pcapPacketHeader = readBuffer(PcapFileValues.PACKET_HEADER_SIZE, getByteOrder());
+        long includedPacketLength = ConversionHelper.unsignedIntToLong(pcapPacketHeader.getInt(PcapFileValues.INCLUDED_LENGTH_POSITION));
 
-        pcapPacketHeader.position(PcapFileValues.INCLUDED_LENGTH_POSITION);
-        long includedPacketLength = ConversionHelper.unsignedIntToLong(pcapPacketHeader.getInt());
-
-        if (getFileChannel().size() - getFileChannel().position() < includedPacketLength) {
+        if (!hasRemaining(includedPacketLength)) {
             throw new BadPcapFileException("A packet header is invalid."); //$NON-NLS-1$
         }
 
@@ -140,16 +132,12 @@ public class PcapOldFile extends PcapFile {
             throw new BadPacketException("Packets that are bigger than 2^31-1 bytes are not supported."); //$NON-NLS-1$
         }
 
-        ByteBuffer pcapPacketData = ByteBuffer.allocate((int) includedPacketLength);
-        pcapPacketData.clear();
-        pcapPacketData.order(getByteOrder());
-        getFileChannel().read(pcapPacketData);
-
-        pcapPacketData.flip();
+        // The packet data is a view of the mapped file, it is not copied
+        ByteBuffer pcapPacketData = readBuffer((int) includedPacketLength, getByteOrder());
 
         TreeMap<Long, Long> fFileIndex = getFileIndex();
         setCurrentRank(getCurrentRank()+1);
-        fFileIndex.put(getCurrentRank(), getFileChannel().position());
+        fFileIndex.put(getCurrentRank(), getPosition());
 
         return new PcapOldPacket(this, pcapPacketHeader, pcapPacketData, getCurrentRank() - 1);
 
@@ -159,33 +147,75 @@ public class PcapOldFile extends PcapFile {
     public synchronized boolean skipNextPacket() throws IOException, BadPcapFileException {
 
         // Parse the packet header
-        if (getFileChannel().size() - getFileChannel().position() == 0) {
+        if (!hasRemaining(1)) {
             return false;
         }
-        if (getFileChannel().size() - getFileChannel().position() < PcapFileValues.GLOBAL_HEADER_SIZE) {
+        if (!hasRemaining(PcapFileValues.PACKET_HEADER_SIZE)) {
             throw new BadPcapFileException("A pcap header is invalid."); //$NON-NLS-1$
         }
 
-        ByteBuffer pcapPacketHeader = ByteBuffer.allocate(PcapFileValues.PACKET_HEADER_SIZE);
-        pcapPacketHeader.clear();
-        pcapPacketHeader.order(getByteOrder());
-        getFileChannel().read(pcapPacketHeader);
-        pcapPacketHeader.flip();
-        pcapPacketHeader.position(PcapFileValues.INCLUDED_LENGTH_POSITION);
-        long includedPacketLength = ConversionHelper.unsignedIntToLong(pcapPacketHeader.getInt());
+        ByteBuffer pcapPacketHeader = readBuffer(PcapFileValues.PACKET_HEADER_SIZE, getByteOrder());
+        long includedPacketLength = ConversionHelper.unsignedIntToLong(pcapPacketHeader.getInt(PcapFileValues.INCLUDED_LENGTH_POSITION));
 
-        if (getFileChannel().size() - getFileChannel().position() < includedPacketLength) {
+        if (!hasRemaining(includedPacketLength)) {
             throw new BadPcapFileException("A packet header is invalid."); //$NON-NLS-1$
         }
 
-        getFileChannel().position(getFileChannel().position() + includedPacketLength);
+        setPosition(getPosition() + includedPacketLength);
 
         TreeMap<Long, Long> fFileIndex = getFileIndex();
         setCurrentRank(getCurrentRank() + 1);
-        fFileIndex.put(getCurrentRank(), getFileChannel().position());
+        fFileIndex.put(getCurrentRank(), getPosition());
         return true;
     }
 
+    /**
+     * Method that counts the packets of the file by scanning the packet
+     * headers of regions of the file in parallel.
+     */
+    @Override
+    protected long countPackets() throws IOException, BadPcapFileException {
+        PacketCheckpoints checkpoints = createScanner().scan(0);
+        if (checkpoints == null) {
+            // The last packet is truncated, fail like a sequential scan
+            return super.countPackets();
+        }
+        return checkpoints.getNbPackets();
+    }
+
+    /**
+     * Method that scans the packet headers of the whole file, in parallel, to
+     * find the position and timestamp of one packet every interval packets.
+     * The positions are added to the file index and the total number of
+     * packets is set. The file is only locked to update them, since the
+     * scanner maps the regions of the file instead of moving its position.
+     *
+     * @param interval
+     *            The number of packets between two checkpoints.
+     * @return The packet checkpoints, or null if the last packet of the file
+     *         is truncated.
+     * @throws IOException
+     *             Thrown when there is an error while reading the file.
+     */
+    public @Nullable PacketCheckpoints indexPackets(int interval) throws IOException {
+        PacketCheckpoints checkpoints = createScanner().scan(interval);
+        if (checkpoints == null) {
+            return null;
+        }
+        synchronized (this) {
+            TreeMap<Long, Long> fileIndex = getFileIndex();
+            for (int i = 0; i < checkpoints.getNbCheckpoints(); i++) {
+                fileIndex.put((long) i * interval, checkpoints.getPosition(i));
+            }
+            setTotalNbPackets(checkpoints.getNbPackets());
+        }
+        return checkpoints;
+    }
+
+    private PcapRecordScanner createScanner() throws IOException {
+        return new PcapRecordScanner(getFileChannel(), getByteOrder(), fTimestampPrecision, fSnapshotLength);
+    }
+
     /**
      * Getter method that returns the timestamp precision of the file.
      *
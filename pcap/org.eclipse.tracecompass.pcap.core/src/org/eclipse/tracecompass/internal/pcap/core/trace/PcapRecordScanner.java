@@ -0,0 +1,351 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.pcap.core.trace;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.pcap.core.protocol.pcap.PcapOldPacket;
+import org.eclipse.tracecompass.internal.pcap.core.util.PcapTimestampScale;
+
+/**
+ * Scanner of the packet headers of a pcap file, which splits the file in
+ * regions that are scanned in parallel.
+ * <p>
+ * The packet headers of a pcap file have a fixed size, so the worker of a
+ * region finds its first packet by looking for a position where a series of
+ * plausible packet headers starts. The packets of a region are the ones that
+ * start before its end, so the packet following the last packet of a region
+ * must be the first packet found in the next region. When it is not, the next
+ * region is scanned again from the expected position, which makes the result
+ * always the same as a sequential scan of the file.
+ */
+public class PcapRecordScanner {
+
+    /** Minimum size of the regions scanned in parallel */
+    private static final long MIN_REGION_SIZE = 16L << 20;
+    /** Size of the windows of the file mapped by a reader */
+    private static final long WINDOW_SIZE = 16L << 20;
+    /** Number of consecutive plausible headers needed to find a packet */
+    private static final int RESYNC_PACKETS = 16;
+    /** Largest packet accepted to find a packet, if the snapshot length is smaller */
+    private static final long MAX_PACKET_LENGTH = 262144;
+    /** Largest step forward of the timestamps of consecutive packets, in seconds */
+    private static final long MAX_SECONDS_FORWARD = 86400;
+    /** Largest step backward of the timestamps of consecutive packets, in seconds */
+    private static final long MAX_SECONDS_BACKWARD = 60;
+    private static final long MICROSECONDS = 1000000L;
+    private static final long NANOSECONDS = 1000000000L;
+
+    private final FileChannel fChannel;
+    private final ByteOrder fByteOrder;
+    private final PcapTimestampScale fScale;
+    private final long fFractionMax;
+    private final long fMaxPacketLength;
+    private final long fSize;
+
+    /**
+     * A region of the file, and the packets that start in it
+     */
+    private static final class Region {
+        private final long fStart;
+        private final long fEnd;
+        private long fFirst = -1;
+        private long fNext;
+        private long fNbPackets;
+        private long fRank;
+        private boolean fTruncated;
+        private long fMinTimestamp;
+        private long fMaxTimestamp;
+        private boolean fValidTimestamps;
+
+        public Region(long start, long end) {
+            fStart = start;
+            fEnd = end;
+        }
+    }
+
+    /**
+     * Reader of the packet headers. Each worker has its own.
+     */
+    private final class Reader {
+        private @Nullable MappedByteBuffer fWindow = null;
+        private long fWindowStart = 0;
+        private long fSeconds;
+        private long fFraction;
+        private long fIncludedLength;
+        private long fOriginalLength;
+
+        /**
+         * Read the packet header at a position
+         *
+         * @return false if the header is not entirely in the file
+         */
+        public boolean readHeader(long position) throws IOException {
+            if (fSize - position < PcapFileValues.PACKET_HEADER_SIZE) {
+                return false;
+            }
+            MappedByteBuffer window = fWindow;
+            if (window == null || position < fWindowStart || position + PcapFileValues.PACKET_HEADER_SIZE > fWindowStart + window.capacity()) {
+                window = Objects.requireNonNull(fChannel.map(MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, fSize - position)));
+                window.order(fByteOrder);
+                fWindow = window;
+                fWindowStart = position;
+            }
+            int offset = (int) (position - fWindowStart);
+            fSeconds = window.getInt(offset) & 0xFFFFFFFFL;
+            fFraction = window.getInt(offset + 4) & 0xFFFFFFFFL;
+            fIncludedLength = window.getInt(offset + PcapFileValues.INCLUDED_LENGTH_POSITION) & 0xFFFFFFFFL;
+            fOriginalLength = window.getInt(offset + 12) & 0xFFFFFFFFL;
+            return true;
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param channel
+     *            The channel of the file
+     * @param byteOrder
+     *            The byte order of the file
+     * @param scale
+     *            The timestamp precision of the file
+     * @param snapshotLength
+     *            The snapshot length of the file
+     * @throws IOException
+     *             If the size of the file cannot be read
+     */
+    public PcapRecordScanner(FileChannel channel, ByteOrder byteOrder, PcapTimestampScale scale, long snapshotLength) throws IOException {
+        fChannel = channel;
+        fByteOrder = byteOrder;
+        fScale = scale;
+        fFractionMax = (scale == PcapTimestampScale.MICROSECOND) ? MICROSECONDS : NANOSECONDS;
+        fMaxPacketLength = Math.max(snapshotLength, MAX_PACKET_LENGTH);
+        fSize = channel.size();
+    }
+
+    /**
+     * Scan the packet headers of the file
+     *
+     * @param interval
+     *            The number of packets between two checkpoints, or 0 to only
+     *            count the packets
+     * @return The packet checkpoints, or null if the last packet of the file
+     *         is truncated
+     * @throws IOException
+     *             If the file cannot be read
+     */
+    public @Nullable PacketCheckpoints scan(int interval) throws IOException {
+        long size = fSize - PcapFileValues.GLOBAL_HEADER_SIZE;
+        return scan(interval, (int) Math.min(Runtime.getRuntime().availableProcessors(), size / MIN_REGION_SIZE));
+    }
+
+    /**
+     * Scan the packet headers of the file, split in a given number of regions
+     *
+     * @param interval
+     *            The number of packets between two checkpoints, or 0 to only
+     *            count the packets
+     * @param nbRegions
+     *            The number of regions scanned in parallel
+     * @return The packet checkpoints, or null if the last packet of the file
+     *         is truncated
+     * @throws IOException
+     *             If the file cannot be read
+     */
+    public @Nullable PacketCheckpoints scan(int interval, int nbRegions) throws IOException {
+        long start = PcapFileValues.GLOBAL_HEADER_SIZE;
+        int count = Math.max(1, nbRegions);
+        long regionSize = (fSize - start) / count;
+        List<Region> regions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long end = (i == count - 1) ? fSize : start + regionSize;
+            regions.add(new Region(start, end));
+            start = end;
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(count);
+        try {
+            List<Future<Region>> futures = new ArrayList<>();
+            for (Region region : regions) {
+                futures.add(workers.submit(() -> {
+                    Reader reader = new Reader();
+                    long first = (region.fStart == PcapFileValues.GLOBAL_HEADER_SIZE) ? region.fStart : findFirstPacket(reader, region);
+                    if (first >= 0) {
+                        walk(reader, region, first);
+                    }
+                    return region;
+                }));
+            }
+            waitFor(futures);
+
+            /* Chain the regions, scanning again the ones that were not found */
+            Reader reader = new Reader();
+            long expected = PcapFileValues.GLOBAL_HEADER_SIZE;
+            long rank = 0;
+            long minTimestamp = Long.MAX_VALUE;
+            long maxTimestamp = Long.MIN_VALUE;
+            boolean validTimestamps = true;
+            for (Region region : regions) {
+                if (region.fFirst != expected) {
+                    walk(reader, region, expected);
+                }
+                if (region.fTruncated) {
+                    return null;
+                }
+                region.fRank = rank;
+                rank += region.fNbPackets;
+                expected = region.fNext;
+                minTimestamp = Math.min(minTimestamp, region.fMinTimestamp);
+                maxTimestamp = Math.max(maxTimestamp, region.fMaxTimestamp);
+                validTimestamps &= region.fValidTimestamps;
+            }
+
+            int nbCheckpoints = (interval > 0) ? (int) ((rank + interval - 1) / interval) : 0;
+            long[] positions = new long[nbCheckpoints];
+            long[] timestamps = new long[nbCheckpoints];
+            if (nbCheckpoints > 0) {
+                futures.clear();
+                for (Region region : regions) {
+                    if (region.fNbPackets > 0) {
+                        futures.add(workers.submit(() -> {
+                            readCheckpoints(new Reader(), region, interval, positions, timestamps);
+                            return region;
+                        }));
+                    }
+                }
+                waitFor(futures);
+            }
+            return new PacketCheckpoints(fScale, interval, rank, positions, timestamps, minTimestamp, maxTimestamp, validTimestamps);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static void waitFor(List<Future<Region>> futures) throws IOException {
+        try {
+            for (Future<Region> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Find the first position of a region where a series of plausible packet
+     * headers starts
+     */
+    private long findFirstPacket(Reader reader, Region region) throws IOException {
+        for (long position = region.fStart; position < region.fEnd; position++) {
+            if (isPacketSeries(reader, position)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isPacketSeries(Reader reader, long start) throws IOException {
+        long position = start;
+        long previousSeconds = 0;
+        for (int i = 0; i < RESYNC_PACKETS && position < fSize; i++) {
+            if (!reader.readHeader(position)) {
+                return false;
+            }
+            long includedLength = reader.fIncludedLength;
+            if (reader.fFraction >= fFractionMax || includedLength == 0 || includedLength > fMaxPacketLength || includedLength > reader.fOriginalLength) {
+                return false;
+            }
+            long seconds = reader.fSeconds;
+            if (i > 0 && (seconds < previousSeconds - MAX_SECONDS_BACKWARD || seconds > previousSeconds + MAX_SECONDS_FORWARD)) {
+                return false;
+            }
+            previousSeconds = seconds;
+            position += PcapFileValues.PACKET_HEADER_SIZE + includedLength;
+            if (position > fSize) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Skip the packets of a region from a given packet, the same way
+     * {@link PcapOldFile#skipNextPacket()} does
+     */
+    private void walk(Reader reader, Region region, long first) throws IOException {
+        long position = first;
+        long nbPackets = 0;
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+        boolean validTimestamps = true;
+        boolean truncated = false;
+        while (position < region.fEnd && position < fSize) {
+            if (!reader.readHeader(position)) {
+                truncated = true;
+                break;
+            }
+            long next = position + PcapFileValues.PACKET_HEADER_SIZE + reader.fIncludedLength;
+            if (next > fSize) {
+                truncated = true;
+                break;
+            }
+            long timestamp = PcapOldPacket.getTimestamp(reader.fSeconds, reader.fFraction, fScale);
+            if (timestamp < 0) {
+                validTimestamps = false;
+            } else {
+                minTimestamp = Math.min(minTimestamp, timestamp);
+                maxTimestamp = Math.max(maxTimestamp, timestamp);
+            }
+            nbPackets++;
+            position = next;
+        }
+        region.fFirst = first;
+        region.fNext = position;
+        region.fNbPackets = nbPackets;
+        region.fTruncated = truncated;
+        region.fMinTimestamp = minTimestamp;
+        region.fMaxTimestamp = maxTimestamp;
+        region.fValidTimestamps = validTimestamps;
+    }
+
+    private void readCheckpoints(Reader reader, Region region, int interval, long[] positions, long[] timestamps) throws IOException {
+        long position = region.fFirst;
+        long end = region.fRank + region.fNbPackets;
+        for (long rank = region.fRank; rank < end; rank++) {
+            reader.readHeader(position);
+            if (rank % interval == 0) {
+                int checkpoint = (int) (rank / interval);
+                positions[checkpoint] = position;
+                timestamps[checkpoint] = PcapOldPacket.getTimestamp(reader.fSeconds, reader.fFraction, fScale);
+            }
+            position += PcapFileValues.PACKET_HEADER_SIZE + reader.fIncludedLength;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.pcap.core.tests.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.tmf.pcap.core.event.PcapEvent;
+import org.eclipse.tracecompass.internal.tmf.pcap.core.trace.PcapTrace;
+import org.eclipse.tracecompass.pcap.core.tests.shared.PcapTestFileWriter;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.signal.TmfSignalHandler;
+import org.eclipse.tracecompass.tmf.core.signal.TmfSignalManager;
+import org.eclipse.tracecompass.tmf.core.signal.TmfTraceUpdatedSignal;
+import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfTraceIndexer;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.TmfCheckpointIndexer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit that tests that the index of a pcap trace, seeded from the packet
+ * headers, is the same as the one built by reading all the events.
+ */
+public class PcapTraceIndexerTest {
+
+    /**
+     * Number of packets of the trace, which is large enough to be scanned in
+     * two regions when there are two processors or more
+     */
+    private static final int NB_PACKETS = 45000;
+
+    private Path fPath;
+    private IndexedPcapTrace fSeededTrace;
+    private IndexedPcapTrace fSequentialTrace;
+
+    /**
+     * Pcap trace whose indexer can be queried, and which can be indexed by
+     * reading all the events
+     */
+    private static class IndexedPcapTrace extends PcapTrace {
+
+        private final boolean fSequential;
+
+        public IndexedPcapTrace(boolean sequential) {
+            fSequential = sequential;
+        }
+
+        @Override
+        protected ITmfTraceIndexer createIndexer(int interval) {
+            return fSequential ? new TmfCheckpointIndexer(this, interval) : super.createIndexer(interval);
+        }
+
+        public ITmfTraceIndexer getTraceIndexer() {
+            return getIndexer();
+        }
+    }
+
+    /**
+     * Listener of the signal sent by the indexer when it restores an index.
+     * It is public so that the signal manager can call its handler.
+     */
+    public static class IndexRestoredListener {
+
+        private volatile @Nullable TmfTraceUpdatedSignal fSignal = null;
+
+        /**
+         * Keep the signal if it was sent by an indexer
+         *
+         * @param signal
+         *            the TmfTraceUpdatedSignal
+         */
+        @TmfSignalHandler
+        public void traceUpdated(TmfTraceUpdatedSignal signal) {
+            if (signal.getSource() instanceof ITmfTraceIndexer) {
+                fSignal = signal;
+            }
+        }
+    }
+
+    /**
+     * Write the pcap trace
+     *
+     * @throws IOException
+     *             If the trace cannot be written
+     */
+    @Before
+    public void setUp() throws IOException {
+        fPath = Files.createTempFile("indexer", ".pcap"); //$NON-NLS-1$ //$NON-NLS-2$
+        PcapTestFileWriter.write(fPath, NB_PACKETS, 1);
+    }
+
+    /**
+     * Dispose the traces and delete the file
+     *
+     * @throws IOException
+     *             If the file cannot be deleted
+     */
+    @After
+    public void tearDown() throws IOException {
+        if (fSeededTrace != null) {
+            fSeededTrace.dispose();
+        }
+        if (fSequentialTrace != null) {
+            fSequentialTrace.dispose();
+        }
+        Files.deleteIfExists(fPath);
+    }
+
+    /**
+     * Test that the seeded index has the same number of events, time range and
+     * checkpoints as the index built by reading all the events
+     *
+     * @throws TmfTraceException
+     *             If the trace cannot be opened
+     */
+    @Test
+    public void testSeededIndex() throws TmfTraceException {
+        IndexedPcapTrace seeded = new IndexedPcapTrace(false);
+        fSeededTrace = seeded;
+        IndexRestoredListener listener = new IndexRestoredListener();
+        TmfSignalManager.register(listener);
+        try {
+            seeded.initTrace((IResource) null, fPath.toString(), PcapEvent.class);
+            seeded.indexTrace(true);
+        } finally {
+            TmfSignalManager.deregister(listener);
+        }
+        TmfTraceUpdatedSignal signal = listener.fSignal;
+        assertNotNull("Index not seeded", signal); //$NON-NLS-1$
+        assertEquals(NB_PACKETS, signal.getNbEvents());
+
+        IndexedPcapTrace sequential = new IndexedPcapTrace(true);
+        fSequentialTrace = sequential;
+        sequential.initTrace((IResource) null, fPath.toString(), PcapEvent.class);
+        sequential.indexTrace(true);
+
+        assertEquals(NB_PACKETS, sequential.getNbEvents());
+        assertEquals(NB_PACKETS, seeded.getNbEvents());
+        assertEquals(sequential.getTimeRange(), seeded.getTimeRange());
+        assertEquals(sequential.getTimeRange(), signal.getRange());
+
+        int interval = seeded.getCacheSize();
+        for (long rank = 0; rank < NB_PACKETS + interval; rank += interval) {
+            ITmfContext expected = sequential.getTraceIndexer().seekIndex(rank);
+            ITmfContext actual = seeded.getTraceIndexer().seekIndex(rank);
+            assertContext(expected, actual);
+
+            ITmfEvent expectedEvent = sequential.getNext(expected);
+            ITmfEvent actualEvent = seeded.getNext(actual);
+            assertNotNull(expectedEvent);
+            assertNotNull(actualEvent);
+            ITmfTimestamp timestamp = expectedEvent.getTimestamp();
+            assertEquals(timestamp, actualEvent.getTimestamp());
+            expected.dispose();
+            actual.dispose();
+
+            expected = sequential.getTraceIndexer().seekIndex(timestamp);
+            actual = seeded.getTraceIndexer().seekIndex(timestamp);
+            assertContext(expected, actual);
+            expected.dispose();
+            actual.dispose();
+        }
+    }
+
+    private static void assertContext(ITmfContext expected, ITmfContext actual) {
+        assertEquals(expected.getRank(), actual.getRank());
+        assertEquals(expected.getLocation(), actual.getLocation());
+    }
+}
@@ -36,6 +36,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.internal.pcap.core.packet.BadPacketException;
 import org.eclipse.tracecompass.internal.pcap.core.protocol.pcap.PcapPacket;
 import org.eclipse.tracecompass.internal.pcap.core.trace.BadPcapFileException;
+import org.eclipse.tracecompass.internal.pcap.core.trace.PacketCheckpoints;
 import org.eclipse.tracecompass.internal.pcap.core.trace.PcapFile;
 import org.eclipse.tracecompass.internal.pcap.core.trace.PcapOldFile;
 import org.eclipse.tracecompass.internal.pcap.core.util.LinkTypeHelper;
@@ -56,6 +57,7 @@ import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.TmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTrace;
 import org.eclipse.tracecompass.tmf.core.trace.TraceValidationStatus;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfTraceIndexer;
 import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
 import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
 
@@ -130,6 +132,41 @@ public class PcapTrace extends TmfTrace implements ITmfPropertiesProvider {
         }
     }
 
+    @Override
+    protected ITmfTraceIndexer createIndexer(int interval) {
+        return new PcapTraceIndexer(this, interval);
+    }
+
+    /**
+     * Scan the packet headers of a pcap file, without parsing the packets, to
+     * find one packet every interval packets. The checkpoints are only
+     * available for pcap files, not for pcapNg files. The trace is not locked
+     * during the scan, so that its events can be read meanwhile.
+     *
+     * @param interval
+     *            The number of packets between two checkpoints
+     * @return The packet checkpoints, or null if they are not available
+     */
+    @Nullable PacketCheckpoints indexPackets(int interval) {
+        PcapFile pcap = fPcapFile;
+        if (!(pcap instanceof PcapOldFile)) {
+            return null;
+        }
+        try {
+            return ((PcapOldFile) pcap).indexPackets(interval);
+        } catch (ClosedChannelException e) {
+            // The trace was closed
+            return null;
+        } catch (IOException e) {
+            String message = e.getMessage();
+            if (message == null) {
+                message = EMPTY_STRING;
+            }
+            Activator.logError(message, e);
+            return null;
+        }
+    }
+
     @Override
     public Iterable<ITmfEventAspect<?>> getEventAspects() {
         return PCAP_ASPECTS;
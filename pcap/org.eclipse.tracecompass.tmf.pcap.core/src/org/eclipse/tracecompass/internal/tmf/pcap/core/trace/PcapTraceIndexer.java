@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.tmf.pcap.core.trace;
+
+import org.eclipse.tracecompass.internal.pcap.core.trace.PacketCheckpoints;
+import org.eclipse.tracecompass.internal.pcap.core.util.PcapTimestampScale;
+import org.eclipse.tracecompass.internal.tmf.pcap.core.util.PcapEventFactory;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.ITmfCheckpointIndex;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.TmfCheckpoint;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.TmfCheckpointIndexer;
+import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
+
+/**
+ * Indexer of a pcap trace. The checkpoints of a pcap file are found in the
+ * indexing job by scanning the packet headers of regions of the file in
+ * parallel, without parsing the packets, and the index is then handled as if
+ * it had been restored.
+ */
+class PcapTraceIndexer extends TmfCheckpointIndexer {
+
+    private final int fInterval;
+
+    /**
+     * Constructor
+     *
+     * @param trace
+     *            The trace to index
+     * @param interval
+     *            The checkpoints interval
+     */
+    public PcapTraceIndexer(PcapTrace trace, int interval) {
+        super(trace, interval);
+        fInterval = interval;
+    }
+
+    @Override
+    protected boolean seedIndex(ITmfCheckpointIndex index) {
+        PcapTrace trace = (PcapTrace) fTrace;
+        PacketCheckpoints checkpoints = trace.indexPackets(fInterval);
+        if (checkpoints == null || checkpoints.getNbPackets() == 0 || !checkpoints.hasValidTimestamps()) {
+            return false;
+        }
+        PcapTimestampScale scale = checkpoints.getTimestampScale();
+        for (int i = 0; i < checkpoints.getNbCheckpoints(); i++) {
+            index.insert(new TmfCheckpoint(PcapEventFactory.createTimestamp(checkpoints.getTimestamp(i), scale, trace),
+                    new TmfLongLocation((long) i * fInterval), i));
+        }
+        index.setTimeRange(new TmfTimeRange(PcapEventFactory.createTimestamp(checkpoints.getMinTimestamp(), scale, trace),
+                PcapEventFactory.createTimestamp(checkpoints.getMaxTimestamp(), scale, trace)));
+        index.setNbEvents(checkpoints.getNbPackets());
+        return true;
+    }
+}
@@ -54,33 +54,44 @@ public final class PcapEventFactory {
     }
 
     /**
-     * Method that create a PcapEvent from a packet.
+     * Method that creates the timestamp of an event from the timestamp of a
+     * packet.
      *
-     * @param pcapPacket
-     *            The packet to generate the event from.
-     * @param pcap
-     *            The pcap file to which the packet belongs.
+     * @param timestamp
+     *            The timestamp of the packet.
+     * @param scale
+     *            The timestamp precision of the packet.
      * @param trace
      *            The trace to which this packet belongs.
-     * @return The generated PcapEvent.
+     * @return The timestamp of the event.
      */
-    public static @Nullable PcapEvent createEvent(PcapPacket pcapPacket, PcapFile pcap, PcapTrace trace) {
-        long rank = pcapPacket.getIndex();
-        long timestamp = pcapPacket.getTimestamp();
-        PcapTimestampScale scale = pcapPacket.getTimestampScale();
-        ITmfTimestamp tmfTimestamp;
+    public static ITmfTimestamp createTimestamp(long timestamp, PcapTimestampScale scale, PcapTrace trace) {
         switch (scale) {
         case MICROSECOND:
             long us = trace.getTimestampTransform().transform(timestamp * 1000) / 1000;
-            tmfTimestamp = TmfTimestamp.fromMicros(us);
-            break;
+            return TmfTimestamp.fromMicros(us);
         case NANOSECOND:
             long ns = trace.getTimestampTransform().transform(timestamp);
-            tmfTimestamp = TmfTimestamp.fromNanos(ns);
-            break;
+            return TmfTimestamp.fromNanos(ns);
         default:
             throw new IllegalArgumentException("The timestamp precision is not valid!"); //$NON-NLS-1$
         }
+    }
+
+    /**
+     * Method that create a PcapEvent from a packet.
+     *
+     * @param pcapPacket
+     *            The packet to generate the event from.
+     * @param pcap
+     *            The pcap file to which the packet belongs.
+     * @param trace
+     *            The trace to which this packet belongs.
+     * @return The generated PcapEvent.
+     */
+    public static @Nullable PcapEvent createEvent(PcapPacket pcapPacket, PcapFile pcap, PcapTrace trace) {
+        long rank = pcapPacket.getIndex();
+        ITmfTimestamp tmfTimestamp = createTimestamp(pcapPacket.getTimestamp(), pcapPacket.getTimestampScale(), trace);
         Path filePath = pcap.getPath().getFileName();
         @NonNull String fileName = (filePath == null ? EMPTY_STRING : checkNotNull(filePath.toString()));
 
@@ -58,6 +58,8 @@ public enum TmfXmlTestFiles {
     VALID_SEGMENT_TIMESTAMP_DESCRIPTION("test_xml_files/test_valid/test_segment_timestamp.xml"),
     /** A valid file for consuming fsm test */
     CONSUMING_FSM_TEST("test_xml_files/test_valid/test_consuming_fsm.xml"),
+    /** A valid pattern file to test the order of the transitions of a state */
+    TRANSITION_ORDER_TEST("test_xml_files/test_valid/test_transition_order.xml"),
     /** A valid pattern file to test the initialState element */
     INITIAL_STATE_ELEMENT_TEST_FILE_1("test_xml_files/test_valid/test_initialState_element1.xml"),
     /** A valid pattern file to test the initialState element */
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.analysis.xml.core.tests.stateprovider;
+
+import static org.junit.Assert.assertNotNull;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.tracecompass.internal.tmf.analysis.xml.core.pattern.stateprovider.XmlPatternAnalysis;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.exceptions.AttributeNotFoundException;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.statevalue.ITmfStateValue;
+import org.eclipse.tracecompass.statesystem.core.statevalue.TmfStateValue;
+import org.eclipse.tracecompass.tmf.analysis.xml.core.tests.common.TmfXmlTestFiles;
+import org.eclipse.tracecompass.tmf.analysis.xml.core.tests.module.XmlUtilsTest;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfAnalysisException;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the order of the transitions of the states of an fsm. The states mix
+ * transitions on event names only, with conditions on the event fields, on
+ * event name wildcards and on all events. The transitions of a state are
+ * selected once per event name, so this test checks that the first transition
+ * that can be taken is still the one taken, whatever the events of the same
+ * name seen before.
+ */
+public class TransitionOrderTest {
+
+    private static final @NonNull String TEST_TRACE = "test_traces/testTrace6.xml";
+
+    private ITmfTrace fTrace;
+    private XmlPatternAnalysis fModule;
+
+    /**
+     * Initializes the trace and the module for the tests
+     *
+     * @throws TmfAnalysisException
+     *             Any exception thrown during module initialization
+     */
+    @Before
+    public void setUp() throws TmfAnalysisException {
+        ITmfTrace trace = XmlUtilsTest.initializeTrace(TEST_TRACE);
+        @NonNull XmlPatternAnalysis module = XmlUtilsTest.initializePatternModule(TmfXmlTestFiles.TRANSITION_ORDER_TEST);
+
+        module.setTrace(trace);
+
+        module.schedule();
+        module.waitForCompletion();
+
+        fTrace = trace;
+        fModule = module;
+    }
+
+    /**
+     * Dispose the module and the trace
+     */
+    @After
+    public void cleanUp() {
+        fTrace.dispose();
+        fModule.dispose();
+    }
+
+    /**
+     * Test the transitions taken for each event
+     *
+     * @throws StateSystemDisposedException
+     *             Exceptions thrown during state system verification
+     * @throws AttributeNotFoundException
+     *             Exceptions thrown during state system verification
+     */
+    @Test
+    public void testTransitionOrder() throws AttributeNotFoundException, StateSystemDisposedException {
+        XmlPatternAnalysis module = fModule;
+        assertNotNull(module);
+
+        ITmfStateSystem ss = module.getStateSystem(module.getId());
+        assertNotNull(ss);
+
+        int quark = ss.getQuarkAbsolute("transition");
+
+        /*
+         * No transition is taken at 2, 8 and 11, the events have the name of
+         * none of the transitions that can be taken from the state.
+         */
+        final int[] expectedStarts = { 1, 3, 4, 5, 6, 7, 9, 10, 12, 12 };
+        ITmfStateValue[] expectedValues = {
+                TmfStateValue.newValueString("wildcard"),
+                TmfStateValue.newValueString("stay"),
+                TmfStateValue.newValueString("any_id_1"),
+                TmfStateValue.newValueString("entry_id_2"),
+                TmfStateValue.newValueString("any_id_1"),
+                TmfStateValue.newValueString("any_id_3"),
+                TmfStateValue.newValueString("work"),
+                TmfStateValue.newValueString("wildcard"),
+                TmfStateValue.newValueString("stay") };
+        XmlUtilsTest.verifyStateIntervals("testTransitionOrder", ss, quark, expectedStarts, expectedValues);
+    }
+}
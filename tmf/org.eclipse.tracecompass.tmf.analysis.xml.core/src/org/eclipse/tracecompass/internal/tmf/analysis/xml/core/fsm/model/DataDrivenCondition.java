@@ -18,6 +18,7 @@ import java.util.regex.Pattern;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.internal.tmf.analysis.xml.core.fsm.model.runtime.DataDrivenScenarioInfo;
 import org.eclipse.tracecompass.internal.tmf.analysis.xml.core.fsm.model.values.DataDrivenValue;
+import org.eclipse.tracecompass.internal.tmf.analysis.xml.core.fsm.model.values.DataDrivenValueEventName;
 import org.eclipse.tracecompass.internal.tmf.analysis.xml.core.fsm.module.IAnalysisDataContainer;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
@@ -288,6 +289,11 @@ public interface DataDrivenCondition extends IDataDrivenRuntimeObject {
             return !fCondition.test(event, scenarioInfo, container);
         }
 
+        @Override
+        public boolean isEventNameCondition() {
+            return fCondition.isEventNameCondition();
+        }
+
         @Override
         public int hashCode() {
             return Objects.hash(DataDrivenNotCondition.class, fCondition);
@@ -336,6 +342,16 @@ public interface DataDrivenCondition extends IDataDrivenRuntimeObject {
             return true;
         }
 
+        @Override
+        public boolean isEventNameCondition() {
+            for (DataDrivenCondition cond : fConditions) {
+                if (!cond.isEventNameCondition()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         @Override
         public int hashCode() {
             return Objects.hash(DataDrivenAndCondition.class, fConditions);
@@ -384,6 +400,16 @@ public interface DataDrivenCondition extends IDataDrivenRuntimeObject {
             return false;
         }
 
+        @Override
+        public boolean isEventNameCondition() {
+            for (DataDrivenCondition cond : fConditions) {
+                if (!cond.isEventNameCondition()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         @Override
         public int hashCode() {
             return Objects.hash(DataDrivenOrCondition.class, fConditions);
@@ -435,6 +461,11 @@ public interface DataDrivenCondition extends IDataDrivenRuntimeObject {
             return fPattern.matcher(String.valueOf(value)).matches();
         }
 
+        @Override
+        public boolean isEventNameCondition() {
+            return (fValue instanceof DataDrivenValueEventName) && !fValue.hasMappingGroup();
+        }
+
         @Override
         public int hashCode() {
             return Objects.hash(String.valueOf(fPattern), fValue);
@@ -459,6 +490,17 @@ public interface DataDrivenCondition extends IDataDrivenRuntimeObject {
 
     }
 
+    /**
+     * Return whether the result of this condition depends only on the name of
+     * the event, so that it is the same for all the events of a given name,
+     * whatever the scenario or the data of the analysis
+     *
+     * @return <code>true</code> if only the event name is tested
+     */
+    default boolean isEventNameCondition() {
+        return false;
+    }
+
     /**
      * Handle the event, ie execute the actions if the event matches the name
      *
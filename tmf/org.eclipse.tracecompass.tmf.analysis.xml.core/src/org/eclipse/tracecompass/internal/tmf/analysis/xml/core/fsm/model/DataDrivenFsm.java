@@ -151,10 +151,13 @@ public class DataDrivenFsm extends DataDrivenFsmState {
     private boolean handleActiveScenarios(ITmfEvent event, DataDrivenRuntimeFsm runtimeFsm, IAnalysisDataContainer container) {
 
         boolean eventConsumed = false;
-        List<DataDrivenScenario> toRemove = new ArrayList<>();
+        @Nullable List<DataDrivenScenario> toRemove = null;
         for (DataDrivenScenario scenario : runtimeFsm.getActiveScenarios()) {
             // Remove inactive scenarios or handle the active ones.
             if (!scenario.isActive()) {
+                if (toRemove == null) {
+                    toRemove = new ArrayList<>();
+                }
                 toRemove.add(scenario);
             } else {
                 if (scenario.isActive() || scenario.isPending()) {
@@ -166,8 +169,8 @@ public class DataDrivenFsm extends DataDrivenFsmState {
             }
         }
         // Remove scenarios set to be removed
-        for (DataDrivenScenario scenario : toRemove) {
-            runtimeFsm.removeScenario(scenario);
+        if (toRemove != null) {
+            runtimeFsm.removeScenarios(toRemove);
         }
 
         return eventConsumed;
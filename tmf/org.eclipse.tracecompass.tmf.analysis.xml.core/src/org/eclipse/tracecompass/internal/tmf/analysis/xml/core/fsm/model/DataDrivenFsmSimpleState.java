@@ -9,9 +9,12 @@
 
 package org.eclipse.tracecompass.internal.tmf.analysis.xml.core.fsm.model;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.internal.tmf.analysis.xml.core.fsm.model.runtime.DataDrivenScenarioInfo;
@@ -29,6 +32,12 @@ public class DataDrivenFsmSimpleState extends DataDrivenFsmState {
     private final List<DataDrivenFsmStateTransition> fTransitions;
     private final DataDrivenAction fOnEntry;
     private final DataDrivenAction fOnExit;
+    /**
+     * The transitions that can be taken for each event name, in order. The
+     * transitions whose event condition does not only depend on the name are
+     * always part of the list.
+     */
+    private final Map<String, List<DataDrivenFsmStateTransition>> fTransitionsByEvent = new ConcurrentHashMap<>();
 
     /**
      * Create a final state (ie without transitions or actions) with the given
@@ -63,8 +72,10 @@ public class DataDrivenFsmSimpleState extends DataDrivenFsmState {
 
     @Override
     public @Nullable DataDrivenFsmState takeTransition(ITmfEvent event, DataDrivenScenarioInfo scenarioInfo, IAnalysisDataContainer container) {
-        for (DataDrivenFsmStateTransition transition : fTransitions) {
-            if (transition.canTake(event, scenarioInfo, container)) {
+        List<DataDrivenFsmStateTransition> transitions = getTransitionsForEvent(event, scenarioInfo, container);
+        for (int i = 0; i < transitions.size(); i++) {
+            DataDrivenFsmStateTransition transition = transitions.get(i);
+            if (transition.canTakeSelected(event, scenarioInfo, container)) {
                 // We have a valid transition, start by executing the onExit actions
                 fOnExit.eventHandle(event, scenarioInfo, container);
                 // Take the transition and return the resulting state
@@ -78,6 +89,28 @@ public class DataDrivenFsmSimpleState extends DataDrivenFsmState {
         return null;
     }
 
+    /**
+     * Get the transitions to try for an event. The event conditions of the
+     * transitions are tested the first time an event name is seen by this
+     * state, and the result is reused for the following events of the same
+     * name, for all the scenarios in this state.
+     */
+    private List<DataDrivenFsmStateTransition> getTransitionsForEvent(ITmfEvent event, DataDrivenScenarioInfo scenarioInfo, IAnalysisDataContainer container) {
+        String eventName = event.getName();
+        List<DataDrivenFsmStateTransition> transitions = fTransitionsByEvent.get(eventName);
+        if (transitions == null) {
+            List<DataDrivenFsmStateTransition> selected = new ArrayList<>();
+            for (DataDrivenFsmStateTransition transition : fTransitions) {
+                if (!transition.isEventNameTransition() || transition.acceptsEvent(event, scenarioInfo, container)) {
+                    selected.add(transition);
+                }
+            }
+            transitions = selected.isEmpty() ? Collections.emptyList() : selected;
+            fTransitionsByEvent.put(eventName, transitions);
+        }
+        return transitions;
+    }
+
     @Override
     public boolean isFinal() {
         return fTransitions.isEmpty();
@@ -29,6 +29,7 @@ public class DataDrivenFsmStateTransition implements IDataDrivenRuntimeObject {
     private final String fTarget;
     private final DataDrivenCondition fCondition;
     private final List<DataDrivenAction> fActions;
+    private final boolean fEventNameOnly;
 
     /**
      * Constructor
@@ -47,6 +48,7 @@ public class DataDrivenFsmStateTransition implements IDataDrivenRuntimeObject {
         fCondition = dataDrivenCondition;
         fTarget = target;
         fActions = actions;
+        fEventNameOnly = eventCondition.isEventNameCondition();
     }
 
     /**
@@ -65,6 +67,53 @@ public class DataDrivenFsmStateTransition implements IDataDrivenRuntimeObject {
         return fEvents.test(event, scenarioInfo, container) && fCondition.test(event, scenarioInfo, container);
     }
 
+    /**
+     * Return whether the event condition of this transition only depends on
+     * the name of the event. Such transitions can be selected once per event
+     * name instead of being tested for each event.
+     *
+     * @return <code>true</code> if the event condition only tests the event
+     *         name
+     */
+    public boolean isEventNameTransition() {
+        return fEventNameOnly;
+    }
+
+    /**
+     * Test only the event condition of this transition
+     *
+     * @param event
+     *            The current event to handle
+     * @param scenarioInfo
+     *            The scenario info
+     * @param container
+     *            The container
+     * @return Whether the event is one of the events of this transition
+     */
+    public boolean acceptsEvent(ITmfEvent event, DataDrivenScenarioInfo scenarioInfo, IAnalysisDataContainer container) {
+        return fEvents.test(event, scenarioInfo, container);
+    }
+
+    /**
+     * Get whether this transition can be taken, when it was selected for the
+     * name of the event. The event condition is not tested again if it only
+     * depends on the event name.
+     *
+     * @param event
+     *            The current event to handle
+     * @param scenarioInfo
+     *            The scenario info
+     * @param container
+     *            The container
+     * @return Whether the transition can be taken
+     */
+    public boolean canTakeSelected(ITmfEvent event, DataDrivenScenarioInfo scenarioInfo, IAnalysisDataContainer container) {
+        if (fEventNameOnly) {
+            return fCondition.test(event, scenarioInfo, container);
+        }
+        return canTake(event, scenarioInfo, container);
+    }
+
     /**
      * Take this transition and return the next state
      *
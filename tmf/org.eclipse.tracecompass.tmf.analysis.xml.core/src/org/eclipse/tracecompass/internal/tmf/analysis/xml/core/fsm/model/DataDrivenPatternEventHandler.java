@@ -15,6 +15,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.internal.tmf.analysis.xml.core.fsm.model.runtime.DataDrivenRuntimeData;
 import org.eclipse.tracecompass.internal.tmf.analysis.xml.core.fsm.module.IAnalysisDataContainer;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
@@ -80,15 +81,20 @@ public class DataDrivenPatternEventHandler implements IDataDrivenRuntimeObject {
                 fsm.createScenario(event, true, runtimeData, container);
             }
         } else {
-            List<DataDrivenFsm> fsmToStart = new ArrayList<>();
+            @Nullable List<DataDrivenFsm> fsmToStart = null;
             for (DataDrivenFsm fsm : fFsms) {
                 if (fsm.isNewScenarioAllowed(runtimeData.getRuntimeForFsm(fsm))) {
+                    if (fsmToStart == null) {
+                        fsmToStart = new ArrayList<>();
+                    }
                     fsmToStart.add(fsm);
                 }
             }
-            for (DataDrivenFsm fsm : fsmToStart) {
-                fActiveFsmList.add(fsm);
-                fsm.createScenario(event, false, runtimeData, container);
+            if (fsmToStart != null) {
+                for (DataDrivenFsm fsm : fsmToStart) {
+                    fActiveFsmList.add(fsm);
+                    fsm.createScenario(event, false, runtimeData, container);
+                }
             }
         }
         for (DataDrivenFsm fsm : activeFsmList) {
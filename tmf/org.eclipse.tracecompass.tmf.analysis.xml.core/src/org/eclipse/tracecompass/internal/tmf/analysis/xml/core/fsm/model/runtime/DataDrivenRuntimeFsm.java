@@ -10,7 +10,11 @@
 package org.eclipse.tracecompass.internal.tmf.analysis.xml.core.fsm.model.runtime;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.jdt.annotation.Nullable;
 
@@ -82,6 +86,21 @@ public class DataDrivenRuntimeFsm {
         }
     }
 
+    /**
+     * Remove a group of scenarios. The list of active scenarios is traversed
+     * only once, whatever the number of scenarios to remove.
+     *
+     * @param scenarios
+     *            The scenarios to remove
+     */
+    public void removeScenarios(Collection<DataDrivenScenario> scenarios) {
+        Set<DataDrivenScenario> toRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+        toRemove.addAll(scenarios);
+        int size = fActiveScenarios.size();
+        fActiveScenarios.removeAll(toRemove);
+        fScenarioCount -= size - fActiveScenarios.size();
+    }
+
     /**
      * Active the pending scenario. There will be no pending scenario after this
      */
@@ -52,6 +52,16 @@ public abstract class DataDrivenValue implements IDataDrivenRuntimeObject {
         fForcedType = forcedType;
     }
 
+    /**
+     * Get whether the resolved value is mapped to another value by a mapping
+     * group
+     *
+     * @return <code>true</code> if this value uses a mapping group
+     */
+    public boolean hasMappingGroup() {
+        return fMappingGroupId != null;
+    }
+
     /**
      * Resolve the value with the analysis data.
      *
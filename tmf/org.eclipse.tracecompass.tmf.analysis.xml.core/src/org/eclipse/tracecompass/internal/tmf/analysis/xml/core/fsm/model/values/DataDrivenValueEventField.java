@@ -30,7 +30,19 @@ import org.eclipse.tracecompass.tmf.core.trace.TmfTraceUtils;
  */
 public class DataDrivenValueEventField extends DataDrivenValue {
 
+    /**
+     * The values that can be read when the event has no field of the name,
+     * resolved once from the field name
+     */
+    private enum SpecialField {
+        NONE,
+        CPU,
+        TIMESTAMP,
+        HOSTID
+    }
+
     private final String fFieldName;
+    private final SpecialField fSpecialField;
 
     /**
      * Constructor
@@ -46,6 +58,15 @@ public class DataDrivenValueEventField extends DataDrivenValue {
     public DataDrivenValueEventField(@Nullable String mappingGroupId, ITmfStateValue.Type forcedType, String fieldName) {
         super(mappingGroupId, forcedType);
         fFieldName = fieldName;
+        if (fieldName.equalsIgnoreCase(TmfXmlStrings.CPU)) {
+            fSpecialField = SpecialField.CPU;
+        } else if (fieldName.equalsIgnoreCase(TmfXmlStrings.TIMESTAMP)) {
+            fSpecialField = SpecialField.TIMESTAMP;
+        } else if (fieldName.equalsIgnoreCase(TmfXmlStrings.HOSTID)) {
+            fSpecialField = SpecialField.HOSTID;
+        } else {
+            fSpecialField = SpecialField.NONE;
+        }
     }
 
     @Override
@@ -61,18 +82,18 @@ public class DataDrivenValueEventField extends DataDrivenValue {
 
         /* If the field does not exist, see if it's a special case */
         if (field == null) {
-            if (fFieldName.equalsIgnoreCase(TmfXmlStrings.CPU)) {
+            if (fSpecialField == SpecialField.CPU) {
                 /* A "CPU" field will return the CPU aspect if available */
                 Integer cpu = TmfTraceUtils.resolveIntEventAspectOfClassForEvent(event.getTrace(), TmfCpuAspect.class, event);
                 if (cpu != null) {
                     return cpu;
                 }
-            } else if (fFieldName.equalsIgnoreCase(TmfXmlStrings.TIMESTAMP)) {
+            } else if (fSpecialField == SpecialField.TIMESTAMP) {
                 /*
                  * Exception also for "TIMESTAMP", returns the timestamp of this event
                  */
                 return event.getTimestamp().getValue();
-            } else if (fFieldName.equalsIgnoreCase(TmfXmlStrings.HOSTID)) {
+            } else if (fSpecialField == SpecialField.HOSTID) {
                 /* Return the host ID of the trace containing the event */
                 return event.getTrace().getHostId();
             }
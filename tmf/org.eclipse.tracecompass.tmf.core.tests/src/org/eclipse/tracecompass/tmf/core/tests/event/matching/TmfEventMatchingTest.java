@@ -10,11 +10,15 @@
 package org.eclipse.tracecompass.tmf.core.tests.event.matching;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -24,12 +28,16 @@ import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.event.TmfEvent;
 import org.eclipse.tracecompass.tmf.core.event.TmfEventField;
 import org.eclipse.tracecompass.tmf.core.event.matching.IEventMatchingKey;
+import org.eclipse.tracecompass.tmf.core.event.matching.IMatchProcessingUnit;
 import org.eclipse.tracecompass.tmf.core.event.matching.ITmfMatchEventDefinition;
+import org.eclipse.tracecompass.tmf.core.event.matching.TmfEventDependency;
 import org.eclipse.tracecompass.tmf.core.event.matching.TmfEventDependency.DependencyEvent;
 import org.eclipse.tracecompass.tmf.core.event.matching.TmfEventMatching;
 import org.eclipse.tracecompass.tmf.core.event.matching.TmfEventMatching.Direction;
 import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.tests.shared.TmfTestTrace;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.tests.stubs.event.TmfEventTypeStub;
@@ -51,6 +59,8 @@ public class TmfEventMatchingTest {
     private TmfTraceStub fT1;
     private TmfTraceStub fT2;
     private @NonNull Collection<@NonNull ITmfTrace> fTraces = Collections.emptyList();
+    /* The match definitions registered by the test, unregistered after it */
+    private final List<ITmfMatchEventDefinition> fDefinitions = new ArrayList<>();
 
     private static class IntMatchingKey implements IEventMatchingKey {
 
@@ -128,6 +138,78 @@ public class TmfEventMatchingTest {
 
     }
 
+    /**
+     * Matches the events of a trace, as causes, with the events of another
+     * trace at the same timestamp, as effects. One event out of three of the
+     * causes is skipped.
+     */
+    private static class TimestampEventMatching implements ITmfMatchEventDefinition {
+
+        private final ITmfTrace fCauseTrace;
+        private final ITmfTrace fEffectTrace;
+
+        public TimestampEventMatching(ITmfTrace causeTrace, ITmfTrace effectTrace) {
+            fCauseTrace = causeTrace;
+            fEffectTrace = effectTrace;
+        }
+
+        @Override
+        public IEventMatchingKey getEventKey(ITmfEvent event) {
+            return new IntMatchingKey((int) event.getTimestamp().getValue());
+        }
+
+        @Override
+        public boolean canMatchTrace(ITmfTrace trace) {
+            return trace == fCauseTrace || trace == fEffectTrace;
+        }
+
+        @Override
+        public Direction getDirection(ITmfEvent event) {
+            if (event.getTrace() == fCauseTrace && event.getTimestamp().getValue() % 3 != 0) {
+                return Direction.CAUSE;
+            }
+            if (event.getTrace() == fEffectTrace) {
+                return Direction.EFFECT;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Records the matches, in order
+     */
+    private static class MatchRecorder implements IMatchProcessingUnit {
+
+        private final List<TmfEventDependency> fMatches = new ArrayList<>();
+
+        @Override
+        public void init(Collection<ITmfTrace> traces) {
+            fMatches.clear();
+        }
+
+        @Override
+        public void addMatch(TmfEventDependency match) {
+            fMatches.add(match);
+        }
+
+        @Override
+        public void matchingEnded() {
+            // Nothing to do
+        }
+
+        @Override
+        public int countMatches() {
+            return fMatches.size();
+        }
+    }
+
+    private static class FailingProcessingUnit extends MatchRecorder {
+        @Override
+        public void addMatch(TmfEventDependency match) {
+            throw new IllegalStateException("Cannot process the match");
+        }
+    }
+
     private static class MatchEventStub extends TmfEvent {
 
         private final int fId;
@@ -179,7 +261,9 @@ public class TmfEventMatchingTest {
         fT1 = t1;
         fT2 = t2;
         fTraces = traces;
-        TmfEventMatching.registerMatchObject(new StubEventMatching());
+        StubEventMatching definition = new StubEventMatching();
+        fDefinitions.add(definition);
+        TmfEventMatching.registerMatchObject(definition);
     }
 
     /**
@@ -187,6 +271,10 @@ public class TmfEventMatchingTest {
      */
     @After
     public void cleanup() {
+        for (ITmfMatchEventDefinition definition : fDefinitions) {
+            TmfEventMatching.unregisterMatchObject(definition);
+        }
+        fDefinitions.clear();
         TmfTraceStub trace = fT1;
         if (trace != null) {
             trace.dispose();
@@ -407,4 +495,123 @@ public class TmfEventMatchingTest {
 
     }
 
+    /**
+     * Test matching the events of two traces in parallel partitions. The
+     * matches must be the same, and in the same order, as when the events are
+     * matched on a single thread.
+     *
+     * @throws TmfTraceException
+     *             If the traces cannot be opened
+     */
+    @Test
+    public void testPartitionedMatching() throws TmfTraceException {
+        TmfTraceStub t1 = new TmfTraceStub(TmfTestTrace.A_TEST_10K.getFullPath(), ITmfTrace.DEFAULT_TRACE_CACHE_SIZE, false, null);
+        TmfTraceStub t2 = new TmfTraceStub(TmfTestTrace.A_TEST_10K2.getFullPath(), ITmfTrace.DEFAULT_TRACE_CACHE_SIZE, false, null);
+        TimestampEventMatching definition = new TimestampEventMatching(t1, t2);
+        fDefinitions.add(definition);
+        try {
+            TmfEventMatching.registerMatchObject(definition);
+            List<@NonNull ITmfTrace> traces = new ArrayList<>();
+            traces.add(t1);
+            traces.add(t2);
+
+            List<TmfEventDependency> expected = runMatching(traces, 1);
+            assertFalse(expected.isEmpty());
+            for (int nbPartitions : new int[] { 2, 3, 8 }) {
+                List<TmfEventDependency> matches = runMatching(traces, nbPartitions);
+                assertEquals(expected.size(), matches.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).getSource(), matches.get(i).getSource());
+                    assertEquals(expected.get(i).getDestination(), matches.get(i).getDestination());
+                }
+            }
+        } finally {
+            t1.dispose();
+            t2.dispose();
+        }
+    }
+
+    /**
+     * Test that the matching fails when the matches cannot be processed,
+     * whether the events are matched in partitions or not
+     *
+     * @throws TmfTraceException
+     *             If the traces cannot be opened
+     */
+    @Test
+    public void testFailedMatching() throws TmfTraceException {
+        TmfTraceStub t1 = new TmfTraceStub(TmfTestTrace.A_TEST_10K.getFullPath(), ITmfTrace.DEFAULT_TRACE_CACHE_SIZE, false, null);
+        TmfTraceStub t2 = new TmfTraceStub(TmfTestTrace.A_TEST_10K2.getFullPath(), ITmfTrace.DEFAULT_TRACE_CACHE_SIZE, false, null);
+        TimestampEventMatching definition = new TimestampEventMatching(t1, t2);
+        fDefinitions.add(definition);
+        try {
+            TmfEventMatching.registerMatchObject(definition);
+            List<@NonNull ITmfTrace> traces = new ArrayList<>();
+            traces.add(t1);
+            traces.add(t2);
+
+            for (int nbPartitions : new int[] { 1, 2, 8 }) {
+                TmfEventMatching matching = new TmfEventMatching(traces, new FailingProcessingUnit());
+                matching.setNbPartitions(nbPartitions);
+                assertFalse(matching.matchEvents());
+            }
+        } finally {
+            t1.dispose();
+            t2.dispose();
+        }
+    }
+
+    /**
+     * Test that a matching from a start time only matches the events from
+     * that time, and continues with the matches already processed
+     *
+     * @throws TmfTraceException
+     *             If the traces cannot be opened
+     */
+    @Test
+    public void testStartTime() throws TmfTraceException {
+        TmfTraceStub t1 = new TmfTraceStub(TmfTestTrace.A_TEST_10K.getFullPath(), ITmfTrace.DEFAULT_TRACE_CACHE_SIZE, false, null);
+        TmfTraceStub t2 = new TmfTraceStub(TmfTestTrace.A_TEST_10K2.getFullPath(), ITmfTrace.DEFAULT_TRACE_CACHE_SIZE, false, null);
+        TimestampEventMatching definition = new TimestampEventMatching(t1, t2);
+        fDefinitions.add(definition);
+        try {
+            TmfEventMatching.registerMatchObject(definition);
+            List<@NonNull ITmfTrace> traces = new ArrayList<>();
+            traces.add(t1);
+            traces.add(t2);
+
+            List<TmfEventDependency> expected = runMatching(traces, 1);
+            ITmfTimestamp startTime = TmfTimestamp.fromMillis(50);
+            int nbMatches = expected.size();
+            expected.removeIf(match -> match.getSource().getTimestamp().compareTo(startTime) < 0);
+            assertFalse(expected.isEmpty());
+            assertNotEquals(nbMatches, expected.size());
+
+            MatchRecorder recorder = new MatchRecorder();
+            TmfEventMatching matching = new TmfEventMatching(traces, recorder);
+            matching.matchEvents();
+            matching = new TmfEventMatching(traces, recorder);
+            matching.setStartTime(startTime);
+            matching.matchEvents();
+
+            /* The matches of the first matching are kept */
+            List<TmfEventDependency> matches = recorder.fMatches.subList(nbMatches, recorder.fMatches.size());
+            assertEquals(expected.size(), matches.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getSource(), matches.get(i).getSource());
+                assertEquals(expected.get(i).getDestination(), matches.get(i).getDestination());
+            }
+        } finally {
+            t1.dispose();
+            t2.dispose();
+        }
+    }
+
+    private static List<TmfEventDependency> runMatching(Collection<@NonNull ITmfTrace> traces, int nbPartitions) {
+        MatchRecorder recorder = new MatchRecorder();
+        TmfEventMatching matching = new TmfEventMatching(traces, recorder);
+        matching.setNbPartitions(nbPartitions);
+        matching.matchEvents();
+        return recorder.fMatches;
+    }
 }
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.core.tests.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.tracecompass.tmf.core.io.BufferedRandomAccessFile;
+import org.eclipse.tracecompass.tmf.core.io.MappedLineReader;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests for class {@link MappedLineReader}
+ */
+public class MappedLineReaderTest {
+
+    private static final String CONTENT = "first line\n" +
+            "\n" +
+            "a line with a carriage return\r\n" +
+            "un \u00e9t\u00e9 tr\u00e8s chaud\n" +
+            "a line longer than the windows used by these tests\n" +
+            "12:34:56 [info] message\n" +
+            "last line without line feed";
+
+    private static File testFile;
+
+    /**
+     * Setup
+     *
+     * @throws IOException
+     *             if an exception occurs
+     */
+    @BeforeClass
+    public static void beforeClass() throws IOException {
+        testFile = File.createTempFile("test", ".txt");
+        Files.write(testFile.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Cleanup
+     */
+    @AfterClass
+    public static void afterClass() {
+        testFile.delete();
+    }
+
+    /**
+     * Test that the lines are the same as the ones of a
+     * {@link BufferedRandomAccessFile}, whatever the window size
+     *
+     * @throws IOException
+     *             if an exception occurs
+     */
+    @Test
+    public void testGetNextLine() throws IOException {
+        List<String> expected = new ArrayList<>();
+        List<Long> positions = new ArrayList<>();
+        try (BufferedRandomAccessFile file = new BufferedRandomAccessFile(testFile, "r")) {
+            positions.add(file.getFilePointer());
+            String line = file.getNextLine();
+            while (line != null) {
+                expected.add(line);
+                positions.add(file.getFilePointer());
+                line = file.getNextLine();
+            }
+        }
+        for (int windowSize : new int[] { 8, 13, 32, 4096 }) {
+            try (MappedLineReader reader = new MappedLineReader(testFile, windowSize)) {
+                assertEquals(testFile.length(), reader.length());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(positions.get(i).longValue(), reader.getFilePointer());
+                    CharSequence line = reader.getNextLine();
+                    assertNotNull(line);
+                    assertEquals(expected.get(i), line.toString());
+                }
+                assertEquals(reader.length(), reader.getFilePointer());
+                assertNull(reader.getNextLine());
+            }
+        }
+    }
+
+    /**
+     * Test seeking and reading single bytes
+     *
+     * @throws IOException
+     *             if an exception occurs
+     */
+    @Test
+    public void testSeekAndRead() throws IOException {
+        byte[] bytes = CONTENT.getBytes(StandardCharsets.UTF_8);
+        try (MappedLineReader reader = new MappedLineReader(testFile, 16)) {
+            for (int pos = bytes.length - 1; pos >= 0; pos--) {
+                reader.seek(pos);
+                assertEquals(bytes[pos] & 0xff, reader.read());
+                assertEquals(pos + 1, reader.getFilePointer());
+            }
+            reader.seek(bytes.length);
+            assertEquals(-1, reader.read());
+
+            reader.seek(getOffset("12:34:56") + 3);
+            CharSequence line = reader.getNextLine();
+            assertNotNull(line);
+            assertEquals("34:56 [info] message", line.toString());
+        }
+    }
+
+    /**
+     * Test matching a pattern on a line and getting its groups
+     *
+     * @throws IOException
+     *             if an exception occurs
+     */
+    @Test
+    public void testMatcher() throws IOException {
+        Pattern pattern = Pattern.compile("(\\S+) \\[(\\w+)\\] (.*)");
+        try (MappedLineReader reader = new MappedLineReader(testFile)) {
+            reader.seek(getOffset("12:34:56"));
+            CharSequence line = reader.getNextLine();
+            assertNotNull(line);
+            Matcher matcher = pattern.matcher(line);
+            assertTrue(matcher.matches());
+            /* The line stays valid after reading the next one */
+            assertNotNull(reader.getNextLine());
+            assertEquals("12:34:56", matcher.group(1));
+            assertEquals("info", matcher.group(2));
+            assertEquals("message", matcher.group(3));
+            assertEquals("info", line.subSequence(10, 14).toString());
+        }
+    }
+
+    /**
+     * Test reading the lines appended to the file after it was opened
+     *
+     * @throws IOException
+     *             if an exception occurs
+     */
+    @Test
+    public void testAppend() throws IOException {
+        for (int windowSize : new int[] { 8, 4096 }) {
+            File file = File.createTempFile("test", ".txt");
+            try (MappedLineReader reader = new MappedLineReader(file, windowSize)) {
+                append(file, "first\nsec");
+                CharSequence line = reader.getNextLine();
+                assertNotNull(line);
+                assertEquals("first", line.toString());
+
+                /* The end of the line is written after its start was mapped */
+                append(file, "ond\n");
+                line = reader.getNextLine();
+                assertNotNull(line);
+                assertEquals("second", line.toString());
+                assertNull(reader.getNextLine());
+                assertEquals(-1, reader.read());
+
+                append(file, "a line longer than the window\nlast");
+                assertEquals(file.length(), reader.length());
+                line = reader.getNextLine();
+                assertNotNull(line);
+                assertEquals("a line longer than the window", line.toString());
+                line = reader.getNextLine();
+                assertNotNull(line);
+                assertEquals("last", line.toString());
+                assertNull(reader.getNextLine());
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    private static void append(File file, String text) throws IOException {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    private static long getOffset(String text) {
+        return CONTENT.substring(0, CONTENT.indexOf(text)).getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.core.tests.parsers.custom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.parsers.custom.CustomTxtTrace;
+import org.eclipse.tracecompass.tmf.core.parsers.custom.CustomTxtTraceDefinition;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test reading a custom text trace large enough for its events to be read
+ * ahead in parallel. The events must be the same, and in the same order, as
+ * when they are parsed one after the other. The events are only read ahead on
+ * machines with more than one processor.
+ */
+public class CustomTxtReadAheadTest {
+
+    private static final String DEFINITION_PATH = "testfiles" + File.separator + "txt" + File.separator + "testTxtDefinition.xml";
+    private static final String TIMESTAMP_FORMAT = "dd/MM/yyyy HH:mm:ss:SSS";
+    private static final int NB_EVENTS = 100000;
+    private static final long MILLISECOND_TO_NANOSECOND = 1000000;
+
+    private File fFile;
+    private CustomTxtTrace fTrace;
+
+    /**
+     * Create a trace of multi-line events, a few megabytes long
+     *
+     * @throws IOException
+     *             if the trace file could not be written
+     * @throws TmfTraceException
+     *             if the trace could not be opened
+     */
+    @Before
+    public void setup() throws IOException, TmfTraceException {
+        fFile = File.createTempFile("readahead", ".txt");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fFile))) {
+            for (int i = 0; i < NB_EVENTS; i++) {
+                writer.write(getFirstLine(i) + '\n');
+                for (int j = 0; j < getNbExtraLines(i); j++) {
+                    writer.write("extra-line-" + j + '\n');
+                }
+            }
+        }
+        CustomTxtTraceDefinition definition = CustomTxtTraceDefinition.loadAll(new File(DEFINITION_PATH).toString())[0];
+        fTrace = new CustomTxtTrace(null, definition, fFile.getPath(), 100);
+    }
+
+    /**
+     * Delete the trace
+     */
+    @After
+    public void cleanup() {
+        fTrace.dispose();
+        fFile.delete();
+    }
+
+    /**
+     * Read all the events in sequence
+     */
+    @Test
+    public void testReadAll() {
+        ITmfContext context = fTrace.seekEvent((ITmfLocation) null);
+        for (int i = 0; i < NB_EVENTS; i++) {
+            ITmfEvent event = fTrace.getNext(context);
+            assertNotNull(event);
+            assertEquals(getContent(i), event.getContent().getValue().toString());
+            assertEquals(i * MILLISECOND_TO_NANOSECOND, event.getTimestamp().toNanos());
+        }
+        assertNull(fTrace.getNext(context));
+        context.dispose();
+    }
+
+    /**
+     * Read the events in sequence from the middle of the trace, after having
+     * read the start of the trace
+     */
+    @Test
+    public void testReadFromMiddle() {
+        ITmfContext context = fTrace.seekEvent((ITmfLocation) null);
+        for (int i = 0; i < NB_EVENTS / 10; i++) {
+            assertNotNull(fTrace.getNext(context));
+        }
+        context.dispose();
+
+        context = fTrace.seekEvent(0.5);
+        ITmfEvent event = fTrace.getNext(context);
+        assertNotNull(event);
+        int first = (int) (event.getTimestamp().toNanos() / MILLISECOND_TO_NANOSECOND);
+        for (int i = first + 1; i < NB_EVENTS; i++) {
+            event = fTrace.getNext(context);
+            assertNotNull(event);
+            assertEquals(getContent(i), event.getContent().getValue().toString());
+        }
+        assertNull(fTrace.getNext(context));
+        context.dispose();
+    }
+
+    private static String getFirstLine(int i) {
+        return new SimpleDateFormat(TIMESTAMP_FORMAT).format(new Date(i)) + " hello world " + i;
+    }
+
+    private static int getNbExtraLines(int i) {
+        return (i % 3 == 0) ? (i % 7) * 3 : i % 3;
+    }
+
+    private static String getContent(int i) {
+        StringBuilder content = new StringBuilder(getFirstLine(i));
+        for (int j = 0; j < getNbExtraLines(i); j++) {
+            content.append("\nextra-line-").append(j);
+        }
+        return content.toString();
+    }
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.core.tests.parsers.custom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.parsers.custom.CustomXmlEvent;
+import org.eclipse.tracecompass.tmf.core.parsers.custom.CustomXmlTrace;
+import org.eclipse.tracecompass.tmf.core.parsers.custom.CustomXmlTraceDefinition;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+/**
+ * Test that the events of a custom XML trace, whose records are parsed with a
+ * pull parser, are the same as the ones extracted from the DOM tree of the
+ * records.
+ */
+public class CustomXmlStreamingTest {
+
+    private static final String DEFINITION_PATH = "testfiles" + File.separator + "xml" + File.separator + "testDefinition.xml";
+    private static final int NB_EVENTS = 1000;
+
+    private File fFile;
+    private CustomXmlTrace fTrace;
+    private CustomXmlTraceDefinition fDefinition;
+
+    /**
+     * Create a trace with records of various shapes
+     *
+     * @throws IOException
+     *             if the trace file could not be written
+     * @throws TmfTraceException
+     *             if the trace could not be opened
+     */
+    @Before
+    public void setup() throws IOException, TmfTraceException {
+        fFile = File.createTempFile("streaming", ".xml");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(fFile), StandardCharsets.UTF_8)) {
+            writer.write("<trace>\n");
+            for (int i = 0; i < NB_EVENTS; i++) {
+                if (i % 5 == 0) {
+                    /* Multi-byte characters before a record on the same line */
+                    writer.write("été ");
+                }
+                writer.write(getRecord(i));
+                writer.write(i % 4 == 0 ? " " : "\n");
+            }
+            writer.write("</trace>\n");
+        }
+        fDefinition = CustomXmlTraceDefinition.loadAll(new File(DEFINITION_PATH).toString())[2];
+        fTrace = new CustomXmlTrace(null, fDefinition, fFile.getPath(), 100);
+    }
+
+    /**
+     * Delete the trace
+     */
+    @After
+    public void cleanup() {
+        fTrace.dispose();
+        fFile.delete();
+    }
+
+    /**
+     * Read all the events and compare them with the events extracted from the
+     * DOM tree of their record, then seek back to their location
+     *
+     * @throws Exception
+     *             if a record could not be parsed into a DOM tree
+     */
+    @Test
+    public void testReadAll() throws Exception {
+        List<ITmfLocation> locations = new ArrayList<>();
+        List<String> events = new ArrayList<>();
+        ITmfContext context = fTrace.seekEvent((ITmfLocation) null);
+        for (int i = 0; i < NB_EVENTS; i++) {
+            locations.add(context.getLocation());
+            ITmfEvent event = fTrace.getNext(context);
+            assertNotNull(event);
+            assertEquals(i, event.getTimestamp().getValue());
+
+            String record = event.getContent().getValue().toString();
+            Element element = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                    .parse(new ByteArrayInputStream(record.getBytes(StandardCharsets.UTF_8))).getDocumentElement();
+            CustomXmlEvent expected = fTrace.extractEvent(element, fTrace.getRecordInputElement(fDefinition.rootInputElement));
+            assertEquals(toString(expected), toString(event));
+            events.add(toString(event));
+        }
+        assertNull(fTrace.getNext(context));
+        context.dispose();
+
+        for (int i = 0; i < NB_EVENTS; i += 7) {
+            context = fTrace.seekEvent(locations.get(i));
+            ITmfEvent event = fTrace.getNext(context);
+            assertNotNull(event);
+            assertEquals(events.get(i), toString(event));
+            context.dispose();
+        }
+    }
+
+    private static String getRecord(int i) {
+        StringBuilder record = new StringBuilder();
+        record.append("<event name=\"e").append(i).append("\" timestamp=\"").append(i).append("\">");
+        switch (i % 4) {
+        case 0:
+            record.append("<field name=\"a\" value=\"x &amp; ").append(i).append("\"/>");
+            break;
+        case 1:
+            record.append("\n  <fieldName value=\"b\"/>\n  <fieldValue value='").append(i).append("'/>\n");
+            break;
+        case 2:
+            record.append("text <other><field name=\"c\" value=\"d\"/></other><field name=\"e\" value=\"f\"></field>");
+            break;
+        default:
+            break;
+        }
+        return record.append("</event>").toString();
+    }
+
+    private static String toString(ITmfEvent event) {
+        return event.getName() + '|' + event.getTimestamp().getValue() + '|' + event.getContent().getFields();
+    }
+}
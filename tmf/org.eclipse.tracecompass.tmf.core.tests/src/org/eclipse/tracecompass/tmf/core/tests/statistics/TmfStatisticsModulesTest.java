@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.core.tests.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+import org.eclipse.tracecompass.statesystem.core.StateSystemBuilderUtils;
+import org.eclipse.tracecompass.statesystem.core.StateSystemFactory;
+import org.eclipse.tracecompass.statesystem.core.backend.StateHistoryBackendFactory;
+import org.eclipse.tracecompass.statesystem.core.exceptions.AttributeNotFoundException;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfAnalysisException;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.statistics.TmfStateStatistics.Attributes;
+import org.eclipse.tracecompass.tmf.core.statistics.TmfStatisticsEventTypesModule;
+import org.eclipse.tracecompass.tmf.core.statistics.TmfStatisticsTotalsModule;
+import org.eclipse.tracecompass.tmf.core.tests.shared.TmfTestTrace;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
+import org.eclipse.tracecompass.tmf.tests.stubs.trace.TmfTraceStub;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+/**
+ * Test that the statistics state systems, built by the totals and event types
+ * modules, hold the same counts as a state system where each event increments
+ * the attributes, like the statistics providers used to do.
+ */
+public class TmfStatisticsModulesTest {
+
+    /** Time-out tests after 1 minute */
+    @Rule
+    public TestRule globalTimeout = new Timeout(1, TimeUnit.MINUTES);
+
+    private static TmfTraceStub fTrace;
+    private static TmfStatisticsTotalsModule fTotalsMod;
+    private static TmfStatisticsEventTypesModule fEventTypesMod;
+    private static ITmfStateSystem fReference;
+    private static List<Long> fTimes = new ArrayList<>();
+
+    /**
+     * Build the statistics state systems of the test trace, and the reference
+     * state system
+     *
+     * @throws TmfTraceException
+     *             if the trace cannot be opened
+     * @throws TmfAnalysisException
+     *             if the modules cannot be assigned the trace
+     * @throws AttributeNotFoundException
+     *             if a count of the reference is not an integer
+     */
+    @BeforeClass
+    public static void setUp() throws TmfTraceException, TmfAnalysisException, AttributeNotFoundException {
+        TmfTraceStub trace = new TmfTraceStub(TmfTestTrace.A_TEST_10K.getFullPath(), ITmfTrace.DEFAULT_TRACE_CACHE_SIZE, false, null);
+        trace.indexTrace(true);
+        fTrace = trace;
+
+        fTotalsMod = new TmfStatisticsTotalsModule();
+        fEventTypesMod = new TmfStatisticsEventTypesModule();
+        fTotalsMod.setTrace(trace);
+        fEventTypesMod.setTrace(trace);
+        fTotalsMod.schedule();
+        fEventTypesMod.schedule();
+        assertTrue(fTotalsMod.waitForCompletion());
+        assertTrue(fEventTypesMod.waitForCompletion());
+
+        fReference = buildReference(trace);
+    }
+
+    /**
+     * Count the events of the trace by incrementing the attributes for each
+     * event, and keep the times to query: the time of each event and the time
+     * just before it
+     */
+    private static ITmfStateSystem buildReference(ITmfTrace trace) throws AttributeNotFoundException {
+        long start = trace.getStartTime().toNanos();
+        ITmfStateSystemBuilder ss = StateSystemFactory.newStateSystem(StateHistoryBackendFactory.createInMemoryBackend("reference", start)); //$NON-NLS-1$
+        ITmfContext context = trace.seekEvent(0);
+        ITmfEvent event = trace.getNext(context);
+        long prevTs = Long.MIN_VALUE;
+        while (event != null) {
+            long ts = event.getTimestamp().toNanos();
+            StateSystemBuilderUtils.incrementAttributeInt(ss, ts, ss.getQuarkAbsoluteAndAdd(Attributes.TOTAL), 1);
+            StateSystemBuilderUtils.incrementAttributeInt(ss, ts, ss.getQuarkAbsoluteAndAdd(Attributes.EVENT_TYPES, event.getName()), 1);
+            if (ts != prevTs) {
+                if (ts - 1 > prevTs && ts > start) {
+                    fTimes.add(ts - 1);
+                }
+                fTimes.add(ts);
+                prevTs = ts;
+            }
+            event = trace.getNext(context);
+        }
+        context.dispose();
+        ss.closeHistory(trace.getEndTime().toNanos());
+        return ss;
+    }
+
+    /**
+     * Dispose the modules and the trace
+     */
+    @AfterClass
+    public static void tearDown() {
+        fTotalsMod.dispose();
+        fEventTypesMod.dispose();
+        fReference.dispose();
+        fTrace.dispose();
+        TmfTraceManager.deleteSupplementaryFiles(fTrace);
+        fTimes.clear();
+    }
+
+    /**
+     * Compare the values of an attribute of a module state system to the
+     * reference at every time of interest
+     */
+    private static void assertSameCounts(ITmfStateSystem ss, String... path) throws StateSystemDisposedException {
+        int refQuark = fReference.optQuarkAbsolute(path);
+        int quark = ss.optQuarkAbsolute(path);
+        assertNotEquals(ITmfStateSystem.INVALID_ATTRIBUTE, refQuark);
+        assertNotEquals(ITmfStateSystem.INVALID_ATTRIBUTE, quark);
+        for (long time : fTimes) {
+            assertEquals(String.join("/", path) + " at " + time, //$NON-NLS-1$ //$NON-NLS-2$
+                    fReference.querySingleState(time, refQuark).getValue(),
+                    ss.querySingleState(time, quark).getValue());
+        }
+    }
+
+    /**
+     * Test the total number of events at every event
+     *
+     * @throws StateSystemDisposedException
+     *             if a state system is disposed
+     */
+    @Test
+    public void testTotals() throws StateSystemDisposedException {
+        ITmfStateSystem ss = fTotalsMod.getStateSystem();
+        assertNotNull(ss);
+        assertSameCounts(ss, Attributes.TOTAL);
+    }
+
+    /**
+     * Test the number of events of each type at every event
+     *
+     * @throws StateSystemDisposedException
+     *             if a state system is disposed
+     */
+    @Test
+    public void testEventTypes() throws StateSystemDisposedException {
+        ITmfStateSystem ss = fEventTypesMod.getStateSystem();
+        assertNotNull(ss);
+        List<Integer> refQuarks = fReference.getSubAttributes(fReference.optQuarkAbsolute(Attributes.EVENT_TYPES), false);
+        assertEquals(refQuarks.size(), ss.getSubAttributes(ss.optQuarkAbsolute(Attributes.EVENT_TYPES), false).size());
+        for (int refQuark : refQuarks) {
+            assertSameCounts(ss, Attributes.EVENT_TYPES, fReference.getAttributeName(refQuark));
+        }
+    }
+}
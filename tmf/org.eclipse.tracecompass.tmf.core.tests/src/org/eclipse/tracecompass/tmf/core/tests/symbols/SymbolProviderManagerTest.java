@@ -9,13 +9,20 @@
 
 package org.eclipse.tracecompass.tmf.core.tests.symbols;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Collection;
+import java.util.Collections;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.symbols.ISymbolProvider;
 import org.eclipse.tracecompass.tmf.core.symbols.SymbolProviderManager;
+import org.eclipse.tracecompass.tmf.core.symbols.SymbolProviderUtils;
+import org.eclipse.tracecompass.tmf.core.symbols.TmfResolvedSymbol;
 import org.eclipse.tracecompass.tmf.core.tests.shared.TmfTestTrace;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.core.trace.experiment.TmfExperiment;
@@ -66,4 +73,79 @@ public class SymbolProviderManagerTest {
             }
         }
     }
+
+    /**
+     * Test that the cached and batch symbol texts are the ones resolved by the
+     * symbol providers
+     */
+    @Test
+    public void testSymbolTexts() {
+        ITmfTrace trace = TmfTestTrace.A_TEST_10K.getTrace();
+        try {
+            SymbolProviderManager manager = SymbolProviderManager.getInstance();
+            Collection<ISymbolProvider> providers = manager.getSymbolProviders(trace);
+            long[] timestamps = { 0, 0, 5, 5, 10 };
+            long[] addresses = { 0x42L, 0x1000L, 0x42L, -1L, 0L };
+
+            String[] texts = manager.getSymbolTexts(trace, 1, timestamps, addresses);
+            assertEquals(addresses.length, texts.length);
+            for (int i = 0; i < addresses.length; i++) {
+                String expected = SymbolProviderUtils.getSymbolText(providers, 1, timestamps[i], addresses[i]);
+                assertEquals(expected, texts[i]);
+                /* Once from the cache, once resolved again */
+                assertEquals(expected, manager.getSymbolText(trace, 1, timestamps[i], addresses[i]));
+                manager.clearSymbolCache(trace);
+                assertEquals(expected, manager.getSymbolText(trace, 1, timestamps[i], addresses[i]));
+                assertEquals(SymbolProviderUtils.getSymbolText(providers, addresses[i]), manager.getSymbolText(trace, addresses[i]));
+            }
+        } finally {
+            trace.dispose();
+        }
+    }
+
+    /**
+     * Test that the symbols resolved in batch are those of the time of each
+     * query, with a provider whose symbols change over time
+     */
+    @Test
+    public void testSymbolTextsOverTime() {
+        ITmfTrace trace = TmfTestTrace.A_TEST_10K.getTrace();
+        try {
+            /* A library is loaded at 0x1000 from time 100 */
+            ISymbolProvider provider = new ISymbolProvider() {
+                @Override
+                public ITmfTrace getTrace() {
+                    return trace;
+                }
+
+                @Override
+                public void loadConfiguration(@Nullable IProgressMonitor monitor) {
+                    // Nothing to load
+                }
+
+                @Override
+                public @Nullable TmfResolvedSymbol getSymbol(long address) {
+                    return null;
+                }
+
+                @Override
+                public @Nullable TmfResolvedSymbol getSymbol(int pid, long timestamp, long address) {
+                    if (timestamp < 100 || address < 0x1000L) {
+                        return null;
+                    }
+                    return new TmfResolvedSymbol(0x1000L, "lib" + pid);
+                }
+            };
+            Collection<ISymbolProvider> providers = Collections.singleton(provider);
+            long[] timestamps = { 50, 150, 50, 150 };
+            long[] addresses = { 0x1010L, 0x1010L, 0x10L, 0x1010L };
+            String[] texts = SymbolProviderUtils.getSymbolTexts(providers, 3, timestamps, addresses);
+            assertArrayEquals(new String[] { "0x1010", "lib3", "0x10", "lib3" }, texts);
+            for (int i = 0; i < addresses.length; i++) {
+                assertEquals(SymbolProviderUtils.getSymbolText(providers, 3, timestamps[i], addresses[i]), texts[i]);
+            }
+        } finally {
+            trace.dispose();
+        }
+    }
 }
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.core.tests.symbols;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.eclipse.tracecompass.internal.tmf.core.symbols.SymbolTextCache;
+import org.eclipse.tracecompass.tmf.core.tests.shared.TmfTestTrace;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the {@link SymbolTextCache} class
+ */
+public class SymbolTextCacheTest {
+
+    private ITmfTrace fTrace;
+    private ITmfTrace fOtherTrace;
+
+    /**
+     * Open the traces
+     */
+    @Before
+    public void setUp() {
+        fTrace = TmfTestTrace.A_TEST_10K.getTrace();
+        fOtherTrace = TmfTestTrace.A_TEST_10K2.getTrace();
+    }
+
+    /**
+     * Dispose the traces
+     */
+    @After
+    public void tearDown() {
+        fTrace.dispose();
+        fOtherTrace.dispose();
+    }
+
+    /**
+     * Test that a text is found at any time of its validity range, for its
+     * trace, process and address only
+     */
+    @Test
+    public void testValidityRange() {
+        SymbolTextCache cache = new SymbolTextCache();
+        cache.put(fTrace, 1, 0x42L, 100, 200, "foo");
+        assertEquals("foo", cache.get(fTrace, 1, 100, 0x42L));
+        assertEquals("foo", cache.get(fTrace, 1, 150, 0x42L));
+        assertEquals("foo", cache.get(fTrace, 1, 200, 0x42L));
+        assertNull(cache.get(fTrace, 1, 99, 0x42L));
+        assertNull(cache.get(fTrace, 1, 201, 0x42L));
+        assertNull(cache.get(fTrace, 2, 150, 0x42L));
+        assertNull(cache.get(fTrace, 1, 150, 0x43L));
+        assertNull(cache.get(fOtherTrace, 1, 150, 0x42L));
+    }
+
+    /**
+     * Test that an address has a text per validity range, and that the
+     * oldest ranges are dropped
+     */
+    @Test
+    public void testManyRanges() {
+        SymbolTextCache cache = new SymbolTextCache();
+        for (int i = 0; i < 20; i++) {
+            cache.put(fTrace, 1, 0x42L, i * 10, i * 10 + 9, "foo" + i);
+        }
+        assertEquals("foo19", cache.get(fTrace, 1, 195, 0x42L));
+        assertEquals("foo12", cache.get(fTrace, 1, 120, 0x42L));
+        assertNull(cache.get(fTrace, 1, 5, 0x42L));
+    }
+
+    /**
+     * Test removing the texts of a trace
+     */
+    @Test
+    public void testClear() {
+        SymbolTextCache cache = new SymbolTextCache();
+        cache.put(fTrace, 1, 0x42L, Long.MIN_VALUE, Long.MAX_VALUE, "foo");
+        cache.put(fOtherTrace, 1, 0x42L, Long.MIN_VALUE, Long.MAX_VALUE, "bar");
+        cache.clear(fTrace);
+        assertNull(cache.get(fTrace, 1, 0, 0x42L));
+        assertEquals("bar", cache.get(fOtherTrace, 1, 0, 0x42L));
+        cache.clear();
+        assertNull(cache.get(fOtherTrace, 1, 0, 0x42L));
+    }
+}
@@ -13,6 +13,7 @@
 package org.eclipse.tracecompass.tmf.core.tests.synchronization;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -23,20 +24,31 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.internal.tmf.core.synchronization.SyncAlgorithmFullyIncremental;
 import org.eclipse.tracecompass.internal.tmf.core.synchronization.TmfTimestampTransformLinearFast;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.matching.IEventMatchingKey;
+import org.eclipse.tracecompass.tmf.core.event.matching.ITmfMatchEventDefinition;
 import org.eclipse.tracecompass.tmf.core.event.matching.TmfEventDependency;
 import org.eclipse.tracecompass.tmf.core.event.matching.TmfEventDependency.DependencyEvent;
+import org.eclipse.tracecompass.tmf.core.event.matching.TmfEventMatching;
+import org.eclipse.tracecompass.tmf.core.event.matching.TmfEventMatching.Direction;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
 import org.eclipse.tracecompass.tmf.core.synchronization.ITmfTimestampTransform;
 import org.eclipse.tracecompass.tmf.core.synchronization.SynchronizationAlgorithm;
 import org.eclipse.tracecompass.tmf.core.synchronization.SynchronizationAlgorithm.SyncQuality;
 import org.eclipse.tracecompass.tmf.core.synchronization.SynchronizationAlgorithmFactory;
+import org.eclipse.tracecompass.tmf.core.synchronization.SynchronizationManager;
 import org.eclipse.tracecompass.tmf.core.synchronization.TimestampTransformFactory;
+import org.eclipse.tracecompass.tmf.core.tests.shared.TmfTestTrace;
 import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.tests.stubs.event.TmfSyncEventStub;
@@ -297,4 +309,194 @@ public class SyncTest {
 
     }
 
+    /**
+     * Testing that a fully incremental synchronization read back from its
+     * serialized form keeps its hulls and continues with the next matches as
+     * if it had not been interrupted, and that the intermediate results are
+     * published while matching
+     */
+    @Test
+    public void testFullyIncrementalResume() {
+        long[][] matches = { { 2, 1, 1, 1 }, { 1, 1, 2, 3 }, { 2, 2, 1, 3 }, { 1, 3, 2, 5 },
+                { 1, 4, 2, 8 }, { 2, 4, 1, 5 }, { 2, 4, 1, 6 }, { 1, 6, 2, 7 } };
+
+        /* Uninterrupted run */
+        SynchronizationAlgorithm reference = SynchronizationAlgorithmFactory.getFullyIncrementalAlgorithm();
+        reference.init(fTraces);
+        for (long[] match : matches) {
+            addSyncMatch(reference, match);
+        }
+
+        /* Run interrupted by a serialization before the result is accurate */
+        SynchronizationAlgorithm syncAlgo = SynchronizationAlgorithmFactory.getFullyIncrementalAlgorithm();
+        syncAlgo.init(fTraces);
+        assertTrue(Double.isNaN(syncAlgo.getSynchronizationAccuracy(t1, t2)));
+        for (int i = 0; i < 3; i++) {
+            addSyncMatch(syncAlgo, matches[i]);
+        }
+        assertEquals(SyncQuality.APPROXIMATE, syncAlgo.getSynchronizationQuality(t1, t2));
+        assertEquals(Double.POSITIVE_INFINITY, syncAlgo.getSynchronizationAccuracy(t1, t2), 0);
+
+        SynchronizationAlgorithm resumed = serializeAndRead(syncAlgo);
+        List<Double> accuracies = new LinkedList<>();
+        resumed.setUpdateListener(algo -> accuracies.add(algo.getSynchronizationAccuracy(t1, t2)), 2);
+        for (int i = 3; i < matches.length; i++) {
+            addSyncMatch(resumed, matches[i]);
+        }
+
+        assertEquals(reference.toString(), resumed.toString());
+        assertEquals(reference.getTimestampTransform(t2), resumed.getTimestampTransform(t2));
+        assertEquals(SyncQuality.ACCURATE, resumed.getSynchronizationQuality(t1, t2));
+        double accuracy = reference.getSynchronizationAccuracy(t1, t2);
+        assertFalse(Double.isInfinite(accuracy));
+        assertEquals(accuracy, resumed.getSynchronizationAccuracy(t1, t2), 0);
+
+        /* The listener is notified every 2 matches, the accuracy improves */
+        assertEquals(2, accuracies.size());
+        assertTrue(accuracies.get(0) >= accuracies.get(1));
+        assertTrue(accuracies.get(1) >= accuracy);
+    }
+
+    /**
+     * Matches the events of a trace, as causes, with the events of another
+     * trace at the same timestamp, as effects, up to a time, as if the traces
+     * ended there
+     */
+    private static class TruncatedEventMatching implements ITmfMatchEventDefinition {
+
+        private final ITmfTrace fCauseTrace;
+        private final ITmfTrace fEffectTrace;
+        private long fEndTime = Long.MAX_VALUE;
+
+        public TruncatedEventMatching(ITmfTrace causeTrace, ITmfTrace effectTrace) {
+            fCauseTrace = causeTrace;
+            fEffectTrace = effectTrace;
+        }
+
+        @Override
+        public IEventMatchingKey getEventKey(ITmfEvent event) {
+            return new TimestampKey(event.getTimestamp().getValue());
+        }
+
+        @Override
+        public boolean canMatchTrace(ITmfTrace trace) {
+            return trace == fCauseTrace || trace == fEffectTrace;
+        }
+
+        @Override
+        public Direction getDirection(ITmfEvent event) {
+            if (event.getTimestamp().getValue() > fEndTime) {
+                return null;
+            }
+            if (event.getTrace() == fCauseTrace) {
+                return Direction.CAUSE;
+            }
+            return (event.getTrace() == fEffectTrace) ? Direction.EFFECT : null;
+        }
+    }
+
+    private static class TimestampKey implements IEventMatchingKey {
+
+        private final long fTime;
+
+        public TimestampKey(long time) {
+            fTime = time;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(fTime);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            return (o instanceof TimestampKey) && ((TimestampKey) o).fTime == fTime;
+        }
+    }
+
+    /**
+     * Testing that the synchronization manager continues the matching saved
+     * in a synchronization file with the events after its last match, as if
+     * the traces grew, and that it matches all the events again once the
+     * timestamps of the traces are transformed
+     *
+     * @throws TmfTraceException
+     *             If the traces cannot be opened
+     * @throws IOException
+     *             If the synchronization files cannot be created
+     */
+    @Test
+    public void testManagerResume() throws TmfTraceException, IOException {
+        TmfTraceStub trace1 = new TmfTraceStub(TmfTestTrace.A_TEST_10K.getFullPath(), ITmfTrace.DEFAULT_TRACE_CACHE_SIZE, false, null);
+        /* The same events, traced on another host */
+        TmfTraceStub trace2 = new TmfTraceStub(TmfTestTrace.A_TEST_10K.getFullPath(), ITmfTrace.DEFAULT_TRACE_CACHE_SIZE, false, null) {
+            @Override
+            public String getHostId() {
+                return "otherHost";
+            }
+        };
+        TruncatedEventMatching definition = new TruncatedEventMatching(trace1, trace2);
+        File syncFile = File.createTempFile("resumedSync", ".bin");
+        File fullSyncFile = File.createTempFile("fullSync", ".bin");
+        syncFile.delete();
+        fullSyncFile.delete();
+        TmfEventMatching.registerMatchObject(definition);
+        try {
+            List<@NonNull ITmfTrace> traces = new ArrayList<>();
+            traces.add(trace1);
+            traces.add(trace2);
+
+            /* Synchronize the first half of the traces */
+            definition.fEndTime = 5000;
+            List<SynchronizationAlgorithm> updates = new ArrayList<>();
+            SynchronizationAlgorithm syncAlgo = SynchronizationManager.synchronizeTraces(syncFile, traces, new SyncAlgorithmFullyIncremental(), updates::add, 100);
+            int nbMatches = syncAlgo.countMatches();
+            assertEquals(5000, nbMatches);
+            assertEquals(50, updates.size());
+            assertTrue(syncFile.exists());
+
+            /* Only the events after the last match are matched */
+            definition.fEndTime = Long.MAX_VALUE;
+            SynchronizationAlgorithm resumed = SynchronizationManager.synchronizeTraces(syncFile, traces, new SyncAlgorithmFullyIncremental(), updates::add, 100);
+            SynchronizationAlgorithm full = SynchronizationManager.synchronizeTraces(fullSyncFile, traces, new SyncAlgorithmFullyIncremental(), updates::add, 100);
+            assertEquals(10000, full.countMatches());
+            assertEquals(full.countMatches() - nbMatches, resumed.countMatches());
+            assertEquals(full.toString(), resumed.toString());
+            assertEquals(full.getTimestampTransform(trace2), resumed.getTimestampTransform(trace2));
+
+            /* The saved hulls are not mixed with transformed timestamps */
+            trace2.setTimestampTransform(TimestampTransformFactory.createWithOffset(1));
+            SynchronizationAlgorithm transformed = SynchronizationManager.synchronizeTraces(syncFile, traces, new SyncAlgorithmFullyIncremental(), updates::add, 100);
+            assertEquals(full.countMatches(), transformed.countMatches());
+        } finally {
+            TmfEventMatching.unregisterMatchObject(definition);
+            trace1.dispose();
+            trace2.dispose();
+            syncFile.delete();
+            fullSyncFile.delete();
+        }
+    }
+
+    private void addSyncMatch(SynchronizationAlgorithm algo, long[] match) {
+        addSyncMatch(algo, match[0] == 1 ? t1 : t2, match[1], match[2] == 1 ? t1 : t2, match[3]);
+    }
+
+    private static SynchronizationAlgorithm serializeAndRead(SynchronizationAlgorithm syncAlgo) {
+        SynchronizationAlgorithm deserialAlgo = null;
+        try {
+            File temp = File.createTempFile("serialSyncAlgo", ".tmp");
+            try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(temp));) {
+                out.writeObject(syncAlgo);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(temp));) {
+                deserialAlgo = (SynchronizationAlgorithm) in.readObject();
+            }
+            temp.delete();
+        } catch (IOException | ClassNotFoundException e) {
+            fail("Error serializing the synchronization algorithm " + e.getMessage());
+        }
+        assertNotNull(deserialAlgo);
+        return deserialAlgo;
+    }
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2017 Ericsson
+ * Copyright (c) 2009, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License v1.0 which
@@ -19,11 +19,15 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.tracecompass.internal.tmf.core.trace.experiment.TmfExperimentContext;
+import org.eclipse.tracecompass.internal.tmf.core.trace.experiment.TmfTracePrefetcher;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
 import org.eclipse.tracecompass.tmf.core.request.ITmfEventRequest;
@@ -747,6 +751,114 @@ public class TmfMultiTraceExperimentTest {
         assertTrue("isCancelled", request.isCancelled());
     }
 
+    // ------------------------------------------------------------------------
+    // prefetch
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testProcessRequestWithPrefetch() throws InterruptedException {
+        final int startIndex = 5000;
+        final int nbEvents = 10000;
+        final Vector<ITmfEvent> requestedEvents = new Vector<>();
+
+        final TmfTimeRange range = new TmfTimeRange(TmfTimestamp.BIG_BANG, TmfTimestamp.BIG_CRUNCH);
+        final TmfEventRequest request = new TmfEventRequest(ITmfEvent.class,
+                range, startIndex, nbEvents, ExecutionType.FOREGROUND) {
+            @Override
+            public void handleData(final ITmfEvent event) {
+                super.handleData(event);
+                requestedEvents.add(event);
+            }
+        };
+        fExperiment.setPrefetchBufferSize(100);
+        try {
+            fExperiment.sendRequest(request);
+            request.waitForCompletion();
+        } finally {
+            fExperiment.setPrefetchBufferSize(0);
+        }
+
+        assertEquals("nbEvents", nbEvents, requestedEvents.size());
+        assertTrue("isCompleted",  request.isCompleted());
+        assertFalse("isCancelled", request.isCancelled());
+
+        // The events of both traces are merged in chronological order
+        for (int i = 0; i < nbEvents; i++) {
+            assertEquals("Distinct events", startIndex + i + 1, requestedEvents.get(i).getTimestamp().getValue());
+        }
+    }
+
+    @Test
+    public void testCancelWithPrefetch() throws InterruptedException {
+        final int nbEvents  = NB_EVENTS;
+        final int limit = BLOCK_SIZE;
+        final Vector<ITmfEvent> requestedEvents = new Vector<>();
+
+        final TmfTimeRange range = new TmfTimeRange(TmfTimestamp.BIG_BANG, TmfTimestamp.BIG_CRUNCH);
+        final TmfEventRequest request = new TmfEventRequest(ITmfEvent.class,
+                range, 0, nbEvents, ExecutionType.FOREGROUND) {
+            int nbRead = 0;
+
+            @Override
+            public void handleData(final ITmfEvent event) {
+                super.handleData(event);
+                requestedEvents.add(event);
+                if (++nbRead == limit) {
+                    cancel();
+                }
+            }
+        };
+        fExperiment.setPrefetchBufferSize(10);
+        try {
+            fExperiment.sendRequest(request);
+            request.waitForCompletion();
+        } finally {
+            fExperiment.setPrefetchBufferSize(0);
+        }
+
+        assertEquals("nbEvents",  limit, requestedEvents.size());
+        assertTrue("isCompleted", request.isCompleted());
+        assertTrue("isCancelled", request.isCancelled());
+    }
+
+    @Test
+    public void testPrefetchError() throws TmfTraceException {
+        final int nbEvents = 100;
+        final IllegalStateException error = new IllegalStateException("Parse error");
+        final AtomicBoolean failing = new AtomicBoolean();
+        TmfTraceStub trace = new TmfTraceStub(TmfTestTrace.O_TEST_10K.getFullPath(), 0, true, null) {
+            @Override
+            public synchronized ITmfEvent getNext(ITmfContext context) {
+                if (failing.get() && context.getRank() == nbEvents) {
+                    throw error;
+                }
+                return super.getNext(context);
+            }
+        };
+        // Only fail once the trace is indexed
+        failing.set(true);
+        try {
+            ITmfContext context = trace.seekEvent(0);
+            TmfTracePrefetcher prefetcher = new TmfTracePrefetcher(trace, context, 10);
+            prefetcher.start();
+            // The events read before the error are all returned
+            for (int i = 0; i < nbEvents; i++) {
+                assertNotNull("event " + i, prefetcher.take());
+            }
+            try {
+                prefetcher.take();
+                fail("The error should be thrown by take");
+            } catch (IllegalStateException e) {
+                assertSame(error, e);
+            }
+            assertNull(prefetcher.take());
+            prefetcher.cancel();
+            context.dispose();
+        } finally {
+            trace.dispose();
+        }
+    }
+
     // ------------------------------------------------------------------------
     // getTimestamp
     // ------------------------------------------------------------------------
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2014 Ericsson
+ * Copyright (c) 2009, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License v1.0 which
@@ -14,10 +14,55 @@
 
 package org.eclipse.tracecompass.tmf.core.tests.trace.indexer.checkpoint;
 
+import static org.junit.Assert.assertFalse;
+
+import org.eclipse.core.runtime.jobs.IJobManager;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.ITmfCheckpointIndex;
+import org.junit.Test;
 
 /**
  * Test suite for the TmfCheckpointIndexTest class.
  */
 public class TmfCheckpointIndexTest extends AbstractIndexTest {
 
-}
\ No newline at end of file
+    private static class SeedingIndexer extends TestIndexer {
+        public SeedingIndexer(ITmfTrace testTrace) {
+            super(testTrace);
+        }
+
+        @Override
+        protected boolean seedIndex(ITmfCheckpointIndex index) {
+            return false;
+        }
+    }
+
+    /**
+     * Test that disposing an indexer before its seeding job runs releases the
+     * threads waiting for the index and stops the indexing
+     *
+     * @throws InterruptedException
+     *             If the test is interrupted
+     */
+    @Test
+    public void testDisposeBeforeSeeding() throws InterruptedException {
+        SeedingIndexer indexer = new SeedingIndexer(fTrace);
+        IJobManager jobManager = Job.getJobManager();
+        jobManager.suspend();
+        Thread thread = new Thread(() -> indexer.buildIndex(0, TmfTimeRange.ETERNITY, true));
+        try {
+            thread.start();
+            while (thread.getState() != Thread.State.WAITING && thread.isAlive()) {
+                Thread.sleep(10);
+            }
+            indexer.dispose();
+        } finally {
+            jobManager.resume();
+        }
+        thread.join(10000);
+        assertFalse(thread.isAlive());
+        assertFalse(indexer.isIndexing());
+    }
+}
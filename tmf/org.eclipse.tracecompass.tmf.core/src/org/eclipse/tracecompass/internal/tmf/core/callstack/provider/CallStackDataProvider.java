@@ -39,7 +39,6 @@ import org.eclipse.tracecompass.tmf.core.response.ITmfResponse;
 import org.eclipse.tracecompass.tmf.core.response.TmfModelResponse;
 import org.eclipse.tracecompass.tmf.core.symbols.ISymbolProvider;
 import org.eclipse.tracecompass.tmf.core.symbols.SymbolProviderManager;
-import org.eclipse.tracecompass.tmf.core.symbols.SymbolProviderUtils;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.core.util.Pair;
 
@@ -94,7 +93,7 @@ public class CallStackDataProvider extends AbstractTimeGraphDataProvider<@NonNul
                         name = "0x" + Long.toUnsignedString(address, 16); //$NON-NLS-1$
                     }
                     if (address != null) {
-                        name = SymbolProviderUtils.getSymbolText(fProviders, pid, interval.getStartTime(), address);
+                        name = SymbolProviderManager.getInstance().getSymbolText(getTrace(), pid, interval.getStartTime(), address);
                     }
                     return name;
                 }
@@ -280,6 +279,7 @@ public class CallStackDataProvider extends AbstractTimeGraphDataProvider<@NonNul
      */
     public void resetFunctionNames(@Nullable IProgressMonitor monitor) {
         fTimeEventNames.invalidateAll();
+        SymbolProviderManager.getInstance().clearSymbolCache(getTrace());
         synchronized (fProviders) {
             Collection<@NonNull ISymbolProvider> symbolProviders = SymbolProviderManager.getInstance().getSymbolProviders(getTrace());
             SubMonitor sub = SubMonitor.convert(monitor, "CallStackDataProvider#resetFunctionNames", symbolProviders.size()); //$NON-NLS-1$
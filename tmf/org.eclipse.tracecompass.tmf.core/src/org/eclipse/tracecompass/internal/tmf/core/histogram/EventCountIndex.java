@@ -0,0 +1,378 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.tmf.core.histogram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.tmf.core.Activator;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
+
+/**
+ * A compact index of the number of events of a trace over time, used to answer
+ * histogram queries without querying the statistics state system.
+ * <p>
+ * Events are counted in buckets of a power-of-two width in nanoseconds. The
+ * width starts at 1 ns and is doubled, merging the buckets two by two,
+ * whenever the trace would need more than {@link #MAX_BUCKETS} buckets. Once
+ * built, the prefix sums of the counts give the number of events in any range
+ * of buckets, hence at any coarser power-of-two resolution, with two array
+ * reads.
+ * <p>
+ * Each bucket also keeps the timestamps of its first and last events, so the
+ * count at a time is exact unless that time falls between the first and last
+ * events of its bucket. The count at those times is interpolated linearly
+ * between the first and last events of the bucket, so it is off by less than
+ * the number of events of that bucket.
+ * <p>
+ * The index is built by the statistics analysis and saved as a supplementary
+ * file of the trace.
+ */
+public final class EventCountIndex {
+
+    /** Name of the supplementary file */
+    public static final String FILE_NAME = "statistics-histogram.idx"; //$NON-NLS-1$
+
+    private static final int MAGIC = 0x7C0C1D58;
+    private static final int FILE_VERSION = 1;
+
+    /** Maximum number of buckets, the width is doubled above that */
+    private static final int MAX_BUCKETS = 1 << 16;
+
+    private static final int INITIAL_BUCKETS = 1024;
+
+    private long fOrigin;
+    private int fShift;
+    private long[] fCounts;
+    /* Timestamps of the first and last events of each bucket */
+    private long[] fFirst;
+    private long[] fLast;
+    private int fNbBuckets;
+    private long @Nullable [] fPrefixSums = null;
+
+    private EventCountIndex(long origin, int shift, long[] counts, long[] first, long[] last, int nbBuckets) {
+        fOrigin = origin;
+        fShift = shift;
+        fCounts = counts;
+        fFirst = first;
+        fLast = last;
+        fNbBuckets = nbBuckets;
+    }
+
+    /**
+     * Create an empty index, to be filled with {@link #addEvent(long)}
+     */
+    public EventCountIndex() {
+        this(Long.MIN_VALUE, 0, new long[INITIAL_BUCKETS], new long[INITIAL_BUCKETS], new long[INITIAL_BUCKETS], 0);
+    }
+
+    // ------------------------------------------------------------------------
+    // Building
+    // ------------------------------------------------------------------------
+
+    /**
+     * Count an event. Events are expected in chronological order.
+     *
+     * @param timestamp
+     *            The event timestamp in nanoseconds
+     */
+    public void addEvent(long timestamp) {
+        if (fPrefixSums != null) {
+            throw new IllegalStateException("The index is already finished"); //$NON-NLS-1$
+        }
+        if (fOrigin == Long.MIN_VALUE) {
+            fOrigin = timestamp;
+        }
+        /* An out of order event before the first one is counted in the first bucket */
+        long bucket = Math.max(0, timestamp - fOrigin) >>> fShift;
+        while (bucket >= MAX_BUCKETS) {
+            coarsen();
+            bucket = Math.max(0, timestamp - fOrigin) >>> fShift;
+        }
+        int index = (int) bucket;
+        if (index >= fCounts.length) {
+            int length = Math.min(MAX_BUCKETS, Math.max(index + 1, fCounts.length * 2));
+            fCounts = Arrays.copyOf(fCounts, length);
+            fFirst = Arrays.copyOf(fFirst, length);
+            fLast = Arrays.copyOf(fLast, length);
+        }
+        if (fCounts[index] == 0) {
+            fFirst[index] = timestamp;
+            fLast[index] = timestamp;
+        } else {
+            fFirst[index] = Math.min(fFirst[index], timestamp);
+            fLast[index] = Math.max(fLast[index], timestamp);
+        }
+        fCounts[index]++;
+        fNbBuckets = Math.max(fNbBuckets, index + 1);
+    }
+
+    /**
+     * Double the bucket width, aligning the origin on the new width
+     */
+    private void coarsen() {
+        int newShift = fShift + 1;
+        long newOrigin = (fOrigin >> newShift) << newShift;
+        long[] newCounts = new long[fCounts.length];
+        long[] newFirst = new long[fCounts.length];
+        long[] newLast = new long[fCounts.length];
+        int newNbBuckets = 0;
+        for (int i = 0; i < fNbBuckets; i++) {
+            if (fCounts[i] != 0) {
+                long start = fOrigin + ((long) i << fShift);
+                int newIndex = (int) ((start - newOrigin) >>> newShift);
+                if (newCounts[newIndex] == 0) {
+                    newFirst[newIndex] = fFirst[i];
+                    newLast[newIndex] = fLast[i];
+                } else {
+                    newFirst[newIndex] = Math.min(newFirst[newIndex], fFirst[i]);
+                    newLast[newIndex] = Math.max(newLast[newIndex], fLast[i]);
+                }
+                newCounts[newIndex] += fCounts[i];
+                newNbBuckets = newIndex + 1;
+            }
+        }
+        fOrigin = newOrigin;
+        fShift = newShift;
+        fCounts = newCounts;
+        fFirst = newFirst;
+        fLast = newLast;
+        fNbBuckets = newNbBuckets;
+    }
+
+    /**
+     * Finish building the index, no events can be added afterwards
+     */
+    public void finish() {
+        if (fPrefixSums != null) {
+            return;
+        }
+        fCounts = Arrays.copyOf(fCounts, fNbBuckets);
+        fFirst = Arrays.copyOf(fFirst, fNbBuckets);
+        fLast = Arrays.copyOf(fLast, fNbBuckets);
+        fPrefixSums = computePrefixSums(fCounts);
+    }
+
+    private static long[] computePrefixSums(long[] counts) {
+        long[] prefixSums = new long[counts.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            prefixSums[i + 1] = prefixSums[i] + counts[i];
+        }
+        return prefixSums;
+    }
+
+    // ------------------------------------------------------------------------
+    // Queries
+    // ------------------------------------------------------------------------
+
+    /**
+     * Get the width of the buckets
+     *
+     * @return The bucket width in nanoseconds
+     */
+    public long getBucketWidth() {
+        return 1L << fShift;
+    }
+
+    /**
+     * Get the total number of events in the index
+     *
+     * @return The number of events
+     */
+    public long getTotal() {
+        long[] prefixSums = getPrefixSums();
+        return prefixSums[prefixSums.length - 1];
+    }
+
+    /**
+     * Get the number of events at or before a time. The count is exact, unless
+     * time is between the first and last events of a bucket, where it is
+     * interpolated.
+     *
+     * @param time
+     *            The time in nanoseconds
+     * @return The number of events with a timestamp lower or equal to time
+     */
+    public long getCountAt(long time) {
+        long[] prefixSums = getPrefixSums();
+        if (fNbBuckets == 0) {
+            return 0;
+        }
+        long bucket = Math.max(0, time - fOrigin) >>> fShift;
+        if (bucket >= fNbBuckets) {
+            return prefixSums[fNbBuckets];
+        }
+        int index = (int) bucket;
+        if (fCounts[index] == 0 || time < fFirst[index]) {
+            return prefixSums[index];
+        }
+        if (time >= fLast[index]) {
+            return prefixSums[index + 1];
+        }
+        /*
+         * At least the first event and at most all but the last event of the
+         * bucket are at or before time, interpolate in between
+         */
+        long inner = fCounts[index] - 1;
+        double ratio = (double) (time - fFirst[index]) / (fLast[index] - fFirst[index]);
+        return prefixSums[index] + 1 + Math.min(inner - 1, (long) (inner * ratio));
+    }
+
+    /**
+     * Whether the times of a query are far enough apart for the counts of this
+     * index to be close to the real ones. Finer queries would mostly get
+     * counts interpolated inside the buckets.
+     *
+     * @param times
+     *            The sorted times of the query
+     * @return true if no two consecutive times are closer than the bucket
+     *         width
+     */
+    public boolean isCoarseEnough(long[] times) {
+        long bucketWidth = getBucketWidth();
+        for (int i = 1; i < times.length; i++) {
+            if (times[i] - times[i - 1] < bucketWidth) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Run a histogram query, with the same semantics as
+     * {@link org.eclipse.tracecompass.tmf.core.statistics.ITmfStatistics#histogramQuery(long[])}
+     *
+     * @param times
+     *            The sorted times of the query
+     * @param traceStart
+     *            The start time of the trace, earlier times are counted at the
+     *            start time
+     * @return The number of events for each time
+     * @see #getCountAt(long)
+     */
+    public long[] histogramQuery(long[] times, long traceStart) {
+        long[] values = new long[times.length];
+        if (times.length == 0) {
+            return values;
+        }
+        long prevTotal = (times[0] == traceStart) ? 0 : getCountAt(Math.max(traceStart, times[0] - 1));
+        for (int i = 0; i < times.length; i++) {
+            long curTotal = getCountAt(Math.max(traceStart, times[i]));
+            values[i] = curTotal - prevTotal;
+            prevTotal = curTotal;
+        }
+        return values;
+    }
+
+    private long[] getPrefixSums() {
+        long[] prefixSums = fPrefixSums;
+        if (prefixSums == null) {
+            throw new IllegalStateException("The index is not finished"); //$NON-NLS-1$
+        }
+        return prefixSums;
+    }
+
+    // ------------------------------------------------------------------------
+    // Persistence
+    // ------------------------------------------------------------------------
+
+    /**
+     * Get the supplementary file of the index for a trace
+     *
+     * @param trace
+     *            The trace
+     * @return The index file
+     */
+    public static File getIndexFile(ITmfTrace trace) {
+        return new File(TmfTraceManager.getSupplementaryFileDir(trace) + FILE_NAME);
+    }
+
+    /**
+     * Write the finished index to a file. The file is written under a
+     * temporary name first, so a partial file is never read back.
+     *
+     * @param file
+     *            The file to write
+     */
+    public void save(File file) {
+        getPrefixSums();
+        File tmpFile = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeLong(fOrigin);
+            out.writeInt(fShift);
+            out.writeInt(fNbBuckets);
+            for (int i = 0; i < fNbBuckets; i++) {
+                out.writeLong(fCounts[i]);
+                out.writeLong(fFirst[i]);
+                out.writeLong(fLast[i]);
+            }
+        } catch (IOException e) {
+            Activator.logWarning("Error writing the event count index " + file, e); //$NON-NLS-1$
+            return;
+        }
+        try {
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Activator.logWarning("Error writing the event count index " + file, e); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Read an index from a file
+     *
+     * @param file
+     *            The file to read
+     * @return The index, or <code>null</code> if the file does not exist or is
+     *         not a valid index
+     */
+    public static @Nullable EventCountIndex load(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FILE_VERSION) {
+                return null;
+            }
+            long origin = in.readLong();
+            int shift = in.readInt();
+            int nbBuckets = in.readInt();
+            if (shift < 0 || shift > 62 || nbBuckets < 0 || nbBuckets > MAX_BUCKETS) {
+                return null;
+            }
+            long[] counts = new long[nbBuckets];
+            long[] first = new long[nbBuckets];
+            long[] last = new long[nbBuckets];
+            for (int i = 0; i < nbBuckets; i++) {
+                counts[i] = in.readLong();
+                first[i] = in.readLong();
+                last[i] = in.readLong();
+            }
+            EventCountIndex index = new EventCountIndex(origin, shift, counts, first, last, nbBuckets);
+            index.fPrefixSums = computePrefixSums(counts);
+            return index;
+        } catch (IOException e) {
+            Activator.logWarning("Error reading the event count index " + file, e); //$NON-NLS-1$
+            return null;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /**********************************************************************
- * Copyright (c) 2018 Ericsson
+ * Copyright (c) 2018, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License v1.0 which
@@ -41,6 +41,7 @@ import org.eclipse.tracecompass.tmf.core.statistics.ITmfStatistics;
 import org.eclipse.tracecompass.tmf.core.statistics.TmfStateStatistics.Attributes;
 import org.eclipse.tracecompass.tmf.core.statistics.TmfStatisticsEventTypesModule;
 import org.eclipse.tracecompass.tmf.core.statistics.TmfStatisticsModule;
+import org.eclipse.tracecompass.tmf.core.statistics.TmfStatisticsTotalsModule;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 
 import com.google.common.collect.ImmutableList;
@@ -70,6 +71,8 @@ public class HistogramDataProvider extends AbstractTmfTraceDataProvider implemen
     private final long fTraceId = TRACE_IDS.getAndIncrement();
     private final long fTotalId = TRACE_IDS.getAndIncrement();
     private final long fLostId = TRACE_IDS.getAndIncrement();
+    private @Nullable EventCountIndex fIndex = null;
+    private boolean fIndexLoaded = false;
 
     /**
      * Constructor
@@ -119,10 +122,16 @@ public class HistogramDataProvider extends AbstractTmfTraceDataProvider implemen
 
         final ITmfStatistics stats = Objects.requireNonNull(fModule.getStatistics());
         if (selected.contains(fTotalId)) {
-            List<Long> values = stats.histogramQuery(filter.getTimesRequested());
-
             double[] y = new double[n];
-            Arrays.setAll(y, values::get);
+            EventCountIndex index = getEventCountIndex(stats);
+            ITmfStateSystem totalsSs = fModule.getStateSystem(TmfStatisticsTotalsModule.ID);
+            if (index != null && totalsSs != null && index.isCoarseEnough(xValues)) {
+                long[] values = index.histogramQuery(xValues, totalsSs.getStartTime());
+                Arrays.setAll(y, i -> values[i]);
+            } else {
+                List<Long> values = stats.histogramQuery(filter.getTimesRequested());
+                Arrays.setAll(y, values::get);
+            }
             String totalName = getTrace().getName() + '/' + Messages.HistogramDataProvider_Total;
             builder.put(totalName, new YModel(fTotalId, totalName, y));
         }
@@ -141,6 +150,35 @@ public class HistogramDataProvider extends AbstractTmfTraceDataProvider implemen
         return TmfXyResponseFactory.create(TITLE, xValues, builder.build(), completed);
     }
 
+    /**
+     * Get the event count index saved by the statistics analysis, once the
+     * analysis is completed. The index is discarded if its total does not
+     * match the statistics, for instance if it was written for a previous
+     * version of the trace.
+     * <p>
+     * The index is saved once the totals state system is closed, so a missing
+     * file is looked up again on the next query.
+     */
+    private @Nullable EventCountIndex getEventCountIndex(ITmfStatistics stats) {
+        if (fIndexLoaded) {
+            return fIndex;
+        }
+        ITmfStateSystem totalsSs = fModule.getStateSystem(TmfStatisticsTotalsModule.ID);
+        if (totalsSs == null || !totalsSs.waitUntilBuilt(0)) {
+            return null;
+        }
+        EventCountIndex index = EventCountIndex.load(EventCountIndex.getIndexFile(getTrace()));
+        if (index == null) {
+            return null;
+        }
+        if (index.getTotal() != stats.getEventsTotal()) {
+            index = null;
+        }
+        fIndex = index;
+        fIndexLoaded = true;
+        return index;
+    }
+
     private YModel getLostEvents(ITmfStateSystem ss, long[] times) throws StateSystemDisposedException {
         int leEndQuark = ss.optQuarkAbsolute(Attributes.LOST_EVENTS);
         int leCountQuark = ss.optQuarkAbsolute(Attributes.EVENT_TYPES, "Lost event"); //$NON-NLS-1$
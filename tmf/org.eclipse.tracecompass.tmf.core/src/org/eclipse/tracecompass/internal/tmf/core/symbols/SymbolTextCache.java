@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.tmf.core.symbols;
+
+import java.util.Objects;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Cache of symbol texts by trace, process and address. The symbol of an
+ * address may change over time, for instance when libraries are loaded and
+ * unloaded, so each text is kept with the time range over which it is valid,
+ * as given by the symbol providers. An address has a few texts at most, the
+ * ones of the ranges cached last.
+ */
+public class SymbolTextCache {
+
+    /** Maximum number of addresses kept in the cache */
+    private static final int CACHE_SIZE = 65536;
+    /** Maximum number of validity ranges kept for an address */
+    private static final int MAX_RANGES = 8;
+
+    private final Cache<SymbolKey, CachedText[]> fCache = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+
+    /**
+     * Key of the symbol texts of an address in the cache
+     */
+    private static final class SymbolKey {
+
+        private final ITmfTrace fTrace;
+        private final int fPid;
+        private final long fAddress;
+
+        private SymbolKey(ITmfTrace trace, int pid, long address) {
+            fTrace = trace;
+            fPid = pid;
+            fAddress = address;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fTrace, fPid, fAddress);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (!(obj instanceof SymbolKey)) {
+                return false;
+            }
+            SymbolKey other = (SymbolKey) obj;
+            return fTrace.equals(other.fTrace) && fPid == other.fPid && fAddress == other.fAddress;
+        }
+    }
+
+    /**
+     * A symbol text and its validity range
+     */
+    private static final class CachedText {
+
+        private final long fStart;
+        private final long fEnd;
+        private final String fText;
+
+        private CachedText(long start, long end, String text) {
+            fStart = start;
+            fEnd = end;
+            fText = text;
+        }
+    }
+
+    /**
+     * Get the cached text of the symbol of an address at a time
+     *
+     * @param trace
+     *            The trace
+     * @param pid
+     *            The process Id
+     * @param timestamp
+     *            The time of the query
+     * @param address
+     *            The address of the symbol
+     * @return The text, or <code>null</code> if there is no text of the
+     *         address valid at that time in the cache
+     */
+    public @Nullable String get(ITmfTrace trace, int pid, long timestamp, long address) {
+        CachedText[] texts = fCache.getIfPresent(new SymbolKey(trace, pid, address));
+        if (texts != null) {
+            for (CachedText text : texts) {
+                if (text.fStart <= timestamp && timestamp <= text.fEnd) {
+                    return text.fText;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cache the text of the symbol of an address over a time range
+     *
+     * @param trace
+     *            The trace
+     * @param pid
+     *            The process Id
+     * @param address
+     *            The address of the symbol
+     * @param start
+     *            The start of the validity range of the text
+     * @param end
+     *            The end of the validity range of the text, inclusive
+     * @param text
+     *            The text of the symbol
+     */
+    public void put(ITmfTrace trace, int pid, long address, long start, long end, String text) {
+        CachedText added = new CachedText(start, end, text);
+        fCache.asMap().merge(new SymbolKey(trace, pid, address), new CachedText[] { added }, (texts, newTexts) -> {
+            /* The new range first, the oldest ones are dropped */
+            int length = Math.min(texts.length, MAX_RANGES - 1);
+            CachedText[] merged = new CachedText[length + 1];
+            merged[0] = added;
+            System.arraycopy(texts, 0, merged, 1, length);
+            return merged;
+        });
+    }
+
+    /**
+     * Remove the cached texts of a trace
+     *
+     * @param trace
+     *            The trace
+     */
+    public void clear(ITmfTrace trace) {
+        fCache.asMap().keySet().removeIf(key -> key.fTrace.equals(trace));
+    }
+
+    /**
+     * Remove all the cached texts
+     */
+    public void clear() {
+        fCache.invalidateAll();
+    }
+}
@@ -15,6 +15,7 @@ package org.eclipse.tracecompass.internal.tmf.core.synchronization;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.MathContext;
@@ -46,6 +47,11 @@ import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
  * private class, while this public class manages the synchronization between
  * all traces.
  *
+ * The hulls of each pair of hosts are serialized with the algorithm, so that a
+ * synchronization read back from its file can process new matches where it
+ * left off. The methods of this class are synchronized, so the intermediate
+ * timestamp transforms can be read while the matching is running.
+ *
  * @author Geneviève Bastien
  */
 public class SyncAlgorithmFullyIncremental extends SynchronizationAlgorithm {
@@ -80,7 +86,8 @@ public class SyncAlgorithmFullyIncremental extends SynchronizationAlgorithm {
     }
 
     @Override
-    public void init(Collection<ITmfTrace> traces) {
+    public synchronized void init(Collection<ITmfTrace> traces) {
+        super.init(traces);
         ITmfTrace[] traceArr = traces.toArray(new ITmfTrace[traces.size()]);
         fSyncs.clear();
         /* Create a convex hull for all trace pairs */
@@ -97,7 +104,7 @@ public class SyncAlgorithmFullyIncremental extends SynchronizationAlgorithm {
     }
 
     @Override
-    protected void processMatch(TmfEventDependency match) {
+    protected synchronized void processMatch(TmfEventDependency match) {
         ITmfTrace trace1 = match.getSource().getTrace();
         ITmfTrace trace2 = match.getDestination().getTrace();
         String host1 = trace1.getHostId();
@@ -133,7 +140,7 @@ public class SyncAlgorithmFullyIncremental extends SynchronizationAlgorithm {
     }
 
     @Override
-    public ITmfTimestampTransform getTimestampTransform(String hostId) {
+    public synchronized ITmfTimestampTransform getTimestampTransform(String hostId) {
         SyncSpanningTree tree = getSyncTree();
         return tree.getTimestampTransform(hostId);
     }
@@ -169,7 +176,7 @@ public class SyncAlgorithmFullyIncremental extends SynchronizationAlgorithm {
     }
 
     @Override
-    public SyncQuality getSynchronizationQuality(ITmfTrace trace1, ITmfTrace trace2) {
+    public synchronized SyncQuality getSynchronizationQuality(ITmfTrace trace1, ITmfTrace trace2) {
         for (ConvexHull traceSync : fSyncs) {
             if (traceSync.isForHosts(trace1.getHostId(), trace2.getHostId())) {
                 return traceSync.getQuality();
@@ -178,6 +185,34 @@ public class SyncAlgorithmFullyIncremental extends SynchronizationAlgorithm {
         return SyncQuality.ABSENT;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * For this algorithm, the accuracy is the difference between the maximum
+     * and minimum slopes allowed by the convex hulls of the two traces. It is
+     * infinite until messages were exchanged in both directions.
+     */
+    @Override
+    public synchronized double getSynchronizationAccuracy(ITmfTrace trace1, ITmfTrace trace2) {
+        for (ConvexHull traceSync : fSyncs) {
+            if (traceSync.isForHosts(trace1.getHostId(), trace2.getHostId())) {
+                switch (traceSync.getQuality()) {
+                case ACCURATE:
+                case FAIL:
+                    /* A failed synchronization keeps the last accurate result */
+                    return traceSync.getAccuracy().doubleValue();
+                case APPROXIMATE:
+                case INCOMPLETE:
+                    return Double.POSITIVE_INFINITY;
+                case ABSENT:
+                default:
+                    return Double.NaN;
+                }
+            }
+        }
+        return Double.NaN;
+    }
+
     @Override
     public boolean isTraceSynced(String hostId) {
         ITmfTimestampTransform t = getTimestampTransform(hostId);
@@ -185,7 +220,7 @@ public class SyncAlgorithmFullyIncremental extends SynchronizationAlgorithm {
     }
 
     @Override
-    public Map<String, Map<String, Object>> getStats() {
+    public synchronized Map<String, Map<String, Object>> getStats() {
         /*
          * TODO: Stats, while still accurate, may be misleading now that the
          * sync tree changes synchronization formula. The stats should use the
@@ -193,16 +228,21 @@ public class SyncAlgorithmFullyIncremental extends SynchronizationAlgorithm {
          */
         Map<String, Map<String, Object>> statmap = new LinkedHashMap<>();
         for (ConvexHull traceSync : fSyncs) {
-            statmap.put(traceSync.getReferenceHost() + " <==> " + traceSync.getOtherHost(), traceSync.getStats()); //$NON-NLS-1$
+            /* Copy the stats, they are cleared by the next accurate match */
+            statmap.put(traceSync.getReferenceHost() + " <==> " + traceSync.getOtherHost(), new LinkedHashMap<>(traceSync.getStats())); //$NON-NLS-1$
         }
         return statmap;
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
         return getClass().getSimpleName() + ' ' + fSyncs.toString();
     }
 
+    private synchronized void writeObject(ObjectOutputStream stream) throws IOException {
+        stream.defaultWriteObject();
+    }
+
     /**
      * This is the actual synchronization algorithm between two traces using
      * convex hull
@@ -228,17 +268,17 @@ public class SyncAlgorithmFullyIncremental extends SynchronizationAlgorithm {
          * The list of meaningful points on the upper hull (received by the
          * reference trace, below in a graph)
          */
-        private transient LinkedList<SyncPoint> fUpperBoundList = new LinkedList<>();
+        private LinkedList<SyncPoint> fUpperBoundList = new LinkedList<>();
         /**
          * The list of meaninful points on the lower hull (sent by the reference
          * trace, above in a graph)
          */
-        private transient LinkedList<SyncPoint> fLowerBoundList = new LinkedList<>();
+        private LinkedList<SyncPoint> fLowerBoundList = new LinkedList<>();
 
         /** Points forming the line with maximum slope */
-        private transient SyncPoint[] fLmax = new SyncPoint[2];
+        private SyncPoint[] fLmax = new SyncPoint[2];
         /** Points forming the line with minimum slope */
-        private transient SyncPoint[] fLmin = new SyncPoint[2];
+        private SyncPoint[] fLmin = new SyncPoint[2];
 
         private transient Map<String, Object> fStats = new LinkedHashMap<>();
 
@@ -525,11 +565,22 @@ public class SyncAlgorithmFullyIncremental extends SynchronizationAlgorithm {
                 throws IOException, ClassNotFoundException {
             stream.defaultReadObject();
 
-            /* Initialize transient fields */
-            fUpperBoundList = new LinkedList<>();
-            fLowerBoundList = new LinkedList<>();
-            fLmax = new SyncPoint[2];
-            fLmin = new SyncPoint[2];
+            /*
+             * Initialize transient fields, and the hull of files saved before
+             * it was serialized
+             */
+            if (fUpperBoundList == null) {
+                fUpperBoundList = new LinkedList<>();
+            }
+            if (fLowerBoundList == null) {
+                fLowerBoundList = new LinkedList<>();
+            }
+            if (fLmax == null) {
+                fLmax = new SyncPoint[2];
+            }
+            if (fLmin == null) {
+                fLmin = new SyncPoint[2];
+            }
             fStats = new LinkedHashMap<>();
         }
 
@@ -552,7 +603,9 @@ public class SyncAlgorithmFullyIncremental extends SynchronizationAlgorithm {
      * is the timestamp of the event from the reference trace while the y axis
      * is the timestamp of the event on the other trace
      */
-    private static class SyncPoint {
+    private static class SyncPoint implements Serializable {
+        private static final long serialVersionUID = -6475932462587930474L;
+
         private final long x;
         private final long y;
 
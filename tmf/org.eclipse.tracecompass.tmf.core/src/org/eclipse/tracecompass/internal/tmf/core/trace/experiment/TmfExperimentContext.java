@@ -15,12 +15,17 @@
 package org.eclipse.tracecompass.internal.tmf.core.trace.experiment;
 
 import java.util.Arrays;
-import java.util.PriorityQueue;
+import java.util.List;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.common.core.collect.LoserTree;
+import org.eclipse.tracecompass.internal.tmf.core.trace.experiment.TmfTracePrefetcher.PrefetchedEvent;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.core.trace.TmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
 
 import com.google.common.annotations.VisibleForTesting;
 
@@ -35,6 +40,10 @@ import com.google.common.annotations.VisibleForTesting;
  * <p>
  * The last trace refers to the trace from which the last event was "consumed"
  * at the experiment level.
+ * <p>
+ * When prefetching is started, each trace context is read ahead by its own
+ * {@link TmfTracePrefetcher} and only the chronological merge is done by the
+ * thread consuming this context.
  */
 public final class TmfExperimentContext extends TmfContext {
 
@@ -47,11 +56,15 @@ public final class TmfExperimentContext extends TmfContext {
         private final int fIndex;
         private final @NonNull ITmfEvent fEvent;
         private final @NonNull ITmfContext fContext;
+        private final @Nullable ITmfLocation fLocation;
+        private final long fRank;
 
-        private ContextTuple(int index, @NonNull ITmfEvent event, @NonNull ITmfContext context) {
+        private ContextTuple(int index, @NonNull ITmfEvent event, @NonNull ITmfContext context, @Nullable ITmfLocation location, long rank) {
             fIndex = index;
             fEvent = event;
             fContext = context;
+            fLocation = location;
+            fRank = rank;
         }
 
         /**
@@ -73,7 +86,9 @@ public final class TmfExperimentContext extends TmfContext {
         }
 
         /**
-         * Getter for the context
+         * Getter for the context. When the context is being prefetched, its
+         * position may be ahead of this tuple's event, use
+         * {@link #getLocation()} and {@link #getRank()} instead.
          *
          * @return this ContextTuple's context field
          */
@@ -81,6 +96,26 @@ public final class TmfExperimentContext extends TmfContext {
             return fContext;
         }
 
+        /**
+         * Getter for the location of the trace context after the current
+         * event was read
+         *
+         * @return this ContextTuple's trace location
+         */
+        public @Nullable ITmfLocation getLocation() {
+            return fLocation;
+        }
+
+        /**
+         * Getter for the rank of the trace context after the current event
+         * was read
+         *
+         * @return this ContextTuple's trace rank
+         */
+        public long getRank() {
+            return fRank;
+        }
+
         @Override
         public int compareTo(ContextTuple o) {
             int timeStampComparison = fEvent.getTimestamp().compareTo(o.fEvent.getTimestamp());
@@ -101,10 +136,17 @@ public final class TmfExperimentContext extends TmfContext {
 
     private final ITmfContext[] fContexts;
     /**
-     * fPriority is a PriorityQueue of initial capacity fContexts.length,
-     * ordered by increasing timestamps of the ContextTuple events.
+     * fPriority is a tournament tree with one slot per trace, ordered by
+     * increasing timestamps of the ContextTuple events. The key is the
+     * timestamp in nanoseconds, equal keys fall back to the full timestamp
+     * comparison.
+     */
+    private final LoserTree<ContextTuple> fPriority;
+    /**
+     * The read-ahead workers of the traces, null if the traces are read by
+     * the consumer thread
      */
-    private final PriorityQueue<ContextTuple> fPriority;
+    private TmfTracePrefetcher @Nullable [] fPrefetchers = null;
 
     // ------------------------------------------------------------------------
     // Constructors
@@ -122,11 +164,21 @@ public final class TmfExperimentContext extends TmfContext {
             throw new IllegalArgumentException("TmfExperimentContext size cannot be negative"); //$NON-NLS-1$
         }
         fContexts = new ITmfContext[nbTraces];
-        fPriority = new PriorityQueue<>(Math.max(1, nbTraces), null);
+        fPriority = new LoserTree<>(nbTraces, ContextTuple::compareTo);
     }
 
     @Override
     public void dispose() {
+        TmfTracePrefetcher[] prefetchers = fPrefetchers;
+        if (prefetchers != null) {
+            /* The workers must be done with the contexts before disposing them */
+            for (TmfTracePrefetcher prefetcher : prefetchers) {
+                if (prefetcher != null) {
+                    prefetcher.cancel();
+                }
+            }
+            fPrefetchers = null;
+        }
         for (ITmfContext context : fContexts) {
             context.dispose();
         }
@@ -150,7 +202,62 @@ public final class TmfExperimentContext extends TmfContext {
     public void setContent(int traceIndex, ITmfContext ctx, ITmfEvent event) {
         fContexts[traceIndex] = ctx;
         if (event != null && ctx != null) {
-            fPriority.add(new ContextTuple(traceIndex, event, ctx));
+            fPriority.set(traceIndex, event.getTimestamp().toNanos(), new ContextTuple(traceIndex, event, ctx, ctx.getLocation(), ctx.getRank()));
+        }
+    }
+
+    /**
+     * Start reading ahead the traces that still have events to read, each on
+     * its own worker thread. From then on, the trace contexts belong to the
+     * workers and the next events must be queued with
+     * {@link #queueNext(int, ITmfTrace)}.
+     *
+     * @param traces
+     *            The traces of the experiment, in the same order as the
+     *            contexts
+     * @param bufferSize
+     *            The maximum number of events read ahead for each trace
+     */
+    public void startPrefetch(List<ITmfTrace> traces, int bufferSize) {
+        if (fPrefetchers != null) {
+            return;
+        }
+        TmfTracePrefetcher[] prefetchers = new TmfTracePrefetcher[fContexts.length];
+        /* Traces without a queued event have reached their end */
+        for (ContextTuple tuple : fPriority) {
+            int index = tuple.getIndex();
+            prefetchers[index] = new TmfTracePrefetcher(traces.get(index), tuple.getContext(), bufferSize);
+        }
+        fPrefetchers = prefetchers;
+        for (TmfTracePrefetcher prefetcher : prefetchers) {
+            if (prefetcher != null) {
+                prefetcher.start();
+            }
+        }
+    }
+
+    /**
+     * Read the next event of a trace and queue it, after the event of that
+     * trace was consumed. The event comes from the trace's prefetcher if
+     * prefetching was started, otherwise it is read from the trace directly.
+     *
+     * @param traceIndex
+     *            The index of the trace in the experiment
+     * @param trace
+     *            The trace at that index
+     */
+    public void queueNext(int traceIndex, ITmfTrace trace) {
+        ITmfContext ctx = fContexts[traceIndex];
+        TmfTracePrefetcher[] prefetchers = fPrefetchers;
+        TmfTracePrefetcher prefetcher = (prefetchers == null) ? null : prefetchers[traceIndex];
+        if (prefetcher == null || ctx == null) {
+            setContent(traceIndex, ctx, (ctx == null) ? null : trace.getNext(ctx));
+            return;
+        }
+        PrefetchedEvent next = prefetcher.take();
+        if (next != null) {
+            ITmfEvent event = next.getEvent();
+            fPriority.set(traceIndex, event.getTimestamp().toNanos(), new ContextTuple(traceIndex, event, ctx, next.getLocation(), next.getRank()));
         }
     }
 
@@ -163,7 +270,7 @@ public final class TmfExperimentContext extends TmfContext {
      *         priority queue.
      */
     public ContextTuple getNext() {
-        return fPriority.poll();
+        return fPriority.removeTop();
     }
 
     /**
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.tmf.core.trace.experiment;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.common.core.collect.BufferedBlockingQueue;
+import org.eclipse.tracecompass.internal.tmf.core.Activator;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
+
+/**
+ * Reads the events of one trace of an experiment ahead of the consumer, on its
+ * own thread, into a bounded buffer.
+ * <p>
+ * The trace context given to the prefetcher belongs to its worker thread until
+ * {@link #cancel()} returns or the end of the trace has been reached. Each
+ * buffered event is stored with the location and rank of the context right
+ * after that event was read, so the consumer can rebuild the experiment
+ * location without touching the context.
+ * <p>
+ * An exception thrown while reading the trace ends the prefetch, and is thrown
+ * again to the consumer by {@link #take()} once the events read before it were
+ * taken.
+ */
+public class TmfTracePrefetcher {
+
+    /**
+     * Number of events put in the queue at once by the worker thread
+     */
+    private static final int CHUNK_SIZE = 64;
+
+    private static final PrefetchedEvent END_EVENT = new PrefetchedEvent(null, null, ITmfContext.UNKNOWN_RANK);
+
+    /**
+     * An event read by the prefetcher, with the position of the trace context
+     * after it
+     */
+    public static final class PrefetchedEvent {
+
+        private final @Nullable ITmfEvent fEvent;
+        private final @Nullable ITmfLocation fLocation;
+        private final long fRank;
+
+        private PrefetchedEvent(@Nullable ITmfEvent event, @Nullable ITmfLocation location, long rank) {
+            fEvent = event;
+            fLocation = location;
+            fRank = rank;
+        }
+
+        /**
+         * Get the event
+         *
+         * @return The event read from the trace
+         */
+        public @NonNull ITmfEvent getEvent() {
+            ITmfEvent event = fEvent;
+            if (event == null) {
+                throw new IllegalStateException("The end marker has no event"); //$NON-NLS-1$
+            }
+            return event;
+        }
+
+        /**
+         * Get the location of the trace context after this event was read
+         *
+         * @return The trace location
+         */
+        public @Nullable ITmfLocation getLocation() {
+            return fLocation;
+        }
+
+        /**
+         * Get the rank of the trace context after this event was read
+         *
+         * @return The trace rank
+         */
+        public long getRank() {
+            return fRank;
+        }
+    }
+
+    private final ITmfTrace fTrace;
+    private final ITmfContext fContext;
+    private final BufferedBlockingQueue<PrefetchedEvent> fQueue;
+    private final Thread fThread;
+
+    private volatile boolean fCancelled = false;
+    /* Written by the worker thread before the end marker is queued */
+    private volatile @Nullable RuntimeException fError = null;
+    /* Only accessed by the consumer thread */
+    private boolean fEndReached = false;
+
+    /**
+     * Constructor. The worker thread is not started until {@link #start()} is
+     * called.
+     *
+     * @param trace
+     *            The trace to read
+     * @param context
+     *            The trace context to read from, already positioned
+     * @param bufferSize
+     *            The maximum number of events read ahead of the consumer
+     */
+    public TmfTracePrefetcher(ITmfTrace trace, ITmfContext context, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize); //$NON-NLS-1$
+        }
+        fTrace = trace;
+        fContext = context;
+        int chunkSize = Math.min(bufferSize, CHUNK_SIZE);
+        fQueue = new BufferedBlockingQueue<>(Math.max(1, bufferSize / chunkSize), chunkSize);
+        fThread = new Thread(this::readEvents, "Experiment prefetch for " + trace.getName()); //$NON-NLS-1$
+        fThread.setDaemon(true);
+    }
+
+    /**
+     * Start reading the trace on the worker thread
+     */
+    public void start() {
+        fThread.start();
+    }
+
+    private void readEvents() {
+        try {
+            ITmfEvent event = fTrace.getNext(fContext);
+            while (event != null && !fCancelled) {
+                fQueue.put(new PrefetchedEvent(event, fContext.getLocation(), fContext.getRank()));
+                event = fTrace.getNext(fContext);
+            }
+        } catch (RuntimeException e) {
+            fError = e;
+        } finally {
+            fQueue.put(END_EVENT);
+            fQueue.flushInputBuffer();
+        }
+    }
+
+    /**
+     * Take the next event read from the trace, waiting for the worker thread
+     * if necessary.
+     *
+     * @return The next event and its position, or <code>null</code> if there
+     *         are no more events in the trace
+     * @throws RuntimeException
+     *             The exception thrown by the trace while reading ahead, once
+     *             all the events read before it were taken
+     */
+    public @Nullable PrefetchedEvent take() {
+        if (fEndReached) {
+            return null;
+        }
+        PrefetchedEvent next = fQueue.take();
+        if (next == END_EVENT) {
+            fEndReached = true;
+            RuntimeException error = fError;
+            if (error != null) {
+                fError = null;
+                throw error;
+            }
+            return null;
+        }
+        return next;
+    }
+
+    /**
+     * Stop the worker thread and wait for it to be done with the trace
+     * context. Must be called from the consumer thread.
+     */
+    public void cancel() {
+        if (fThread.getState() == Thread.State.NEW) {
+            /* The worker was never started */
+            fEndReached = true;
+            return;
+        }
+        fCancelled = true;
+        /* Drain the queue so the worker is not blocked on a full buffer */
+        while (!fEndReached) {
+            if (fQueue.take() == END_EVENT) {
+                fEndReached = true;
+            }
+        }
+        RuntimeException error = fError;
+        if (error != null) {
+            /* The consumer is not interested in the events anymore */
+            Activator.logError("Error reading ahead trace " + fTrace.getName(), error); //$NON-NLS-1$
+            fError = null;
+        }
+        try {
+            fThread.join();
+        } catch (InterruptedException e) {
+            Activator.logError("Interrupted waiting for the prefetch thread of " + fTrace.getName(), e); //$NON-NLS-1$
+            Thread.currentThread().interrupt();
+        }
+    }
+}
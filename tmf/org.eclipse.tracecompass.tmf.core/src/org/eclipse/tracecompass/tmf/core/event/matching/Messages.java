@@ -28,6 +28,8 @@ public class Messages extends NLS {
     public static String TmfEventMatching_LookingEventsFrom;
     public static String TmfEventMatching_MatchesFound;
     public static String TmfEventMatching_MatchingEvents;
+    /** @since 4.3 */
+    public static String TmfEventMatching_MatchingFailed;
     public static String TmfEventMatching_RequestingEventsFrom;
 
     static {
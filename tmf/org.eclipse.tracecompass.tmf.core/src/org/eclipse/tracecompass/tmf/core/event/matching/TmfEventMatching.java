@@ -12,14 +12,24 @@
 
 package org.eclipse.tracecompass.tmf.core.event.matching;
 
+import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
+
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
@@ -29,13 +39,16 @@ import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.tracecompass.internal.tmf.core.Activator;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.event.matching.TmfEventDependency.DependencyEvent;
 import org.eclipse.tracecompass.tmf.core.request.ITmfEventRequest;
 import org.eclipse.tracecompass.tmf.core.request.TmfEventRequest;
+import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 import org.eclipse.tracecompass.tmf.core.trace.experiment.TmfExperiment;
@@ -56,6 +69,12 @@ public class TmfEventMatching implements ITmfEventMatching {
 
     private static final Set<ITmfMatchEventDefinition> MATCH_DEFINITIONS = new HashSet<>();
 
+    /**
+     * Number of events with a key dispatched to the partitions at once, when
+     * matching events in parallel
+     */
+    private static final int BATCH_SIZE = 10000;
+
     /**
      * The array of traces to match
      */
@@ -82,10 +101,13 @@ public class TmfEventMatching implements ITmfEventMatching {
     private final Table<ITmfTrace, IEventMatchingKey, DependencyEvent> fUnmatchedOut = HashBasedTable.create();
 
     /**
-     * Hash tables matching the latest match between 2 hosts (sender, receiver) by
-     * key class
+     * The tables used to match the events one at a time
      */
-    private final Map<Class<? extends IEventMatchingKey>, Table<String, String, TmfEventDependency>> fLastMatches = new HashMap<>();
+    private final MatchingTables fTables = new MatchingTables(fUnmatchedIn, fUnmatchedOut);
+
+    private int fNbPartitions = 1;
+
+    private @Nullable ITmfTimestamp fStartTime = null;
 
     /**
      * Enum for cause and effect types of event
@@ -137,6 +159,57 @@ public class TmfEventMatching implements ITmfEventMatching {
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * Set the number of partitions in which {@link #matchEvents()} matches
+     * the events in parallel. The events are partitioned by the hash of their
+     * key, each partition has its own tables of unmatched events and is
+     * matched on its own thread. The matches are given to the processing unit
+     * in the order of the events. With a single partition, the default, the
+     * events are matched on the thread of the event requests.
+     * <p>
+     * Each partition only cleans up its unmatched events with its own latest
+     * matches, so more unmatched events may be kept than with a single
+     * partition.
+     *
+     * @param nbPartitions
+     *            The number of partitions
+     * @since 4.3
+     */
+    public void setNbPartitions(int nbPartitions) {
+        if (nbPartitions < 1) {
+            throw new IllegalArgumentException("The number of partitions must be positive: " + nbPartitions); //$NON-NLS-1$
+        }
+        fNbPartitions = nbPartitions;
+    }
+
+    /**
+     * Get the number of partitions in which {@link #matchEvents()} matches the
+     * events in parallel
+     *
+     * @return The number of partitions
+     * @since 4.3
+     */
+    public int getNbPartitions() {
+        return fNbPartitions;
+    }
+
+    /**
+     * Set the time from which {@link #matchEvents()} matches the events, to
+     * continue a matching done up to that time with the same processing unit.
+     * The processing unit is then not initialized, so it keeps the matches it
+     * already processed. The unmatched events of the previous matching are
+     * not kept, so the matches of the events before that time with events
+     * after it are lost.
+     *
+     * @param startTime
+     *            The time of the first event to match, or <code>null</code> to
+     *            match all the events
+     * @since 4.3
+     */
+    public void setStartTime(@Nullable ITmfTimestamp startTime) {
+        fStartTime = startTime;
+    }
+
     /**
      * Returns the traces to synchronize. These are the traces that were
      * specified in the constructor, they may contain either traces or
@@ -189,10 +262,11 @@ public class TmfEventMatching implements ITmfEventMatching {
      */
     public void initMatching() {
         // Initialize the matching infrastructure (unmatched event lists)
-        fUnmatchedIn.clear();
-        fUnmatchedOut.clear();
+        fTables.clear();
 
-        fMatches.init(fTraces);
+        if (fStartTime == null) {
+            fMatches.init(fTraces);
+        }
         for (ITmfTrace trace : getIndividualTraces()) {
             for (ITmfMatchEventDefinition def : MATCH_DEFINITIONS) {
                 if (def.canMatchTrace(trace)) {
@@ -241,6 +315,28 @@ public class TmfEventMatching implements ITmfEventMatching {
      * @since 1.0
      */
     public void matchEvent(ITmfEvent event, ITmfTrace trace, @NonNull IProgressMonitor monitor) {
+        KeyedEvent keyedEvent = getKeyedEvent(event, 0);
+        if (keyedEvent == null) {
+            return;
+        }
+        TmfEventDependency dep = fTables.match(keyedEvent);
+        if (dep != null) {
+            getProcessingUnit().addMatch(keyedEvent.fKey, dep);
+            monitor.subTask(NLS.bind(Messages.TmfEventMatching_MatchesFound, getProcessingUnit().countMatches()));
+        }
+    }
+
+    /**
+     * Get the direction and key of an event
+     *
+     * @param event
+     *            The event
+     * @param index
+     *            The index of the event in the matching order
+     * @return The keyed event, or <code>null</code> if the event cannot be
+     *         matched
+     */
+    private @Nullable KeyedEvent getKeyedEvent(ITmfEvent event, long index) {
         ITmfMatchEventDefinition def = null;
         Direction evType = null;
         IEventMatchingKey eventKey = null;
@@ -261,124 +357,346 @@ public class TmfEventMatching implements ITmfEventMatching {
         }
 
         if (def == null || evType == null || eventKey == null) {
-            return;
+            return null;
         }
+        return new KeyedEvent(new DependencyEvent(event), evType, eventKey, index);
+    }
 
-        Table<ITmfTrace, IEventMatchingKey, DependencyEvent> unmatchedTbl, companionTbl;
-
-        /* Point to the appropriate table */
-        switch (evType) {
-        case EFFECT:
-            unmatchedTbl = fUnmatchedIn;
-            companionTbl = fUnmatchedOut;
-            break;
-        case CAUSE:
-            unmatchedTbl = fUnmatchedOut;
-            companionTbl = fUnmatchedIn;
-            break;
-        default:
-            return;
+    /**
+     * An event to match, with its direction and key
+     */
+    private static final class KeyedEvent {
+        private final DependencyEvent fEvent;
+        private final Direction fDirection;
+        private final @NonNull IEventMatchingKey fKey;
+        private final long fIndex;
+
+        public KeyedEvent(DependencyEvent event, Direction direction, @NonNull IEventMatchingKey key, long index) {
+            fEvent = event;
+            fDirection = direction;
+            fKey = key;
+            fIndex = index;
         }
+    }
 
-        TmfEventDependency dep = null;
-        DependencyEvent depEvent = new DependencyEvent(event);
-        /* Search for the event in the companion table */
-        for (ITmfTrace mTrace : getIndividualTraces()) {
-            if (companionTbl.contains(mTrace, eventKey)) {
-                DependencyEvent companionEvent = companionTbl.remove(mTrace, eventKey);
-
-                /* Create the dependency object */
-                switch (evType) {
-                case EFFECT:
-                    dep = new TmfEventDependency(companionEvent, depEvent);
-                    break;
-                case CAUSE:
-                    /*
-                     * If the companionEvent is from the same host, ignore this
-                     * match to respect causality. Put it back in the list, so
-                     * that it is available again for another match.
-                     *
-                     * FIXME: This happens because a packet may go through
-                     * several network interfaces in a machine before being
-                     * finally sent by the physical interface. With virtual
-                     * interfaces, sending and reception are not punctual
-                     * events, but has a duration. We should follow the event
-                     * through all its interfaces and maybe have a virtual event
-                     * to encompass the whole duration. More investigation needed
-                     */
-                    if (!companionEvent.getTrace().getHostId().equals(depEvent.getTrace().getHostId())) {
-                        dep = new TmfEventDependency(depEvent, companionEvent);
-                    } else {
-                        companionTbl.put(mTrace,  eventKey, companionEvent);
-                    }
-                    break;
-                default:
-                    break;
+    /**
+     * A match found by a partition, with the index of the event that completed
+     * it
+     */
+    private static final class PartitionMatch {
+        private final @NonNull IEventMatchingKey fKey;
+        private final @NonNull TmfEventDependency fDependency;
+        private final long fIndex;
+
+        public PartitionMatch(@NonNull IEventMatchingKey key, @NonNull TmfEventDependency dependency, long index) {
+            fKey = key;
+            fDependency = dependency;
+            fIndex = index;
+        }
+    }
 
-                }
-            }
+    /**
+     * The tables of unmatched events and latest matches, either for all the
+     * events or for one partition of the keys
+     */
+    private class MatchingTables {
+
+        private final Table<ITmfTrace, IEventMatchingKey, DependencyEvent> fIn;
+        private final Table<ITmfTrace, IEventMatchingKey, DependencyEvent> fOut;
+
+        /**
+         * Hash tables matching the latest match between 2 hosts (sender,
+         * receiver) by key class
+         */
+        private final Map<Class<? extends IEventMatchingKey>, Table<String, String, TmfEventDependency>> fLastMatches = new HashMap<>();
+
+        public MatchingTables(Table<ITmfTrace, IEventMatchingKey, DependencyEvent> unmatchedIn, Table<ITmfTrace, IEventMatchingKey, DependencyEvent> unmatchedOut) {
+            fIn = unmatchedIn;
+            fOut = unmatchedOut;
         }
 
-        /*
-         * If no companion was found, add the event to the appropriate unMatched
-         * lists
+        public void clear() {
+            fIn.clear();
+            fOut.clear();
+            fLastMatches.clear();
+        }
+
+        /**
+         * Match an event with the unmatched events of the tables, or add it to
+         * the unmatched events
+         *
+         * @return The dependency if a match was found, <code>null</code>
+         *         otherwise
          */
-        if (dep != null) {
-            processDependency(eventKey, dep);
-            monitor.subTask(NLS.bind(Messages.TmfEventMatching_MatchesFound, getProcessingUnit().countMatches()));
-        } else {
+        public @Nullable TmfEventDependency match(KeyedEvent keyedEvent) {
+            Direction evType = keyedEvent.fDirection;
+            IEventMatchingKey eventKey = keyedEvent.fKey;
+            DependencyEvent depEvent = keyedEvent.fEvent;
+
+            Table<ITmfTrace, IEventMatchingKey, DependencyEvent> unmatchedTbl, companionTbl;
+
+            /* Point to the appropriate table */
+            switch (evType) {
+            case EFFECT:
+                unmatchedTbl = fIn;
+                companionTbl = fOut;
+                break;
+            case CAUSE:
+                unmatchedTbl = fOut;
+                companionTbl = fIn;
+                break;
+            default:
+                return null;
+            }
+
+            TmfEventDependency dep = null;
+            /* Search for the event in the companion table */
+            for (ITmfTrace mTrace : getIndividualTraces()) {
+                if (companionTbl.contains(mTrace, eventKey)) {
+                    DependencyEvent companionEvent = companionTbl.remove(mTrace, eventKey);
+
+                    /* Create the dependency object */
+                    switch (evType) {
+                    case EFFECT:
+                        dep = new TmfEventDependency(companionEvent, depEvent);
+                        break;
+                    case CAUSE:
+                        /*
+                         * If the companionEvent is from the same host, ignore
+                         * this match to respect causality. Put it back in the
+                         * list, so that it is available again for another
+                         * match.
+                         *
+                         * FIXME: This happens because a packet may go through
+                         * several network interfaces in a machine before being
+                         * finally sent by the physical interface. With virtual
+                         * interfaces, sending and reception are not punctual
+                         * events, but has a duration. We should follow the
+                         * event through all its interfaces and maybe have a
+                         * virtual event to encompass the whole duration. More
+                         * investigation needed
+                         */
+                        if (!companionEvent.getTrace().getHostId().equals(depEvent.getTrace().getHostId())) {
+                            dep = new TmfEventDependency(depEvent, companionEvent);
+                        } else {
+                            companionTbl.put(mTrace, eventKey, companionEvent);
+                        }
+                        break;
+                    default:
+                        break;
+
+                    }
+                }
+            }
+
             /*
-             * If an event is already associated with this key, do not add it
-             * again, we keep the first event chronologically, so if its match
-             * is eventually found, it is associated with the first send or
-             * receive event. At best, it is a good guess, at worst, the match
-             * will be too far off to be accurate. Too bad!
-             *
-             * TODO: maybe instead of just one event, we could have a list of
-             * events as value for the unmatched table. Not necessary right now
-             * though
+             * If no companion was found, add the event to the appropriate
+             * unMatched lists
              */
-            if (!unmatchedTbl.contains(event.getTrace(), eventKey)) {
-                unmatchedTbl.put(event.getTrace(), eventKey, depEvent);
+            if (dep != null) {
+                recordMatch(eventKey, dep);
+            } else {
+                /*
+                 * If an event is already associated with this key, do not add
+                 * it again, we keep the first event chronologically, so if its
+                 * match is eventually found, it is associated with the first
+                 * send or receive event. At best, it is a good guess, at
+                 * worst, the match will be too far off to be accurate. Too
+                 * bad!
+                 *
+                 * TODO: maybe instead of just one event, we could have a list
+                 * of events as value for the unmatched table. Not necessary
+                 * right now though
+                 */
+                if (!unmatchedTbl.contains(depEvent.getTrace(), eventKey)) {
+                    unmatchedTbl.put(depEvent.getTrace(), eventKey, depEvent);
+                }
             }
+            return dep;
         }
-    }
 
-    private void processDependency(@NonNull IEventMatchingKey eventKey, @NonNull TmfEventDependency dep) {
-        getProcessingUnit().addMatch(eventKey, dep);
-        String sourceHost = dep.getSource().getTrace().getHostId();
-        String destHost = dep.getDestination().getTrace().getHostId();
-        Table<String, String, TmfEventDependency> lastMatches = getLastMatchTable(eventKey);
-        lastMatches.put(sourceHost, destHost, dep);
+        private void recordMatch(@NonNull IEventMatchingKey eventKey, @NonNull TmfEventDependency dep) {
+            String sourceHost = dep.getSource().getTrace().getHostId();
+            String destHost = dep.getDestination().getTrace().getHostId();
+            Table<String, String, TmfEventDependency> lastMatches = fLastMatches.computeIfAbsent(eventKey.getClass(), k -> HashBasedTable.create());
+            lastMatches.put(sourceHost, destHost, dep);
 
-        // Do some cleanup of events waiting to be matched
-        cleanupList(eventKey, lastMatches.row(sourceHost), dep.getSource(), evDep -> evDep.getSource().getTimestamp().toNanos(), fUnmatchedOut);
-        cleanupList(eventKey, lastMatches.column(destHost), dep.getDestination(), evDep -> evDep.getDestination().getTimestamp().toNanos(), fUnmatchedIn);
+            // Do some cleanup of events waiting to be matched
+            cleanupList(eventKey, lastMatches.row(sourceHost), dep.getSource(), evDep -> evDep.getSource().getTimestamp().toNanos(), fOut);
+            cleanupList(eventKey, lastMatches.column(destHost), dep.getDestination(), evDep -> evDep.getDestination().getTimestamp().toNanos(), fIn);
+        }
+
+        private void cleanupList(@NonNull IEventMatchingKey eventKey, Map<String, TmfEventDependency> lastMatches, DependencyEvent lastDep, ToLongFunction<TmfEventDependency> mapToTime, Table<ITmfTrace, IEventMatchingKey, DependencyEvent> toClean) {
+            // Is there a match with all other hosts
+            long otherHosts = lastMatches.keySet().stream().filter(s -> !s.equals(lastDep.getTrace().getHostId())).count();
+            if (otherHosts == fDistinctHosts.size() - 1) {
+                // A match has been found with all hosts, cleanup the previously sent packets for this trace
+                long earliest = lastMatches.values().stream()
+                        .mapToLong(mapToTime)
+                        .min()
+                        .orElse(0L);
+                if (earliest > 0) {
+                    List<IEventMatchingKey> toRemove = new ArrayList<>();
+                    for (Entry<IEventMatchingKey, DependencyEvent> entry : toClean.row(lastDep.getTrace()).entrySet()) {
+                        if (entry.getValue().getTimestamp().toNanos() < earliest && entry.getKey().getClass().isAssignableFrom(eventKey.getClass())) {
+                            toRemove.add(entry.getKey());
+                        }
+                    }
+                    toRemove.forEach(m -> toClean.remove(lastDep.getTrace(), m));
+                }
+            }
+        }
     }
 
-    private Table<String, String, TmfEventDependency> getLastMatchTable(@NonNull IEventMatchingKey eventKey) {
-        return fLastMatches.computeIfAbsent(eventKey.getClass(), k -> HashBasedTable.create());
+    /**
+     * Failure of the matching of a batch of events, which fails the request
+     * that reads the events
+     */
+    private static final class MatchingFailedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public MatchingFailedException(String message, @Nullable Throwable cause) {
+            super(message, cause);
+        }
     }
 
-    private void cleanupList(@NonNull IEventMatchingKey eventKey, Map<String, TmfEventDependency> lastMatches, DependencyEvent lastDep, ToLongFunction<TmfEventDependency> mapToTime, Table<ITmfTrace, IEventMatchingKey, DependencyEvent> toClean) {
-     // Is there a match with all other hosts
-        long otherHosts = lastMatches.keySet().stream().filter(s -> !s.equals(lastDep.getTrace().getHostId())).count();
-        if (otherHosts == fDistinctHosts.size() - 1) {
-            // A match has been found with all hosts, cleanup the previously sent packets for this trace
-            long earliest = lastMatches.values().stream()
-                    .mapToLong(mapToTime)
-                    .min()
-                    .orElse(0L);
-            if (earliest > 0) {
-                List<IEventMatchingKey> toRemove = new ArrayList<>();
-                for (Entry<IEventMatchingKey, DependencyEvent> entry : toClean.row(lastDep.getTrace()).entrySet()) {
-                    if (entry.getValue().getTimestamp().toNanos() < earliest && entry.getKey().getClass().isAssignableFrom(eventKey.getClass())) {
-                        toRemove.add(entry.getKey());
+    /**
+     * Matches the events in partitions by key hash, each partition on its own
+     * thread. The events are dispatched in batches, a batch being matched
+     * while the next one is read. The matches of a batch are given to the
+     * processing unit in the order of the events, before the matches of the
+     * next batch. A batch that fails to be matched fails the next call to
+     * {@link #add} or {@link #finish}.
+     */
+    private class PartitionedMatcher {
+
+        private final MatchingTables[] fPartitions;
+        private final ExecutorService fWorkers;
+        /* Single thread merging the matches of each batch, in batch order */
+        private final ExecutorService fMerger;
+        private final @NonNull IProgressMonitor fMonitor;
+
+        private List<List<KeyedEvent>> fBatch;
+        private int fBatchSize = 0;
+        private long fNextIndex = 0;
+        private @Nullable Future<?> fPending = null;
+
+        public PartitionedMatcher(int nbPartitions, @NonNull IProgressMonitor monitor) {
+            fPartitions = new TmfEventMatching.MatchingTables[nbPartitions];
+            for (int i = 0; i < nbPartitions; i++) {
+                fPartitions[i] = new MatchingTables(HashBasedTable.create(), HashBasedTable.create());
+            }
+            fWorkers = Executors.newFixedThreadPool(nbPartitions);
+            fMerger = Executors.newSingleThreadExecutor();
+            fMonitor = monitor;
+            fBatch = newBatch();
+        }
+
+        private List<List<KeyedEvent>> newBatch() {
+            List<List<KeyedEvent>> batch = new ArrayList<>(fPartitions.length);
+            for (int i = 0; i < fPartitions.length; i++) {
+                batch.add(new ArrayList<>());
+            }
+            return batch;
+        }
+
+        public void add(ITmfEvent event) {
+            KeyedEvent keyedEvent = getKeyedEvent(event, fNextIndex++);
+            if (keyedEvent == null) {
+                return;
+            }
+            int partition = Math.floorMod(keyedEvent.fKey.hashCode(), fPartitions.length);
+            fBatch.get(partition).add(keyedEvent);
+            if (++fBatchSize >= BATCH_SIZE) {
+                submitBatch();
+            }
+        }
+
+        private void submitBatch() {
+            List<List<KeyedEvent>> batch = fBatch;
+            fBatch = newBatch();
+            fBatchSize = 0;
+            /* Wait for the previous batch, to bound the events in memory */
+            waitForPending();
+            fPending = fMerger.submit(() -> {
+                matchBatch(batch);
+                return null;
+            });
+        }
+
+        private void matchBatch(List<List<KeyedEvent>> batch) throws InterruptedException, ExecutionException {
+            List<Callable<List<PartitionMatch>>> tasks = new ArrayList<>();
+            for (int i = 0; i < fPartitions.length; i++) {
+                MatchingTables tables = fPartitions[i];
+                List<KeyedEvent> events = batch.get(i);
+                tasks.add(() -> {
+                    List<PartitionMatch> matches = new ArrayList<>();
+                    for (KeyedEvent keyedEvent : events) {
+                        TmfEventDependency dep = tables.match(keyedEvent);
+                        if (dep != null) {
+                            matches.add(new PartitionMatch(keyedEvent.fKey, dep, keyedEvent.fIndex));
+                        }
                     }
+                    return matches;
+                });
+            }
+            List<PartitionMatch> matches = new ArrayList<>();
+            for (Future<List<PartitionMatch>> result : fWorkers.invokeAll(tasks)) {
+                matches.addAll(result.get());
+            }
+            if (matches.isEmpty()) {
+                return;
+            }
+            matches.sort(Comparator.comparingLong(match -> match.fIndex));
+            for (PartitionMatch match : matches) {
+                getProcessingUnit().addMatch(match.fKey, match.fDependency);
+            }
+            fMonitor.subTask(NLS.bind(Messages.TmfEventMatching_MatchesFound, getProcessingUnit().countMatches()));
+        }
+
+        private void waitForPending() {
+            Future<?> pending = fPending;
+            if (pending == null) {
+                return;
+            }
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MatchingFailedException("Interrupted while matching events", e); //$NON-NLS-1$
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof ExecutionException) {
+                    /* Failure of a partition rather than of the merge */
+                    cause = cause.getCause();
                 }
-                toRemove.forEach(m -> toClean.remove(lastDep.getTrace(), m));
+                throw new MatchingFailedException("Error matching events", cause); //$NON-NLS-1$
+            } finally {
+                fPending = null;
             }
         }
+
+        /**
+         * Match the remaining events and gather the unmatched events of all
+         * the partitions
+         */
+        public void finish() {
+            submitBatch();
+            waitForPending();
+            for (MatchingTables partition : fPartitions) {
+                fUnmatchedIn.putAll(partition.fIn);
+                fUnmatchedOut.putAll(partition.fOut);
+            }
+        }
+
+        /**
+         * Stop the threads, the batch being matched is abandoned if the
+         * matching did not finish
+         */
+        public void dispose() {
+            fWorkers.shutdownNow();
+            fMerger.shutdownNow();
+        }
     }
 
     /**
@@ -402,6 +720,24 @@ public class TmfEventMatching implements ITmfEventMatching {
         Job job = new Job(Messages.TmfEventMatching_MatchingEvents) {
             @Override
             protected IStatus run(final IProgressMonitor monitor) {
+                if (fNbPartitions > 1) {
+                    PartitionedMatcher matcher = new PartitionedMatcher(fNbPartitions, checkNotNull(monitor));
+                    try {
+                        IStatus status = requestEvents(monitor, trace -> matcher::add);
+                        if (status.isOK()) {
+                            matcher.finish();
+                        }
+                        return status;
+                    } catch (MatchingFailedException e) {
+                        return new Status(IStatus.ERROR, Activator.PLUGIN_ID, e.getMessage(), e.getCause());
+                    } finally {
+                        matcher.dispose();
+                    }
+                }
+                return requestEvents(monitor, trace -> event -> matchEvent(event, trace, checkNotNull(monitor)));
+            }
+
+            private IStatus requestEvents(final IProgressMonitor monitor, Function<ITmfTrace, Consumer<ITmfEvent>> matcherForTrace) {
                 /**
                  * FIXME For now, we use the experiment strategy: the trace that
                  * is asked to be matched is actually an experiment and the
@@ -424,12 +760,21 @@ public class TmfEventMatching implements ITmfEventMatching {
                     setName(NLS.bind(Messages.TmfEventMatching_RequestingEventsFrom, trace.getName()));
 
                     /* Send the request to the trace */
-                    EventMatchingBuildRequest request = new EventMatchingBuildRequest(TmfEventMatching.this, trace, monitor);
+                    EventMatchingBuildRequest request = new EventMatchingBuildRequest(matcherForTrace.apply(trace), getTimeRange(), monitor);
                     trace.sendRequest(request);
                     try {
                         request.waitForCompletion();
                     } catch (InterruptedException e) {
                         Activator.logInfo(e.getMessage());
+                        Thread.currentThread().interrupt();
+                        return Status.CANCEL_STATUS;
+                    }
+                    if (request.isFailed()) {
+                        Throwable cause = request.getFailureCause();
+                        if (cause instanceof MatchingFailedException) {
+                            cause = cause.getCause();
+                        }
+                        return new Status(IStatus.ERROR, Activator.PLUGIN_ID, NLS.bind(Messages.TmfEventMatching_MatchingFailed, trace.getName()), cause);
                     }
                     if (monitor.isCanceled()) {
                         return Status.CANCEL_STATUS;
@@ -442,12 +787,18 @@ public class TmfEventMatching implements ITmfEventMatching {
         try {
             job.join();
         } catch (InterruptedException e) {
-
+            Thread.currentThread().interrupt();
         }
 
         finalizeMatching();
 
-        return true;
+        IStatus result = job.getResult();
+        return result != null && result.getSeverity() != IStatus.ERROR;
+    }
+
+    private TmfTimeRange getTimeRange() {
+        ITmfTimestamp startTime = fStartTime;
+        return (startTime == null) ? TmfTimeRange.ETERNITY : new TmfTimeRange(startTime, TmfTimestamp.BIG_CRUNCH);
     }
 
     /**
@@ -460,6 +811,17 @@ public class TmfEventMatching implements ITmfEventMatching {
         MATCH_DEFINITIONS.add(match);
     }
 
+    /**
+     * Unregisters an event match definition
+     *
+     * @param match
+     *            The event matching definition to remove
+     * @since 4.3
+     */
+    public static void unregisterMatchObject(ITmfMatchEventDefinition match) {
+        MATCH_DEFINITIONS.remove(match);
+    }
+
     /**
      * Get the table of unmatched effect events (incoming)
      *
@@ -486,18 +848,16 @@ public class TmfEventMatching implements ITmfEventMatching {
 
 class EventMatchingBuildRequest extends TmfEventRequest {
 
-    private final TmfEventMatching matching;
-    private final ITmfTrace trace;
+    private final Consumer<ITmfEvent> fMatcher;
     private final @NonNull IProgressMonitor fMonitor;
 
-    EventMatchingBuildRequest(TmfEventMatching matching, ITmfTrace trace, IProgressMonitor monitor) {
+    EventMatchingBuildRequest(Consumer<ITmfEvent> matcher, TmfTimeRange range, IProgressMonitor monitor) {
         super(ITmfEvent.class,
-                TmfTimeRange.ETERNITY,
+                range,
                 0,
                 ITmfEventRequest.ALL_DATA,
                 ITmfEventRequest.ExecutionType.FOREGROUND);
-        this.matching = matching;
-        this.trace = trace;
+        fMatcher = matcher;
         if (monitor == null) {
             fMonitor = new NullProgressMonitor();
         } else {
@@ -511,6 +871,6 @@ class EventMatchingBuildRequest extends TmfEventRequest {
         if (fMonitor.isCanceled()) {
             this.cancel();
         }
-        matching.matchEvent(event, trace, fMonitor);
+        fMatcher.accept(event);
     }
 }
@@ -0,0 +1,355 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.core.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * A read-only line reader for text files, which maps the file in memory by
+ * windows. The end of the lines is found by scanning the mapped bytes a word
+ * at a time, and the lines are returned as {@link CharSequence} views over the
+ * mapped buffer. Regular expressions can thus be matched on the lines without
+ * decoding them, and only the parts that are needed, for instance the groups
+ * of a matcher, are decoded when calling {@link CharSequence#toString()}.
+ * <p>
+ * Lines containing non-ASCII bytes are decoded as UTF-8. As with
+ * {@link BufferedRandomAccessFile#getNextLine()}, the returned lines do not
+ * include the line feed, nor the carriage return preceding it. The lines stay
+ * valid after the reader has moved on or has been closed.
+ * <p>
+ * The size of the file is read again when the end of the file is reached, so
+ * the lines appended to a file after it was opened are read too.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @since 4.3
+ */
+public class MappedLineReader implements AutoCloseable {
+
+    private static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+
+    private static final long LINE_FEEDS = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private final FileChannel fChannel;
+    private long fLength;
+    private final int fWindowSize;
+
+    private @Nullable ByteBuffer fWindow = null;
+    private long fWindowStart = 0;
+    private long fPosition = 0;
+    /** Whether the bytes of the last scanned line are all ASCII */
+    private boolean fAscii;
+
+    /**
+     * Constructor using the default window size
+     *
+     * @param file
+     *            The file to read
+     * @throws IOException
+     *             If the file could not be opened
+     */
+    public MappedLineReader(File file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param file
+     *            The file to read
+     * @param windowSize
+     *            The size of the part of the file mapped in memory at a time.
+     *            Lines longer than a window are copied from successive
+     *            windows.
+     * @throws IOException
+     *             If the file could not be opened
+     */
+    public MappedLineReader(File file, int windowSize) throws IOException {
+        if (windowSize < Long.BYTES) {
+            throw new IllegalArgumentException("Window size too small: " + windowSize); //$NON-NLS-1$
+        }
+        fChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        fLength = fChannel.size();
+        fWindowSize = windowSize;
+    }
+
+    /**
+     * Get the current length of the file
+     *
+     * @return The length of the file
+     * @throws IOException
+     *             If the size of the file could not be read
+     */
+    public long length() throws IOException {
+        fLength = fChannel.size();
+        return fLength;
+    }
+
+    /**
+     * Get the offset in the file of the next byte to read
+     *
+     * @return The file position
+     */
+    public long getFilePointer() {
+        return fPosition;
+    }
+
+    /**
+     * Set the offset in the file of the next byte to read
+     *
+     * @param pos
+     *            The file position
+     */
+    public void seek(long pos) {
+        if (pos < 0) {
+            throw new IllegalArgumentException("Negative position: " + pos); //$NON-NLS-1$
+        }
+        fPosition = pos;
+    }
+
+    /**
+     * Read a single byte
+     *
+     * @return The byte, from 0 to 255, or -1 at the end of the file
+     * @throws IOException
+     *             If the file could not be mapped
+     */
+    public int read() throws IOException {
+        if (isEndOfFile(fPosition)) {
+            return -1;
+        }
+        ByteBuffer window = getWindow(fPosition);
+        int b = window.get((int) (fPosition - fWindowStart)) & 0xff;
+        fPosition++;
+        return b;
+    }
+
+    /**
+     * Read the next line. The file position is moved after the line feed.
+     *
+     * @return The line, or null at the end of the file
+     * @throws IOException
+     *             If the file could not be mapped
+     */
+    public @Nullable CharSequence getNextLine() throws IOException {
+        long start = fPosition;
+        if (isEndOfFile(start)) {
+            return null;
+        }
+        ByteBuffer window = getWindow(start);
+        int offset = (int) (start - fWindowStart);
+        int end = indexOfLineFeed(window, offset);
+        if (end < 0 && !isLastWindow(window)) {
+            /*
+             * The line continues in the next window, map from its start. A
+             * window shorter than the window size was mapped before the file
+             * grew, it is mapped again too.
+             */
+            if (offset > 0 || window.limit() < fWindowSize) {
+                window = mapWindow(start);
+                offset = 0;
+                end = indexOfLineFeed(window, 0);
+            }
+            if (end < 0 && !isLastWindow(window)) {
+                return readLongLine(start);
+            }
+        }
+        int lineEnd = (end < 0) ? window.limit() : end;
+        fPosition = fWindowStart + ((end < 0) ? lineEnd : lineEnd + 1);
+        if (lineEnd > offset && window.get(lineEnd - 1) == '\r') {
+            lineEnd--;
+        }
+        return createLine(window, offset, lineEnd, fAscii);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fWindow = null;
+        fChannel.close();
+    }
+
+    // ------------------------------------------------------------------------
+    // Helper methods
+    // ------------------------------------------------------------------------
+
+    private ByteBuffer getWindow(long pos) throws IOException {
+        ByteBuffer window = fWindow;
+        if (window != null && pos >= fWindowStart && pos < fWindowStart + window.limit()) {
+            return window;
+        }
+        return mapWindow(pos);
+    }
+
+    private ByteBuffer mapWindow(long pos) throws IOException {
+        long size = Math.min(fWindowSize, fLength - pos);
+        /* Little endian so that the first byte of a word is the lowest one */
+        ByteBuffer window = fChannel.map(MapMode.READ_ONLY, pos, size).order(ByteOrder.LITTLE_ENDIAN);
+        fWindow = window;
+        fWindowStart = pos;
+        return window;
+    }
+
+    private boolean isLastWindow(ByteBuffer window) throws IOException {
+        return isEndOfFile(fWindowStart + window.limit());
+    }
+
+    /**
+     * Check if a position is at the end of the file. The size of the file is
+     * read again if the position is past the known size, in case the file has
+     * grown.
+     */
+    private boolean isEndOfFile(long pos) throws IOException {
+        if (pos < fLength) {
+            return false;
+        }
+        fLength = fChannel.size();
+        return pos >= fLength;
+    }
+
+    /**
+     * Find the next line feed, eight bytes at a time, and record whether the
+     * bytes before it are all ASCII.
+     *
+     * @return The index of the line feed in the window, or -1 if there is none
+     *         until the end of the window
+     */
+    private int indexOfLineFeed(ByteBuffer window, int from) {
+        int limit = window.limit();
+        long highBits = 0;
+        int i = from;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long word = window.getLong(i);
+            long x = word ^ LINE_FEEDS;
+            /* The lowest byte flagged here is the first line feed */
+            long found = (x - LOW_BITS) & ~x & HIGH_BITS;
+            if (found != 0) {
+                int bits = Long.numberOfTrailingZeros(found) & ~7;
+                highBits |= word & ((1L << bits) - 1);
+                fAscii = (highBits & HIGH_BITS) == 0;
+                return i + (bits >>> 3);
+            }
+            highBits |= word;
+        }
+        for (; i < limit; i++) {
+            byte b = window.get(i);
+            if (b == '\n') {
+                fAscii = (highBits & HIGH_BITS) == 0;
+                return i;
+            }
+            highBits |= (b & 0x80);
+        }
+        fAscii = (highBits & HIGH_BITS) == 0;
+        return -1;
+    }
+
+    /**
+     * Copy a line that does not fit in a window from the successive windows
+     */
+    private CharSequence readLongLine(long start) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long pos = start;
+        boolean ascii = true;
+        while (!isEndOfFile(pos)) {
+            ByteBuffer window = getWindow(pos);
+            int offset = (int) (pos - fWindowStart);
+            int end = indexOfLineFeed(window, offset);
+            ascii &= fAscii;
+            int stop = (end < 0) ? window.limit() : end;
+            byte[] bytes = new byte[stop - offset];
+            ByteBuffer view = window.duplicate();
+            view.position(offset);
+            view.get(bytes);
+            out.write(bytes, 0, bytes.length);
+            pos = fWindowStart + stop;
+            if (end >= 0) {
+                pos++;
+                break;
+            }
+        }
+        fPosition = pos;
+        byte[] line = out.toByteArray();
+        int length = line.length;
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return createLine(ByteBuffer.wrap(line), 0, length, ascii);
+    }
+
+    private static CharSequence createLine(ByteBuffer buffer, int start, int end, boolean ascii) {
+        if (ascii) {
+            return new AsciiLine(buffer, start, end - start);
+        }
+        byte[] bytes = new byte[end - start];
+        ByteBuffer view = buffer.duplicate();
+        view.position(start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A view of ASCII characters in a byte buffer. The buffer is only read
+     * with absolute methods, so it can be shared with the reader.
+     */
+    private static final class AsciiLine implements CharSequence {
+
+        private final ByteBuffer fBuffer;
+        private final int fOffset;
+        private final int fLength;
+
+        public AsciiLine(ByteBuffer buffer, int offset, int length) {
+            fBuffer = buffer;
+            fOffset = offset;
+            fLength = length;
+        }
+
+        @Override
+        public int length() {
+            return fLength;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= fLength) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            return (char) fBuffer.get(fOffset + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > fLength || start > end) {
+                throw new IndexOutOfBoundsException(start + ", " + end); //$NON-NLS-1$
+            }
+            return new AsciiLine(fBuffer, fOffset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[fLength];
+            ByteBuffer view = fBuffer.duplicate();
+            view.position(fOffset);
+            view.get(bytes);
+            /* ASCII is a subset of ISO-8859-1, which is decoded by a copy */
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.core.parsers.custom;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.tmf.core.Activator;
+
+/**
+ * Reads ahead the events of a custom text trace by parsing chunks of its file
+ * concurrently. The file is split at fixed offsets, and each chunk has the
+ * events whose first line starts in it, even if their other lines are in the
+ * next chunk. The events are handed out in file order.
+ * <p>
+ * An event is parsed the same way whatever the position where the parsing
+ * started, so the events of a chunk are valid as long as they start at a
+ * location where the trace expects an event. When the last event of a chunk
+ * extends over the first events found in the next chunk, which can happen
+ * with multi-line definitions, these events do not start at such a location
+ * and {@link #getEvent(long)} returns null until the trace has parsed its way
+ * to an event of the chunk.
+ */
+class CustomTxtChunkReader {
+
+    /** Size of the chunks of the file, in bytes */
+    static final int CHUNK_SIZE = 1 << 20;
+
+    private final CustomTxtTrace fTrace;
+    private final long fLength;
+    private final int fMaxPending;
+    private final ExecutorService fWorkers;
+    private final Deque<Future<ParsedChunk>> fPending = new ArrayDeque<>();
+
+    /** Offset of the next chunk to parse */
+    private long fNextChunk = 0;
+    private @Nullable ParsedChunk fCurrent = null;
+    private int fIndex = 0;
+    private long fNextLocation = -1;
+
+    /**
+     * The events of a chunk, with the location where they start and the
+     * location of the event following each of them
+     */
+    static class ParsedChunk {
+
+        private final long fStart;
+        private final long fEnd;
+        private long[] fLocations = new long[64];
+        private long[] fNext = new long[64];
+        private CustomTxtEvent[] fEvents = new CustomTxtEvent[64];
+        private int fSize = 0;
+
+        /**
+         * Constructor
+         *
+         * @param start
+         *            The offset of the chunk
+         * @param end
+         *            The end offset of the chunk, exclusive
+         */
+        public ParsedChunk(long start, long end) {
+            fStart = start;
+            fEnd = end;
+        }
+
+        /**
+         * Add an event, in file order
+         *
+         * @param location
+         *            The location of the first line of the event
+         * @param event
+         *            The event
+         * @param next
+         *            The location of the next event, -1 at the end of the file
+         */
+        public void add(long location, CustomTxtEvent event, long next) {
+            if (fSize == fEvents.length) {
+                fLocations = Arrays.copyOf(fLocations, fSize * 2);
+                fNext = Arrays.copyOf(fNext, fSize * 2);
+                fEvents = Arrays.copyOf(fEvents, fSize * 2);
+            }
+            fLocations[fSize] = location;
+            fNext[fSize] = next;
+            fEvents[fSize] = event;
+            fSize++;
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param trace
+     *            The trace whose events to read
+     * @param length
+     *            The length of the trace file
+     */
+    public CustomTxtChunkReader(CustomTxtTrace trace, long length) {
+        fTrace = trace;
+        fLength = length;
+        int nbThreads = Runtime.getRuntime().availableProcessors();
+        fMaxPending = 2 * nbThreads;
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(nbThreads, nbThreads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        workers.allowCoreThreadTimeOut(true);
+        fWorkers = workers;
+    }
+
+    /**
+     * Restart reading ahead from a location, discarding the events read so
+     * far
+     *
+     * @param location
+     *            The location of the first line of an event
+     */
+    public void reset(long location) {
+        clear();
+        fNextChunk = location;
+        fill();
+    }
+
+    /**
+     * Get the event starting at a location, if it was read ahead. The chunks
+     * before the location are discarded.
+     *
+     * @param location
+     *            The location of the first line of the event
+     * @return The event, or null if it was not read ahead
+     */
+    public @Nullable CustomTxtEvent getEvent(long location) {
+        while (true) {
+            ParsedChunk chunk = fCurrent;
+            if (chunk != null) {
+                if (location < chunk.fStart) {
+                    return null;
+                }
+                int index = fIndex;
+                if (index >= chunk.fSize || chunk.fLocations[index] != location) {
+                    index = Arrays.binarySearch(chunk.fLocations, 0, chunk.fSize, location);
+                }
+                if (index >= 0) {
+                    fIndex = index + 1;
+                    fNextLocation = chunk.fNext[index];
+                    return chunk.fEvents[index];
+                }
+                if (location < chunk.fEnd) {
+                    return null;
+                }
+            }
+            /* Move on to the next chunk, if the location was submitted */
+            Future<ParsedChunk> next = fPending.peekFirst();
+            if (next == null || location >= fNextChunk) {
+                return null;
+            }
+            fPending.removeFirst();
+            try {
+                fCurrent = next.get();
+                fIndex = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                clear();
+                return null;
+            } catch (ExecutionException e) {
+                Activator.logError("Error reading ahead trace: " + fTrace.getPath(), e); //$NON-NLS-1$
+                clear();
+                return null;
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Get the location of the event following the last event returned by
+     * {@link #getEvent(long)}
+     *
+     * @return The location of the next event, or -1 at the end of the file
+     */
+    public long getNextLocation() {
+        return fNextLocation;
+    }
+
+    /**
+     * Stop reading ahead and release the worker threads
+     */
+    public void dispose() {
+        clear();
+        fWorkers.shutdown();
+    }
+
+    private void fill() {
+        while (fPending.size() < fMaxPending && fNextChunk < fLength) {
+            long start = fNextChunk;
+            long end = Math.min(fLength, start + CHUNK_SIZE);
+            fPending.addLast(fWorkers.submit(() -> fTrace.parseChunk(start, end)));
+            fNextChunk = end;
+        }
+    }
+
+    private void clear() {
+        for (Future<ParsedChunk> pending : fPending) {
+            pending.cancel(false);
+        }
+        fPending.clear();
+        fCurrent = null;
+        fIndex = 0;
+        fNextLocation = -1;
+    }
+}
@@ -16,7 +16,6 @@ package org.eclipse.tracecompass.tmf.core.parsers.custom;
 import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
@@ -30,6 +29,7 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.internal.tmf.core.Activator;
 import org.eclipse.tracecompass.internal.tmf.core.parsers.custom.CustomEventAspects;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
@@ -37,6 +37,7 @@ import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
 import org.eclipse.tracecompass.tmf.core.event.aspect.ITmfEventAspect;
 import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
 import org.eclipse.tracecompass.tmf.core.io.BufferedRandomAccessFile;
+import org.eclipse.tracecompass.tmf.core.io.MappedLineReader;
 import org.eclipse.tracecompass.tmf.core.parsers.custom.CustomTxtTraceDefinition.InputLine;
 import org.eclipse.tracecompass.tmf.core.signal.TmfSignalHandler;
 import org.eclipse.tracecompass.tmf.core.signal.TmfTraceRangeUpdatedSignal;
@@ -66,10 +67,16 @@ public class CustomTxtTrace extends TmfTrace implements ITmfPersistentlyIndexabl
     private static final int DEFAULT_CACHE_SIZE = 100;
     private static final int MAX_LINES = 100;
     private static final int MAX_CONFIDENCE = 100;
+    /** Number of events read in sequence before reading ahead in parallel */
+    private static final int READ_AHEAD_THRESHOLD = 1000;
 
     private final CustomTxtTraceDefinition fDefinition;
     private final ITmfEventField fRootField;
-    private BufferedRandomAccessFile fFile;
+    private MappedLineReader fFile;
+    private @Nullable CustomTxtChunkReader fChunkReader = null;
+    /** Location following the last event read, to detect sequential reads */
+    private long fLastLocation = -1;
+    private int fSequentialEvents = 0;
     private final @NonNull String fTraceTypeId;
 
     private static final char SEPARATOR = ':';
@@ -121,7 +128,7 @@ public class CustomTxtTrace extends TmfTrace implements ITmfPersistentlyIndexabl
     private void initFile() throws TmfTraceException {
         closeFile();
         try {
-            fFile = new BufferedRandomAccessFile(getPath(), "r"); //$NON-NLS-1$
+            fFile = new MappedLineReader(new File(getPath()));
         } catch (IOException e) {
             throw new TmfTraceException(e.getMessage(), e);
         }
@@ -134,6 +141,11 @@ public class CustomTxtTrace extends TmfTrace implements ITmfPersistentlyIndexabl
     }
 
     private void closeFile() {
+        CustomTxtChunkReader chunkReader = fChunkReader;
+        if (chunkReader != null) {
+            chunkReader.dispose();
+            fChunkReader = null;
+        }
         if (fFile != null) {
             try {
                 fFile.close();
@@ -166,26 +178,7 @@ public class CustomTxtTrace extends TmfTrace implements ITmfPersistentlyIndexabl
             } else if (location.getLocationInfo() instanceof Long) {
                 fFile.seek((Long) location.getLocationInfo());
             }
-            long rawPos = fFile.getFilePointer();
-            String line = fFile.getNextLine();
-            while (line != null) {
-                for (final InputLine input : getFirstLines()) {
-                    final Matcher matcher = input.getPattern().matcher(line);
-                    if (matcher.matches()) {
-                        context.setLocation(new TmfLongLocation(rawPos));
-                        context.firstLineMatcher = matcher;
-                        context.firstLine = line;
-                        context.nextLineLocation = fFile.getFilePointer();
-                        context.inputLine = input;
-                        return context;
-                    }
-                }
-                rawPos = fFile.getFilePointer();
-                line = fFile.getNextLine();
-            }
-            return context;
-        } catch (final FileNotFoundException e) {
-            Activator.logError("Error seeking event. File not found: " + getPath(), e); //$NON-NLS-1$
+            seekFirstLine(fFile, context);
             return context;
         } catch (final IOException e) {
             Activator.logError("Error seeking event. File: " + getPath(), e); //$NON-NLS-1$
@@ -194,6 +187,30 @@ public class CustomTxtTrace extends TmfTrace implements ITmfPersistentlyIndexabl
 
     }
 
+    /**
+     * Read the lines from the current position of the reader until one
+     * matches a root input, and set it as the first line of the context
+     */
+    private void seekFirstLine(MappedLineReader reader, CustomTxtTraceContext context) throws IOException {
+        long rawPos = reader.getFilePointer();
+        CharSequence line = reader.getNextLine();
+        while (line != null) {
+            for (final InputLine input : getFirstLines()) {
+                final Matcher matcher = input.getPattern().matcher(line);
+                if (matcher.matches()) {
+                    context.setLocation(new TmfLongLocation(rawPos));
+                    context.firstLineMatcher = matcher;
+                    context.firstLine = line.toString();
+                    context.nextLineLocation = reader.getFilePointer();
+                    context.inputLine = input;
+                    return;
+                }
+            }
+            rawPos = reader.getFilePointer();
+            line = reader.getNextLine();
+        }
+    }
+
     @Override
     public synchronized TmfContext seekEvent(final double ratio) {
         if (fFile == null) {
@@ -248,7 +265,11 @@ public class CustomTxtTrace extends TmfTrace implements ITmfPersistentlyIndexabl
     @Override
     public synchronized CustomTxtEvent getNext(final ITmfContext context) {
         final ITmfContext savedContext = new TmfContext(context.getLocation(), context.getRank());
-        final CustomTxtEvent event = parse(context);
+        CustomTxtEvent event = getReadAheadEvent(context);
+        if (event == null) {
+            event = parse(context);
+            updateReadAhead(getOffset(savedContext.getLocation()), getOffset(context.getLocation()));
+        }
         if (event != null) {
             updateAttributes(savedContext, event);
             context.increaseRank();
@@ -269,7 +290,27 @@ public class CustomTxtTrace extends TmfTrace implements ITmfPersistentlyIndexabl
         if (location == null || !(location.getLocationInfo() instanceof Long) || NULL_LOCATION.equals(location)) {
             return null;
         }
+        if (context.firstLineMatcher == null) {
+            /* The first line was not kept, read it again */
+            try {
+                fFile.seek((Long) location.getLocationInfo());
+                seekFirstLine(fFile, context);
+            } catch (final IOException e) {
+                Activator.logError("Error seeking event. File: " + getPath(), e); //$NON-NLS-1$
+            }
+            if (context.firstLineMatcher == null) {
+                context.setLocation(NULL_LOCATION);
+                return null;
+            }
+        }
+        return parse(fFile, context);
+    }
 
+    /**
+     * Parse the event whose first line is in the context, with the given
+     * reader, and set the context to the first line of the next event
+     */
+    private CustomTxtEvent parse(MappedLineReader reader, CustomTxtTraceContext context) {
         CustomTxtEvent event = parseFirstLine(context);
 
         final HashMap<InputLine, Integer> countMap = new HashMap<>();
@@ -280,11 +321,9 @@ public class CustomTxtTrace extends TmfTrace implements ITmfPersistentlyIndexabl
         }
 
         try {
-            if (fFile.getFilePointer() != context.nextLineLocation) {
-                fFile.seek(context.nextLineLocation);
-            }
-            long rawPos = fFile.getFilePointer();
-            String line = fFile.getNextLine();
+            reader.seek(context.nextLineLocation);
+            long rawPos = reader.getFilePointer();
+            CharSequence line = reader.getNextLine();
             while (line != null) {
                 boolean processed = false;
                 if (currentInput == null) {
@@ -293,8 +332,8 @@ public class CustomTxtTrace extends TmfTrace implements ITmfPersistentlyIndexabl
                         if (matcher.matches()) {
                             context.setLocation(new TmfLongLocation(rawPos));
                             context.firstLineMatcher = matcher;
-                            context.firstLine = line;
-                            context.nextLineLocation = fFile.getFilePointer();
+                            context.firstLine = line.toString();
+                            context.nextLineLocation = reader.getFilePointer();
                             context.inputLine = input;
                             return event;
                         }
@@ -308,8 +347,8 @@ public class CustomTxtTrace extends TmfTrace implements ITmfPersistentlyIndexabl
                                 if (matcher.matches()) {
                                     context.setLocation(new TmfLongLocation(rawPos));
                                     context.firstLineMatcher = matcher;
-                                    context.firstLine = line;
-                                    context.nextLineLocation = fFile.getFilePointer();
+                                    context.firstLine = line.toString();
+                                    context.nextLineLocation = reader.getFilePointer();
                                     context.inputLine = input;
                                     return event;
                                 }
@@ -386,8 +425,8 @@ public class CustomTxtTrace extends TmfTrace implements ITmfPersistentlyIndexabl
                         ((StringBuffer) event.getContentValue()).append("\n").append(line); //$NON-NLS-1$
                     }
                 }
-                rawPos = fFile.getFilePointer();
-                line = fFile.getNextLine();
+                rawPos = reader.getFilePointer();
+                line = reader.getNextLine();
             }
         } catch (final IOException e) {
             Activator.logError("Error seeking event. File: " + getPath(), e); //$NON-NLS-1$
@@ -401,6 +440,122 @@ public class CustomTxtTrace extends TmfTrace implements ITmfPersistentlyIndexabl
         return event;
     }
 
+    /**
+     * Parse the events whose first line starts in a part of the file. The
+     * part is read with its own reader, so that parts can be parsed
+     * concurrently with the reading of the trace.
+     *
+     * @param start
+     *            The offset of the part
+     * @param end
+     *            The end offset of the part, exclusive
+     * @return The parsed events
+     * @throws IOException
+     *             If the file could not be read
+     */
+    CustomTxtChunkReader.ParsedChunk parseChunk(long start, long end) throws IOException {
+        CustomTxtChunkReader.ParsedChunk chunk = new CustomTxtChunkReader.ParsedChunk(start, end);
+        try (MappedLineReader reader = new MappedLineReader(new File(getPath()))) {
+            /* Skip the end of the line before the part */
+            if (start > 0) {
+                reader.seek(start - 1);
+                if (reader.read() != '\n') {
+                    reader.getNextLine();
+                }
+            }
+            CustomTxtTraceContext context = new CustomTxtTraceContext(NULL_LOCATION, ITmfContext.UNKNOWN_RANK);
+            seekFirstLine(reader, context);
+            long location = getOffset(context.getLocation());
+            while (location >= 0 && location < end) {
+                CustomTxtEvent event = parse(reader, context);
+                if (event == null) {
+                    break;
+                }
+                /* Process the fields here rather than in the reading thread */
+                event.getTimestamp();
+                long next = getOffset(context.getLocation());
+                chunk.add(location, event, next);
+                location = next;
+            }
+        }
+        return chunk;
+    }
+
+    private @Nullable CustomTxtEvent getReadAheadEvent(ITmfContext tmfContext) {
+        CustomTxtChunkReader chunkReader = fChunkReader;
+        long location = getOffset(tmfContext.getLocation());
+        if (chunkReader == null || location < 0 || !(tmfContext instanceof CustomTxtTraceContext)) {
+            return null;
+        }
+        CustomTxtEvent event = chunkReader.getEvent(location);
+        if (event != null) {
+            CustomTxtTraceContext context = (CustomTxtTraceContext) tmfContext;
+            fLastLocation = chunkReader.getNextLocation();
+            context.setLocation(fLastLocation < 0 ? NULL_LOCATION : new TmfLongLocation(fLastLocation));
+            /* The first line of the next event is read again if it is parsed */
+            context.firstLineMatcher = null;
+            context.firstLine = null;
+            context.inputLine = null;
+        }
+        return event;
+    }
+
+    /**
+     * Start reading ahead in parallel once enough events have been read in
+     * sequence, as when indexing or running an analysis
+     */
+    private void updateReadAhead(long location, long nextLocation) {
+        if (location < 0 || location != fLastLocation) {
+            fSequentialEvents = 0;
+        } else {
+            fSequentialEvents++;
+        }
+        fLastLocation = nextLocation;
+        if (fSequentialEvents < READ_AHEAD_THRESHOLD || nextLocation < 0) {
+            return;
+        }
+        if (Runtime.getRuntime().availableProcessors() < 2) {
+            return;
+        }
+        long length;
+        try {
+            length = fFile.length();
+        } catch (IOException e) {
+            Activator.logError("Error reading file: " + getPath(), e); //$NON-NLS-1$
+            return;
+        }
+        if (length - nextLocation < 2 * CustomTxtChunkReader.CHUNK_SIZE) {
+            return;
+        }
+        fSequentialEvents = 0;
+        CustomTxtChunkReader chunkReader = fChunkReader;
+        if (chunkReader == null) {
+            /* Initialize the lazy fields before the workers use them */
+            getTimestampTransform();
+            compilePatterns(getFirstLines());
+            chunkReader = new CustomTxtChunkReader(this, length);
+            fChunkReader = chunkReader;
+        }
+        chunkReader.reset(nextLocation);
+    }
+
+    private static void compilePatterns(@Nullable List<InputLine> inputs) {
+        if (inputs == null) {
+            return;
+        }
+        for (InputLine input : inputs) {
+            input.getPattern();
+            compilePatterns(input.childrenInputs);
+        }
+    }
+
+    private static long getOffset(@Nullable ITmfLocation location) {
+        if (location == null || !(location.getLocationInfo() instanceof Long)) {
+            return -1;
+        }
+        return (Long) location.getLocationInfo();
+    }
+
     /**
      * @return The first few lines of the text file
      */
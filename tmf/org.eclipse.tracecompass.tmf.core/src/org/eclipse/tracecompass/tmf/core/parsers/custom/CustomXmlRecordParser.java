@@ -0,0 +1,332 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.core.parsers.custom;
+
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import javax.xml.stream.FactoryConfigurationError;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.tmf.core.parsers.custom.CustomTraceDefinition.Tag;
+
+/**
+ * Streaming parser of the records of a custom XML trace. The input elements
+ * and attributes of the definition are mapped directly onto the events of a
+ * pull parser, without building a DOM tree for each record.
+ * <p>
+ * The text given to the inputs and the order in which they are given to the
+ * event are the same as with {@link CustomXmlTrace#extractEvent}. When the
+ * record cannot be handled here, for instance if it is not well-formed or if
+ * it references entities, the event is left untouched so that the caller can
+ * fall back to the DOM parsing.
+ */
+class CustomXmlRecordParser {
+
+    private static final String REPORT_CDATA_EVENT = "http://java.sun.com/xml/stream/properties/report-cdata-event"; //$NON-NLS-1$
+    private static final String CDATA_PROBE = "<a><![CDATA[b]]></a>"; //$NON-NLS-1$
+
+    private final @Nullable XMLInputFactory fFactory;
+
+    /**
+     * An input of the event, given to the event once the whole record is
+     * parsed. The value of an element input is its text, known at the end of
+     * the element.
+     */
+    private static class Input {
+        private final @Nullable String fEventType;
+        private final @Nullable Tag fTag;
+        private final @Nullable String fName;
+        private final int fAction;
+        private final @Nullable String fFormat;
+        private String fValue;
+
+        public Input(String eventType) {
+            fEventType = eventType;
+            fTag = null;
+            fName = null;
+            fAction = 0;
+            fFormat = null;
+            fValue = ""; //$NON-NLS-1$
+        }
+
+        public Input(String value, Tag tag, String name, int action, String format) {
+            fEventType = null;
+            fTag = tag;
+            fName = name;
+            fAction = action;
+            fFormat = format;
+            fValue = value;
+        }
+
+        public void apply(CustomXmlEvent event) {
+            Tag tag = fTag;
+            String eventType = fEventType;
+            if (tag == null) {
+                if (eventType != null && event.getType() instanceof CustomEventType) {
+                    ((CustomEventType) event.getType()).setName(eventType);
+                }
+                return;
+            }
+            event.parseInput(fValue, tag, fName, fAction, fFormat);
+        }
+    }
+
+    /**
+     * An open element, with the text of its children rendered as in
+     * {@link CustomXmlTrace#parseElement(org.w3c.dom.Element, StringBuffer)}
+     */
+    private static class Frame {
+        private final String fName;
+        private final @Nullable CustomXmlInputElement fInputElement;
+        private final StringBuilder fText = new StringBuilder();
+        private @Nullable Input fTextInput = null;
+        private int fNbChildren = 0;
+        private boolean fHasElement = false;
+        private @Nullable String fFirstText = null;
+        private @Nullable StringBuilder fPendingText = null;
+
+        public Frame(String name, @Nullable CustomXmlInputElement inputElement) {
+            fName = name;
+            fInputElement = inputElement;
+        }
+
+        /** Add a node other than a text node */
+        public void addNode() {
+            flushText();
+            fNbChildren++;
+        }
+
+        /** Add text, which may be split in several parser events */
+        public void addText(String text) {
+            StringBuilder pendingText = fPendingText;
+            if (pendingText == null) {
+                pendingText = new StringBuilder();
+                fPendingText = pendingText;
+            }
+            pendingText.append(text);
+        }
+
+        public void addElement(Frame child) {
+            addNode();
+            if (fHasElement) {
+                fText.append(" | "); //$NON-NLS-1$
+            } else {
+                fHasElement = true;
+            }
+            fText.append(child.fName);
+            String firstText = child.fFirstText;
+            if (child.fNbChildren == 1 && firstText != null) {
+                fText.append(':').append(firstText.trim());
+            } else if (child.fNbChildren > 0) {
+                fText.append(" [ ").append(child.fText).append(" ]"); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        }
+
+        /** Close the text node being read, if any */
+        public void flushText() {
+            StringBuilder pendingText = fPendingText;
+            if (pendingText == null) {
+                return;
+            }
+            fPendingText = null;
+            String text = pendingText.toString();
+            fNbChildren++;
+            if (fNbChildren == 1) {
+                fFirstText = text;
+            }
+            String trimmed = text.trim();
+            if (!trimmed.isEmpty()) {
+                fText.append(trimmed);
+            }
+        }
+    }
+
+    /**
+     * Constructor
+     */
+    public CustomXmlRecordParser() {
+        fFactory = createFactory();
+    }
+
+    /**
+     * Create a pull parser factory, if one can report the nodes of an element
+     * the same way as the DOM parser does.
+     */
+    private static @Nullable XMLInputFactory createFactory() {
+        try {
+            XMLInputFactory factory = XMLInputFactory.newFactory();
+            factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+            if (factory.isPropertySupported(REPORT_CDATA_EVENT)) {
+                factory.setProperty(REPORT_CDATA_EVENT, true);
+            }
+            /* CDATA sections must be separate from the text around them */
+            XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(CDATA_PROBE));
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.CDATA) {
+                        return factory;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | IllegalArgumentException | FactoryConfigurationError e) {
+            /* No suitable pull parser, use the DOM parser */
+        }
+        return null;
+    }
+
+    /**
+     * Parse a record and give the values of its inputs to the event
+     *
+     * @param record
+     *            The text of the record element
+     * @param event
+     *            The event, with an empty content
+     * @param recordInputElement
+     *            The record input element of the definition
+     * @return true if the record was parsed, or false if it must be parsed by
+     *         building its DOM tree. In that case the event is not modified.
+     */
+    public boolean parse(String record, CustomXmlEvent event, CustomXmlInputElement recordInputElement) {
+        XMLInputFactory factory = fFactory;
+        if (factory == null) {
+            return false;
+        }
+        List<Input> inputs = new ArrayList<>();
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(record));
+            try {
+                if (!parse(reader, recordInputElement, inputs)) {
+                    return false;
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            return false;
+        }
+        for (Input input : inputs) {
+            input.apply(event);
+        }
+        return true;
+    }
+
+    private static boolean parse(XMLStreamReader reader, CustomXmlInputElement recordInputElement, List<Input> inputs) throws XMLStreamException {
+        Deque<Frame> stack = new ArrayDeque<>();
+        while (reader.hasNext()) {
+            Frame parent = stack.peek();
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT: {
+                String name = reader.getLocalName();
+                CustomXmlInputElement inputElement = (parent == null) ? recordInputElement : getChildInputElement(parent.fInputElement, name);
+                Frame frame = new Frame(name, inputElement);
+                if (inputElement != null) {
+                    addInputs(reader, inputElement, frame, inputs);
+                }
+                stack.push(frame);
+                break;
+            }
+            case XMLStreamConstants.END_ELEMENT: {
+                Frame frame = stack.pop();
+                frame.flushText();
+                Input textInput = frame.fTextInput;
+                if (textInput != null) {
+                    textInput.fValue = frame.fText.toString();
+                }
+                parent = stack.peek();
+                if (parent == null) {
+                    /* End of the record */
+                    return true;
+                }
+                parent.addElement(frame);
+                break;
+            }
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                if (parent != null) {
+                    parent.addText(reader.getText());
+                }
+                break;
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.COMMENT:
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                if (parent != null) {
+                    parent.addNode();
+                }
+                break;
+            case XMLStreamConstants.START_DOCUMENT:
+            case XMLStreamConstants.END_DOCUMENT:
+                break;
+            default:
+                /* Entity references, DTD, etc. */
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static @Nullable CustomXmlInputElement getChildInputElement(@Nullable CustomXmlInputElement inputElement, String name) {
+        if (inputElement == null || inputElement.getChildElements() == null) {
+            return null;
+        }
+        for (CustomXmlInputElement child : inputElement.getChildElements()) {
+            if (name.equals(child.getElementName())) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static void addInputs(XMLStreamReader reader, CustomXmlInputElement inputElement, Frame frame, List<Input> inputs) {
+        String eventType = inputElement.getEventType();
+        if (eventType != null) {
+            inputs.add(new Input(eventType));
+        }
+        if (!inputElement.getInputTag().equals(Tag.IGNORE)) {
+            Input textInput = new Input("", inputElement.getInputTag(), inputElement.getInputName(), inputElement.getInputAction(), inputElement.getInputFormat()); //$NON-NLS-1$
+            frame.fTextInput = textInput;
+            inputs.add(textInput);
+        }
+        if (inputElement.getAttributes() != null) {
+            for (CustomXmlInputAttribute attribute : inputElement.getAttributes()) {
+                String value = getAttributeValue(reader, attribute.getAttributeName());
+                inputs.add(new Input(value, attribute.getInputTag(), attribute.getInputName(), attribute.getInputAction(), attribute.getInputFormat()));
+            }
+        }
+    }
+
+    /**
+     * Get the value of an attribute by its qualified name, or an empty string
+     * if the element has no such attribute, like
+     * {@link org.w3c.dom.Element#getAttribute(String)}
+     */
+    private static String getAttributeValue(XMLStreamReader reader, String name) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String prefix = reader.getAttributePrefix(i);
+            String localName = reader.getAttributeLocalName(i);
+            String qName = (prefix == null || prefix.isEmpty()) ? localName : prefix + ':' + localName;
+            if (name.equals(qName)) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return ""; //$NON-NLS-1$
+    }
+}
@@ -18,9 +18,8 @@ import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -37,7 +36,7 @@ import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
 import org.eclipse.tracecompass.tmf.core.event.aspect.ITmfEventAspect;
 import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
-import org.eclipse.tracecompass.tmf.core.io.BufferedRandomAccessFile;
+import org.eclipse.tracecompass.tmf.core.io.MappedLineReader;
 import org.eclipse.tracecompass.tmf.core.parsers.custom.CustomTraceDefinition.Tag;
 import org.eclipse.tracecompass.tmf.core.signal.TmfSignalHandler;
 import org.eclipse.tracecompass.tmf.core.signal.TmfTraceRangeUpdatedSignal;
@@ -80,7 +79,8 @@ public class CustomXmlTrace extends TmfTrace implements ITmfPersistentlyIndexabl
     private final CustomXmlTraceDefinition fDefinition;
     private final ITmfEventField fRootField;
     private final CustomXmlInputElement fRecordInputElement;
-    private BufferedRandomAccessFile fFile;
+    private final CustomXmlRecordParser fRecordParser = new CustomXmlRecordParser();
+    private MappedLineReader fFile;
     private final @NonNull String fTraceTypeId;
 
     private static final char SEPARATOR = ':';
@@ -133,7 +133,7 @@ public class CustomXmlTrace extends TmfTrace implements ITmfPersistentlyIndexabl
     private void initFile() throws TmfTraceException {
         closeFile();
         try {
-            fFile = new BufferedRandomAccessFile(getPath(), "r"); //$NON-NLS-1$
+            fFile = new MappedLineReader(new File(getPath()));
         } catch (IOException e) {
             throw new TmfTraceException(e.getMessage(), e);
         }
@@ -179,11 +179,11 @@ public class CustomXmlTrace extends TmfTrace implements ITmfPersistentlyIndexabl
                 fFile.seek((Long) location.getLocationInfo());
             }
             long rawPos = fFile.getFilePointer();
-            String line = fFile.getNextLine();
+            CharSequence line = fFile.getNextLine();
             while (line != null) {
                 final int idx = indexOfElement(fRecordInputElement.getElementName(), line, 0);
                 if (idx != -1) {
-                    context.setLocation(new TmfLongLocation(rawPos + idx));
+                    context.setLocation(new TmfLongLocation(rawPos + getByteOffset(line, idx)));
                     return context;
                 }
                 rawPos = fFile.getFilePointer();
@@ -281,17 +281,21 @@ public class CustomXmlTrace extends TmfTrace implements ITmfPersistentlyIndexabl
             }
             final StringBuffer elementBuffer = new StringBuffer("<"); //$NON-NLS-1$
             readElement(elementBuffer, fFile);
-            final Element element = parseElementBuffer(elementBuffer);
 
-            event = extractEvent(element, fRecordInputElement);
+            event = createEvent();
+            if (!fRecordParser.parse(elementBuffer.toString(), event, fRecordInputElement)) {
+                /* Fall back to the DOM tree of the element */
+                final Element element = parseElementBuffer(elementBuffer);
+                event = extractEvent(element, fRecordInputElement);
+            }
             ((StringBuffer) event.getContentValue()).append(elementBuffer);
 
             long rawPos = fFile.getFilePointer();
-            String line = fFile.getNextLine();
+            CharSequence line = fFile.getNextLine();
             while (line != null) {
                 final int idx = indexOfElement(fRecordInputElement.getElementName(), line, 0);
                 if (idx != -1) {
-                    context.setLocation(new TmfLongLocation(rawPos + idx));
+                    context.setLocation(new TmfLongLocation(rawPos + getByteOffset(line, idx)));
                     return event;
                 }
                 rawPos = fFile.getFilePointer();
@@ -349,9 +353,31 @@ public class CustomXmlTrace extends TmfTrace implements ITmfPersistentlyIndexabl
         return null;
     }
 
-    private static int indexOfElement(String elementName, String line, int fromIndex) {
+    /**
+     * Get the offset in bytes of a character of a line, which was decoded as
+     * UTF-8
+     */
+    private static int getByteOffset(CharSequence line, int index) {
+        return line.subSequence(0, index).toString().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static int indexOf(CharSequence line, String str, int fromIndex) {
+        int last = line.length() - str.length();
+        for (int i = fromIndex; i <= last; i++) {
+            int j = 0;
+            while (j < str.length() && line.charAt(i + j) == str.charAt(j)) {
+                j++;
+            }
+            if (j == str.length()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfElement(String elementName, CharSequence line, int fromIndex) {
         final String recordElementStart = '<' + elementName;
-        int index = line.indexOf(recordElementStart, fromIndex);
+        int index = indexOf(line, recordElementStart, fromIndex);
         if (index == -1) {
             return index;
         }
@@ -366,7 +392,7 @@ public class CustomXmlTrace extends TmfTrace implements ITmfPersistentlyIndexabl
         return index;
     }
 
-    private void readElement(final StringBuffer buffer, final RandomAccessFile raFile) {
+    private void readElement(final StringBuffer buffer, final MappedLineReader raFile) {
         try {
             int numRead = 0;
             boolean startTagClosed = false;
@@ -403,7 +429,7 @@ public class CustomXmlTrace extends TmfTrace implements ITmfPersistentlyIndexabl
     }
 
     private static void readQuote(final StringBuffer buffer,
-            final RandomAccessFile raFile, final char eq) {
+            final MappedLineReader raFile, final char eq) {
         try {
             int i;
             while ((i = raFile.read()) != -1) {
@@ -421,7 +447,7 @@ public class CustomXmlTrace extends TmfTrace implements ITmfPersistentlyIndexabl
     }
 
     private static void readComment(final StringBuffer buffer,
-            final RandomAccessFile raFile) {
+            final MappedLineReader raFile) {
         try {
             int numRead = 0;
             int i;
@@ -513,10 +539,15 @@ public class CustomXmlTrace extends TmfTrace implements ITmfPersistentlyIndexabl
      * @return The extracted event
      */
     public CustomXmlEvent extractEvent(final Element element, final CustomXmlInputElement inputElement) {
+        final CustomXmlEvent event = createEvent();
+        parseElement(element, event, inputElement);
+        return event;
+    }
+
+    private CustomXmlEvent createEvent() {
         CustomXmlEventType eventType = new CustomXmlEventType(checkNotNull(fDefinition.definitionName), fRootField);
         final CustomXmlEvent event = new CustomXmlEvent(fDefinition, this, TmfTimestamp.ZERO, eventType);
         event.setContent(new CustomEventContent(event, new StringBuffer()));
-        parseElement(element, event, inputElement);
         return event;
     }
 
@@ -580,14 +611,14 @@ public class CustomXmlTrace extends TmfTrace implements ITmfPersistentlyIndexabl
             Activator.logError("Error validating file: " + path, e); //$NON-NLS-1$
             return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "IOException validating file: " + path, e); //$NON-NLS-1$
         }
-        try (BufferedRandomAccessFile rafile = new BufferedRandomAccessFile(path, "r")) { //$NON-NLS-1$
+        try (MappedLineReader rafile = new MappedLineReader(file)) {
             int lineCount = 0;
             long rawPos = 0;
-            String line = rafile.getNextLine();
+            CharSequence line = rafile.getNextLine();
             while ((line != null) && (lineCount++ < MAX_LINES)) {
                 final int idx = indexOfElement(fRecordInputElement.getElementName(), line, 0);
                 if (idx != -1) {
-                    rafile.seek(rawPos + idx + 1); // +1 is for the <
+                    rafile.seek(rawPos + getByteOffset(line, idx) + 1); // +1 is for the <
                     final StringBuffer elementBuffer = new StringBuffer("<"); //$NON-NLS-1$
                     readElement(elementBuffer, rafile);
                     final Element element = parseElementBuffer(elementBuffer);
@@ -719,7 +750,6 @@ public class CustomXmlTrace extends TmfTrace implements ITmfPersistentlyIndexabl
     @Override
     public synchronized ITmfTimestamp readEnd() {
         byte[] inputNameBytes = ("<" + fRecordInputElement.getElementName()).getBytes(); //$NON-NLS-1$
-        byte[] testBytes = new byte[inputNameBytes.length];
         try {
             Long pos = fFile.length() - inputNameBytes.length;
             /* Outer loop to find the position of a matcher group. */
@@ -728,8 +758,7 @@ public class CustomXmlTrace extends TmfTrace implements ITmfPersistentlyIndexabl
                 while (pos >= 0) {
                     fFile.seek(pos);
                     /* Make sure we have the right tag. */
-                    fFile.read(testBytes, 0, testBytes.length);
-                    if (Arrays.equals(inputNameBytes, testBytes)) {
+                    if (matchBytes(inputNameBytes)) {
                         break;
                     }
                     pos--;
@@ -754,4 +783,13 @@ public class CustomXmlTrace extends TmfTrace implements ITmfPersistentlyIndexabl
         /* Empty trace */
         return null;
     }
+
+    private boolean matchBytes(byte[] bytes) throws IOException {
+        for (byte b : bytes) {
+            if (fFile.read() != (b & 0xff)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.core.statistics;
+
+import java.util.Arrays;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+
+/**
+ * Event counters of a statistics state provider, indexed by the quark of the
+ * attribute that stores each count.
+ * <p>
+ * The counts are accumulated in primitive counters, owned by the thread of the
+ * state provider, and written to the state system only when the timestamp of
+ * the events changes, once per modified attribute. The state system is thus
+ * not read for every event, and a burst of events at the same timestamp
+ * results in a single update per attribute, while the count at any time
+ * stays exact.
+ * <p>
+ * The counts are not flushed on coarser boundaries, like every N events: the
+ * statistics query the count at any timestamp, so the state system must hold
+ * the count of every distinct timestamp. When all the timestamps are
+ * distinct, there is still one write per event, but no read.
+ */
+final class StatisticsCounters {
+
+    private long[] fCounts = new long[16];
+    private boolean[] fModified = new boolean[16];
+    private int[] fModifiedQuarks = new int[16];
+    private int fNbModified = 0;
+    private long fTime = Long.MIN_VALUE;
+
+    /**
+     * Increment the count of an attribute at a time. The pending counts are
+     * written first if the time is different from the time of the previous
+     * increments.
+     *
+     * @param ss
+     *            The state system builder
+     * @param ts
+     *            The time of the increment
+     * @param quark
+     *            The quark of the count attribute
+     * @param increment
+     *            The value to add to the count
+     */
+    public void increment(@NonNull ITmfStateSystemBuilder ss, long ts, int quark, long increment) {
+        if (ts != fTime) {
+            flush(ss);
+            fTime = ts;
+        }
+        if (quark >= fCounts.length) {
+            int length = Math.max(quark + 1, fCounts.length * 2);
+            fCounts = Arrays.copyOf(fCounts, length);
+            fModified = Arrays.copyOf(fModified, length);
+        }
+        if (!fModified[quark]) {
+            fModified[quark] = true;
+            if (fNbModified == fModifiedQuarks.length) {
+                fModifiedQuarks = Arrays.copyOf(fModifiedQuarks, fNbModified * 2);
+            }
+            fModifiedQuarks[fNbModified++] = quark;
+        }
+        fCounts[quark] += increment;
+    }
+
+    /**
+     * Write the pending counts to the state system
+     *
+     * @param ss
+     *            The state system builder
+     */
+    public void flush(@NonNull ITmfStateSystemBuilder ss) {
+        for (int i = 0; i < fNbModified; i++) {
+            int quark = fModifiedQuarks[i];
+            fModified[quark] = false;
+            /* The counts are stored as integers in the state system */
+            ss.modifyAttribute(fTime, (int) fCounts[quark], quark);
+        }
+        fNbModified = 0;
+    }
+}
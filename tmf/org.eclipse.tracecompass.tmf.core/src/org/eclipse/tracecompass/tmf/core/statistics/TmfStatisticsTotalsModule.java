@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2015 Ericsson
+ * Copyright (c) 2013, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License v1.0 which
@@ -15,10 +15,10 @@ package org.eclipse.tracecompass.tmf.core.statistics;
 import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
 
 import org.eclipse.jdt.annotation.NonNull;
-import org.eclipse.tracecompass.internal.tmf.core.Activator;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.tmf.core.histogram.EventCountIndex;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
-import org.eclipse.tracecompass.statesystem.core.StateSystemBuilderUtils;
-import org.eclipse.tracecompass.statesystem.core.exceptions.AttributeNotFoundException;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.event.ITmfLostEvent;
 import org.eclipse.tracecompass.tmf.core.statesystem.AbstractTmfStateProvider;
@@ -44,6 +44,9 @@ public class TmfStatisticsTotalsModule extends TmfStateSystemAnalysisModule {
 
     private static final @NonNull String NAME = "TMF Statistics, event totals"; //$NON-NLS-1$
 
+    /* The index counted by the last state provider that read the whole trace */
+    private volatile @Nullable EventCountIndex fBuiltIndex = null;
+
     /**
      * Constructor
      */
@@ -63,6 +66,16 @@ public class TmfStatisticsTotalsModule extends TmfStateSystemAnalysisModule {
         return "statistics-totals.ht"; //$NON-NLS-1$
     }
 
+    @Override
+    protected void completingBuild(boolean deleteFiles) {
+        EventCountIndex index = fBuiltIndex;
+        fBuiltIndex = null;
+        ITmfTrace trace = getTrace();
+        /* Only save the index of a build that completed */
+        if (index != null && !deleteFiles && trace != null) {
+            index.save(EventCountIndex.getIndexFile(trace));
+        }
+    }
 
     /**
      * The state provider for traces statistics that use TmfStateStatistics. It
@@ -76,6 +89,10 @@ public class TmfStatisticsTotalsModule extends TmfStateSystemAnalysisModule {
      *   \-- total
      * </pre>
      *
+     * The events are also counted in an {@link EventCountIndex}, saved as a
+     * supplementary file by the module when the build completed, to answer
+     * histogram queries without querying the state system.
+     *
      * @author Alexandre Montplaisir
      * @version 1.0
      */
@@ -87,6 +104,10 @@ public class TmfStatisticsTotalsModule extends TmfStateSystemAnalysisModule {
          */
         private static final int VERSION = 2;
 
+        private final EventCountIndex fIndex = new EventCountIndex();
+        private final StatisticsCounters fCounters = new StatisticsCounters();
+        private int fTotalQuark = ITmfStateSystem.INVALID_ATTRIBUTE;
+
         /**
          * Constructor
         *
@@ -119,15 +140,26 @@ public class TmfStatisticsTotalsModule extends TmfStateSystemAnalysisModule {
             /* Since this can be used for any trace types, normalize all the
              * timestamp values to nanoseconds. */
             final long ts = event.getTimestamp().toNanos();
+            fIndex.addEvent(ts);
 
-            try {
-                /* Total number of events */
-                int quark = ss.getQuarkAbsoluteAndAdd(Attributes.TOTAL);
-                StateSystemBuilderUtils.incrementAttributeInt(ss, ts, quark, 1);
-
-            } catch (AttributeNotFoundException e) {
-                Activator.logError("Get attribute not found exception ", e);  //$NON-NLS-1$
+            /* Total number of events */
+            int quark = fTotalQuark;
+            if (quark == ITmfStateSystem.INVALID_ATTRIBUTE) {
+                quark = ss.getQuarkAbsoluteAndAdd(Attributes.TOTAL);
+                fTotalQuark = quark;
             }
+            fCounters.increment(ss, ts, quark, 1);
+        }
+
+        @Override
+        public void done() {
+            fCounters.flush(checkNotNull(getStateSystemBuilder()));
+            fIndex.finish();
+            /*
+             * This is also called when the build is cancelled, the module only
+             * saves the index if the build completed
+             */
+            fBuiltIndex = fIndex;
         }
     }
 
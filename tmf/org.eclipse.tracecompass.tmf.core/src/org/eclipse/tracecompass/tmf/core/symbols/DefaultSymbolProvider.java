@@ -12,6 +12,7 @@ package org.eclipse.tracecompass.tmf.core.symbols;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 
 /**
@@ -58,4 +59,12 @@ public class DefaultSymbolProvider implements ISymbolProvider {
         return getSymbol(address);
     }
 
+    /**
+     * @since 4.3
+     */
+    @Override
+    public TmfTimeRange getValidityRange(int pid, long timestamp) {
+        return TmfTimeRange.ETERNITY;
+    }
+
 }
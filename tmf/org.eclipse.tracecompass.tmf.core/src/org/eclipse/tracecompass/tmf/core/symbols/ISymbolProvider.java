@@ -11,6 +11,9 @@ package org.eclipse.tracecompass.tmf.core.symbols;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTrace;
 
@@ -72,4 +75,53 @@ public interface ISymbolProvider {
      * @since 3.2
      */
     public @Nullable TmfResolvedSymbol getSymbol(int pid, long timestamp, long address);
+
+    /**
+     * Return the symbols corresponding to many pid/timestamp/address tuples
+     * of a process at once, see {@link #getSymbol(int, long, long)}. The
+     * default implementation resolves the addresses one by one, providers that
+     * can resolve many addresses at a lower cost, for instance with a single
+     * lookup in a symbol table or a single call to an external tool, should
+     * override it.
+     *
+     * @param pid
+     *            The process Id for which to query
+     * @param timestamps
+     *            The timestamp of each query
+     * @param addresses
+     *            The address of each query, the array has the same length as
+     *            the timestamps
+     * @return The symbol of each query, <code>null</code> for the queries
+     *         whose symbol cannot be found
+     * @since 4.3
+     */
+    default @Nullable TmfResolvedSymbol[] getSymbols(int pid, long[] timestamps, long[] addresses) {
+        @Nullable TmfResolvedSymbol[] symbols = new @Nullable TmfResolvedSymbol[addresses.length];
+        for (int i = 0; i < addresses.length; i++) {
+            symbols[i] = getSymbol(pid, timestamps[i], addresses[i]);
+        }
+        return symbols;
+    }
+
+    /**
+     * Get the time range, containing a timestamp, over which this provider
+     * resolves the addresses of a process to the same symbols as at that
+     * timestamp. Callers may reuse the symbols resolved at the timestamp for
+     * the queries of the process in that range, for instance to cache them.
+     * The default implementation returns the timestamp only. Providers whose
+     * symbols do not depend on the time should return
+     * {@link TmfTimeRange#ETERNITY}.
+     *
+     * @param pid
+     *            The process Id
+     * @param timestamp
+     *            The timestamp of the query
+     * @return The range over which the symbols of the process are those at
+     *         the timestamp
+     * @since 4.3
+     */
+    default TmfTimeRange getValidityRange(int pid, long timestamp) {
+        ITmfTimestamp time = TmfTimestamp.fromNanos(timestamp);
+        return new TmfTimeRange(time, time);
+    }
 }
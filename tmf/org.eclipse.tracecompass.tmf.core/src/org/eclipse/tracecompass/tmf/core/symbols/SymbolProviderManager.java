@@ -9,6 +9,7 @@
  * Contributors
  *    Robert Kiss - Initial API and implementation
  *    Mikael Ferland - Support multiple symbol providers for a trace
+ *    Ericsson - Cache the resolved symbols
  *******************************************************************************/
 
 package org.eclipse.tracecompass.tmf.core.symbols;
@@ -17,6 +18,7 @@ import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
@@ -26,9 +28,11 @@ import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.internal.tmf.core.Activator;
+import org.eclipse.tracecompass.internal.tmf.core.symbols.SymbolTextCache;
 import org.eclipse.tracecompass.tmf.core.signal.TmfSignalHandler;
 import org.eclipse.tracecompass.tmf.core.signal.TmfSignalManager;
 import org.eclipse.tracecompass.tmf.core.signal.TmfTraceClosedSignal;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 
@@ -56,10 +60,15 @@ public final class SymbolProviderManager {
     private static final String ATTR_CLASS = "class"; //$NON-NLS-1$
     private static final String ATTR_PRIORITY = "priority"; //$NON-NLS-1$
 
+    /** Process ID of the symbols resolved by address only */
+    private static final int NO_PID = Integer.MIN_VALUE;
+
     private final List<SymbolProviderFactoryWrapper> fProviders;
 
     private final Multimap<ITmfTrace, WeakReference<ISymbolProvider>> fInstances = LinkedHashMultimap.create();
 
+    private final SymbolTextCache fSymbolCache = new SymbolTextCache();
+
     /**
      * Internal class used to store extension point information
      *
@@ -99,6 +108,7 @@ public final class SymbolProviderManager {
             TmfSignalManager.deregister(manager);
             manager.fProviders.clear();
             manager.fInstances.clear();
+            manager.fSymbolCache.clear();
         }
         INSTANCE = null;
     }
@@ -192,6 +202,190 @@ public final class SymbolProviderManager {
         }
     }
 
+    /**
+     * Get the text of the symbol at an address, as resolved by the symbol
+     * providers of a trace, see
+     * {@link SymbolProviderUtils#getSymbolText(Collection, long)}. The symbol
+     * texts are cached by trace and address. The addresses that cannot be
+     * resolved are not cached, their symbols may be available later.
+     *
+     * @param trace
+     *            The trace whose symbol providers resolve the symbol
+     * @param address
+     *            The address of the symbol
+     * @return The string this symbol resolves to, or its hexadecimal
+     *         representation if not found
+     * @since 4.3
+     */
+    public String getSymbolText(ITmfTrace trace, long address) {
+        String text = fSymbolCache.get(trace, NO_PID, 0, address);
+        if (text == null) {
+            TmfResolvedSymbol symbol = SymbolProviderUtils.getSymbol(getSymbolProviders(trace), provider -> provider.getSymbol(address), address);
+            text = SymbolProviderUtils.getSymbolText(symbol, address);
+            if (symbol != null) {
+                fSymbolCache.put(trace, NO_PID, address, Long.MIN_VALUE, Long.MAX_VALUE, text);
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Get the text of the symbol at an address of a process, as resolved by
+     * the symbol providers of a trace, see
+     * {@link SymbolProviderUtils#getSymbolText(Collection, int, long, long)}.
+     * The symbol texts are cached by trace, process and address, for the time
+     * range over which the providers resolve the symbols of the process the
+     * same way, see {@link ISymbolProvider#getValidityRange(int, long)}. The
+     * addresses that cannot be resolved are not cached, their symbols may be
+     * available later.
+     *
+     * @param trace
+     *            The trace whose symbol providers resolve the symbol
+     * @param pid
+     *            The process Id for which to query
+     * @param timestamp
+     *            The timestamp of the query
+     * @param address
+     *            The address of the symbol
+     * @return The string this symbol resolves to, or its hexadecimal
+     *         representation if not found
+     * @since 4.3
+     */
+    public String getSymbolText(ITmfTrace trace, int pid, long timestamp, long address) {
+        String text = fSymbolCache.get(trace, pid, timestamp, address);
+        if (text == null) {
+            Collection<ISymbolProvider> providers = getSymbolProviders(trace);
+            TmfResolvedSymbol symbol = SymbolProviderUtils.getSymbol(providers, provider -> provider.getSymbol(pid, timestamp, address), address);
+            text = SymbolProviderUtils.getSymbolText(symbol, address);
+            if (symbol != null) {
+                long[] range = getValidityRange(providers, pid, timestamp);
+                fSymbolCache.put(trace, pid, address, range[0], range[1], text);
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Get the texts of the symbols of many timestamp/address queries of a
+     * process, like {@link #getSymbolText(ITmfTrace, int, long, long)}. The
+     * queries that are not cached are grouped by validity range, see
+     * {@link ISymbolProvider#getValidityRange(int, long)}, and the distinct
+     * addresses of each group are resolved by each symbol provider in a
+     * single batch, sorted, at the time of the first query of the group.
+     *
+     * @param trace
+     *            The trace whose symbol providers resolve the symbols
+     * @param pid
+     *            The process Id for which to query
+     * @param timestamps
+     *            The timestamp of each query
+     * @param addresses
+     *            The address of each query, the array has the same length as
+     *            the timestamps
+     * @return The string each query resolves to, or the hexadecimal
+     *         representation of its address if not found
+     * @since 4.3
+     */
+    public String[] getSymbolTexts(ITmfTrace trace, int pid, long[] timestamps, long[] addresses) {
+        String[] texts = new String[addresses.length];
+        int[] missing = new int[addresses.length];
+        int nbMissing = 0;
+        for (int i = 0; i < addresses.length; i++) {
+            String text = fSymbolCache.get(trace, pid, timestamps[i], addresses[i]);
+            if (text != null) {
+                texts[i] = text;
+            } else {
+                missing[nbMissing++] = i;
+            }
+        }
+        if (nbMissing == 0) {
+            return texts;
+        }
+        /* The queries that are not cached, by time */
+        int[] queries = Arrays.stream(missing, 0, nbMissing).boxed()
+                .sorted(Comparator.comparingLong(i -> timestamps[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        Collection<ISymbolProvider> providers = getSymbolProviders(trace);
+        int from = 0;
+        while (from < queries.length) {
+            long timestamp = timestamps[queries[from]];
+            long[] range = getValidityRange(providers, pid, timestamp);
+            int to = from + 1;
+            while (to < queries.length && timestamps[queries[to]] <= range[1]) {
+                to++;
+            }
+            resolveSymbolTexts(trace, providers, pid, timestamp, range, Arrays.copyOfRange(queries, from, to), addresses, texts);
+            from = to;
+        }
+        return texts;
+    }
+
+    /*
+     * Resolve the queries of a validity range, each distinct address once,
+     * and cache their texts for the range
+     */
+    private void resolveSymbolTexts(ITmfTrace trace, Collection<ISymbolProvider> providers, int pid, long timestamp, long[] range, int[] queries, long[] addresses, String[] texts) {
+        long[] distinct = new long[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            distinct[i] = addresses[queries[i]];
+        }
+        Arrays.sort(distinct);
+        int nbDistinct = 0;
+        for (int i = 0; i < distinct.length; i++) {
+            if (i == 0 || distinct[i] != distinct[i - 1]) {
+                distinct[nbDistinct++] = distinct[i];
+            }
+        }
+        distinct = Arrays.copyOf(distinct, nbDistinct);
+        long[] distinctTimestamps = new long[nbDistinct];
+        Arrays.fill(distinctTimestamps, timestamp);
+
+        @Nullable TmfResolvedSymbol[] symbols = SymbolProviderUtils.getSymbols(providers, pid, distinctTimestamps, distinct);
+        String[] distinctTexts = new String[nbDistinct];
+        for (int i = 0; i < nbDistinct; i++) {
+            TmfResolvedSymbol symbol = symbols[i];
+            distinctTexts[i] = SymbolProviderUtils.getSymbolText(symbol, distinct[i]);
+            if (symbol != null) {
+                fSymbolCache.put(trace, pid, distinct[i], range[0], range[1], distinctTexts[i]);
+            }
+        }
+        for (int query : queries) {
+            texts[query] = distinctTexts[Arrays.binarySearch(distinct, addresses[query])];
+        }
+    }
+
+    /*
+     * The time range around a timestamp over which all the providers resolve
+     * the symbols of a process the same way, as {start, end}
+     */
+    private static long[] getValidityRange(Collection<ISymbolProvider> providers, int pid, long timestamp) {
+        long start = Long.MIN_VALUE;
+        long end = Long.MAX_VALUE;
+        for (ISymbolProvider provider : providers) {
+            TmfTimeRange range = provider.getValidityRange(pid, timestamp);
+            start = Math.max(start, range.getStartTime().toNanos());
+            end = Math.min(end, range.getEndTime().toNanos());
+        }
+        if (start > timestamp || end < timestamp) {
+            /* A provider gave a range without the timestamp */
+            return new long[] { timestamp, timestamp };
+        }
+        return new long[] { start, end };
+    }
+
+    /**
+     * Remove the cached symbol texts of a trace, for instance after the
+     * configuration of its symbol providers was reloaded
+     *
+     * @param trace
+     *            The trace
+     * @since 4.3
+     */
+    public void clearSymbolCache(ITmfTrace trace) {
+        fSymbolCache.clear(trace);
+    }
+
     /**
      * Signal handler for the traceClosed signal.
      *
@@ -203,6 +397,9 @@ public final class SymbolProviderManager {
     public synchronized void traceClosed(final TmfTraceClosedSignal signal) {
         for (ITmfTrace trace : TmfTraceManager.getTraceSet(signal.getTrace())) {
             fInstances.removeAll(trace);
+            clearSymbolCache(trace);
         }
+        /* The symbols of an experiment are cached with the experiment */
+        clearSymbolCache(signal.getTrace());
     }
 }
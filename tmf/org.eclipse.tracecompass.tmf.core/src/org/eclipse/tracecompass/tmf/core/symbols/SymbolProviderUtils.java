@@ -68,22 +68,82 @@ public final class SymbolProviderUtils {
         return getSymbolText(providers, provider -> provider.getSymbol(pid, timestamp, address), address);
     }
 
-    private static String getSymbolText(Collection<ISymbolProvider> providers, Function<ISymbolProvider, @Nullable TmfResolvedSymbol> func, long address) {
+    /**
+     * Utility method to get the symbol texts of many pid/timestamp/address
+     * tuples of a process from multiple symbol providers. Each provider is
+     * asked for all the queries at once, and for each query, the symbol whose
+     * base address is closest to the requested one is kept.
+     *
+     * @param providers
+     *            The collection of symbol providers to search for the symbols
+     * @param pid
+     *            The process Id for which to query
+     * @param timestamps
+     *            The timestamp of each query
+     * @param addresses
+     *            The address of each query, the array has the same length as
+     *            the timestamps
+     * @return The string each query resolves to, or the hexadecimal
+     *         representation of its address if not found
+     * @since 4.3
+     */
+    public static String[] getSymbolTexts(Collection<ISymbolProvider> providers, int pid, long[] timestamps, long[] addresses) {
+        @Nullable TmfResolvedSymbol[] resolvedSymbols = getSymbols(providers, pid, timestamps, addresses);
+        String[] symbolTexts = new String[addresses.length];
+        for (int i = 0; i < addresses.length; i++) {
+            symbolTexts[i] = getSymbolText(resolvedSymbols[i], addresses[i]);
+        }
+        return symbolTexts;
+    }
+
+    /*
+     * The symbols of many queries, resolved in batch by each provider,
+     * null for the queries that no provider can resolve
+     */
+    static @Nullable TmfResolvedSymbol[] getSymbols(Collection<ISymbolProvider> providers, int pid, long[] timestamps, long[] addresses) {
+        @Nullable TmfResolvedSymbol[] resolvedSymbols = new @Nullable TmfResolvedSymbol[addresses.length];
+        for (ISymbolProvider provider : providers) {
+            @Nullable TmfResolvedSymbol[] currentSymbols = provider.getSymbols(pid, timestamps, addresses);
+            for (int i = 0; i < addresses.length; i++) {
+                resolvedSymbols[i] = closest(resolvedSymbols[i], currentSymbols[i]);
+            }
+        }
+        TraceCompassLogUtils.traceInstant(LOGGER, Level.FINER, "Symbols returned", "pid", pid, "count", addresses.length); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+        return resolvedSymbols;
+    }
+
+    /*
+     * The symbol of an address, as resolved by a function, null if no
+     * provider can resolve it
+     */
+    static @Nullable TmfResolvedSymbol getSymbol(Collection<ISymbolProvider> providers, Function<ISymbolProvider, @Nullable TmfResolvedSymbol> func, long address) {
         TmfResolvedSymbol resolvedSymbol = null;
         for (ISymbolProvider provider : providers) {
             TmfResolvedSymbol currentSymbol = func.apply(provider);
             if (currentSymbol != null) {
                 TraceCompassLogUtils.traceInstant(LOGGER, Level.FINER, "Symbol found", "address", address, "provider", provider, "found symbol", currentSymbol); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$//$NON-NLS-4$
-                if (resolvedSymbol == null) {
-                    resolvedSymbol = currentSymbol;
-                } else {
-                    resolvedSymbol = (Long.compareUnsigned(currentSymbol.getBaseAddress(), resolvedSymbol.getBaseAddress()) >= 0 ? currentSymbol : resolvedSymbol);
-                }
+                resolvedSymbol = closest(resolvedSymbol, currentSymbol);
             }
         }
+        return resolvedSymbol;
+    }
+
+    private static @Nullable TmfResolvedSymbol closest(@Nullable TmfResolvedSymbol resolvedSymbol, @Nullable TmfResolvedSymbol currentSymbol) {
+        if (resolvedSymbol == null || currentSymbol == null) {
+            return (resolvedSymbol == null) ? currentSymbol : resolvedSymbol;
+        }
+        return (Long.compareUnsigned(currentSymbol.getBaseAddress(), resolvedSymbol.getBaseAddress()) >= 0 ? currentSymbol : resolvedSymbol);
+    }
+
+    /* The text of a resolved symbol, or the address if not resolved */
+    static String getSymbolText(@Nullable TmfResolvedSymbol resolvedSymbol, long address) {
         String symbolText = resolvedSymbol != null ? resolvedSymbol.getSymbolName() : "0x" + Long.toHexString(address);//$NON-NLS-1$
         TraceCompassLogUtils.traceInstant(LOGGER, Level.FINER, "Symbol returned", "address", address, "symbolText", symbolText); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
         return symbolText;
     }
 
+    private static String getSymbolText(Collection<ISymbolProvider> providers, Function<ISymbolProvider, @Nullable TmfResolvedSymbol> func, long address) {
+        return getSymbolText(getSymbol(providers, func, address), address);
+    }
+
 }
@@ -13,11 +13,17 @@
 package org.eclipse.tracecompass.tmf.core.synchronization;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.tmf.core.event.matching.TmfEventDependency;
 import org.eclipse.tracecompass.tmf.core.event.matching.TmfEventMatches;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 
 /**
  * Abstract class for synchronization algorithm
@@ -30,6 +36,19 @@ public abstract class SynchronizationAlgorithm extends TmfEventMatches implement
 
     private String fRootNode;
 
+    /**
+     * The hosts of the traces being matched, <code>null</code> for the
+     * algorithms read from files saved before they were recorded
+     */
+    private Set<String> fHosts = null;
+
+    /** The time in nanoseconds of the latest event of the processed matches */
+    private long fLastMatchTime = Long.MIN_VALUE;
+
+    private transient Consumer<SynchronizationAlgorithm> fUpdateListener = null;
+    private transient int fUpdateInterval = 1;
+    private transient int fNbPendingUpdates = 0;
+
     /**
      * Quality of the result obtained by the synchronization algorithm
      */
@@ -57,10 +76,51 @@ public abstract class SynchronizationAlgorithm extends TmfEventMatches implement
         FAIL
     }
 
+    @Override
+    public void init(Collection<ITmfTrace> traces) {
+        super.init(traces);
+        Set<String> hosts = new HashSet<>();
+        for (ITmfTrace trace : traces) {
+            for (ITmfTrace individualTrace : TmfTraceManager.getTraceSet(trace)) {
+                hosts.add(individualTrace.getHostId());
+            }
+        }
+        fHosts = hosts;
+        fLastMatchTime = Long.MIN_VALUE;
+    }
+
     @Override
     public void addMatch(TmfEventDependency match) {
         super.addMatch(match);
         processMatch(match);
+        long matchTime = Math.max(match.getSource().getTimestamp().toNanos(), match.getDestination().getTimestamp().toNanos());
+        fLastMatchTime = Math.max(fLastMatchTime, matchTime);
+        Consumer<SynchronizationAlgorithm> listener = fUpdateListener;
+        if (listener != null && ++fNbPendingUpdates >= fUpdateInterval) {
+            fNbPendingUpdates = 0;
+            listener.accept(this);
+        }
+    }
+
+    /**
+     * Sets a listener to be notified of the intermediate results of the
+     * synchronization while the matches are processed, so that the timestamp
+     * transforms can be used before the end of the matching. The listener is
+     * called from the thread adding the matches.
+     *
+     * @param listener
+     *            The listener, or <code>null</code> to remove it
+     * @param nbMatches
+     *            The number of matches to process between two notifications
+     * @since 4.3
+     */
+    public void setUpdateListener(@Nullable Consumer<SynchronizationAlgorithm> listener, int nbMatches) {
+        if (nbMatches <= 0) {
+            throw new IllegalArgumentException("The number of matches must be positive: " + nbMatches); //$NON-NLS-1$
+        }
+        fUpdateListener = listener;
+        fUpdateInterval = nbMatches;
+        fNbPendingUpdates = 0;
     }
 
     /**
@@ -109,6 +169,26 @@ public abstract class SynchronizationAlgorithm extends TmfEventMatches implement
      */
     public abstract SyncQuality getSynchronizationQuality(ITmfTrace trace1, ITmfTrace trace2);
 
+    /**
+     * Gets a score of the accuracy of the synchronization between two given
+     * traces, that decreases as the synchronization gets more precise. The
+     * scale of the score depends on the algorithm, so it can only be used to
+     * compare the results of a same algorithm, for example the intermediate
+     * results during the matching.
+     *
+     * @param trace1
+     *            First trace
+     * @param trace2
+     *            Second trace
+     * @return The accuracy, {@link Double#POSITIVE_INFINITY} if the
+     *         synchronization is not bounded yet or {@link Double#NaN} if the
+     *         algorithm cannot tell
+     * @since 4.3
+     */
+    public double getSynchronizationAccuracy(ITmfTrace trace1, ITmfTrace trace2) {
+        return Double.NaN;
+    }
+
     /**
      * Returns whether a given trace has a synchronization formula that is not
      * identity. This function returns true if the synchronization algorithm has
@@ -141,4 +221,25 @@ public abstract class SynchronizationAlgorithm extends TmfEventMatches implement
         return fRootNode;
     }
 
+    /**
+     * Returns the hosts of the traces whose events were matched by this
+     * algorithm
+     *
+     * @return The hosts, or <code>null</code> if they are not known
+     */
+    Set<String> getHosts() {
+        return fHosts;
+    }
+
+    /**
+     * Returns the time of the latest event of the matches processed by this
+     * algorithm, after which the matching can continue
+     *
+     * @return The time in nanoseconds, or {@link Long#MIN_VALUE} if there were
+     *         no matches
+     */
+    long getLastMatchTime() {
+        return fLastMatchTime;
+    }
+
 }
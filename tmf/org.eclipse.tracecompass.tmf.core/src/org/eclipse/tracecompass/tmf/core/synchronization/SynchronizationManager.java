@@ -15,13 +15,18 @@ package org.eclipse.tracecompass.tmf.core.synchronization;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.tracecompass.internal.tmf.core.Activator;
 import org.eclipse.tracecompass.tmf.core.component.TmfComponent;
-import org.eclipse.tracecompass.tmf.core.event.matching.ITmfEventMatching;
 import org.eclipse.tracecompass.tmf.core.event.matching.TmfEventMatching;
+import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 
 /**
  * This abstract manager class handles loading trace synchronization data or
@@ -100,6 +105,76 @@ public abstract class SynchronizationManager extends TmfComponent {
         return syncAlgo;
     }
 
+    /**
+     * Function called to synchronize traces with a specific synchronization
+     * algorithm, publishing the intermediate results while the events are
+     * matched.
+     * <p>
+     * If the synchronization file was computed with the same algorithm for the
+     * same hosts, and the timestamps of the traces are not transformed yet,
+     * the matching continues from the state saved in the file: only the events
+     * after its last match are matched, so the synchronization of traces that
+     * grew is updated without matching all their events again. The messages
+     * sent before that match and received after it are not matched, which
+     * only makes the synchronization less accurate. Otherwise, all the events
+     * are matched with the given algorithm.
+     *
+     * @param syncFile
+     *            The target name of the synchronization file. If it exists, it
+     *            will be resumed if possible, the data from this synchro run
+     *            will be saved there
+     * @param traces
+     *            The list of traces to synchronize
+     * @param algo
+     *            A synchronization algorithm object to determine the algorithm
+     *            used to synchronization.
+     * @param listener
+     *            The listener notified of the intermediate results, from the
+     *            thread doing the matching
+     * @param nbMatches
+     *            The number of matches to process between two intermediate
+     *            notifications
+     * @return The synchronization object
+     * @since 4.3
+     */
+    public static SynchronizationAlgorithm synchronizeTraces(final File syncFile,
+            final Collection<@NonNull ITmfTrace> traces, SynchronizationAlgorithm algo,
+            Consumer<SynchronizationAlgorithm> listener, int nbMatches) {
+
+        SynchronizationAlgorithm syncAlgo = algo;
+        ITmfTimestamp startTime = null;
+        SynchronizationAlgorithm existing = openExisting(syncFile);
+        if (existing != null && existing.getClass() == algo.getClass() && canResume(existing, traces)) {
+            syncAlgo = existing;
+            startTime = TmfTimestamp.fromNanos(existing.getLastMatchTime() + 1);
+        }
+
+        syncAlgo.setUpdateListener(listener, nbMatches);
+        try {
+            return synchronize(syncFile, traces, syncAlgo, startTime);
+        } finally {
+            syncAlgo.setUpdateListener(null, nbMatches);
+        }
+    }
+
+    /**
+     * Whether the matching of an existing synchronization can continue with
+     * the events of the traces
+     */
+    private static boolean canResume(SynchronizationAlgorithm existing, final Collection<@NonNull ITmfTrace> traces) {
+        Set<String> hosts = new HashSet<>();
+        for (ITmfTrace trace : traces) {
+            for (ITmfTrace individualTrace : TmfTraceManager.getTraceSet(trace)) {
+                /* The existing hulls are made of timestamps that are not transformed */
+                if (!individualTrace.getTimestampTransform().equals(TimestampTransformFactory.getDefaultTransform())) {
+                    return false;
+                }
+                hosts.add(individualTrace.getHostId());
+            }
+        }
+        return hosts.equals(existing.getHosts()) && existing.getLastMatchTime() < Long.MAX_VALUE;
+    }
+
     private static SynchronizationAlgorithm openExisting(final File syncFile) {
         if ((syncFile != null) && syncFile.exists()) {
             /* Load an existing history */
@@ -121,8 +196,18 @@ public abstract class SynchronizationManager extends TmfComponent {
 
     private static SynchronizationAlgorithm synchronize(final File syncFile,
             final Collection<@NonNull ITmfTrace> traces, SynchronizationAlgorithm syncAlgo) {
-        ITmfEventMatching matching = new TmfEventMatching(traces, syncAlgo);
-        matching.matchEvents();
+        return synchronize(syncFile, traces, syncAlgo, null);
+    }
+
+    private static SynchronizationAlgorithm synchronize(final File syncFile,
+            final Collection<@NonNull ITmfTrace> traces, SynchronizationAlgorithm syncAlgo, ITmfTimestamp startTime) {
+        TmfEventMatching matching = new TmfEventMatching(traces, syncAlgo);
+        matching.setStartTime(startTime);
+        if (!matching.matchEvents()) {
+            /* Do not synchronize, nor save, with the matches of part of the events */
+            Activator.logError("Error while matching the events to synchronize the traces"); //$NON-NLS-1$
+            return SynchronizationAlgorithmFactory.getDefaultAlgorithm();
+        }
 
         SynchronizationBackend syncBackend;
         try {
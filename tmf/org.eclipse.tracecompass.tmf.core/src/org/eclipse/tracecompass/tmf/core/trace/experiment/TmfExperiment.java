@@ -58,6 +58,7 @@ import org.eclipse.tracecompass.tmf.core.signal.TmfTraceRangeUpdatedSignal;
 import org.eclipse.tracecompass.tmf.core.signal.TmfTraceSynchronizedSignal;
 import org.eclipse.tracecompass.tmf.core.synchronization.ITmfTimestampTransform;
 import org.eclipse.tracecompass.tmf.core.synchronization.SynchronizationAlgorithm;
+import org.eclipse.tracecompass.tmf.core.synchronization.SynchronizationAlgorithmFactory;
 import org.eclipse.tracecompass.tmf.core.synchronization.SynchronizationManager;
 import org.eclipse.tracecompass.tmf.core.synchronization.TimestampTransformFactory;
 import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
@@ -117,6 +118,20 @@ public class TmfExperiment extends TmfTrace implements ITmfPersistentlyIndexable
      */
     private static final long CLOCK_OFFSET_THRESHOLD_NS = 500000;
 
+    /**
+     * The default number of events read ahead for each trace when prefetching
+     * is enabled
+     *
+     * @since 4.3
+     */
+    public static final int DEFAULT_PREFETCH_BUFFER_SIZE = 1000;
+
+    /**
+     * The number of matches between two intermediate results broadcast while
+     * the traces are synchronized
+     */
+    private static final int SYNCHRONIZATION_UPDATE_INTERVAL = 10000;
+
     // ------------------------------------------------------------------------
     // Attributes
     // ------------------------------------------------------------------------
@@ -133,6 +148,12 @@ public class TmfExperiment extends TmfTrace implements ITmfPersistentlyIndexable
      */
     private final Lock fSyncLock = new ReentrantLock();
 
+    /**
+     * The number of events read ahead for each trace by event requests, 0 if
+     * the traces are read on the request thread
+     */
+    private volatile int fPrefetchBufferSize = 0;
+
     // ------------------------------------------------------------------------
     // Construction
     // ------------------------------------------------------------------------
@@ -196,6 +217,37 @@ public class TmfExperiment extends TmfTrace implements ITmfPersistentlyIndexable
         super.dispose();
     }
 
+    /**
+     * Set how the traces of this experiment are read by event requests. By
+     * default, each trace is parsed on the request thread when its next event
+     * is needed. With a positive buffer size, each trace is parsed ahead on its
+     * own worker thread into a bounded buffer and the request thread only
+     * merges the events in chronological order. This is worth it for
+     * experiments with many traces, where parsing is the bottleneck.
+     *
+     * @param bufferSize
+     *            The maximum number of events read ahead for each trace, or 0
+     *            to read the traces on the request thread
+     * @since 4.3
+     */
+    public void setPrefetchBufferSize(int bufferSize) {
+        if (bufferSize < 0) {
+            throw new IllegalArgumentException("Prefetch buffer size cannot be negative"); //$NON-NLS-1$
+        }
+        fPrefetchBufferSize = bufferSize;
+    }
+
+    /**
+     * Get the number of events read ahead for each trace by event requests
+     *
+     * @return The prefetch buffer size, 0 if the traces are read on the
+     *         request thread
+     * @since 4.3
+     */
+    public int getPrefetchBufferSize() {
+        return fPrefetchBufferSize;
+    }
+
     // ------------------------------------------------------------------------
     // ITmfTrace - Initializers
     // ------------------------------------------------------------------------
@@ -372,15 +424,24 @@ public class TmfExperiment extends TmfTrace implements ITmfPersistentlyIndexable
             return null;
         }
 
+        final ITmfContext context;
         if (!TmfTimestamp.BIG_BANG.equals(request.getRange().getStartTime())
                 && request.getIndex() == 0) {
-            final ITmfContext context = seekEvent(request.getRange().getStartTime());
+            context = seekEvent(request.getRange().getStartTime());
             request.setStartIndex((int) context.getRank());
-            return context;
-
+        } else {
+            context = seekEvent(request.getIndex());
         }
 
-        return seekEvent(request.getIndex());
+        /*
+         * Small requests are served faster by reading the traces directly than
+         * by starting a worker for each trace
+         */
+        int bufferSize = fPrefetchBufferSize;
+        if (bufferSize > 0 && request.getNbRequested() > bufferSize && context instanceof TmfExperimentContext) {
+            ((TmfExperimentContext) context).startPrefetch(getChildren(ITmfTrace.class), bufferSize);
+        }
+        return context;
     }
 
     // ------------------------------------------------------------------------
@@ -555,14 +616,12 @@ public class TmfExperiment extends TmfTrace implements ITmfPersistentlyIndexable
             ITmfLocation location = experimentContext.getLocation();
             if (location instanceof TmfExperimentLocation) {
                 int trace = next.getIndex();
-                ITmfContext traceContext = next.getContext();
                 TmfLocationArray locationArray = new TmfLocationArray(
                         ((TmfExperimentLocation) location).getLocationInfo(),
-                        trace, traceContext.getLocation(), traceContext.getRank());
+                        trace, next.getLocation(), next.getRank());
                 experimentContext.setLocation(new TmfExperimentLocation(locationArray));
                 // queue the next event
-                ITmfEvent nextEvent = ((ITmfTrace) getChild(trace)).getNext(traceContext);
-                experimentContext.setContent(trace, traceContext, nextEvent);
+                experimentContext.queueNext(trace, (ITmfTrace) getChild(trace));
             }
         }
 
@@ -646,7 +705,11 @@ public class TmfExperiment extends TmfTrace implements ITmfPersistentlyIndexable
     }
 
     /**
-     * Synchronizes the traces of an experiment.
+     * Synchronizes the traces of an experiment. While the traces are
+     * synchronized, the intermediate results are broadcast in
+     * {@link TmfTraceSynchronizedSignal}s before the final one. If the
+     * synchronization file of the experiment can be resumed, only the events
+     * after its last match are matched.
      *
      * @param doSync
      *            Whether to actually synchronize or just try opening a sync
@@ -661,17 +724,14 @@ public class TmfExperiment extends TmfTrace implements ITmfPersistentlyIndexable
 
             final File syncFile = (syncDirectory != null) ? new File(syncDirectory + File.separator + SYNCHRONIZATION_FILE_NAME) : null;
 
-            final SynchronizationAlgorithm syncAlgo = SynchronizationManager.synchronizeTraces(syncFile, Collections.singleton(this), doSync);
-
-            final TmfTraceSynchronizedSignal signal = new TmfTraceSynchronizedSignal(this, syncAlgo);
-
-            /* Broadcast in separate thread to prevent deadlock */
-            new Thread() {
-                @Override
-                public void run() {
-                    broadcast(signal);
-                }
-            }.start();
+            final SynchronizationAlgorithm syncAlgo;
+            if (doSync) {
+                syncAlgo = SynchronizationManager.synchronizeTraces(syncFile, Collections.singleton(this),
+                        SynchronizationAlgorithmFactory.getDefaultAlgorithm(), this::broadcastSynchronized, SYNCHRONIZATION_UPDATE_INTERVAL);
+            } else {
+                syncAlgo = SynchronizationManager.synchronizeTraces(syncFile, Collections.singleton(this), false);
+            }
+            broadcastSynchronized(syncAlgo);
 
             return syncAlgo;
         } finally {
@@ -679,6 +739,18 @@ public class TmfExperiment extends TmfTrace implements ITmfPersistentlyIndexable
         }
     }
 
+    private void broadcastSynchronized(SynchronizationAlgorithm syncAlgo) {
+        final TmfTraceSynchronizedSignal signal = new TmfTraceSynchronizedSignal(this, syncAlgo);
+
+        /* Broadcast in separate thread to prevent deadlock */
+        new Thread() {
+            @Override
+            public void run() {
+                broadcast(signal);
+            }
+        }.start();
+    }
+
     @Override
     @SuppressWarnings("nls")
     public synchronized String toString() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2016 Ericsson
+ * Copyright (c) 2012, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License v1.0 which
@@ -13,6 +13,7 @@
 
 package org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,8 +21,11 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils;
 import org.eclipse.tracecompass.internal.tmf.core.Activator;
@@ -86,11 +90,17 @@ public class TmfCheckpointIndexer implements ITmfTraceIndexer {
     /**
      * The indexing request
      */
-    private ITmfEventRequest fIndexingRequest = null;
+    private volatile ITmfEventRequest fIndexingRequest = null;
+
+    /** The job seeding the index, before the indexing request is sent */
+    private volatile Job fSeedingJob = null;
 
     /** Whether or not the index was built once */
     private boolean fBuiltOnce;
 
+    /** Whether or not this indexer overrides {@link #seedIndex} */
+    private final boolean fSeeds;
+
     // ------------------------------------------------------------------------
     // Construction
     // ------------------------------------------------------------------------
@@ -119,6 +129,19 @@ public class TmfCheckpointIndexer implements ITmfTraceIndexer {
         fCheckpointInterval = interval;
         fTraceIndex = createIndex(trace);
         fIsIndexing = false;
+        fSeeds = overridesSeedIndex(getClass());
+    }
+
+    private static boolean overridesSeedIndex(Class<?> indexerClass) {
+        for (Class<?> cls = indexerClass; cls != null && cls != TmfCheckpointIndexer.class; cls = cls.getSuperclass()) {
+            try {
+                cls.getDeclaredMethod("seedIndex", ITmfCheckpointIndex.class); //$NON-NLS-1$
+                return true;
+            } catch (NoSuchMethodException e) {
+                // Look in the super class
+            }
+        }
+        return false;
     }
 
     /**
@@ -133,10 +156,37 @@ public class TmfCheckpointIndexer implements ITmfTraceIndexer {
         return new TmfMemoryIndex(trace);
     }
 
+    /**
+     * Fill the index of a trace indexed for the first time from a faster
+     * source than reading all its events. It is called in the indexing job,
+     * before any event is read, when the index was created from scratch and is
+     * empty. The checkpoints must be inserted at the interval of this indexer,
+     * and the time range and the number of events of the index must be set.
+     * The events after the last one of the index are then read as for an index
+     * restored from disk.
+     * <p>
+     * The default implementation does nothing, so that all the events are
+     * read. The index is only seeded in the indexing job for the indexers that
+     * override this method.
+     *
+     * @param index
+     *            the empty index to fill
+     * @return true if the index was filled, false if it was left empty
+     * @since 4.3
+     */
+    protected boolean seedIndex(ITmfCheckpointIndex index) {
+        return false;
+    }
+
     @Override
     public void dispose() {
-        if ((fIndexingRequest != null) && !fIndexingRequest.isCompleted()) {
-            fIndexingRequest.cancel();
+        Job seedingJob = fSeedingJob;
+        if (seedingJob != null) {
+            seedingJob.cancel();
+        }
+        ITmfEventRequest request = fIndexingRequest;
+        if ((request != null) && !request.isCompleted()) {
+            request.cancel();
         }
 
         fTraceIndex.dispose();
@@ -158,9 +208,6 @@ public class TmfCheckpointIndexer implements ITmfTraceIndexer {
     @Override
     public void buildIndex(final long offset, final TmfTimeRange range, final boolean waitForCompletion) {
 
-        long indexingOffset = offset;
-        TmfTimeRange indexingTimeRange = range;
-
         // Don't do anything if we are already indexing
         synchronized (fTraceIndex) {
             if (fIsIndexing) {
@@ -169,8 +216,71 @@ public class TmfCheckpointIndexer implements ITmfTraceIndexer {
             fIsIndexing = true;
         }
 
+        boolean firstBuild = !fBuiltOnce;
+        fBuiltOnce = true;
+
+        // The monitoring job
+        TmfIndexingJob job = new TmfIndexingJob("Indexing " + fTrace.getName() + "..."); //$NON-NLS-1$ //$NON-NLS-2$
+        job.setSystem(!firstBuild);
+
+        if (fSeeds && firstBuild && fTraceIndex.isCreatedFromScratch() && fTraceIndex.isEmpty()) {
+            // The job seeds the index, then sends the indexing request
+            job.setSeeding(offset, range);
+            job.addJobChangeListener(new JobChangeAdapter() {
+                @Override
+                public void done(IJobChangeEvent event) {
+                    // Also called when the job is cancelled before it runs
+                    job.seedingDone();
+                }
+            });
+            fSeedingJob = job;
+            job.schedule();
+            if (waitForCompletion) {
+                try {
+                    ITmfEventRequest request = job.waitForRequest();
+                    if (request != null) {
+                        request.waitForCompletion();
+                    }
+                } catch (final InterruptedException e) {
+                }
+            }
+            return;
+        }
+
+        job.schedule();
+        ITmfEventRequest request = sendIndexingRequest(offset, range, firstBuild && !fTraceIndex.isCreatedFromScratch(), job);
+
+        // Wait for completion if required
+        if (waitForCompletion) {
+            try {
+                request.waitForCompletion();
+            } catch (final InterruptedException e) {
+            }
+        }
+    }
+
+    /**
+     * Build a background request for all the trace data. The index is updated
+     * as we go by readNextEvent().
+     *
+     * @param offset
+     *            the index of the first event to index
+     * @param range
+     *            the time range of the events to index
+     * @param restored
+     *            whether the index was restored, in which case the events
+     *            after its last one are read
+     * @param job
+     *            the monitoring job
+     * @return the submitted request
+     */
+    private ITmfEventRequest sendIndexingRequest(final long offset, final TmfTimeRange range, boolean restored, TmfIndexingJob job) {
+
+        long indexingOffset = offset;
+        TmfTimeRange indexingTimeRange = range;
+
         // Restore previously built index values
-        if (!fTraceIndex.isCreatedFromScratch() && !fBuiltOnce && fTraceIndex.getNbEvents() > 0) {
+        if (restored && fTraceIndex.getNbEvents() > 0) {
             indexingOffset = fTraceIndex.getNbEvents();
             indexingTimeRange = new TmfTimeRange(fTraceIndex.getTimeRange().getStartTime(), TmfTimestamp.BIG_CRUNCH);
             TmfCoreTracer.traceIndexer("restoring index. nbEvents: " + fTraceIndex.getNbEvents() + " time range: " + fTraceIndex.getTimeRange()); //$NON-NLS-1$ //$NON-NLS-2$
@@ -181,15 +291,7 @@ public class TmfCheckpointIndexer implements ITmfTraceIndexer {
 
         TmfCoreTracer.traceIndexer("buildIndex. offset: " + indexingOffset + " (requested " + offset + ")" + " time range: " + range); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 
-        // The monitoring job
-        TmfIndexingJob job = new TmfIndexingJob("Indexing " + fTrace.getName() + "..."); //$NON-NLS-1$ //$NON-NLS-2$
-        job.setSystem(fBuiltOnce);
-        fBuiltOnce = true;
-        job.schedule();
-
-        // Build a background request for all the trace data. The index is
-        // updated as we go by readNextEvent().
-        fIndexingRequest = new TmfEventRequest(ITmfEvent.class,
+        ITmfEventRequest request = new TmfEventRequest(ITmfEvent.class,
                 indexingTimeRange, indexingOffset, ITmfEventRequest.ALL_DATA,
                 ITmfEventRequest.ExecutionType.BACKGROUND) {
             @Override
@@ -228,15 +330,11 @@ public class TmfCheckpointIndexer implements ITmfTraceIndexer {
                 }
             }
         };
+        fIndexingRequest = request;
 
-        // Submit the request and wait for completion if required
-        fTrace.sendRequest(fIndexingRequest);
-        if (waitForCompletion) {
-            try {
-                fIndexingRequest.waitForCompletion();
-            } catch (final InterruptedException e) {
-            }
-        }
+        // Submit the request
+        fTrace.sendRequest(request);
+        return request;
     }
 
     /**
@@ -357,14 +455,61 @@ public class TmfCheckpointIndexer implements ITmfTraceIndexer {
     private final class TmfIndexingJob extends Job {
         private Exception fException = null;
         private final ITmfTraceKnownSize fTraceWithSize;
+        private final CountDownLatch fRequestSent = new CountDownLatch(1);
+        private boolean fSeeding = false;
+        private long fOffset;
+        private TmfTimeRange fRange;
+        private volatile @Nullable ITmfEventRequest fRequest = null;
 
         private TmfIndexingJob(String name) {
             super(name);
             fTraceWithSize = (fTrace instanceof ITmfTraceKnownSize) ? (ITmfTraceKnownSize) fTrace : null;
         }
 
+        /**
+         * Seed the index before sending the indexing request, when the job
+         * runs
+         */
+        public void setSeeding(long offset, TmfTimeRange range) {
+            fSeeding = true;
+            fOffset = offset;
+            fRange = range;
+        }
+
+        /**
+         * Wait for the job to send the indexing request after seeding the
+         * index
+         *
+         * @return the request, or null if the job was cancelled first
+         */
+        public @Nullable ITmfEventRequest waitForRequest() throws InterruptedException {
+            fRequestSent.await();
+            return fRequest;
+        }
+
+        /**
+         * Release the waiters of the indexing request once the seeding job is
+         * done, and stop indexing if the request was never sent
+         */
+        private void seedingDone() {
+            if (fRequest == null) {
+                fIsIndexing = false;
+            }
+            fSeedingJob = null;
+            fRequestSent.countDown();
+        }
+
         @Override
         protected IStatus run(final IProgressMonitor monitor) {
+            if (fSeeding) {
+                boolean seeded = seedIndex(fTraceIndex);
+                if (monitor.isCanceled()) {
+                    return Status.CANCEL_STATUS;
+                }
+                fRequest = sendIndexingRequest(fOffset, fRange, seeded, this);
+                // Do not make the waiters wait for the end of the job
+                fRequestSent.countDown();
+            }
             int alreadyDone = 0;
             SubMonitor subMonitor = SubMonitor.convert(monitor);
             if (fTraceWithSize != null) {
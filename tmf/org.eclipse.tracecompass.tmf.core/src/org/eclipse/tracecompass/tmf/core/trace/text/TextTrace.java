@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2015 Ericsson
+ * Copyright (c) 2012, 2019 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License v1.0 which
@@ -31,6 +31,7 @@ import org.eclipse.tracecompass.internal.tmf.core.Activator;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
 import org.eclipse.tracecompass.tmf.core.io.BufferedRandomAccessFile;
+import org.eclipse.tracecompass.tmf.core.io.MappedLineReader;
 import org.eclipse.tracecompass.tmf.core.signal.TmfSignalHandler;
 import org.eclipse.tracecompass.tmf.core.signal.TmfTraceRangeUpdatedSignal;
 import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
@@ -65,9 +66,19 @@ public abstract class TextTrace<T extends TextTraceEvent> extends TmfTrace imple
     /** The default separator used for multi-line fields */
     protected static final String SEPARATOR = " | "; //$NON-NLS-1$
 
-    /** The text file */
+    /**
+     * The text file
+     *
+     * @deprecated The trace reads the file through a {@link MappedLineReader}.
+     *             This handle is only kept open for the extending classes and
+     *             will be removed in the next major version.
+     */
+    @Deprecated
     protected BufferedRandomAccessFile fFile;
 
+    /** The reader of the text file */
+    private MappedLineReader fReader;
+
     /**
      * Constructor
      */
@@ -136,6 +147,7 @@ public abstract class TextTrace<T extends TextTraceEvent> extends TmfTrace imple
         closeFile();
         try {
             fFile = new BufferedRandomAccessFile(getPath(), "r"); //$NON-NLS-1$
+            fReader = new MappedLineReader(new File(getPath()));
         } catch (IOException e) {
             throw new TmfTraceException(e.getMessage(), e);
         }
@@ -156,31 +168,39 @@ public abstract class TextTrace<T extends TextTraceEvent> extends TmfTrace imple
                 fFile = null;
             }
         }
+        if (fReader != null) {
+            try {
+                fReader.close();
+            } catch (IOException e) {
+            } finally {
+                fReader = null;
+            }
+        }
     }
 
     @Override
     public synchronized TextTraceContext seekEvent(ITmfLocation location) {
         TextTraceContext context = new TextTraceContext(NULL_LOCATION, ITmfContext.UNKNOWN_RANK);
-        if (NULL_LOCATION.equals(location) || fFile == null) {
+        if (NULL_LOCATION.equals(location) || fReader == null) {
             return context;
         }
         try {
             if (location == null) {
-                fFile.seek(0);
+                fReader.seek(0);
             } else if (location.getLocationInfo() instanceof Long) {
-                fFile.seek((Long) location.getLocationInfo());
+                fReader.seek((Long) location.getLocationInfo());
             }
-            long rawPos = fFile.getFilePointer();
-            String line = fFile.getNextLine();
-            while (line != null) {
-                line = preProcessLine(line);
+            long rawPos = fReader.getFilePointer();
+            CharSequence text = fReader.getNextLine();
+            while (text != null) {
+                String line = preProcessLine(text.toString());
                 Matcher matcher = getFirstLinePattern().matcher(line);
                 if (matcher.matches()) {
                     setupContext(context, rawPos, line, matcher);
                     return context;
                 }
-                rawPos = fFile.getFilePointer();
-                line = fFile.getNextLine();
+                rawPos = fReader.getFilePointer();
+                text = fReader.getNextLine();
             }
             return context;
         } catch (IOException e) {
@@ -189,23 +209,23 @@ public abstract class TextTrace<T extends TextTraceEvent> extends TmfTrace imple
         }
     }
 
-    private void setupContext(TextTraceContext context, long rawPos, String line, Matcher matcher) throws IOException {
+    private void setupContext(TextTraceContext context, long rawPos, String line, Matcher matcher) {
         context.setLocation(new TmfLongLocation(rawPos));
         context.firstLineMatcher = matcher;
         context.firstLine = line;
-        context.nextLineLocation = fFile.getFilePointer();
+        context.nextLineLocation = fReader.getFilePointer();
     }
 
     @Override
     public synchronized TextTraceContext seekEvent(double ratio) {
-        if (fFile == null) {
+        if (fReader == null) {
             return new TextTraceContext(NULL_LOCATION, ITmfContext.UNKNOWN_RANK);
         }
         try {
-            long pos = Math.round(ratio * fFile.length());
+            long pos = Math.round(ratio * fReader.length());
             while (pos > 0) {
-                fFile.seek(pos - 1);
-                if (fFile.read() == '\n') {
+                fReader.seek(pos - 1);
+                if (fReader.read() == '\n') {
                     break;
                 }
                 pos--;
@@ -222,11 +242,11 @@ public abstract class TextTrace<T extends TextTraceEvent> extends TmfTrace imple
 
     @Override
     public double getLocationRatio(ITmfLocation location) {
-        if (fFile == null) {
+        if (fReader == null) {
             return 0;
         }
         try {
-            long length = fFile.length();
+            long length = fReader.length();
             if (length == 0) {
                 return 0;
             }
@@ -272,7 +292,7 @@ public abstract class TextTrace<T extends TextTraceEvent> extends TmfTrace imple
      * @return the next event or null
      */
     protected synchronized @Nullable T parse(TextTraceContext tmfContext) {
-        if (fFile == null) {
+        if (fReader == null) {
             return null;
         }
         TextTraceContext context = tmfContext;
@@ -284,21 +304,19 @@ public abstract class TextTrace<T extends TextTraceEvent> extends TmfTrace imple
         T event = parseFirstLine(context.firstLineMatcher, context.firstLine);
 
         try {
-            if (fFile.getFilePointer() != context.nextLineLocation) {
-                fFile.seek(context.nextLineLocation);
-            }
-            long rawPos = fFile.getFilePointer();
-            String line = fFile.getNextLine();
-            while (line != null) {
-                line = preProcessLine(line);
+            fReader.seek(context.nextLineLocation);
+            long rawPos = fReader.getFilePointer();
+            CharSequence text = fReader.getNextLine();
+            while (text != null) {
+                String line = preProcessLine(text.toString());
                 Matcher matcher = getFirstLinePattern().matcher(line);
                 if (matcher.matches()) {
                     setupContext(context, rawPos, line, matcher);
                     return event;
                 }
                 parseNextLine(event, line);
-                rawPos = fFile.getFilePointer();
-                line = fFile.getNextLine();
+                rawPos = fReader.getFilePointer();
+                text = fReader.getNextLine();
             }
         } catch (IOException e) {
             Activator.logError("Error reading file: " + getPath(), e); //$NON-NLS-1$
@@ -440,13 +458,13 @@ public abstract class TextTrace<T extends TextTraceEvent> extends TmfTrace imple
     @Override
     public synchronized ITmfTimestamp readEnd() {
         try {
-            Long pos = fFile.length() - 1;
+            Long pos = fReader.length() - 1;
             /* Outer loop to find the first line of a matcher group. */
             while (pos > 0) {
                 /* Inner loop to find line beginning */
                 while (pos > 0) {
-                    fFile.seek(pos - 1);
-                    if (fFile.read() == '\n') {
+                    fReader.seek(pos - 1);
+                    if (fReader.read() == '\n') {
                         break;
                     }
                     pos--;
@@ -134,21 +134,21 @@ public class TmfSynchronizationView extends TmfView {
     }
 
     /**
-     * Handler called when traces are synchronized
+     * Handler called when traces are synchronized. The same synchronization
+     * can be signaled several times with its intermediate results, so the
+     * table is updated at each signal.
      *
      * @param signal
      *            Contains the information about the selection.
      */
     @TmfSignalHandler
     public void traceSynchronized(TmfTraceSynchronizedSignal signal) {
-        if (signal.getSyncAlgo() != fAlgoSync) {
-            fAlgoSync = signal.getSyncAlgo();
-            Display.getDefault().asyncExec(new Runnable() {
-                @Override
-                public void run() {
-                    updateTable();
-                }
-            });
-        }
+        fAlgoSync = signal.getSyncAlgo();
+        Display.getDefault().asyncExec(new Runnable() {
+            @Override
+            public void run() {
+                updateTable();
+            }
+        });
     }
 }